@@ -0,0 +1,122 @@
+package com.pixservice.benchmark;
+
+import com.pixservice.PixWalletServiceApplication;
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.PixKeyType;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ambiente compartilhado pelos benchmarks: sobe um PostgreSQL embarcado e o contexto Spring
+ * da aplicação (sem camada web) uma única vez por JVM de fork do JMH.
+ *
+ * Para medir contra um PostgreSQL já existente, informe {@code -Dbench.db.url},
+ * {@code -Dbench.db.user} e {@code -Dbench.db.password}. Qualquer propriedade Spring pode ser
+ * ajustada via {@code -jvmArgsAppend "-Dspring.datasource.hikari.maximum-pool-size=32"}.
+ */
+public final class BenchmarkEnvironment {
+
+    private static BenchmarkEnvironment instance;
+
+    private final EmbeddedPostgres embeddedPostgres;
+    private final ConfigurableApplicationContext context;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private BenchmarkEnvironment(EmbeddedPostgres embeddedPostgres, ConfigurableApplicationContext context) {
+        this.embeddedPostgres = embeddedPostgres;
+        this.context = context;
+    }
+
+    public static synchronized BenchmarkEnvironment start() {
+        if (instance != null) {
+            return instance;
+        }
+        String url = System.getProperty("bench.db.url");
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "postgres");
+        EmbeddedPostgres postgres = null;
+        if (url == null) {
+            postgres = startEmbeddedPostgres();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PixWalletServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        "--management.cloudwatch.metrics.export.enabled=false",
+                        // Log síncrono no console distorce latência; manter apenas avisos
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.pixservice=WARN",
+                        "--logging.level.com.pixservice.application.service=WARN");
+        instance = new BenchmarkEnvironment(postgres, context);
+        return instance;
+    }
+
+    private static EmbeddedPostgres startEmbeddedPostgres() {
+        try {
+            return EmbeddedPostgres.builder()
+                    .setServerConfig("max_connections", "300")
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao iniciar PostgreSQL embarcado", e);
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Cria {@code count} carteiras com saldo inicial; o userId recebe o id da execução para
+     * permitir reexecuções contra um banco externo sem colisão.
+     */
+    public List<Long> createWallets(String prefix, int count, BigDecimal initialBalance) {
+        WalletService walletService = bean(WalletService.class);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String userId = prefix + "-" + runId + "-" + i;
+            ids.add(walletService.createWallet(new CreateWalletRequest(userId, initialBalance)).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Registra uma chave EVP para cada carteira informada, na mesma ordem.
+     */
+    public List<String> registerPixKeys(List<Long> walletIds) {
+        PixKeyService pixKeyService = bean(PixKeyService.class);
+        List<String> keys = new ArrayList<>(walletIds.size());
+        for (Long walletId : walletIds) {
+            String keyValue = "bench-" + runId + "-" + walletId;
+            pixKeyService.registerPixKey(new RegisterPixKeyRequest(keyValue, PixKeyType.EVP), walletId);
+            keys.add(keyValue);
+        }
+        return keys;
+    }
+
+    public synchronized void stop() {
+        context.close();
+        if (embeddedPostgres != null) {
+            try {
+                embeddedPostgres.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao encerrar PostgreSQL embarcado", e);
+            }
+        }
+        instance = null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.pixservice.benchmark;
+
+import com.pixservice.domain.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de saldo isolada, sem banco: a sequência de um débito (validação do valor, checagem de saldo,
+ * subtração e os três valores do lançamento de ledger) em BigDecimal e em {@link Money}.
+ *
+ * Rodar com {@code -prof gc} para comparar {@code gc.alloc.rate.norm} (bytes/op) além da latência.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    private BigDecimal decimalBalance;
+    private BigDecimal decimalAmount;
+    private Money moneyBalance;
+    private Money moneyAmount;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        decimalBalance = new BigDecimal("1000000000000000.00");
+        decimalAmount = new BigDecimal("12.34");
+        moneyBalance = Money.of(decimalBalance);
+        moneyAmount = Money.of(decimalAmount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalDebit() {
+        if (decimalAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("O valor do saque deve ser positivo.");
+        }
+        if (decimalBalance.compareTo(decimalAmount) < 0) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+        BigDecimal before = decimalBalance;
+        decimalBalance = decimalBalance.subtract(decimalAmount);
+        BigDecimal entryAmount = decimalAmount.negate();
+        return entryAmount.add(before).subtract(decimalBalance);
+    }
+
+    @Benchmark
+    public Money moneyDebit() {
+        if (!moneyAmount.isPositive()) {
+            throw new IllegalArgumentException("O valor do saque deve ser positivo.");
+        }
+        if (moneyBalance.isLessThan(moneyAmount)) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+        Money before = moneyBalance;
+        moneyBalance = moneyBalance.minus(moneyAmount);
+        Money entryAmount = moneyAmount.negate();
+        return entryAmount.plus(before).minus(moneyBalance);
+    }
+}
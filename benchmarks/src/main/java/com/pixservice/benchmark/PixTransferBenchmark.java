@@ -0,0 +1,117 @@
+package com.pixservice.benchmark;
+
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.service.PixTransferService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caminho completo de {@link PixTransferService#transfer}: idempotência, resolução da chave,
+ * lock da carteira de origem, débito, ledger, transação e evento INITIATED.
+ *
+ * Cenários:
+ * <ul>
+ *   <li>{@code DISTINCT_WALLETS}: cada thread debita um subconjunto próprio de carteiras (sem contenção de lock);</li>
+ *   <li>{@code HOT_SOURCE}: todas as threads debitam a mesma carteira (lock de linha serializa tudo);</li>
+ *   <li>{@code REPLAY_50}: metade das chamadas reenvia uma Idempotency-Key já processada pela thread.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+public class PixTransferBenchmark {
+
+    public enum Scenario { DISTINCT_WALLETS, HOT_SOURCE, REPLAY_50 }
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal SOURCE_BALANCE = new BigDecimal("1000000000.00");
+    private static final int REPLAY_WINDOW = 256;
+
+    @Param({"DISTINCT_WALLETS", "HOT_SOURCE", "REPLAY_50"})
+    public Scenario scenario;
+
+    @Param("64")
+    public int walletCount;
+
+    private BenchmarkEnvironment environment;
+    private PixTransferService pixTransferService;
+    private List<Long> sourceWallets;
+    private List<String> destinationKeys;
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        pixTransferService = environment.bean(PixTransferService.class);
+        sourceWallets = environment.createWallets("bench-src", walletCount, SOURCE_BALANCE);
+        destinationKeys = environment.registerPixKeys(
+                environment.createWallets("bench-dst", walletCount, BigDecimal.ZERO));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        int index;
+        int threads;
+        long sequence;
+        final String[] recentKeys = new String[REPLAY_WINDOW];
+        int recentCount;
+
+        @Setup(Level.Trial)
+        public void setUp(PixTransferBenchmark benchmark, BenchmarkParams params) {
+            index = benchmark.threadSequence.getAndIncrement();
+            threads = params.getThreads();
+        }
+
+        /** Carteiras com {@code i % threads == index} pertencem apenas a esta thread. */
+        int nextOwnedSlot(int walletCount) {
+            int owned = Math.max(1, walletCount / threads);
+            return (int) ((index + (long) threads * (sequence % owned)) % walletCount);
+        }
+
+        String nextIdempotencyKey(boolean allowReplay) {
+            if (allowReplay && recentCount > 0 && (sequence & 1) == 1) {
+                return recentKeys[ThreadLocalRandom.current().nextInt(Math.min(recentCount, REPLAY_WINDOW))];
+            }
+            String key = UUID.randomUUID().toString();
+            recentKeys[recentCount++ % REPLAY_WINDOW] = key;
+            return key;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public PixTransferResponse throughput(Caller caller) {
+        return transfer(caller);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PixTransferResponse latency(Caller caller) {
+        return transfer(caller);
+    }
+
+    private PixTransferResponse transfer(Caller caller) {
+        int slot = caller.nextOwnedSlot(walletCount);
+        Long from = scenario == Scenario.HOT_SOURCE ? sourceWallets.get(0) : sourceWallets.get(slot);
+        String key = caller.nextIdempotencyKey(scenario == Scenario.REPLAY_50);
+        caller.sequence++;
+        return pixTransferService.transfer(key, new PixTransferRequest(from, destinationKeys.get(slot), AMOUNT));
+    }
+}
@@ -0,0 +1,98 @@
+package com.pixservice.benchmark;
+
+import com.pixservice.application.dto.WalletResponse;
+import com.pixservice.application.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link WalletService#deposit} e {@link WalletService#withdraw} (lock da carteira, update e ledger).
+ *
+ * Cenários: {@code DISTINCT_WALLETS} (cada thread em carteiras próprias) e {@code HOT_WALLET}
+ * (todas as threads na mesma carteira).
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+public class WalletBenchmark {
+
+    public enum Scenario { DISTINCT_WALLETS, HOT_WALLET }
+
+    public enum Operation { DEPOSIT, WITHDRAW }
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+
+    @Param({"DISTINCT_WALLETS", "HOT_WALLET"})
+    public Scenario scenario;
+
+    @Param({"DEPOSIT", "WITHDRAW"})
+    public Operation operation;
+
+    @Param("64")
+    public int walletCount;
+
+    private BenchmarkEnvironment environment;
+    private WalletService walletService;
+    private List<Long> wallets;
+    private final AtomicInteger threadSequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        walletService = environment.bean(WalletService.class);
+        wallets = environment.createWallets("bench-wallet", walletCount, INITIAL_BALANCE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        int index;
+        int threads;
+        long sequence;
+
+        @Setup(Level.Trial)
+        public void setUp(WalletBenchmark benchmark, BenchmarkParams params) {
+            index = benchmark.threadSequence.getAndIncrement();
+            threads = params.getThreads();
+        }
+
+        int nextOwnedSlot(int walletCount) {
+            int owned = Math.max(1, walletCount / threads);
+            return (int) ((index + (long) threads * (sequence++ % owned)) % walletCount);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public WalletResponse throughput(Caller caller) {
+        return apply(caller);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WalletResponse latency(Caller caller) {
+        return apply(caller);
+    }
+
+    private WalletResponse apply(Caller caller) {
+        int slot = caller.nextOwnedSlot(walletCount);
+        Long walletId = scenario == Scenario.HOT_WALLET ? wallets.get(0) : wallets.get(slot);
+        return operation == Operation.DEPOSIT
+                ? walletService.deposit(walletId, AMOUNT)
+                : walletService.withdraw(walletId, AMOUNT);
+    }
+}
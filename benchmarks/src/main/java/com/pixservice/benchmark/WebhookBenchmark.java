@@ -0,0 +1,153 @@
+package com.pixservice.benchmark;
+
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.domain.model.PixEventType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Caminho completo de {@link WebhookService#processWebhookEvent}. Cada iteração recebe um lote
+ * novo de transações PENDING criadas fora da medição; se o lote acabar no meio da iteração o
+ * benchmark falha, indicando que {@code pendingPerIteration} deve ser aumentado.
+ *
+ * Cenários:
+ * <ul>
+ *   <li>{@code CONFIRMED}: confirmações creditando carteiras de destino distintas;</li>
+ *   <li>{@code HOT_DESTINATION}: confirmações creditando sempre a mesma carteira (lojista/QR);</li>
+ *   <li>{@code REJECTED}: rejeições estornando as carteiras de origem;</li>
+ *   <li>{@code DUPLICATE}: reentrega de eventos já aplicados (caminho de idempotência).</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(8)
+public class WebhookBenchmark {
+
+    public enum Scenario { CONFIRMED, HOT_DESTINATION, REJECTED, DUPLICATE }
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal SOURCE_BALANCE = new BigDecimal("1000000000.00");
+    private static final int SEED_THREADS = 16;
+    private static final int DUPLICATE_POOL = 2048;
+
+    @Param({"CONFIRMED", "HOT_DESTINATION", "REJECTED", "DUPLICATE"})
+    public Scenario scenario;
+
+    @Param("64")
+    public int walletCount;
+
+    @Param("20000")
+    public int pendingPerIteration;
+
+    private BenchmarkEnvironment environment;
+    private PixTransferService pixTransferService;
+    private WebhookService webhookService;
+    private List<Long> sourceWallets;
+    private List<String> destinationKeys;
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final List<PixWebhookRequest> applied = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        pixTransferService = environment.bean(PixTransferService.class);
+        webhookService = environment.bean(WebhookService.class);
+        sourceWallets = environment.createWallets("bench-src", walletCount, SOURCE_BALANCE);
+        destinationKeys = environment.registerPixKeys(
+                environment.createWallets("bench-dst", walletCount, BigDecimal.ZERO));
+
+        if (scenario == Scenario.DUPLICATE) {
+            seedPending(DUPLICATE_POOL);
+            String endToEndId;
+            while ((endToEndId = pending.poll()) != null) {
+                PixWebhookRequest event = event(endToEndId, PixEventType.CONFIRMED);
+                webhookService.processWebhookEvent(event);
+                applied.add(event);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void refillPending() {
+        if (scenario != Scenario.DUPLICATE) {
+            seedPending(pendingPerIteration - pending.size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public PixWebhookResponse throughput() {
+        return deliver();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PixWebhookResponse latency() {
+        return deliver();
+    }
+
+    private PixWebhookResponse deliver() {
+        if (scenario == Scenario.DUPLICATE) {
+            return webhookService.processWebhookEvent(applied.get(ThreadLocalRandom.current().nextInt(applied.size())));
+        }
+        String endToEndId = pending.poll();
+        if (endToEndId == null) {
+            throw new IllegalStateException("Lote de transações PENDING esgotado; aumente -p pendingPerIteration.");
+        }
+        PixEventType type = scenario == Scenario.REJECTED ? PixEventType.REJECTED : PixEventType.CONFIRMED;
+        return webhookService.processWebhookEvent(event(endToEndId, type));
+    }
+
+    private static PixWebhookRequest event(String endToEndId, PixEventType type) {
+        return new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(), type, LocalDateTime.now());
+    }
+
+    private void seedPending(int count) {
+        if (count <= 0) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(SEED_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int slot = i % walletCount;
+                futures.add(executor.submit(() -> {
+                    String toKey = scenario == Scenario.HOT_DESTINATION ? destinationKeys.get(0) : destinationKeys.get(slot);
+                    String endToEndId = pixTransferService.transfer(UUID.randomUUID().toString(),
+                            new PixTransferRequest(sourceWallets.get(slot), toKey, AMOUNT)).getEndToEndId();
+                    pending.add(endToEndId);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido ao preparar transações PENDING", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao preparar transações PENDING", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
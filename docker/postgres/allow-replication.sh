@@ -0,0 +1,4 @@
+#!/bin/bash
+# Libera conexões de replicação para a réplica do docker-compose (profile "replica")
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,24 @@
+package com.pixservice.application.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Arquivamento periódico das entradas de ledger mais antigas que {@code pix.ledger.archive.min-age-days}.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.ledger.archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LedgerArchiveJob {
+
+    private final LedgerArchiveService ledgerArchiveService;
+
+    @Scheduled(cron = "${pix.ledger.archive.cron:0 0 4 * * *}")
+    public void archive() {
+        ledgerArchiveService.archive(ledgerArchiveService.cutoff(LocalDate.now()));
+    }
+}
@@ -0,0 +1,226 @@
+package com.pixservice.application.archive;
+
+import com.pixservice.domain.model.Money;
+import com.pixservice.infrastructure.archive.ArchivedLedgerEntry;
+import com.pixservice.infrastructure.archive.LedgerArchiveBlock;
+import com.pixservice.infrastructure.archive.LedgerArchiveRepository;
+import com.pixservice.infrastructure.archive.LedgerSegmentStore;
+import com.pixservice.infrastructure.persistence.LedgerStatementRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Arquivo frio do ledger: move as entradas anteriores a {@code pix.ledger.archive.min-age-days} de
+ * {@code ledger_entry} para blocos comprimidos nos segmentos locais ({@link LedgerSegmentStore}) e atende as
+ * leituras que atravessam o limite do arquivo.
+ *
+ * Cada lote de até {@code pix.ledger.archive.batch-size} entradas de uma carteira é uma transação: o bloco é
+ * gravado e forçado no segmento, o índice é inserido e as linhas são apagadas; se a contagem apagada não bater
+ * com a lida, a transação é desfeita. Leitores em REPEATABLE READ enxergam o ledger e o índice no mesmo snapshot,
+ * então uma entrada nunca aparece duas vezes nem some durante o arquivamento.
+ *
+ * Os segmentos ficam no disco local: com mais de uma instância, {@code pix.ledger.archive.dir} precisa ser um
+ * volume compartilhado.
+ */
+@Service
+@Slf4j
+public class LedgerArchiveService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet";
+
+    private final LedgerArchiveRepository archiveRepository;
+    private final LedgerSegmentStore segmentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final long minAgeDays;
+    private final int batchSize;
+    private final int walletPageSize;
+
+    private final Counter archivedEntriesCounter;
+    private final Counter segmentReadsCounter;
+
+    public LedgerArchiveService(LedgerArchiveRepository archiveRepository,
+                                LedgerSegmentStore segmentStore,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${pix.ledger.archive.min-age-days:400}") long minAgeDays,
+                                @Value("${pix.ledger.archive.batch-size:10000}") int batchSize,
+                                @Value("${pix.ledger.archive.wallet-page-size:500}") int walletPageSize) {
+        this.archiveRepository = archiveRepository;
+        this.segmentStore = segmentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAgeDays = minAgeDays;
+        this.batchSize = batchSize;
+        this.walletPageSize = walletPageSize;
+
+        this.archivedEntriesCounter = Counter.builder("pix.ledger.archive.entries")
+                .description("Entradas de ledger movidas para o arquivo")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.segmentReadsCounter = Counter.builder("pix.ledger.archive.block.reads")
+                .description("Blocos lidos dos segmentos do arquivo por consultas que atravessam o limite")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Corte do arquivamento: meia-noite de {@code today - min-age-days}.
+     */
+    public LocalDateTime cutoff(LocalDate today) {
+        return today.minusDays(minAgeDays).atStartOfDay();
+    }
+
+    /**
+     * Arquiva as entradas de todas as carteiras anteriores a {@code cutoff}.
+     *
+     * @return quantidade de entradas arquivadas
+     */
+    public long archive(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        long archived = 0;
+        int wallets = 0;
+        long afterId = 0;
+        List<Long> page;
+        try (LedgerSegmentStore.SegmentWriter writer = segmentStore.openWriter()) {
+            do {
+                page = archiveRepository.findWalletIdsWithEntriesBefore(cutoff, afterId, walletPageSize);
+                for (Long walletId : page) {
+                    try {
+                        archived += archiveWallet(writer, walletId, cutoff);
+                        wallets++;
+                    } catch (Exception e) {
+                        log.warn("Falha ao arquivar entradas do ledger - walletId={}, motivo={}", walletId, e.getMessage());
+                    }
+                    afterId = walletId;
+                }
+            } while (page.size() == walletPageSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Arquivamento do ledger concluído - cutoff={}, carteiras={}, entradas={}, tempo={}ms",
+                cutoff, wallets, archived, System.currentTimeMillis() - start);
+        return archived;
+    }
+
+    private long archiveWallet(LedgerSegmentStore.SegmentWriter writer, Long walletId, LocalDateTime cutoff) {
+        long total = 0;
+        int archived;
+        do {
+            Integer batch = transactionTemplate.execute(status -> archiveBatch(writer, walletId, cutoff));
+            archived = batch == null ? 0 : batch;
+            total += archived;
+        } while (archived == batchSize);
+        return total;
+    }
+
+    private int archiveBatch(LedgerSegmentStore.SegmentWriter writer, Long walletId, LocalDateTime cutoff) {
+        List<ArchivedLedgerEntry> entries = archiveRepository.findEntriesBefore(walletId, cutoff, batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        ArchivedLedgerEntry first = entries.get(0);
+        ArchivedLedgerEntry last = entries.get(entries.size() - 1);
+        Money sum = Money.ZERO;
+        Money pendingSum = Money.ZERO;
+        for (ArchivedLedgerEntry entry : entries) {
+            sum = sum.plus(entry.amount());
+            if (entry.isPendingCredit()) {
+                pendingSum = pendingSum.plus(entry.amount());
+            }
+        }
+        // Lote cheio: pode haver entradas com o mesmo created_at da última ainda no banco
+        LocalDateTime archivedUntil = entries.size() < batchSize ? cutoff : last.createdAt();
+
+        LedgerSegmentStore.BlockRef ref = writer.append(entries);
+        archiveRepository.insertBlock(new LedgerArchiveBlock(null, walletId, ref.segment(), ref.offset(), ref.length(),
+                ref.checksum(), entries.size(), sum.toBigDecimal(), pendingSum.toBigDecimal(), first.createdAt(),
+                last.createdAt(), archivedUntil));
+        int deleted = archiveRepository.deleteEntriesUpTo(walletId, cutoff, last.createdAt(), last.id());
+        if (deleted != entries.size()) {
+            throw new IllegalStateException("Entradas do ledger mudaram durante o arquivamento: lidas="
+                    + entries.size() + ", apagadas=" + deleted);
+        }
+        archivedEntriesCounter.increment(entries.size());
+        return entries.size();
+    }
+
+    public Optional<LedgerArchiveRepository.Summary> summary(Long walletId) {
+        return archiveRepository.summary(walletId);
+    }
+
+    /**
+     * Soma das entradas arquivadas da carteira com created_at anterior a {@code at}. Blocos inteiramente
+     * anteriores entram pela soma do índice; só o bloco que contém {@code at} é lido do segmento.
+     */
+    public Money sumBefore(Long walletId, LocalDateTime at) {
+        Money sum = Money.ZERO;
+        for (LedgerArchiveBlock block : archiveRepository.findBlocks(walletId)) {
+            if (block.lastCreatedAt().isBefore(at)) {
+                sum = sum.plus(Money.of(block.amountSum()));
+            } else if (block.firstCreatedAt().isBefore(at)) {
+                for (ArchivedLedgerEntry entry : readBlock(block)) {
+                    if (entry.createdAt().isBefore(at)) {
+                        sum = sum.plus(entry.amount());
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Até {@code limit} entradas arquivadas anteriores ao cursor (createdAt, id), mais recentes primeiro;
+     * cursor nulo começa pela mais recente do arquivo.
+     */
+    public List<LedgerStatementRow> findPage(Long walletId, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        List<LedgerStatementRow> rows = new ArrayList<>();
+        for (LedgerArchiveBlock block : archiveRepository.findBlocks(walletId)) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            if (afterCreatedAt != null && block.firstCreatedAt().isAfter(afterCreatedAt)) {
+                continue;
+            }
+            List<ArchivedLedgerEntry> entries = readBlock(block);
+            for (int i = entries.size() - 1; i >= 0 && rows.size() < limit; i--) {
+                ArchivedLedgerEntry entry = entries.get(i);
+                if (afterCreatedAt == null || entry.isBefore(afterCreatedAt, afterId)) {
+                    rows.add(entry.toStatementRow());
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Percorre todas as entradas arquivadas da carteira, mais recentes primeiro, um bloco por vez.
+     */
+    public void stream(Long walletId, Consumer<LedgerStatementRow> consumer) {
+        for (LedgerArchiveBlock block : archiveRepository.findBlocks(walletId)) {
+            List<ArchivedLedgerEntry> entries = readBlock(block);
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                consumer.accept(entries.get(i).toStatementRow());
+            }
+        }
+    }
+
+    private List<ArchivedLedgerEntry> readBlock(LedgerArchiveBlock block) {
+        segmentReadsCounter.increment();
+        return segmentStore.read(block);
+    }
+}
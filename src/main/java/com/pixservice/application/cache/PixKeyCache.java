@@ -0,0 +1,131 @@
+package com.pixservice.application.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pixservice.domain.model.PixKey;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.PixKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache em memória da resolução de chaves Pix (keyValue → carteira de destino).
+ *
+ * Limitado por tamanho e TTL; chaves inexistentes também são cacheadas por um TTL curto
+ * ({@code pix.key.cache.negative-ttl-seconds}), já que clientes reenviam chaves desconhecidas em laço.
+ * Chaves Pix não são removidas nem trocadas de carteira, então a única escrita que invalida
+ * uma entrada é o registro, que sobrescreve o resultado negativo após o commit.
+ */
+@Component
+@Slf4j
+public class PixKeyCache {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "pix-key";
+
+    private final PixKeyRepository pixKeyRepository;
+    private final Cache<String, Optional<CachedPixKey>> cache;
+    private final Counter negativeHitCounter;
+
+    /**
+     * Destino resolvido de uma chave Pix.
+     */
+    public record CachedPixKey(String keyValue, PixKeyType type, Long walletId, String userId) {
+
+        static CachedPixKey of(PixKey pixKey) {
+            return new CachedPixKey(pixKey.getKeyValue(), pixKey.getType(),
+                    pixKey.getWallet().getId(), pixKey.getWallet().getUserId());
+        }
+    }
+
+    public PixKeyCache(PixKeyRepository pixKeyRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${pix.key.cache.max-size:100000}") long maxSize,
+                       @Value("${pix.key.cache.ttl-seconds:300}") long ttlSeconds,
+                       @Value("${pix.key.cache.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.pixKeyRepository = pixKeyRepository;
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        long negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Optional<CachedPixKey>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<CachedPixKey> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<CachedPixKey> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<CachedPixKey> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, ...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pix-key",
+                Tags.of(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE));
+        this.negativeHitCounter = Counter.builder("pix.key.cache.negative.hits")
+                .description("Consultas respondidas pelo cache negativo (chave Pix inexistente)")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        log.info("PixKeyCache inicializado - maxSize={}, ttl={}s, negativeTtl={}s", maxSize, ttlSeconds, negativeTtlSeconds);
+    }
+
+    /**
+     * Resolve a chave pelo cache; em miss consulta o banco (chave + carteira em uma única query).
+     */
+    public Optional<CachedPixKey> resolve(String keyValue) {
+        boolean[] loaded = {false};
+        Optional<CachedPixKey> resolved = cache.get(keyValue, key -> {
+            loaded[0] = true;
+            return pixKeyRepository.findByKeyValue(key).map(CachedPixKey::of);
+        });
+        if (resolved.isEmpty() && !loaded[0]) {
+            negativeHitCounter.increment();
+        }
+        return resolved;
+    }
+
+    /**
+     * Write-through do registro: publica a chave no cache após o commit da transação corrente
+     * (ou imediatamente, fora de transação), substituindo um eventual resultado negativo.
+     */
+    public void put(PixKey pixKey) {
+        CachedPixKey entry = CachedPixKey.of(pixKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(entry.keyValue(), Optional.of(entry));
+                }
+            });
+        } else {
+            cache.put(entry.keyValue(), Optional.of(entry));
+        }
+    }
+
+    /**
+     * Descarta todas as entradas (ex.: após manutenção de dados feita fora da aplicação).
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
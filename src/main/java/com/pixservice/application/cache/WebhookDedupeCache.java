@@ -0,0 +1,92 @@
+package com.pixservice.application.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pixservice.domain.model.PixTransactionStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache em memória dos webhooks já aplicados: (eventId, endToEndId) → status final da transação.
+ *
+ * Durante incidentes o PSP reenvia em laço eventos já processados; com o par no cache o duplicado é respondido
+ * sem consultar pix_event nem pix_transaction. Só entram pares cujo evento está registrado e cuja transação já
+ * está em estado final (CONFIRMED/REJECTED são terminais), e só após o commit, então uma entrada nunca fica
+ * à frente do banco. Limitado por {@code pix.webhook.dedupe-cache.max-size} (0 desliga) e TTL; em miss, ou em
+ * outra instância, o fluxo segue pelo banco como antes.
+ */
+@Component
+@Slf4j
+public class WebhookDedupeCache {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "webhook";
+
+    private final Cache<Key, PixTransactionStatus> cache;
+
+    private record Key(String eventId, String endToEndId) {
+    }
+
+    public WebhookDedupeCache(MeterRegistry meterRegistry,
+                              @Value("${pix.webhook.dedupe-cache.max-size:100000}") long maxSize,
+                              @Value("${pix.webhook.dedupe-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, ...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pix-webhook-dedupe",
+                Tags.of(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE));
+
+        log.info("WebhookDedupeCache inicializado - maxSize={}, ttl={}s", maxSize, ttlSeconds);
+    }
+
+    /**
+     * Status final registrado para o par, se ele já foi aplicado por esta instância.
+     */
+    public Optional<PixTransactionStatus> finalStatus(String eventId, String endToEndId) {
+        if (eventId == null || endToEndId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(new Key(eventId, endToEndId)));
+    }
+
+    /**
+     * Publica o par após o commit da transação corrente (ou imediatamente, fora de transação).
+     * Status PENDING é ignorado: o evento ainda pode ter efeito.
+     */
+    public void recordAfterCommit(String eventId, String endToEndId, PixTransactionStatus status) {
+        if (eventId == null || endToEndId == null || status == null || status == PixTransactionStatus.PENDING) {
+            return;
+        }
+        Key key = new Key(eventId, endToEndId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, status);
+                }
+            });
+        } else {
+            cache.put(key, status);
+        }
+    }
+
+    /**
+     * Descarta todas as entradas (ex.: após manutenção de dados feita fora da aplicação).
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
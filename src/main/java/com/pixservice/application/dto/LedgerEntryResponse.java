@@ -0,0 +1,22 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntryResponse {
+    private Long id;
+    private String type;
+    private BigDecimal amount;
+    private BigDecimal balanceBefore;
+    private BigDecimal balanceAfter;
+    private String transactionId;
+    private String description;
+    private LocalDateTime createdAt;
+}
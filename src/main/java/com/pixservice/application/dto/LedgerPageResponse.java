@@ -0,0 +1,18 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página do extrato, mais recentes primeiro. {@code nextCursor} é nulo na última página.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerPageResponse {
+    private List<LedgerEntryResponse> items;
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Item de um lote de transferências: mesmos campos de {@link PixTransferRequest}
+ * acrescidos da Idempotency-Key própria do item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixTransferBatchItem {
+    private String idempotencyKey;
+    private Long fromWalletId;
+    private String toPixKey;
+    private BigDecimal amount;
+}
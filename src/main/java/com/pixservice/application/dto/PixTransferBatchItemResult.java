@@ -0,0 +1,21 @@
+package com.pixservice.application.dto;
+
+import com.pixservice.domain.model.PixTransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado individual de um item do lote. {@code httpStatus} é o status que a mesma
+ * transferência teria em {@code POST /pix/transfers}; {@code error} só é preenchido em falhas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixTransferBatchItemResult {
+    private String idempotencyKey;
+    private String endToEndId;
+    private PixTransactionStatus status;
+    private int httpStatus;
+    private String error;
+}
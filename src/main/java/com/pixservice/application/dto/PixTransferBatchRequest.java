@@ -0,0 +1,14 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixTransferBatchRequest {
+    private List<PixTransferBatchItem> items;
+}
@@ -0,0 +1,19 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultados na mesma ordem dos itens recebidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixTransferBatchResponse {
+    private int accepted;
+    private int failed;
+    private List<PixTransferBatchItemResult> results;
+}
@@ -0,0 +1,19 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado individual de um evento do lote; {@code status} e {@code message} são os mesmos que o evento
+ * teria em {@code POST /pix/webhook}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixWebhookBatchItemResult {
+    private String eventId;
+    private String endToEndId;
+    private String status;
+    private String message;
+}
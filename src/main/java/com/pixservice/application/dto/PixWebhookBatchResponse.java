@@ -0,0 +1,20 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultados na mesma ordem dos eventos recebidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PixWebhookBatchResponse {
+    private int processed;
+    private int duplicates;
+    private int failed;
+    private List<PixWebhookBatchItemResult> results;
+}
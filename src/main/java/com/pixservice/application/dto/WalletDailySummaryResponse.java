@@ -0,0 +1,24 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Movimento de um dia. {@code moneyIn}/{@code moneyOut} não incluem rebalanceamentos entre sub-saldos;
+ * {@code byType} traz o valor líquido de cada tipo de lançamento.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletDailySummaryResponse {
+    private LocalDate day;
+    private BigDecimal moneyIn;
+    private BigDecimal moneyOut;
+    private long entryCount;
+    private Map<String, BigDecimal> byType;
+}
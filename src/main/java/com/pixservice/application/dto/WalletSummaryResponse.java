@@ -0,0 +1,25 @@
+package com.pixservice.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Entradas e saídas da carteira por dia em [from, to]; dias sem movimento não aparecem.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletSummaryResponse {
+    private Long walletId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal moneyIn;
+    private BigDecimal moneyOut;
+    private long entryCount;
+    private List<WalletDailySummaryResponse> days;
+}
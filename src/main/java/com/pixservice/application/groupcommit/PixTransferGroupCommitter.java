@@ -0,0 +1,232 @@
+package com.pixservice.application.groupcommit;
+
+import com.pixservice.application.dto.PixTransferBatchItem;
+import com.pixservice.application.dto.PixTransferBatchItemResult;
+import com.pixservice.application.dto.PixTransferBatchRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.service.PixTransferBatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor {@code group-commit} ({@code pix.transfer.engine=group-commit}) para {@code PixTransferService.transfer}.
+ *
+ * As chamadas concorrentes entram em uma fila em memória antes de abrir transação. Cada committer drena até
+ * {@code pix.transfer.group-commit.max-size} transferências ou espera no máximo
+ * {@code pix.transfer.group-commit.max-wait-ms} após a primeira, e grava o grupo inteiro em uma única
+ * transação pelo {@link PixTransferBatchService}: um commit (e um fsync) por grupo em vez de um por transferência.
+ * Falhas de negócio de um item (saldo insuficiente, chave inexistente...) viram o resultado só daquele chamador.
+ *
+ * A chamada segue pelo caminho direto quando já existe transação ativa na thread chamadora, quando a fila
+ * está cheia ou quando o grupo inteiro falha (erro de infraestrutura): nesse caso cada chamador reexecuta
+ * sua transferência isoladamente.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "pix.transfer.engine", havingValue = "group-commit")
+@Slf4j
+public class PixTransferGroupCommitter {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "pix-transfer";
+    private static final long IDLE_POLL_MS = 100;
+
+    private final PixTransferBatchService batchService;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingTransfer> queue;
+    private final ExecutorService committers;
+    private volatile boolean running = true;
+
+    private final DistributionSummary groupSizeSummary;
+    private final Counter groupFallbackCounter;
+    private final Counter queueFullCounter;
+
+    public PixTransferGroupCommitter(PixTransferBatchService batchService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${pix.transfer.group-commit.committers:2}") int committers,
+                                     @Value("${pix.transfer.group-commit.max-size:128}") int maxSize,
+                                     @Value("${pix.transfer.group-commit.max-wait-ms:2}") long maxWaitMs,
+                                     @Value("${pix.transfer.group-commit.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.batchService = batchService;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("transfer-committer-", 1).factory();
+        } else {
+            CustomizableThreadFactory platformThreadFactory = new CustomizableThreadFactory("transfer-committer-");
+            platformThreadFactory.setDaemon(true);
+            threadFactory = platformThreadFactory;
+        }
+        this.committers = Executors.newFixedThreadPool(committers, threadFactory);
+        for (int i = 0; i < committers; i++) {
+            this.committers.execute(this::runCommitter);
+        }
+
+        this.groupSizeSummary = DistributionSummary.builder("pix.transfer.group.size")
+                .description("Transferências gravadas por transação do motor group-commit")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.groupFallbackCounter = Counter.builder("pix.transfer.group.fallback")
+                .description("Grupos que falharam por inteiro e foram reexecutados pelo caminho direto")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.queueFullCounter = Counter.builder("pix.transfer.group.queue.full")
+                .description("Transferências desviadas para o caminho direto por fila cheia")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.transfer.group.queue.size", queue, BlockingQueue::size)
+                .description("Transferências aguardando o próximo grupo")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        log.info("Group commit inicializado - committers={}, maxSize={}, maxWaitMs={}, virtualThreads={}",
+                committers, maxSize, maxWaitMs, virtualThreads);
+    }
+
+    // Argumentos lidos de getArgs(): em HIGHEST_PRECEDENCE o aspecto roda antes do ExposeInvocationInterceptor e args(...) não seria vinculado
+    @Around("execution(* com.pixservice.application.service.PixTransferService.transfer(String, com.pixservice.application.dto.PixTransferRequest))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        String idempotencyKey = (String) args[0];
+        PixTransferRequest request = (PixTransferRequest) args[1];
+        if (!running || request == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        PendingTransfer pending = new PendingTransfer(idempotencyKey, request);
+        if (!queue.offer(pending)) {
+            queueFullCounter.increment();
+            return joinPoint.proceed();
+        }
+        Optional<PixTransferResponse> response;
+        try {
+            response = pending.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause(); // falha de negócio do item: mesma exceção do caminho direto (400/409)
+        }
+        return response.isPresent() ? response.get() : joinPoint.proceed();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        committers.shutdownNow();
+        committers.awaitTermination(10, TimeUnit.SECONDS);
+        PendingTransfer pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(Optional.empty());
+        }
+    }
+
+    private void runCommitter() {
+        List<PendingTransfer> group = new ArrayList<>(maxSize);
+        while (running) {
+            try {
+                PendingTransfer first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (group.size() < maxSize) {
+                    PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(pending -> pending.result.complete(Optional.empty()));
+                return;
+            } catch (Throwable e) {
+                log.error("Falha inesperada no committer - transferências={}", group.size(), e);
+                group.forEach(pending -> pending.result.complete(Optional.empty()));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> group) {
+        groupSizeSummary.record(group.size());
+        List<PixTransferBatchItem> items = group.stream()
+                .map(pending -> new PixTransferBatchItem(pending.idempotencyKey, pending.request.getFromWalletId(),
+                        pending.request.getToPixKey(), pending.request.getAmount()))
+                .toList();
+        List<PixTransferBatchItemResult> results;
+        try {
+            results = batchService.transferBatch(new PixTransferBatchRequest(items)).getResults();
+        } catch (RuntimeException e) {
+            groupFallbackCounter.increment();
+            log.warn("Grupo de transferências desfeito, reexecutando pelo caminho direto - transferências={}, motivo={}",
+                    group.size(), e.getMessage());
+            group.forEach(pending -> pending.result.complete(Optional.empty()));
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * Converte o resultado do item na resposta ou na exceção que o caminho direto produziria.
+     */
+    private void complete(PendingTransfer pending, PixTransferBatchItemResult result) {
+        if (result.getError() == null) {
+            pending.result.complete(Optional.of(new PixTransferResponse(result.getEndToEndId(), result.getStatus())));
+        } else if (result.getHttpStatus() == HttpStatus.CONFLICT.value()) {
+            pending.result.completeExceptionally(new IllegalStateException(result.getError()));
+        } else {
+            pending.result.completeExceptionally(new IllegalArgumentException(result.getError()));
+        }
+    }
+
+    private static final class PendingTransfer {
+        private final String idempotencyKey;
+        private final PixTransferRequest request;
+        private final CompletableFuture<Optional<PixTransferResponse>> result = new CompletableFuture<>();
+
+        private PendingTransfer(String idempotencyKey, PixTransferRequest request) {
+            this.idempotencyKey = idempotencyKey;
+            this.request = request;
+        }
+    }
+}
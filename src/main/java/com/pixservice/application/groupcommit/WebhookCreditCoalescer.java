@@ -0,0 +1,230 @@
+package com.pixservice.application.groupcommit;
+
+import com.pixservice.application.cache.WebhookDedupeCache;
+import com.pixservice.application.dto.PixWebhookBatchItemResult;
+import com.pixservice.application.dto.PixWebhookBatchRequest;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.service.WebhookBatchService;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.domain.model.PixEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregação de créditos ({@code pix.webhook.credit-coalescing.enabled=true}) para webhooks CONFIRMED.
+ *
+ * Carteiras de destino muito creditadas (lojistas recebendo QR no pico) serializam cada webhook no lock da
+ * carteira. Aqui os CONFIRMED entram em uma fila por committer, escolhida pela carteira de destino, então os
+ * créditos de uma mesma carteira sempre caem no mesmo committer. Cada committer drena até
+ * {@code pix.webhook.credit-coalescing.max-size} eventos ou espera no máximo {@code max-wait-ms} após o primeiro e
+ * grava o grupo pelo {@link WebhookBatchService}: um lock e um UPDATE de saldo por carteira, com um lançamento
+ * PIX_TRANSFER_IN por evento e o saldo antes/depois de cada um em sequência.
+ *
+ * O evento segue pelo caminho direto quando já existe transação ativa, quando não altera saldo (REJECTED, transação
+ * já finalizada ou inexistente), quando a fila está cheia, quando o grupo inteiro falha ou quando o item termina em
+ * erro: o lote não registra eventos com erro, então a reexecução produz a mesma resposta ou exceção do caminho direto.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "pix.webhook.credit-coalescing.enabled", havingValue = "true")
+@Slf4j
+public class WebhookCreditCoalescer {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "webhook";
+    private static final String RESPONSE_ERROR = "ERROR";
+    private static final long IDLE_POLL_MS = 100;
+
+    private final WebhookBatchService batchService;
+    private final WebhookService webhookService;
+    private final WebhookDedupeCache webhookDedupeCache;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final List<BlockingQueue<PendingCredit>> queues;
+    private final ExecutorService committers;
+    private volatile boolean running = true;
+
+    private final DistributionSummary groupSizeSummary;
+    private final Counter groupFallbackCounter;
+    private final Counter queueFullCounter;
+
+    public WebhookCreditCoalescer(WebhookBatchService batchService,
+                                  WebhookService webhookService,
+                                  WebhookDedupeCache webhookDedupeCache,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${pix.webhook.credit-coalescing.committers:4}") int committers,
+                                  @Value("${pix.webhook.credit-coalescing.max-size:128}") int maxSize,
+                                  @Value("${pix.webhook.credit-coalescing.max-wait-ms:2}") long maxWaitMs,
+                                  @Value("${pix.webhook.credit-coalescing.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.batchService = batchService;
+        this.webhookService = webhookService;
+        this.webhookDedupeCache = webhookDedupeCache;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        int perQueueCapacity = Math.max(1, queueCapacity / committers);
+        this.queues = new ArrayList<>(committers);
+        for (int i = 0; i < committers; i++) {
+            queues.add(new LinkedBlockingQueue<>(perQueueCapacity));
+        }
+
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("credit-coalescer-", 1).factory();
+        } else {
+            CustomizableThreadFactory platformThreadFactory = new CustomizableThreadFactory("credit-coalescer-");
+            platformThreadFactory.setDaemon(true);
+            threadFactory = platformThreadFactory;
+        }
+        this.committers = Executors.newFixedThreadPool(committers, threadFactory);
+        for (BlockingQueue<PendingCredit> queue : queues) {
+            this.committers.execute(() -> runCommitter(queue));
+        }
+
+        this.groupSizeSummary = DistributionSummary.builder("pix.webhook.coalesce.group.size")
+                .description("Créditos CONFIRMED gravados por transação da agregação de créditos")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.groupFallbackCounter = Counter.builder("pix.webhook.coalesce.fallback")
+                .description("Grupos de créditos que falharam por inteiro e foram reexecutados pelo caminho direto")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.queueFullCounter = Counter.builder("pix.webhook.coalesce.queue.full")
+                .description("Créditos desviados para o caminho direto por fila cheia")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.webhook.coalesce.queue.size", queues, q -> q.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Créditos aguardando o próximo grupo")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        log.info("Agregação de créditos inicializada - committers={}, maxSize={}, maxWaitMs={}, virtualThreads={}",
+                committers, maxSize, maxWaitMs, virtualThreads);
+    }
+
+    // Argumento lido de getArgs(): em HIGHEST_PRECEDENCE o aspecto roda antes do ExposeInvocationInterceptor e args(...) não seria vinculado
+    @Around("execution(* com.pixservice.application.service.WebhookService.processWebhookEvent(com.pixservice.application.dto.PixWebhookRequest))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        PixWebhookRequest request = (PixWebhookRequest) joinPoint.getArgs()[0];
+        if (!running || request == null || request.getEventType() != PixEventType.CONFIRMED || request.getEventId() == null
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || webhookDedupeCache.finalStatus(request.getEventId(), request.getEndToEndId()).isPresent()) {
+            return joinPoint.proceed();
+        }
+        Long walletId = webhookService.resolveTargetWalletId(request);
+        if (walletId == null) {
+            return joinPoint.proceed();
+        }
+        PendingCredit pending = new PendingCredit(request);
+        if (!queues.get((int) Math.floorMod(walletId, (long) queues.size())).offer(pending)) {
+            queueFullCounter.increment();
+            return joinPoint.proceed();
+        }
+        Optional<PixWebhookResponse> response = pending.result.join();
+        return response.isPresent() ? response.get() : joinPoint.proceed();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        committers.shutdownNow();
+        committers.awaitTermination(10, TimeUnit.SECONDS);
+        for (BlockingQueue<PendingCredit> queue : queues) {
+            PendingCredit pending;
+            while ((pending = queue.poll()) != null) {
+                pending.result.complete(Optional.empty());
+            }
+        }
+    }
+
+    private void runCommitter(BlockingQueue<PendingCredit> queue) {
+        List<PendingCredit> group = new ArrayList<>(maxSize);
+        while (running) {
+            try {
+                PendingCredit first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (group.size() < maxSize) {
+                    PendingCredit next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(pending -> pending.result.complete(Optional.empty()));
+                return;
+            } catch (Throwable e) {
+                log.error("Falha inesperada na agregação de créditos - eventos={}", group.size(), e);
+                group.forEach(pending -> pending.result.complete(Optional.empty()));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingCredit> group) {
+        groupSizeSummary.record(group.size());
+        List<PixWebhookRequest> items = group.stream().map(pending -> pending.request).toList();
+        List<PixWebhookBatchItemResult> results;
+        try {
+            results = batchService.processWebhookBatch(new PixWebhookBatchRequest(items)).getResults();
+        } catch (RuntimeException e) {
+            groupFallbackCounter.increment();
+            log.warn("Grupo de créditos desfeito, reexecutando pelo caminho direto - eventos={}, motivo={}",
+                    group.size(), e.getMessage());
+            group.forEach(pending -> pending.result.complete(Optional.empty()));
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            PixWebhookBatchItemResult result = results.get(i);
+            group.get(i).result.complete(RESPONSE_ERROR.equals(result.getStatus())
+                    ? Optional.empty()
+                    : Optional.of(new PixWebhookResponse(result.getStatus(), result.getMessage())));
+        }
+    }
+
+    private static final class PendingCredit {
+        private final PixWebhookRequest request;
+        private final CompletableFuture<Optional<PixWebhookResponse>> result = new CompletableFuture<>();
+
+        private PendingCredit(PixWebhookRequest request) {
+            this.request = request;
+        }
+    }
+}
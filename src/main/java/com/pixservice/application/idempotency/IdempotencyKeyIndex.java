@@ -0,0 +1,250 @@
+package com.pixservice.application.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Camadas em memória na frente de {@code idempotency_key} ({@code pix.idempotency.tiered-lookup.enabled=true}):
+ * <ul>
+ *   <li>LRU das respostas gravadas recentemente: responde replays sem ir ao banco;</li>
+ *   <li>filtro de Bloom com todas as chaves conhecidas: responde "certamente nova" sem ir ao banco.</li>
+ * </ul>
+ * Ambos são reconstruídos a partir da tabela no startup (só chaves dentro de {@code pix.idempotency.retention-hours});
+ * até o fim da carga toda consulta vai ao banco. Entradas do LRU expiram junto com a retenção.
+ *
+ * O filtro só conhece chaves gravadas por esta instância (ou existentes no startup). Uma chave gravada
+ * por outra instância é tratada como nova e cai na unicidade de {@code idempotency_key}, que continua
+ * sendo a garantia de idempotência.
+ *
+ * Bloom não remove chaves: sem reconstrução, as expiradas e purgadas acumulariam e a taxa de falso positivo subiria
+ * até o atalho "certamente nova" quase nunca responder. A cada {@code pix.idempotency.filter.rebuild-interval-ms}
+ * um filtro novo é carregado só com as chaves retidas e substitui o atual; durante a carga, as chaves gravadas
+ * entram nos dois.
+ */
+@Component
+@Slf4j
+public class IdempotencyKeyIndex {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "idempotency";
+    private static final int WARM_UP_FETCH_SIZE = 10_000;
+    private static final Duration REBUILD_OVERLAP = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final boolean enabled;
+    private final int recentMaxSize;
+    private final long retentionHours;
+    private final long expectedKeys;
+    private final double fpp;
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+    private final Cache<String, String> recentResponses;
+    private volatile boolean ready;
+
+    private final Counter lruHitCounter;
+    private final Counter filterHitCounter;
+    private final Counter databaseLookupCounter;
+
+    public IdempotencyKeyIndex(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${pix.idempotency.tiered-lookup.enabled:false}") boolean enabled,
+                               @Value("${pix.idempotency.filter.expected-keys:1000000}") long expectedKeys,
+                               @Value("${pix.idempotency.filter.fpp:0.01}") double fpp,
+                               @Value("${pix.idempotency.recent.max-size:10000}") int recentMaxSize,
+                               @Value("${pix.idempotency.retention-hours:24}") long retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.enabled = enabled;
+        this.recentMaxSize = recentMaxSize;
+        this.retentionHours = retentionHours;
+        this.expectedKeys = expectedKeys;
+        this.fpp = fpp;
+        this.filter = enabled ? new BloomFilter(expectedKeys, fpp) : null;
+        this.recentResponses = enabled ? recentResponsesCache(recentMaxSize, retentionHours) : null;
+
+        this.lruHitCounter = lookupCounter(meterRegistry, "lru");
+        this.filterHitCounter = lookupCounter(meterRegistry, "filter");
+        this.databaseLookupCounter = lookupCounter(meterRegistry, "db");
+        if (enabled) {
+            Gauge.builder("pix.idempotency.filter.insertions", this, index -> index.filter.insertions())
+                    .description("Chaves inseridas no filtro de Bloom (acima de expected-keys a taxa de falso positivo sobe)")
+                    .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Cache<String, String> recentResponsesCache(int maxSize, long retentionHours) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxSize);
+        if (retentionHours > 0) {
+            builder.expireAfterWrite(Duration.ofHours(retentionHours));
+        }
+        return builder.build();
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("pix.idempotency.lookup")
+                .description("Consultas de idempotência por camada que respondeu")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carrega o filtro com todas as chaves e o LRU com as respostas mais recentes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = retentionCutoff();
+        readOnlyStreaming(streaming -> {
+            streaming.query("SELECT key_value FROM idempotency_key WHERE created_at >= ?",
+                    (RowCallbackHandler) rs -> filter.put(rs.getString(1)), cutoff);
+            streaming.query("SELECT key_value, response_body FROM idempotency_key WHERE created_at >= ? ORDER BY id DESC LIMIT ?",
+                    (RowCallbackHandler) rs -> recentResponses.asMap().putIfAbsent(rs.getString(1), rs.getString(2)),
+                    cutoff, recentMaxSize);
+        });
+        ready = true;
+        log.info("Índice de idempotência carregado - chaves={}, recentes={}, tempo={}ms",
+                filter.insertions(), recentResponses.estimatedSize(), System.currentTimeMillis() - start);
+        warnIfOverCapacity(filter);
+    }
+
+    /**
+     * Troca o filtro por um novo carregado só com as chaves dentro da retenção, descartando as expiradas e purgadas.
+     */
+    @Scheduled(initialDelayString = "${pix.idempotency.filter.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${pix.idempotency.filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuildFilter() {
+        if (!enabled || !ready) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime rebuildStart = LocalDateTime.now();
+        long previousInsertions = filter.insertions();
+        BloomFilter next = new BloomFilter(expectedKeys, fpp);
+        rebuilding = next; // a partir daqui record() grava nos dois filtros
+        try {
+            Timestamp cutoff = retentionCutoff();
+            readOnlyStreaming(streaming -> streaming.query(
+                    "SELECT key_value FROM idempotency_key WHERE created_at >= ?",
+                    (RowCallbackHandler) rs -> next.put(rs.getString(1)), cutoff));
+            // Chaves gravadas pouco antes do início cujo commit não entrou no snapshot da carga
+            Timestamp recent = Timestamp.valueOf(rebuildStart.minus(REBUILD_OVERLAP));
+            readOnlyStreaming(streaming -> streaming.query(
+                    "SELECT key_value FROM idempotency_key WHERE created_at >= ?",
+                    (RowCallbackHandler) rs -> next.put(rs.getString(1)), recent));
+            filter = next;
+        } finally {
+            rebuilding = null;
+        }
+        log.info("Filtro de idempotência reconstruído - chavesAntes={}, chaves={}, tempo={}ms",
+                previousInsertions, next.insertions(), System.currentTimeMillis() - start);
+        warnIfOverCapacity(next);
+    }
+
+    private Timestamp retentionCutoff() {
+        return Timestamp.valueOf(retentionHours > 0
+                ? LocalDateTime.now().minusHours(retentionHours)
+                : LocalDateTime.of(1970, 1, 1, 0, 0));
+    }
+
+    private void readOnlyStreaming(Consumer<JdbcTemplate> work) {
+        // O driver do PostgreSQL só faz streaming por fetchSize dentro de transação
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(WARM_UP_FETCH_SIZE);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> work.accept(streaming));
+    }
+
+    private static void warnIfOverCapacity(BloomFilter bloomFilter) {
+        if (bloomFilter.insertions() > bloomFilter.expectedInsertions()) {
+            log.warn("Filtro de idempotência acima da capacidade - chaves={}, expected-keys={}",
+                    bloomFilter.insertions(), bloomFilter.expectedInsertions());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resposta armazenada recentemente para a chave, se estiver no LRU.
+     */
+    public Optional<String> recentResponse(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String responseBody = recentResponses.getIfPresent(key);
+        if (responseBody != null) {
+            lruHitCounter.increment();
+        }
+        return Optional.ofNullable(responseBody);
+    }
+
+    /**
+     * {@code true} quando o filtro garante que a chave nunca foi gravada.
+     */
+    public boolean isDefinitelyNew(String key) {
+        if (!enabled || !ready || filter.mightContain(key)) {
+            return false;
+        }
+        filterHitCounter.increment();
+        return true;
+    }
+
+    public void countDatabaseLookup() {
+        databaseLookupCounter.increment();
+    }
+
+    /**
+     * Registra uma chave gravada: entra no filtro imediatamente (antes do commit, para nunca haver janela
+     * em que a chave exista no banco e o filtro responda "nova") e no LRU só após o commit.
+     */
+    public void record(String key, String responseBody) {
+        if (!enabled) {
+            return;
+        }
+        filter.put(key);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(key);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentResponses.put(key, responseBody);
+                }
+            });
+        } else {
+            recentResponses.put(key, responseBody);
+        }
+    }
+}
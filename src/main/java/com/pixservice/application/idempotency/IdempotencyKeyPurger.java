@@ -0,0 +1,108 @@
+package com.pixservice.application.idempotency;
+
+import com.pixservice.domain.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Job periódico que remove de {@code idempotency_key} as chaves fora da janela de retenção.
+ *
+ * Cada lote apaga no máximo {@code pix.idempotency.purge.batch-size} linhas em uma transação própria
+ * (com {@code SKIP LOCKED}), então o purge nunca segura locks longos; uma execução para após
+ * {@code pix.idempotency.purge.max-batches} lotes e o restante fica para a próxima.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.idempotency.purge.enabled", havingValue = "true")
+@Slf4j
+public class IdempotencyKeyPurger {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "idempotency";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyService idempotencyService;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final Counter purgedCounter;
+    private final AtomicLong tableSize = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public IdempotencyKeyPurger(IdempotencyKeyRepository idempotencyKeyRepository,
+                                IdempotencyService idempotencyService,
+                                MeterRegistry meterRegistry,
+                                @Value("${pix.idempotency.purge.batch-size:1000}") int batchSize,
+                                @Value("${pix.idempotency.purge.max-batches:50}") int maxBatches) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencyService = idempotencyService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+
+        this.purgedCounter = Counter.builder("pix.idempotency.purge.deleted")
+                .description("Chaves de idempotência expiradas removidas")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+        Gauge.builder("pix.idempotency.keys", tableSize, AtomicLong::get)
+                .description("Linhas em idempotency_key (estimativa do PostgreSQL, atualizada a cada purge)")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+        Gauge.builder("pix.idempotency.purge.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Idade, além da retenção, da chave expirada mais antiga ainda na tabela")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pix.idempotency.purge.interval-ms:60000}")
+    public void purgeExpiredKeys() {
+        Optional<LocalDateTime> cutoff = idempotencyService.expiryCutoff();
+        if (cutoff.isPresent()) {
+            purge(cutoff.get());
+        }
+        refreshGauges(cutoff);
+    }
+
+    private void purge(LocalDateTime cutoff) {
+        long purged = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted;
+            try {
+                deleted = idempotencyKeyRepository.deleteExpiredBatch(cutoff, batchSize);
+            } catch (Exception e) {
+                log.warn("Falha ao remover chaves de idempotência expiradas - motivo={}", e.getMessage());
+                break;
+            }
+            purged += deleted;
+            purgedCounter.increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Chaves de idempotência expiradas removidas - quantidade={}, cutoff={}", purged, cutoff);
+        }
+    }
+
+    private void refreshGauges(Optional<LocalDateTime> cutoff) {
+        try {
+            Long estimate = idempotencyKeyRepository.estimateRowCount();
+            tableSize.set(estimate == null ? 0 : estimate);
+            LocalDateTime oldest = idempotencyKeyRepository.findOldestCreatedAt();
+            lagSeconds.set(cutoff.filter(c -> oldest != null && oldest.isBefore(c))
+                    .map(c -> Duration.between(oldest, c).toSeconds())
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.warn("Falha ao atualizar métricas de idempotency_key - motivo={}", e.getMessage());
+        }
+    }
+}
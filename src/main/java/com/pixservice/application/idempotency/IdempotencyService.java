@@ -6,11 +6,18 @@ import com.pixservice.domain.model.IdempotencyKey;
 import com.pixservice.domain.repository.IdempotencyKeyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,6 +34,14 @@ public class IdempotencyService {
 
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final ObjectMapper objectMapper;
+    private final IdempotencyKeyIndex idempotencyKeyIndex;
+
+    /**
+     * Janela de retenção das chaves; após ela a chave é ignorada nas consultas e removida pelo
+     * {@link IdempotencyKeyPurger}. Zero desliga a expiração.
+     */
+    @Value("${pix.idempotency.retention-hours:24}")
+    private long retentionHours = 24;
 
     /**
      * Verifica se existe uma resposta idempotente para a chave fornecida.
@@ -41,7 +56,18 @@ public class IdempotencyService {
             return Optional.empty();
         }
 
-        Optional<IdempotencyKey> existingKey = idempotencyKeyRepository.findByKeyValue(key);
+        Optional<String> recentResponse = idempotencyKeyIndex.recentResponse(key);
+        if (recentResponse.isPresent()) {
+            log.info("Resposta idempotente encontrada em memória para key={}", key);
+            return readResponse(key, recentResponse.get(), responseType).map(IdempotentResponse::new);
+        }
+        if (idempotencyKeyIndex.isDefinitelyNew(key)) {
+            return Optional.empty();
+        }
+
+        idempotencyKeyIndex.countDatabaseLookup();
+        Optional<IdempotencyKey> existingKey = idempotencyKeyRepository.findByKeyValue(key)
+                .filter(idempotentKey -> !isExpired(idempotentKey));
 
         if (existingKey.isPresent()) {
             IdempotencyKey idempotentKey = existingKey.get();
@@ -61,6 +87,84 @@ public class IdempotencyService {
         return Optional.empty();
     }
 
+    /**
+     * Versão em lote de {@link #getIdempotentResponse}: uma única consulta para todas as chaves.
+     * Chaves com resposta não deserializável ficam fora do mapa e serão reprocessadas.
+     */
+    @Transactional(readOnly = true)
+    public <T> Map<String, T> getIdempotentResponses(Collection<String> keys, Class<T> responseType) {
+        Map<String, T> responses = new HashMap<>();
+        List<String> unresolved = new ArrayList<>();
+        for (String key : keys) {
+            Optional<String> recentResponse = idempotencyKeyIndex.recentResponse(key);
+            if (recentResponse.isPresent()) {
+                readResponse(key, recentResponse.get(), responseType).ifPresent(response -> responses.put(key, response));
+            } else if (!idempotencyKeyIndex.isDefinitelyNew(key)) {
+                unresolved.add(key);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return responses;
+        }
+        idempotencyKeyIndex.countDatabaseLookup();
+        for (IdempotencyKey idempotentKey : idempotencyKeyRepository.findByKeyValueIn(unresolved)) {
+            if (isExpired(idempotentKey)) {
+                continue;
+            }
+            try {
+                responses.put(idempotentKey.getKeyValue(), objectMapper.readValue(idempotentKey.getResponseBody(), responseType));
+            } catch (JsonProcessingException e) {
+                log.error("Erro ao deserializar resposta idempotente para key={}", idempotentKey.getKeyValue(), e);
+            }
+        }
+        log.debug("Respostas idempotentes encontradas em lote - chaves={}, encontradas={}", keys.size(), responses.size());
+        return responses;
+    }
+
+    /**
+     * Limite inferior de {@code created_at} das chaves ainda válidas; vazio quando a expiração está desligada.
+     */
+    public Optional<LocalDateTime> expiryCutoff() {
+        return retentionHours > 0 ? Optional.of(LocalDateTime.now().minusHours(retentionHours)) : Optional.empty();
+    }
+
+    private boolean isExpired(IdempotencyKey idempotentKey) {
+        return expiryCutoff()
+                .map(cutoff -> idempotentKey.getCreatedAt() != null && idempotentKey.getCreatedAt().isBefore(cutoff))
+                .orElse(false);
+    }
+
+    /**
+     * Deserializa uma resposta já lida do banco (ex.: devolvida pela função {@code pix_transfer}).
+     */
+    public <T> Optional<T> readResponse(String key, String responseBody, Class<T> responseType) {
+        try {
+            return Optional.of(objectMapper.readValue(responseBody, responseType));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.error("Erro ao deserializar resposta idempotente para key={}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Registra no índice em memória uma chave gravada fora deste serviço (JDBC em lote, função pix_transfer).
+     */
+    public void recordStoredResponse(String key, String responseBody) {
+        idempotencyKeyIndex.record(key, responseBody);
+    }
+
+    /**
+     * Monta a chave de idempotência com a resposta serializada, sem persistir (gravação em lote).
+     */
+    public <T> IdempotencyKey newIdempotencyKey(String key, T response, HttpStatus httpStatus) {
+        try {
+            return new IdempotencyKey(key, objectMapper.writeValueAsString(response), httpStatus.value());
+        } catch (JsonProcessingException e) {
+            log.error("Erro ao serializar resposta para idempotência key={}", key, e);
+            throw new IdempotencySerializationException("Erro ao serializar resposta para idempotência", e);
+        }
+    }
+
     /**
      * Armazena uma resposta para ser reutilizada em requisições idempotentes futuras.
      *
@@ -78,7 +182,9 @@ public class IdempotencyService {
         try {
             String responseBody = objectMapper.writeValueAsString(response);
             IdempotencyKey idempotencyKey = new IdempotencyKey(key, responseBody, httpStatus.value());
+            idempotencyKeyIndex.record(key, responseBody);
             idempotencyKeyRepository.save(idempotencyKey);
+            idempotencyKeyRepository.flush(); // violação de chave duplicada sobe daqui, não do commit
 
             log.info("Resposta idempotente salva com sucesso para key={}, httpStatus={}", key, httpStatus.value());
         } catch (JsonProcessingException e) {
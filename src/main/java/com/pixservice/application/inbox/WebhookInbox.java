@@ -0,0 +1,191 @@
+package com.pixservice.application.inbox;
+
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.infrastructure.persistence.WebhookInboxRepository;
+import com.pixservice.infrastructure.persistence.WebhookInboxRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Inbox durável de webhooks ({@code webhook_inbox}, V13) para {@code pix.webhook.ingestion=inbox}.
+ *
+ * O controller só grava o evento e responde 202; {@link WebhookInboxWorkers} processa cada partição chamando
+ * {@link WebhookService#processWebhookEvent}, que já é idempotente por (eventId, endToEndId): um evento
+ * reprocessado depois de uma queda entre o commit do webhook e o DONE do inbox não reaplica efeitos.
+ * Falhas transitórias (banco indisponível, lock, conflito de versão) voltam para a fila com backoff exponencial até
+ * {@code pix.webhook.inbox.max-attempts}; erros de negócio (transação desconhecida, transição inválida) viram FAILED
+ * na hora, já que repetir não muda o resultado e a linha PENDING seguraria os próximos eventos da mesma transação.
+ */
+@Component
+@Slf4j
+public class WebhookInbox {
+
+    /** Slots fixos de hash; a partição é {@code slot % pix.webhook.inbox.partitions}. */
+    static final int SLOTS = 1024;
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "webhook";
+    private static final String RESPONSE_ERROR = "ERROR";
+
+    private final WebhookInboxRepository inboxRepository;
+    private final WebhookService webhookService;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    private final Counter enqueuedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    public WebhookInbox(WebhookInboxRepository inboxRepository,
+                        WebhookService webhookService,
+                        MeterRegistry meterRegistry,
+                        @Value("${pix.webhook.inbox.max-attempts:10}") int maxAttempts,
+                        @Value("${pix.webhook.inbox.retry-base-ms:500}") long retryBaseMs,
+                        @Value("${pix.webhook.inbox.retry-max-ms:60000}") long retryMaxMs) {
+        this.inboxRepository = inboxRepository;
+        this.webhookService = webhookService;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+
+        this.enqueuedCounter = Counter.builder("pix.webhook.inbox.enqueued")
+                .description("Webhooks gravados no inbox")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.retriedCounter = Counter.builder("pix.webhook.inbox.retried")
+                .description("Webhooks do inbox devolvidos para nova tentativa")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("pix.webhook.inbox.failed")
+                .description("Webhooks do inbox marcados como FAILED")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.lagTimer = Timer.builder("pix.webhook.inbox.lag")
+                .description("Tempo entre o recebimento do webhook e o fim do processamento")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.webhook.inbox.depth", depth, AtomicLong::get)
+                .description("Webhooks PENDING no inbox")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.webhook.inbox.oldest.age", oldestAgeSeconds, AtomicLong::get)
+                .description("Idade em segundos do webhook PENDING mais antigo")
+                .baseUnit("seconds")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava o evento no inbox. Um (eventId, endToEndId) já recebido é aceito de novo sem nova linha.
+     */
+    public void enqueue(PixWebhookRequest request) {
+        if (isNull(request) || isNull(request.getEventId()) || isNull(request.getEndToEndId()) || isNull(request.getEventType())) {
+            throw new IllegalArgumentException("Webhook Pix inválido: eventId, endToEndId e eventType são obrigatórios.");
+        }
+        if (inboxRepository.enqueue(request.getEventId(), request.getEndToEndId(), request.getEventType(),
+                request.getOccurredAt(), slot(request.getEndToEndId()))) {
+            enqueuedCounter.increment();
+            log.debug("Webhook gravado no inbox - eventId={}, endToEndId={}", request.getEventId(), request.getEndToEndId());
+        } else {
+            log.info("Webhook já presente no inbox - eventId={}, endToEndId={}", request.getEventId(), request.getEndToEndId());
+        }
+    }
+
+    static int slot(String endToEndId) {
+        return Math.floorMod(endToEndId.hashCode(), SLOTS);
+    }
+
+    /**
+     * Processa, em ordem, até {@code limit} eventos prontos da partição. Deve ser chamado só pelo dono do lease.
+     *
+     * @return eventos processados (com sucesso ou não)
+     */
+    int processBatch(int partition, int partitions, int limit) {
+        List<WebhookInboxRow> rows = inboxRepository.findReady(partition, partitions, limit);
+        for (WebhookInboxRow row : rows) {
+            process(row);
+        }
+        return rows.size();
+    }
+
+    private void process(WebhookInboxRow row) {
+        PixWebhookRequest request = new PixWebhookRequest(row.endToEndId(), row.eventId(), row.eventType(), row.occurredAt());
+        try {
+            PixWebhookResponse response = webhookService.processWebhookEvent(request);
+            if (RESPONSE_ERROR.equals(response.getStatus())) {
+                failedCounter.increment();
+                inboxRepository.markFailed(row.id(), response.getMessage());
+                log.warn("Webhook do inbox com erro de negócio - id={}, eventId={}, motivo={}", row.id(), row.eventId(), response.getMessage());
+            } else {
+                inboxRepository.markDone(row.id());
+            }
+            lagTimer.record(Duration.between(row.receivedAt(), LocalDateTime.now()));
+        } catch (Exception e) {
+            int attempts = row.attempts() + 1;
+            if (!isTransient(e)) {
+                failedCounter.increment();
+                inboxRepository.markFailed(row.id(), e.getMessage());
+                log.warn("Webhook do inbox recusado sem nova tentativa - id={}, eventId={}, endToEndId={}, motivo={}",
+                        row.id(), row.eventId(), row.endToEndId(), e.getMessage());
+            } else if (attempts >= maxAttempts) {
+                failedCounter.increment();
+                inboxRepository.markFailed(row.id(), e.getMessage());
+                log.error("Webhook do inbox falhou após {} tentativas - id={}, eventId={}, endToEndId={}, motivo={}",
+                        attempts, row.id(), row.eventId(), row.endToEndId(), e.getMessage());
+            } else {
+                retriedCounter.increment();
+                long delayMs = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+                inboxRepository.markRetry(row.id(), e.getMessage(), delayMs);
+                log.warn("Webhook do inbox volta para a fila - id={}, eventId={}, tentativa={}, retryEmMs={}, motivo={}",
+                        row.id(), row.eventId(), attempts, delayMs, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Falhas que podem dar certo em uma nova tentativa: acesso ao banco, locks e abertura de transação.
+     */
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    /**
+     * Atualiza os gauges de profundidade e idade do inbox.
+     */
+    void refreshStats() {
+        long[] stats = inboxRepository.pendingStats();
+        depth.set(stats[0]);
+        oldestAgeSeconds.set(stats[1]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.pixservice.application.inbox;
+
+import com.pixservice.infrastructure.persistence.WebhookInboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers do inbox de webhooks: um por partição ({@code pix.webhook.inbox.partitions}).
+ *
+ * Antes de cada lote o worker adquire ou renova o lease da partição em {@code webhook_inbox_lease}; com várias
+ * instâncias, só o dono do lease processa a partição, o que mantém a ordem dos eventos de cada transação. O lease
+ * ({@code pix.webhook.inbox.lease-ms}) precisa ser maior que o tempo de um lote, e todas as instâncias precisam do
+ * mesmo número de partições.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.webhook.ingestion", havingValue = "inbox")
+@Slf4j
+public class WebhookInboxWorkers {
+
+    private final WebhookInbox inbox;
+    private final WebhookInboxRepository inboxRepository;
+    private final int partitions;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final long retentionHours;
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    public WebhookInboxWorkers(WebhookInbox inbox,
+                               WebhookInboxRepository inboxRepository,
+                               @Value("${pix.webhook.inbox.partitions:8}") int partitions,
+                               @Value("${pix.webhook.inbox.batch-size:100}") int batchSize,
+                               @Value("${pix.webhook.inbox.poll-interval-ms:200}") long pollIntervalMs,
+                               @Value("${pix.webhook.inbox.lease-ms:30000}") long leaseMs,
+                               @Value("${pix.webhook.inbox.retention-hours:24}") long retentionHours,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (partitions < 1 || partitions > WebhookInbox.SLOTS) {
+            throw new IllegalArgumentException("pix.webhook.inbox.partitions deve estar entre 1 e " + WebhookInbox.SLOTS);
+        }
+        this.inbox = inbox;
+        this.inboxRepository = inboxRepository;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.retentionHours = retentionHours;
+
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("webhook-inbox-", 0).factory();
+        } else {
+            CustomizableThreadFactory platformThreadFactory = new CustomizableThreadFactory("webhook-inbox-");
+            platformThreadFactory.setDaemon(true);
+            threadFactory = platformThreadFactory;
+        }
+        this.workers = Executors.newFixedThreadPool(partitions, threadFactory);
+        for (int partition = 0; partition < partitions; partition++) {
+            int assigned = partition;
+            this.workers.execute(() -> runWorker(assigned));
+        }
+        log.info("Inbox de webhooks inicializado - partitions={}, batchSize={}, leaseMs={}, owner={}",
+                partitions, batchSize, leaseMs, owner);
+    }
+
+    private void runWorker(int partition) {
+        while (running) {
+            int processed = 0;
+            try {
+                if (inboxRepository.acquireLease(partition, owner, leaseMs)) {
+                    processed = inbox.processBatch(partition, partitions, batchSize);
+                }
+            } catch (Exception e) {
+                log.warn("Falha no worker do inbox - partition={}, motivo={}", partition, e.getMessage());
+            }
+            if (processed < batchSize && !sleep()) {
+                break;
+            }
+        }
+        try {
+            inboxRepository.releaseLease(partition, owner);
+        } catch (Exception e) {
+            log.debug("Lease do inbox não liberado - partition={}, motivo={}", partition, e.getMessage());
+        }
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(pollIntervalMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Atualiza os gauges do inbox e remove eventos DONE fora da retenção.
+     */
+    @Scheduled(fixedDelayString = "${pix.webhook.inbox.maintenance-interval-ms:5000}")
+    public void maintain() {
+        inbox.refreshStats();
+        int purged = inboxRepository.purgeDone(LocalDateTime.now().minusHours(retentionHours), 1000);
+        if (purged > 0) {
+            log.debug("Webhooks DONE removidos do inbox - quantidade={}", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
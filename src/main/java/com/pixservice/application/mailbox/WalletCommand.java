@@ -0,0 +1,21 @@
+package com.pixservice.application.mailbox;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca uma operação que altera o saldo de uma carteira. Com {@code pix.wallet.mailbox.enabled=true}
+ * a chamada é enfileirada no mailbox da carteira e executada pelo seu único escritor (ver {@link WalletMailbox}).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WalletCommand {
+
+    /**
+     * Expressão SpEL avaliada sobre os argumentos do método que resolve o id da carteira afetada
+     * (ex.: {@code #walletId}, {@code #request.fromWalletId}). Resultado nulo executa a chamada diretamente.
+     */
+    String walletId();
+}
@@ -0,0 +1,319 @@
+package com.pixservice.application.mailbox;
+
+import com.pixservice.application.service.WalletStripeService;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializador de comandos por carteira (mailbox) dentro da JVM.
+ *
+ * Métodos anotados com {@link WalletCommand} são enfileirados no mailbox da carteira afetada e executados
+ * em ordem por um único escritor. Comandos consecutivos da mesma carteira são drenados para uma única
+ * transação: a linha de wallet é bloqueada uma vez por lote (sem disputa dentro da JVM, o lock só protege
+ * contra outras instâncias) e o método anotado participa dessa transação. Assim a cadeia
+ * balanceBefore/balanceAfter do ledger segue a ordem de chegada e o custo de lock + commit é dividido pelo lote.
+ *
+ * Se qualquer comando falhar, o lote inteiro sofre rollback e os comandos são reaplicados um a um, cada um
+ * em sua transação, de modo que a falha de um não afeta os demais.
+ *
+ * A chamada é executada diretamente (sem mailbox) quando já existe transação ativa na thread chamadora,
+ * quando a carteira não é resolvida ou quando ela usa sub-saldos, que já dispensam o lock único.
+ */
+@Aspect
+@Component
+// Logo depois do group commit: uma transferência agrupada não passa pelo mailbox
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "pix.wallet.mailbox.enabled", havingValue = "true")
+@Slf4j
+public class WalletMailbox {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet-mailbox";
+
+    private static final ThreadLocal<Wallet> HELD_WALLET = new ThreadLocal<>();
+
+    private final WalletRepository walletRepository;
+    private final WalletStripeService walletStripeService;
+    private final TransactionTemplate transactionTemplate;
+    private final BeanFactoryResolver beanResolver;
+    private final int maxBatch;
+    private final ExecutorService workers;
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final DistributionSummary batchSizeSummary;
+    private final Counter batchFallbackCounter;
+
+    public WalletMailbox(WalletRepository walletRepository,
+                         WalletStripeService walletStripeService,
+                         PlatformTransactionManager transactionManager,
+                         BeanFactory beanFactory,
+                         MeterRegistry meterRegistry,
+                         @Value("${pix.wallet.mailbox.workers:8}") int workers,
+                         @Value("${pix.wallet.mailbox.max-batch:32}") int maxBatch,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.walletRepository = walletRepository;
+        this.walletStripeService = walletStripeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.beanResolver = new BeanFactoryResolver(beanFactory);
+        this.maxBatch = maxBatch;
+        // Com virtual threads o número de escritores continua limitado por 'workers' (teto de conexões do mailbox)
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("wallet-mailbox-", 1).factory();
+        } else {
+            CustomizableThreadFactory platformThreadFactory = new CustomizableThreadFactory("wallet-mailbox-");
+            platformThreadFactory.setDaemon(true);
+            threadFactory = platformThreadFactory;
+        }
+        this.workers = Executors.newFixedThreadPool(workers, threadFactory);
+
+        this.batchSizeSummary = DistributionSummary.builder("pix.wallet.mailbox.batch.size")
+                .description("Comandos aplicados por transação do mailbox")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.batchFallbackCounter = Counter.builder("pix.wallet.mailbox.batch.fallback")
+                .description("Lotes desfeitos e reaplicados comando a comando")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.wallet.mailbox.active", mailboxes, Map::size)
+                .description("Carteiras com comandos pendentes ou em execução")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        log.info("WalletMailbox inicializado - workers={}, maxBatch={}, virtualThreads={}", workers, maxBatch, virtualThreads);
+    }
+
+    /**
+     * Carteira já bloqueada pelo lote em execução na thread atual, se for a carteira pedida.
+     * Permite que os serviços pulem o {@code SELECT ... FOR UPDATE} dentro do mailbox.
+     */
+    public static Optional<Wallet> heldWallet(Long walletId) {
+        Wallet wallet = HELD_WALLET.get();
+        return wallet != null && wallet.getId().equals(walletId) ? Optional.of(wallet) : Optional.empty();
+    }
+
+    @Around("@annotation(com.pixservice.application.mailbox.WalletCommand)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed(); // dentro de um lote do mailbox ou de uma transação do chamador
+        }
+        Long walletId = resolveWalletId(joinPoint);
+        if (walletId == null || walletStripeService.isStriped(walletId)) {
+            return joinPoint.proceed();
+        }
+
+        Command command = new Command(joinPoint, MDC.getCopyOfContextMap());
+        enqueue(walletId, command);
+        try {
+            return command.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Mailbox encerrado com comandos pendentes - carteiras={}", mailboxes.size());
+        }
+    }
+
+    private Long resolveWalletId(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        WalletCommand walletCommand = method.getAnnotation(WalletCommand.class);
+        MethodBasedEvaluationContext context =
+                new MethodBasedEvaluationContext(null, method, joinPoint.getArgs(), parameterNameDiscoverer);
+        context.setBeanResolver(beanResolver);
+        return expressions.computeIfAbsent(walletCommand.walletId(), parser::parseExpression)
+                .getValue(context, Long.class);
+    }
+
+    /**
+     * Enfileira o comando e agenda o dreno se o mailbox estiver ocioso. As transições de estado do
+     * mailbox acontecem dentro de {@code compute}, atômico por carteira.
+     */
+    private void enqueue(Long walletId, Command command) {
+        boolean[] schedule = new boolean[1];
+        Mailbox mailbox = mailboxes.compute(walletId, (id, current) -> {
+            Mailbox target = current != null ? current : new Mailbox(id);
+            target.queue.add(command);
+            schedule[0] = !target.scheduled;
+            target.scheduled = true;
+            return target;
+        });
+        if (schedule[0]) {
+            workers.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        List<Command> batch = new ArrayList<>();
+        Command command;
+        while (batch.size() < maxBatch && (command = mailbox.queue.poll()) != null) {
+            batch.add(command);
+        }
+        try {
+            if (!batch.isEmpty()) {
+                applyBatch(mailbox.walletId, batch);
+            }
+        } catch (Throwable e) {
+            batch.forEach(c -> c.result.completeExceptionally(e));
+        } finally {
+            release(mailbox);
+        }
+    }
+
+    /**
+     * Remove o mailbox se ficou vazio; caso contrário reagenda o dreno no fim da fila do executor,
+     * para que uma carteira muito quente não monopolize um worker.
+     */
+    private void release(Mailbox mailbox) {
+        boolean[] reschedule = new boolean[1];
+        mailboxes.compute(mailbox.walletId, (id, current) -> {
+            if (mailbox.queue.isEmpty()) {
+                mailbox.scheduled = false;
+                return null;
+            }
+            reschedule[0] = true;
+            return current;
+        });
+        if (reschedule[0]) {
+            workers.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void applyBatch(Long walletId, List<Command> batch) {
+        batchSizeSummary.record(batch.size());
+        if (batch.size() == 1) {
+            applyOne(walletId, batch.get(0));
+            return;
+        }
+        try {
+            List<Object> results = runInTransaction(walletId, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+            return;
+        } catch (RuntimeException e) {
+            batchFallbackCounter.increment();
+            log.warn("Lote do mailbox desfeito, reaplicando comandos individualmente - walletId={}, comandos={}, motivo={}",
+                    walletId, batch.size(), e.getMessage());
+        }
+        batch.forEach(command -> applyOne(walletId, command));
+    }
+
+    private void applyOne(Long walletId, Command command) {
+        try {
+            command.result.complete(runInTransaction(walletId, List.of(command)).get(0));
+        } catch (UndeclaredThrowableException e) {
+            command.result.completeExceptionally(e.getUndeclaredThrowable());
+        } catch (RuntimeException e) {
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    private List<Object> runInTransaction(Long walletId, List<Command> batch) {
+        return transactionTemplate.execute(status -> {
+            walletRepository.findByIdForUpdate(walletId).ifPresent(HELD_WALLET::set);
+            try {
+                List<Object> results = new ArrayList<>(batch.size());
+                for (Command command : batch) {
+                    results.add(command.invoke());
+                }
+                return results;
+            } finally {
+                HELD_WALLET.remove();
+            }
+        });
+    }
+
+    private static final class Mailbox {
+        private final Long walletId;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private boolean scheduled;
+
+        private Mailbox(Long walletId) {
+            this.walletId = walletId;
+        }
+    }
+
+    private static final class Command {
+        private final ProceedingJoinPoint joinPoint;
+        private final Map<String, String> mdcContext;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Command(ProceedingJoinPoint joinPoint, Map<String, String> mdcContext) {
+            this.joinPoint = joinPoint;
+            this.mdcContext = mdcContext;
+        }
+
+        /**
+         * Executa a chamada original (cada {@code proceed} reinicia a cadeia de interceptors, então o
+         * comando pode ser reaplicado após o rollback de um lote) com o MDC da requisição de origem.
+         */
+        private Object invoke() {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            } finally {
+                MDC.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.pixservice.application.reconciliation;
+
+import java.math.BigDecimal;
+
+/**
+ * Divergência encontrada pela reconciliação do ledger.
+ *
+ * @param stripeIndex sub-saldo do encadeamento (null = saldo principal ou carteira inteira)
+ * @param entryId     entrada de ledger onde a divergência foi detectada (null em {@link Kind#BALANCE_MISMATCH})
+ * @param expected    valor esperado pelo ledger
+ * @param actual      valor gravado
+ */
+public record LedgerDiscrepancy(Long walletId, Integer stripeIndex, Kind kind, Long entryId,
+                                BigDecimal expected, BigDecimal actual) {
+
+    public enum Kind {
+        /** Saldo da carteira (principal mais sub-saldos) diferente da soma das entradas. */
+        BALANCE_MISMATCH,
+        /** balance_before diferente do balance_after da entrada anterior do mesmo saldo. */
+        CHAIN_BREAK,
+        /** balance_after diferente de balance_before + amount. */
+        ARITHMETIC
+    }
+}
@@ -0,0 +1,22 @@
+package com.pixservice.application.reconciliation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconciliação periódica do ledger; sob demanda, via {@code POST /actuator/reconciliation}.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.ledger.reconciliation.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LedgerReconciliationJob {
+
+    private final LedgerReconciliationService reconciliationService;
+
+    @Scheduled(cron = "${pix.ledger.reconciliation.cron:0 0 3 * * *}")
+    public void reconcile() {
+        reconciliationService.reconcile();
+    }
+}
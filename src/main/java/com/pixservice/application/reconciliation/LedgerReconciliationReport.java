@@ -0,0 +1,28 @@
+package com.pixservice.application.reconciliation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resultado (ou progresso, enquanto {@link Status#RUNNING}) de uma execução da reconciliação do ledger.
+ *
+ * @param failedChunks     faixas de carteiras que não puderam ser verificadas (erro de leitura), registradas em log
+ * @param discrepancyCount total de divergências; {@code discrepancies} guarda no máximo
+ *                         {@code pix.ledger.reconciliation.max-discrepancies} delas
+ */
+public record LedgerReconciliationReport(Status status, LocalDateTime startedAt, LocalDateTime finishedAt,
+                                         long chunks, long failedChunks, long walletsChecked, long entriesChecked,
+                                         long discrepancyCount, List<LedgerDiscrepancy> discrepancies,
+                                         String failure) {
+
+    public enum Status {
+        NEVER_RUN,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public static LedgerReconciliationReport neverRun() {
+        return new LedgerReconciliationReport(Status.NEVER_RUN, null, null, 0, 0, 0, 0, 0, List.of(), null);
+    }
+}
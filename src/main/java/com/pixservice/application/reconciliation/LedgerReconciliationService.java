@@ -0,0 +1,316 @@
+package com.pixservice.application.reconciliation;
+
+import com.pixservice.application.reconciliation.LedgerDiscrepancy.Kind;
+import com.pixservice.application.reconciliation.LedgerReconciliationReport.Status;
+import com.pixservice.infrastructure.persistence.LedgerReconciliationRepository;
+import com.pixservice.infrastructure.persistence.LedgerReconciliationRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reconciliação do ledger: para cada carteira verifica que o saldo gravado (principal mais sub-saldos) é a
+ * soma das entradas de {@code ledger_entry}, que cada entrada tem {@code balance_after = balance_before + amount}
+ * e que o {@code balance_before} de cada entrada é o {@code balance_after} da anterior do mesmo saldo
+ * (principal ou sub-saldo).
+ *
+ * O espaço de ids de carteira é dividido recursivamente em faixas de até {@code pix.ledger.reconciliation.chunk-size}
+ * ids, verificadas em um {@link ForkJoinPool} com {@code pix.ledger.reconciliation.parallelism} workers (o que também
+ * limita as conexões usadas). Cada faixa é lida em uma transação REPEATABLE READ somente leitura, então saldos e
+ * entradas vêm do mesmo snapshot mesmo com tráfego concorrente; as entradas chegam por cursor, em ordem de carteira,
+ * e o estado mantido é só o da carteira corrente. A leitura é limitada a
+ * {@code pix.ledger.reconciliation.max-rows-per-second} linhas por segundo no total.
+ *
+ * Em carteiras com entradas arquivadas, a soma parte do total arquivado (do índice, sem ler os segmentos) e a
+ * primeira entrada de cada saldo no banco não tem o {@code balance_before} conferido, já que a anterior está no arquivo.
+ */
+@Service
+@Slf4j
+public class LedgerReconciliationService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet";
+    private static final int THROTTLE_BATCH = 1_000;
+
+    private final LedgerReconciliationRepository reconciliationRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final int parallelism;
+    private final long chunkSize;
+    private final int maxDiscrepancies;
+    private final RowThrottle throttle;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run current;
+
+    private final Timer durationTimer;
+
+    public LedgerReconciliationService(LedgerReconciliationRepository reconciliationRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${pix.ledger.reconciliation.parallelism:4}") int parallelism,
+                                       @Value("${pix.ledger.reconciliation.chunk-size:1000}") long chunkSize,
+                                       @Value("${pix.ledger.reconciliation.max-rows-per-second:200000}") long maxRowsPerSecond,
+                                       @Value("${pix.ledger.reconciliation.max-discrepancies:1000}") int maxDiscrepancies) {
+        this.reconciliationRepository = reconciliationRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxDiscrepancies = maxDiscrepancies;
+        this.throttle = new RowThrottle(maxRowsPerSecond);
+
+        this.durationTimer = Timer.builder("pix.ledger.reconciliation.duration")
+                .description("Duração de uma reconciliação completa do ledger")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        Gauge.builder("pix.ledger.reconciliation.discrepancies", this, service -> service.report().discrepancyCount())
+                .description("Divergências encontradas pela última reconciliação do ledger")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relatório da execução em andamento (parcial) ou da última concluída.
+     */
+    public LedgerReconciliationReport report() {
+        Run run = current;
+        return run == null ? LedgerReconciliationReport.neverRun() : run.report();
+    }
+
+    /**
+     * Dispara a reconciliação em uma thread própria.
+     *
+     * @return false se já houver uma execução em andamento
+     */
+    public boolean reconcileAsync() {
+        if (running.get()) {
+            return false;
+        }
+        Thread.ofPlatform().name("ledger-reconciliation").daemon().start(this::reconcile);
+        return true;
+    }
+
+    /**
+     * Executa a reconciliação completa na thread chamadora.
+     *
+     * @return vazio se já houver uma execução em andamento
+     */
+    public Optional<LedgerReconciliationReport> reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Reconciliação do ledger já em andamento");
+            return Optional.empty();
+        }
+        Run run = new Run();
+        current = run;
+        log.info("Reconciliação do ledger iniciada - parallelism={}, chunkSize={}", parallelism, chunkSize);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, LedgerReconciliationService::newWorker, null, false);
+        Timer.Sample sample = Timer.start();
+        try {
+            reconciliationRepository.walletIdBounds()
+                    .ifPresent(bounds -> pool.invoke(new ChunkTask(run, bounds[0], bounds[1])));
+            run.finish(Status.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("Falha na reconciliação do ledger - motivo={}", e.getMessage(), e);
+            run.finish(Status.FAILED, e.getMessage());
+        } finally {
+            pool.shutdown();
+            sample.stop(durationTimer);
+            running.set(false);
+        }
+        LedgerReconciliationReport report = run.report();
+        log.info("Reconciliação do ledger concluída - status={}, faixas={}, faixasComFalha={}, carteiras={}, entradas={}, divergências={}, tempo={}ms",
+                report.status(), report.chunks(), report.failedChunks(), report.walletsChecked(), report.entriesChecked(),
+                report.discrepancyCount(), Duration.between(report.startedAt(), report.finishedAt()).toMillis());
+        return Optional.of(report);
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ledger-reconciliation-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    private void verifyChunk(Run run, long fromId, long toId) {
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                Map<Long, Long> storedBalances = reconciliationRepository.storedBalances(fromId, toId);
+                if (storedBalances.isEmpty()) {
+                    return;
+                }
+                int wallets = storedBalances.size();
+                Map<Long, Long> archivedSums = reconciliationRepository.archivedSums(fromId, toId);
+                WalletScan scan = new WalletScan(run, storedBalances, archivedSums);
+                reconciliationRepository.streamEntries(fromId, toId, scan::accept);
+                scan.finish();
+                run.walletsChecked.add(wallets);
+            });
+            run.chunks.increment();
+        } catch (Exception e) {
+            run.failedChunks.increment();
+            log.warn("Falha ao reconciliar faixa de carteiras - fromId={}, toId={}, motivo={}", fromId, toId, e.getMessage());
+        }
+    }
+
+    private static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Divide a faixa [fromId, toId] ao meio até caber em um chunk.
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        private final Run run;
+        private final long fromId;
+        private final long toId;
+
+        ChunkTask(Run run, long fromId, long toId) {
+            this.run = run;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId < chunkSize) {
+                verifyChunk(run, fromId, toId);
+                return;
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            invokeAll(new ChunkTask(run, fromId, middle), new ChunkTask(run, middle + 1, toId));
+        }
+    }
+
+    /**
+     * Estado de uma faixa sendo lida: acumula a carteira corrente e a fecha quando o cursor passa para a próxima.
+     */
+    private final class WalletScan {
+
+        private final Run run;
+        private final Map<Long, Long> storedBalances;
+        private final Map<Long, Long> archivedSums;
+        private final Map<Integer, Long> lastBalanceAfter = new HashMap<>(); // chave null = saldo principal
+        private long walletId = -1;
+        private boolean archived;
+        private long sum;
+        private long rows;
+
+        WalletScan(Run run, Map<Long, Long> storedBalances, Map<Long, Long> archivedSums) {
+            this.run = run;
+            this.storedBalances = storedBalances;
+            this.archivedSums = archivedSums;
+        }
+
+        void accept(LedgerReconciliationRow row) {
+            if (row.walletId() != walletId) {
+                closeWallet();
+                walletId = row.walletId();
+                Long archivedSum = archivedSums.remove(walletId);
+                archived = archivedSum != null;
+                sum = archived ? archivedSum : 0;
+            }
+            sum += row.amount();
+            Long previousAfter = lastBalanceAfter.put(row.stripeIndex(), row.balanceAfter());
+            long expectedBefore = previousAfter == null ? 0 : previousAfter;
+            if ((previousAfter != null || !archived) && row.balanceBefore() != expectedBefore) {
+                run.record(new LedgerDiscrepancy(walletId, row.stripeIndex(), Kind.CHAIN_BREAK, row.id(),
+                        toDecimal(expectedBefore), toDecimal(row.balanceBefore())));
+            }
+            if (row.balanceAfter() != row.balanceBefore() + row.amount()) {
+                run.record(new LedgerDiscrepancy(walletId, row.stripeIndex(), Kind.ARITHMETIC, row.id(),
+                        toDecimal(row.balanceBefore() + row.amount()), toDecimal(row.balanceAfter())));
+            }
+            if (++rows % THROTTLE_BATCH == 0) {
+                throttle.acquire(THROTTLE_BATCH);
+            }
+        }
+
+        void finish() {
+            closeWallet();
+            // Carteiras restantes não têm entradas no banco: o saldo precisa ser o total arquivado (ou zero)
+            storedBalances.forEach((id, balance) -> compareBalance(id, archivedSums.getOrDefault(id, 0L), balance));
+            throttle.acquire(rows % THROTTLE_BATCH);
+            run.entriesChecked.add(rows);
+        }
+
+        private void closeWallet() {
+            if (walletId < 0) {
+                return;
+            }
+            Long balance = storedBalances.remove(walletId);
+            if (balance != null) {
+                compareBalance(walletId, sum, balance);
+            }
+            sum = 0;
+            lastBalanceAfter.clear();
+        }
+
+        private void compareBalance(long id, long ledgerSum, long balance) {
+            if (ledgerSum != balance) {
+                run.record(new LedgerDiscrepancy(id, null, Kind.BALANCE_MISMATCH, null, toDecimal(ledgerSum), toDecimal(balance)));
+            }
+        }
+    }
+
+    /**
+     * Contadores de uma execução, atualizados pelos workers e lidos pelo endpoint durante a execução.
+     */
+    private final class Run {
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder failedChunks = new LongAdder();
+        private final LongAdder walletsChecked = new LongAdder();
+        private final LongAdder entriesChecked = new LongAdder();
+        private final LongAdder discrepancyCount = new LongAdder();
+        private final ConcurrentLinkedQueue<LedgerDiscrepancy> discrepancies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger keptDiscrepancies = new AtomicInteger();
+        private volatile Status status = Status.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String failure;
+
+        void record(LedgerDiscrepancy discrepancy) {
+            discrepancyCount.increment();
+            if (keptDiscrepancies.getAndIncrement() < maxDiscrepancies) {
+                discrepancies.add(discrepancy);
+                log.warn("Divergência no ledger - walletId={}, stripe={}, tipo={}, entryId={}, esperado={}, gravado={}",
+                        discrepancy.walletId(), discrepancy.stripeIndex(), discrepancy.kind(), discrepancy.entryId(),
+                        discrepancy.expected(), discrepancy.actual());
+            }
+        }
+
+        void finish(Status finalStatus, String finalFailure) {
+            failure = finalFailure;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        LedgerReconciliationReport report() {
+            return new LedgerReconciliationReport(status, startedAt, finishedAt, chunks.sum(), failedChunks.sum(),
+                    walletsChecked.sum(), entriesChecked.sum(), discrepancyCount.sum(), new ArrayList<>(discrepancies), failure);
+        }
+    }
+}
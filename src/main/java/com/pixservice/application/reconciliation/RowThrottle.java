@@ -0,0 +1,37 @@
+package com.pixservice.application.reconciliation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limite global de linhas por segundo compartilhado pelos workers da reconciliação: cada lote lido reserva
+ * sua fatia de tempo e o worker dorme até ela, espalhando a leitura em vez de competir em rajadas com o tráfego online.
+ */
+class RowThrottle {
+
+    private final long nanosPerRow;
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param maxRowsPerSecond limite de linhas por segundo; 0 desliga o limite
+     */
+    RowThrottle(long maxRowsPerSecond) {
+        this.nanosPerRow = maxRowsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond : 0;
+    }
+
+    void acquire(long rows) {
+        if (nanosPerRow == 0 || rows <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(nextFreeNanos, now);
+            nextFreeNanos = start + rows * nanosPerRow;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.pixservice.application.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fechamento diário de saldo por carteira. A primeira execução faz o backfill do histórico das carteiras
+ * existentes; com {@code pix.ledger.checkpoint.backfill-on-startup=true} ele roda também no startup.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.ledger.checkpoint.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceCheckpointJob {
+
+    private final BalanceCheckpointService balanceCheckpointService;
+
+    @Value("${pix.ledger.checkpoint.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Scheduled(cron = "${pix.ledger.checkpoint.cron:0 15 0 * * *}")
+    public void closeDay() {
+        balanceCheckpointService.closeAllWallets(balanceCheckpointService.closingBoundary(LocalDateTime.now()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (backfillOnStartup) {
+            log.info("Backfill de checkpoints de saldo no startup");
+            closeDay();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.pixservice.application.service;
+
+import com.pixservice.application.archive.LedgerArchiveService;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.WalletBalanceCheckpoint;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletBalanceCheckpointRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.archive.LedgerArchiveRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Checkpoints diários de saldo ({@code wallet_balance_checkpoint}).
+ *
+ * O saldo em um instante é o checkpoint mais próximo anterior a ele mais a soma, no banco, das entradas
+ * de ledger entre o checkpoint e o instante. O fechamento só cobre dias encerrados há pelo menos
+ * {@code pix.ledger.checkpoint.settle-minutes}, para que entradas de transações ainda abertas na virada
+ * do dia (created_at anterior ao commit) não fiquem de fora de um checkpoint já gravado.
+ *
+ * Entradas anteriores ao limite do arquivo da carteira ({@link LedgerArchiveService}) já não estão no banco:
+ * abaixo do limite o saldo vem do arquivo, e acima dele a soma arquivada substitui checkpoints e entradas
+ * anteriores ao limite.
+ */
+@Service
+@Slf4j
+public class BalanceCheckpointService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet";
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final WalletBalanceCheckpointRepository checkpointRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final WalletRepository walletRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    private final long settleMinutes;
+    private final int walletPageSize;
+
+    private final Counter checkpointsCounter;
+
+    public BalanceCheckpointService(WalletBalanceCheckpointRepository checkpointRepository,
+                                    LedgerEntryRepository ledgerEntryRepository,
+                                    WalletRepository walletRepository,
+                                    LedgerArchiveService ledgerArchiveService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${pix.ledger.checkpoint.settle-minutes:10}") long settleMinutes,
+                                    @Value("${pix.ledger.checkpoint.wallet-page-size:500}") int walletPageSize) {
+        this.checkpointRepository = checkpointRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.walletRepository = walletRepository;
+        this.ledgerArchiveService = ledgerArchiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleMinutes = settleMinutes;
+        this.walletPageSize = walletPageSize;
+
+        this.checkpointsCounter = Counter.builder("pix.ledger.checkpoint.created")
+                .description("Checkpoints diários de saldo gravados")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Saldo da carteira considerando as entradas criadas antes de {@code at}.
+     */
+    public Money balanceAt(Long walletId, LocalDateTime at) {
+        Optional<LedgerArchiveRepository.Summary> archive = ledgerArchiveService.summary(walletId);
+        if (archive.isPresent() && !at.isAfter(archive.get().archivedUntil())) {
+            return ledgerArchiveService.sumBefore(walletId, at);
+        }
+        Optional<WalletBalanceCheckpoint> checkpoint = checkpointRepository
+                .findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(walletId, at);
+        if (archive.isPresent() && (checkpoint.isEmpty()
+                || checkpoint.get().getCheckpointAt().isBefore(archive.get().archivedUntil()))) {
+            LocalDateTime boundary = archive.get().archivedUntil();
+            BigDecimal tail = ledgerEntryRepository.sumAmountBetween(walletId, boundary, at);
+            return Money.of(archive.get().amountSum()).plus(Money.of(tail));
+        }
+        if (checkpoint.isEmpty()) {
+            return Money.of(ledgerEntryRepository.sumAmountBefore(walletId, at));
+        }
+        BigDecimal tail = ledgerEntryRepository.sumAmountBetween(walletId, checkpoint.get().getCheckpointAt(), at);
+        return checkpoint.get().getBalance().plus(Money.of(tail));
+    }
+
+    /**
+     * Último limite de dia que já pode ser fechado: meia-noite do dia de {@code now - settle-minutes}.
+     */
+    public LocalDateTime closingBoundary(LocalDateTime now) {
+        return now.minusMinutes(settleMinutes).toLocalDate().atStartOfDay();
+    }
+
+    /**
+     * Fecha todas as carteiras até {@code until}. Cada carteira é fechada em uma transação própria; carteiras
+     * sem checkpoint têm todo o histórico preenchido (backfill), as demais só os dias após o último checkpoint.
+     *
+     * @return quantidade de checkpoints gravados
+     */
+    public long closeAllWallets(LocalDateTime until) {
+        long start = System.currentTimeMillis();
+        long created = 0;
+        int wallets = 0;
+        Long afterId = 0L;
+        List<Long> page;
+        do {
+            page = walletRepository.findIdsAfter(afterId, PageRequest.of(0, walletPageSize));
+            for (Long walletId : page) {
+                try {
+                    created += closeWallet(walletId, until);
+                } catch (Exception e) {
+                    log.warn("Falha ao gravar checkpoint de saldo - walletId={}, motivo={}", walletId, e.getMessage());
+                }
+                afterId = walletId;
+            }
+            wallets += page.size();
+        } while (page.size() == walletPageSize);
+        log.info("Checkpoints de saldo gravados - carteiras={}, checkpoints={}, until={}, tempo={}ms",
+                wallets, created, until, System.currentTimeMillis() - start);
+        return created;
+    }
+
+    public int closeWallet(Long walletId, LocalDateTime until) {
+        Integer created = transactionTemplate.execute(status -> {
+            Optional<WalletBalanceCheckpoint> last = checkpointRepository.findFirstByWalletIdOrderByCheckpointAtDesc(walletId);
+            LocalDateTime from = last.map(WalletBalanceCheckpoint::getCheckpointAt).orElse(LEDGER_START);
+            Money base = last.map(WalletBalanceCheckpoint::getBalance).orElse(Money.ZERO);
+            Optional<LedgerArchiveRepository.Summary> archive = ledgerArchiveService.summary(walletId);
+            if (archive.isPresent() && from.isBefore(archive.get().archivedUntil())) {
+                // Entradas anteriores ao limite só existem no arquivo
+                from = archive.get().archivedUntil();
+                base = Money.of(archive.get().amountSum());
+            }
+            if (!from.isBefore(until)) {
+                return 0;
+            }
+            return checkpointRepository.insertDailyCheckpoints(walletId, base.toBigDecimal(), from, until);
+        });
+        int count = created == null ? 0 : created;
+        checkpointsCounter.increment(count);
+        return count;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pixservice.application.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfill dos totais diários das entradas anteriores ao trigger (V12); depois da primeira execução completa
+ * as demais não fazem nada.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.ledger.rollup.backfill.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class LedgerRollupBackfillJob {
+
+    private final LedgerRollupService ledgerRollupService;
+
+    @Scheduled(cron = "${pix.ledger.rollup.backfill.cron:0 45 0 * * *}")
+    public void backfill() {
+        ledgerRollupService.backfillIfPending();
+    }
+}
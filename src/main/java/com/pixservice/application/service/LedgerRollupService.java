@@ -0,0 +1,187 @@
+package com.pixservice.application.service;
+
+import com.pixservice.application.dto.WalletDailySummaryResponse;
+import com.pixservice.application.dto.WalletSummaryResponse;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.LedgerRollupRepository;
+import com.pixservice.infrastructure.persistence.LedgerRollupRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totais diários por carteira e tipo de lançamento ({@code ledger_daily_rollup}, V12).
+ *
+ * Entradas gravadas a partir de {@code live_from} são contadas pelo trigger no próprio INSERT, em qualquer caminho
+ * de escrita (JPA, lote JDBC ou função {@code pix_transfer}). As anteriores entram pelo backfill, que divide o espaço
+ * de ids de carteira em faixas de {@code pix.ledger.rollup.backfill.chunk-size} ids processadas em paralelo
+ * ({@code pix.ledger.rollup.backfill.parallelism}) e só roda depois de {@code live_from} mais
+ * {@code pix.ledger.rollup.settle-minutes}, quando nenhuma transação aberta ainda pode gravar entradas anteriores a ele.
+ */
+@Service
+@Slf4j
+public class LedgerRollupService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet";
+
+    private final LedgerRollupRepository rollupRepository;
+    private final WalletRepository walletRepository;
+    private final long settleMinutes;
+    private final int parallelism;
+    private final long chunkSize;
+    private final int maxDays;
+
+    private final Counter backfillRowsCounter;
+
+    public LedgerRollupService(LedgerRollupRepository rollupRepository,
+                               WalletRepository walletRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${pix.ledger.rollup.settle-minutes:10}") long settleMinutes,
+                               @Value("${pix.ledger.rollup.backfill.parallelism:4}") int parallelism,
+                               @Value("${pix.ledger.rollup.backfill.chunk-size:1000}") long chunkSize,
+                               @Value("${pix.ledger.rollup.max-days:366}") int maxDays) {
+        this.rollupRepository = rollupRepository;
+        this.walletRepository = walletRepository;
+        this.settleMinutes = settleMinutes;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxDays = maxDays;
+
+        this.backfillRowsCounter = Counter.builder("pix.ledger.rollup.backfill.rows")
+                .description("Linhas de totais diários gravadas pelo backfill")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resumo diário da carteira em [from, to], lido só dos totais materializados.
+     */
+    public WalletSummaryResponse summary(Long walletId, LocalDate from, LocalDate to) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new IllegalArgumentException(WalletService.CARTEIRA_NAO_ENCONTRADA);
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("A data inicial do resumo deve ser anterior ou igual à final.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("O resumo cobre no máximo " + maxDays + " dias.");
+        }
+
+        Map<LocalDate, WalletDailySummaryResponse> days = new LinkedHashMap<>();
+        for (LedgerRollupRow row : rollupRepository.findDaily(walletId, from, to)) {
+            WalletDailySummaryResponse day = days.computeIfAbsent(row.day(), d ->
+                    new WalletDailySummaryResponse(d, BigDecimal.ZERO, BigDecimal.ZERO, 0, new LinkedHashMap<>()));
+            day.setEntryCount(day.getEntryCount() + row.entryCount());
+            day.getByType().put(row.type(), row.creditSum().add(row.debitSum()));
+            // Rebalanceamento só move valor entre os sub-saldos da própria carteira
+            if (!LedgerEntryType.STRIPE_REBALANCE.name().equals(row.type())) {
+                day.setMoneyIn(day.getMoneyIn().add(row.creditSum()));
+                day.setMoneyOut(day.getMoneyOut().add(row.debitSum().negate()));
+            }
+        }
+
+        BigDecimal moneyIn = BigDecimal.ZERO;
+        BigDecimal moneyOut = BigDecimal.ZERO;
+        long entryCount = 0;
+        for (WalletDailySummaryResponse day : days.values()) {
+            moneyIn = moneyIn.add(day.getMoneyIn());
+            moneyOut = moneyOut.add(day.getMoneyOut());
+            entryCount += day.getEntryCount();
+        }
+        return new WalletSummaryResponse(walletId, from, to, moneyIn, moneyOut, entryCount, new ArrayList<>(days.values()));
+    }
+
+    /**
+     * Executa o backfill se ele ainda não terminou uma vez.
+     */
+    public void backfillIfPending() {
+        if (rollupRepository.state().backfilledAt() == null) {
+            backfill();
+        }
+    }
+
+    /**
+     * Recalcula os totais das entradas anteriores a {@code live_from}. Pode ser repetido: as colunas de backfill
+     * são sobrescritas e as do trigger não são tocadas.
+     *
+     * @return linhas de rollup gravadas, ou -1 se ainda estiver dentro da janela de acomodação
+     */
+    public long backfill() {
+        LedgerRollupRepository.State state = rollupRepository.state();
+        LocalDateTime settledAt = state.liveFrom().plusMinutes(settleMinutes);
+        if (LocalDateTime.now().isBefore(settledAt)) {
+            log.info("Backfill de totais diários adiado até {}", settledAt);
+            return -1;
+        }
+        long start = System.currentTimeMillis();
+        LongAdder rows = new LongAdder();
+        LongAdder failedChunks = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            rollupRepository.walletIdBounds().ifPresent(bounds ->
+                    pool.invoke(new BackfillTask(state.liveFrom(), bounds[0], bounds[1], rows, failedChunks)));
+        } finally {
+            pool.shutdown();
+        }
+        if (failedChunks.sum() == 0) {
+            rollupRepository.markBackfilled(LocalDateTime.now());
+        }
+        log.info("Backfill de totais diários concluído - liveFrom={}, linhas={}, faixasComFalha={}, tempo={}ms",
+                state.liveFrom(), rows.sum(), failedChunks.sum(), System.currentTimeMillis() - start);
+        return rows.sum();
+    }
+
+    /**
+     * Divide a faixa [fromId, toId] ao meio até caber em um chunk; cada chunk é um único INSERT ... SELECT.
+     */
+    private final class BackfillTask extends RecursiveAction {
+
+        private final LocalDateTime liveFrom;
+        private final long fromId;
+        private final long toId;
+        private final LongAdder rows;
+        private final LongAdder failedChunks;
+
+        BackfillTask(LocalDateTime liveFrom, long fromId, long toId, LongAdder rows, LongAdder failedChunks) {
+            this.liveFrom = liveFrom;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.rows = rows;
+            this.failedChunks = failedChunks;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId < chunkSize) {
+                try {
+                    int written = rollupRepository.backfill(fromId, toId, liveFrom);
+                    rows.add(written);
+                    backfillRowsCounter.increment(written);
+                } catch (Exception e) {
+                    failedChunks.increment();
+                    log.warn("Falha no backfill de totais diários - fromId={}, toId={}, motivo={}", fromId, toId, e.getMessage());
+                }
+                return;
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            invokeAll(new BackfillTask(liveFrom, fromId, middle, rows, failedChunks),
+                    new BackfillTask(liveFrom, middle + 1, toId, rows, failedChunks));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.pixservice.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixservice.application.archive.LedgerArchiveService;
+import com.pixservice.application.dto.LedgerEntryResponse;
+import com.pixservice.application.dto.LedgerPageResponse;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.LedgerStatementRepository;
+import com.pixservice.infrastructure.persistence.LedgerStatementRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Extrato da carteira: páginas por keyset em (created_at, id) e exportação completa em NDJSON/CSV
+ * escrita linha a linha a partir de um cursor do banco, com memória constante.
+ *
+ * As entradas arquivadas ({@link LedgerArchiveService}) são todas mais antigas que as do banco, então continuam
+ * o extrato quando o banco se esgota. As leituras usam REPEATABLE READ para ver o ledger e o índice do arquivo
+ * no mesmo snapshot enquanto o arquivamento move entradas.
+ */
+@Service
+@Slf4j
+public class LedgerStatementService {
+
+    public enum ExportFormat { NDJSON, CSV }
+
+    private static final String CSV_HEADER = "id,type,amount,balanceBefore,balanceAfter,transactionId,description,createdAt";
+
+    private final LedgerStatementRepository ledgerStatementRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+    private final WalletRepository walletRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate streamingTransaction;
+    private final int maxPageSize;
+
+    public LedgerStatementService(LedgerStatementRepository ledgerStatementRepository,
+                                  LedgerArchiveService ledgerArchiveService,
+                                  WalletRepository walletRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${pix.ledger.statement.max-page-size:500}") int maxPageSize) {
+        this.ledgerStatementRepository = ledgerStatementRepository;
+        this.ledgerArchiveService = ledgerArchiveService;
+        this.walletRepository = walletRepository;
+        this.objectMapper = objectMapper;
+        this.streamingTransaction = new TransactionTemplate(transactionManager);
+        this.streamingTransaction.setReadOnly(true);
+        this.streamingTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public LedgerPageResponse getPage(Long walletId, String cursor, int limit) {
+        requireWallet(walletId);
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("O limite da página deve estar entre 1 e " + maxPageSize + ".");
+        }
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = LocalDateTime.parse(position[0]);
+            afterId = Long.parseLong(position[1]);
+        }
+
+        // Uma linha a mais indica se existe próxima página
+        List<LedgerStatementRow> rows = new ArrayList<>(
+                ledgerStatementRepository.findPage(walletId, afterCreatedAt, afterId, limit + 1));
+        if (rows.size() <= limit) {
+            // Banco esgotado: a página continua pelo arquivo, a partir da última linha lida ou do cursor
+            LedgerStatementRow last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            rows.addAll(ledgerArchiveService.findPage(walletId,
+                    last == null ? afterCreatedAt : last.createdAt(),
+                    last == null ? afterId : last.id(),
+                    limit + 1 - rows.size()));
+        }
+        boolean hasNext = rows.size() > limit;
+        List<LedgerEntryResponse> items = rows.stream().limit(limit).map(LedgerStatementService::toResponse).toList();
+        String nextCursor = hasNext ? encodeCursor(items.get(items.size() - 1)) : null;
+        log.debug("Página do extrato - walletId={}, itens={}, hasNext={}", walletId, items.size(), hasNext);
+        return new LedgerPageResponse(items, nextCursor);
+    }
+
+    public void requireWallet(Long walletId) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new IllegalArgumentException(WalletService.CARTEIRA_NAO_ENCONTRADA);
+        }
+    }
+
+    public static ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato de exportação inválido: " + format + " (use ndjson ou csv).");
+        }
+    }
+
+    /**
+     * Escreve todo o extrato da carteira em {@code out}, do mais recente ao mais antigo.
+     */
+    public void export(Long walletId, ExportFormat format, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long[] rows = {0};
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Consumer<LedgerStatementRow> sink = row -> {
+                writeRow(writer, format, toResponse(row));
+                rows[0]++;
+            };
+            streamingTransaction.executeWithoutResult(status -> {
+                ledgerStatementRepository.stream(walletId, sink);
+                ledgerArchiveService.stream(walletId, sink);
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Extrato exportado - walletId={}, formato={}, linhas={}, tempo={}ms",
+                walletId, format, rows[0], System.currentTimeMillis() - start);
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, LedgerEntryResponse entry) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(entry));
+            } else {
+                writer.write(entry.getId() + "," + entry.getType() + "," + entry.getAmount() + ","
+                        + entry.getBalanceBefore() + "," + entry.getBalanceAfter() + ","
+                        + csv(entry.getTransactionId()) + "," + csv(entry.getDescription()) + "," + entry.getCreatedAt());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String encodeCursor(LedgerEntryResponse last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.");
+        }
+    }
+
+    private static LedgerEntryResponse toResponse(LedgerStatementRow row) {
+        return new LedgerEntryResponse(row.id(), row.type(), row.amount(), row.balanceBefore(), row.balanceAfter(),
+                row.transactionId(), row.description(), row.createdAt());
+    }
+}
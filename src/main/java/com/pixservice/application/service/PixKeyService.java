@@ -1,11 +1,13 @@
 package com.pixservice.application.service;
 
+import com.pixservice.application.cache.PixKeyCache;
 import com.pixservice.application.dto.PixKeyResponse;
 import com.pixservice.application.dto.RegisterPixKeyRequest;
 import com.pixservice.domain.model.PixKey;
 import com.pixservice.domain.model.Wallet;
 import com.pixservice.domain.repository.PixKeyRepository;
 import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.datasource.RecentWriteTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,8 @@ public class PixKeyService {
 
     private final PixKeyRepository pixKeyRepository;
     private final WalletRepository walletRepository;
+    private final PixKeyCache pixKeyCache;
+    private final RecentWriteTracker recentWriteTracker;
 
     @Transactional
     public PixKeyResponse registerPixKey(RegisterPixKeyRequest request, Long walletId) {
@@ -35,6 +39,8 @@ public class PixKeyService {
         try {
             PixKey pixKey = new PixKey(request.getKeyValue(), request.getType(), wallet);
             pixKey = pixKeyRepository.save(pixKey);
+            pixKeyRepository.flush(); // ids por sequência adiam o INSERT: antecipar a violação de unicidade para este catch
+            pixKeyCache.put(pixKey);
 
             log.info("Chave Pix registrada com sucesso - pixKeyId={}, walletId={}, keyValue={}",
                     pixKey.getId(), walletId, pixKey.getKeyValue());
@@ -48,6 +54,7 @@ public class PixKeyService {
 
     @Transactional(readOnly = true)
     public PixKeyResponse getPixKeyByValue(String keyValue) {
+        recentWriteTracker.requirePrimaryIfRecent(RecentWriteTracker.pixKeyKey(keyValue));
         return pixKeyRepository.findByKeyValue(keyValue)
                 .map(this::toPixKeyResponse)
                 .orElseThrow(() -> new IllegalArgumentException("Chave Pix não encontrada."));
@@ -0,0 +1,293 @@
+package com.pixservice.application.service;
+
+import com.pixservice.application.dto.PixTransferBatchItem;
+import com.pixservice.application.dto.PixTransferBatchItemResult;
+import com.pixservice.application.dto.PixTransferBatchRequest;
+import com.pixservice.application.dto.PixTransferBatchResponse;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.idempotency.IdempotencyService;
+import com.pixservice.application.validation.PixTransferValidator;
+import com.pixservice.domain.model.*;
+import com.pixservice.domain.repository.PixKeyRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.PixTransferBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Processa lotes de transferências Pix em uma única transação, com número de round trips
+ * independente do tamanho do lote:
+ * <ol>
+ *   <li>respostas idempotentes já existentes: uma consulta;</li>
+ *   <li>carteiras de origem: um {@code SELECT ... FOR UPDATE} em ordem crescente de id (sem deadlock entre lotes);</li>
+ *   <li>chaves Pix de destino: uma consulta com a carteira em fetch join;</li>
+ *   <li>reserva das Idempotency-Keys: um {@code INSERT ... ON CONFLICT DO NOTHING};</li>
+ *   <li>pix_transaction, pix_event e ledger_entry: JDBC batching.</li>
+ * </ol>
+ * Cada item é validado antes de qualquer escrita, então a falha de um item (saldo insuficiente,
+ * chave inexistente...) não afeta os demais e vira um resultado individual com o status HTTP equivalente.
+ */
+@Service
+@Slf4j
+public class PixTransferBatchService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "pix-transfer";
+
+    @Value("${pix.transfer.batch.max-items:1000}")
+    private int maxItems;
+
+    private final WalletRepository walletRepository;
+    private final PixKeyRepository pixKeyRepository;
+    private final IdempotencyService idempotencyService;
+    private final PixTransferValidator validator;
+    private final WalletStripeService walletStripeService;
+    private final PixTransferBatchWriter batchWriter;
+
+    private final Counter batchItemsCounter;
+    private final Counter batchFailedItemsCounter;
+    private final Counter pixTransferIdempotentCounter;
+    private final Timer batchTimer;
+
+    public PixTransferBatchService(WalletRepository walletRepository,
+                                   PixKeyRepository pixKeyRepository,
+                                   IdempotencyService idempotencyService,
+                                   PixTransferValidator validator,
+                                   WalletStripeService walletStripeService,
+                                   PixTransferBatchWriter batchWriter,
+                                   MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.pixKeyRepository = pixKeyRepository;
+        this.idempotencyService = idempotencyService;
+        this.validator = validator;
+        this.walletStripeService = walletStripeService;
+        this.batchWriter = batchWriter;
+
+        this.batchItemsCounter = Counter.builder("pix.transfer.batch.items")
+                .description("Total de itens recebidos em lotes de transferências Pix")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.batchFailedItemsCounter = Counter.builder("pix.transfer.batch.failed")
+                .description("Itens de lotes de transferências Pix recusados")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        // Mesmo contador do endpoint unitário: replays em lote também são requisições idempotentes
+        this.pixTransferIdempotentCounter = Counter.builder("pix.transfer.idempotent")
+                .description("Total de requisições idempotentes detectadas")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.batchTimer = Timer.builder("pix.transfer.batch.duration")
+                .description("Tempo de processamento de lotes de transferências Pix")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public PixTransferBatchResponse transferBatch(PixTransferBatchRequest request) {
+        List<PixTransferBatchItem> items = isNull(request) ? null : request.getItems();
+        if (isNull(items) || items.isEmpty()) {
+            throw new IllegalArgumentException("O lote de transferências está vazio.");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("O lote excede o limite de " + maxItems + " transferências.");
+        }
+        return batchTimer.record(() -> processBatch(items));
+    }
+
+    private PixTransferBatchResponse processBatch(List<PixTransferBatchItem> items) {
+        log.info("Iniciando lote de transferências Pix - itens={}", items.size());
+        batchItemsCounter.increment(items.size());
+
+        PixTransferBatchItemResult[] results = new PixTransferBatchItemResult[items.size()];
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        List<Integer> repeated = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+
+        Set<String> keys = items.stream()
+                .map(PixTransferBatchItem::getIdempotencyKey)
+                .filter(key -> !isNull(key) && !key.isBlank())
+                .collect(Collectors.toSet());
+        Map<String, PixTransferResponse> cached = idempotencyService.getIdempotentResponses(keys, PixTransferResponse.class);
+
+        for (int i = 0; i < items.size(); i++) {
+            String key = items.get(i).getIdempotencyKey();
+            if (isNull(key) || key.isBlank()) {
+                results[i] = failure(key, new IllegalArgumentException("Idempotency-Key obrigatória."));
+            } else if (firstIndexByKey.putIfAbsent(key, i) != null) {
+                repeated.add(i); // mesma chave repetida no lote: mesmo resultado do primeiro item
+            } else if (cached.containsKey(key)) {
+                pixTransferIdempotentCounter.increment();
+                results[i] = accepted(key, cached.get(key));
+            } else {
+                pending.add(i);
+            }
+        }
+
+        Map<Long, Wallet> sourceWallets = lockSourceWallets(items, pending);
+        Map<String, PixKey> pixKeys = findDestinationKeys(items, pending);
+
+        List<Integer> valid = new ArrayList<>();
+        Map<Integer, Money> amounts = new HashMap<>();
+        List<IdempotencyKey> reservations = new ArrayList<>();
+        for (int i : pending) {
+            PixTransferBatchItem item = items.get(i);
+            try {
+                Wallet fromWallet = Optional.ofNullable(sourceWallets.get(item.getFromWalletId()))
+                        .orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada."));
+                PixKey toPixKey = Optional.ofNullable(pixKeys.get(item.getToPixKey()))
+                        .orElseThrow(() -> new IllegalArgumentException("Chave Pix de destino não encontrada."));
+                Money amount = PixTransferValidator.toMoney(item.getAmount());
+                validator.validateTransfer(amount, fromWallet, toPixKey.getWallet(), toPixKey.getKeyValue());
+                amounts.put(i, amount);
+                valid.add(i);
+                reservations.add(idempotencyService.newIdempotencyKey(item.getIdempotencyKey(),
+                        provisionalResponse(item.getIdempotencyKey()), HttpStatus.ACCEPTED));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                results[i] = failure(item.getIdempotencyKey(), e);
+            }
+        }
+        Set<String> reserved = batchWriter.reserveIdempotencyKeys(reservations);
+        Set<String> existingTransactions = batchWriter.findExistingEndToEndIds(
+                reserved.stream().map(PixTransferService::endToEndIdFor).toList());
+
+        List<PixTransaction> transactions = new ArrayList<>();
+        List<PixEvent> events = new ArrayList<>();
+        List<LedgerEntry> ledgerEntries = new ArrayList<>();
+        List<String> released = new ArrayList<>();
+        for (int i : valid) {
+            PixTransferBatchItem item = items.get(i);
+            String key = item.getIdempotencyKey();
+            if (!reserved.contains(key)) {
+                pixTransferIdempotentCounter.increment();
+                log.warn("Concorrência idempotente detectada no lote - idempotencyKey={}", key);
+                results[i] = accepted(key, provisionalResponse(key));
+                continue;
+            }
+            String endToEndId = PixTransferService.endToEndIdFor(key);
+            if (existingTransactions.contains(endToEndId)) {
+                pixTransferIdempotentCounter.increment();
+                log.info("Transação já existente para chave reaproveitada - endToEndId={}", endToEndId);
+                results[i] = accepted(key, provisionalResponse(key));
+                continue;
+            }
+            Wallet fromWallet = sourceWallets.get(item.getFromWalletId());
+            PixKey toPixKey = pixKeys.get(item.getToPixKey());
+            Money amount = amounts.get(i);
+            try {
+                debit(fromWallet, amount, endToEndId, toPixKey.getKeyValue(), ledgerEntries);
+            } catch (IllegalStateException e) {
+                released.add(key);
+                results[i] = failure(key, e);
+                continue;
+            }
+
+            PixTransaction transaction = new PixTransaction(endToEndId, fromWallet, toPixKey.getKeyValue(),
+                    toPixKey.getType(), amount, key);
+            transaction.setToWallet(toPixKey.getWallet());
+            transactions.add(transaction);
+            events.add(new PixEvent(UUID.randomUUID().toString(), endToEndId, PixEventType.INITIATED, transaction.getInitiatedAt()));
+            ledgerEntries.add(pendingCreditEntry(toPixKey.getWallet(), fromWallet, amount, endToEndId));
+            results[i] = accepted(key, new PixTransferResponse(endToEndId, PixTransactionStatus.PENDING));
+        }
+
+        batchWriter.releaseIdempotencyKeys(released);
+        reservations.stream()
+                .filter(reservation -> reserved.contains(reservation.getKeyValue()) && !released.contains(reservation.getKeyValue()))
+                .forEach(reservation -> idempotencyService.recordStoredResponse(reservation.getKeyValue(), reservation.getResponseBody()));
+        batchWriter.insertPixTransactions(transactions);
+        batchWriter.insertPixEvents(events);
+        batchWriter.insertLedgerEntries(ledgerEntries);
+
+        for (int i : repeated) {
+            results[i] = results[firstIndexByKey.get(items.get(i).getIdempotencyKey())];
+        }
+        int failed = (int) Arrays.stream(results).filter(result -> result.getError() != null).count();
+        batchFailedItemsCounter.increment(failed);
+        log.info("Lote de transferências Pix processado - itens={}, criadas={}, falhas={}",
+                items.size(), transactions.size(), failed);
+        return new PixTransferBatchResponse(items.size() - failed, failed, List.of(results));
+    }
+
+    private Map<Long, Wallet> lockSourceWallets(List<PixTransferBatchItem> items, List<Integer> pending) {
+        List<Long> walletIds = pending.stream()
+                .map(i -> items.get(i).getFromWalletId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        if (walletIds.isEmpty()) {
+            return Map.of();
+        }
+        return walletRepository.findAllByIdInForUpdate(walletIds).stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+    }
+
+    private Map<String, PixKey> findDestinationKeys(List<PixTransferBatchItem> items, List<Integer> pending) {
+        Set<String> keyValues = pending.stream()
+                .map(i -> items.get(i).getToPixKey())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (keyValues.isEmpty()) {
+            return Map.of();
+        }
+        return pixKeyRepository.findAllWithWalletByKeyValueIn(keyValues).stream()
+                .collect(Collectors.toMap(PixKey::getKeyValue, Function.identity()));
+    }
+
+    /**
+     * Debita a origem em memória (a carteira já está bloqueada e o UPDATE sai no flush do commit);
+     * carteiras particionadas debitam um sub-saldo.
+     */
+    private void debit(Wallet fromWallet, Money amount, String endToEndId, String toPixKey, List<LedgerEntry> ledgerEntries) {
+        String description = "Débito Pix - Transferência para " + toPixKey;
+        if (walletStripeService.isStriped(fromWallet.getId())) {
+            walletStripeService.debit(fromWallet, amount, LedgerEntryType.WITHDRAWAL, description, endToEndId);
+            return;
+        }
+        Money before = fromWallet.getBalance();
+        fromWallet.withdraw(amount);
+        LedgerEntry outEntry = LedgerEntry.withdraw(fromWallet, amount, before, fromWallet.getBalance(), description);
+        outEntry.setTransactionId(endToEndId);
+        ledgerEntries.add(outEntry);
+    }
+
+    private LedgerEntry pendingCreditEntry(Wallet toWallet, Wallet fromWallet, Money amount, String endToEndId) {
+        Money toBefore = walletStripeService.isStriped(toWallet.getId())
+                ? walletStripeService.stripedBalance(toWallet)
+                : toWallet.getBalance();
+        LedgerEntry inPendingEntry = LedgerEntry.deposit(toWallet, amount, toBefore, toBefore.plus(amount),
+                "Crédito Pix - Transferência de " + fromWallet.getUserId() + " (PENDING)");
+        inPendingEntry.setTransactionId(endToEndId);
+        return inPendingEntry;
+    }
+
+    private PixTransferResponse provisionalResponse(String idempotencyKey) {
+        return new PixTransferResponse(PixTransferService.endToEndIdFor(idempotencyKey), PixTransactionStatus.PENDING);
+    }
+
+    private PixTransferBatchItemResult accepted(String idempotencyKey, PixTransferResponse response) {
+        return new PixTransferBatchItemResult(idempotencyKey, response.getEndToEndId(), response.getStatus(),
+                HttpStatus.ACCEPTED.value(), null);
+    }
+
+    private PixTransferBatchItemResult failure(String idempotencyKey, RuntimeException e) {
+        HttpStatus status = e instanceof IllegalStateException ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST;
+        log.warn("Item do lote recusado - idempotencyKey={}, status={}, motivo={}", idempotencyKey, status.value(), e.getMessage());
+        return new PixTransferBatchItemResult(idempotencyKey, null, null, status.value(), e.getMessage());
+    }
+}
@@ -1,24 +1,32 @@
 package com.pixservice.application.service;
 
+import com.pixservice.application.cache.PixKeyCache;
+import com.pixservice.application.cache.PixKeyCache.CachedPixKey;
 import com.pixservice.application.dto.PixTransferRequest;
 import com.pixservice.application.dto.PixTransferResponse;
 import com.pixservice.application.idempotency.IdempotencyService;
 import com.pixservice.application.idempotency.IdempotentResponse;
+import com.pixservice.application.mailbox.WalletCommand;
+import com.pixservice.application.mailbox.WalletMailbox;
 import com.pixservice.application.validation.PixTransferValidator;
 import com.pixservice.domain.model.*;
 import com.pixservice.domain.repository.*;
 import com.pixservice.infrastructure.logging.MdcUtils;
+import com.pixservice.infrastructure.persistence.PixTransferFunctionRepository;
+import com.pixservice.infrastructure.persistence.PixTransferOutcome;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,36 +37,57 @@ public class PixTransferService {
 
     private static final String METRIC_TAG_SERVICE_KEY = "service";
     private static final String METRIC_TAG_SERVICE_VALUE = "pix-transfer";
+    private static final String ENGINE_JPA = "jpa";
+    private static final String ENGINE_DB_FUNCTION = "db-function";
+
+    /**
+     * Motor do plano de escrita: {@code jpa} (padrão, ~10 idas ao banco) ou {@code db-function}
+     * (função {@code pix_transfer}, uma ida ao banco). Carteiras particionadas sempre usam o caminho JPA.
+     */
+    @Value("${pix.transfer.engine:jpa}")
+    private String transferEngine = ENGINE_JPA;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     private final WalletRepository walletRepository;
-    private final PixKeyRepository pixKeyRepository;
+    private final PixKeyCache pixKeyCache;
     private final PixTransactionRepository pixTransactionRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
     private final IdempotencyService idempotencyService;
     private final PixTransferValidator validator;
     private final PixEventRepository pixEventRepository;
+    private final WalletStripeService walletStripeService;
+    private final PixTransferFunctionRepository pixTransferFunctionRepository;
 
     // Métricas customizadas
     private final Counter pixTransferInitiatedCounter;
     private final Counter pixTransferIdempotentCounter;
     private final Timer pixTransferTimer;
+    private final Timer jpaWriteTimer;
+    private final Timer dbFunctionWriteTimer;
+    private final Counter dbFunctionFallbackCounter;
 
     @Autowired
     public PixTransferService(WalletRepository walletRepository,
-                               PixKeyRepository pixKeyRepository,
+                               PixKeyCache pixKeyCache,
                                PixTransactionRepository pixTransactionRepository,
                                LedgerEntryRepository ledgerEntryRepository,
                                IdempotencyService idempotencyService,
                                PixTransferValidator validator,
                                MeterRegistry meterRegistry,
-                               PixEventRepository pixEventRepository) {
+                               PixEventRepository pixEventRepository,
+                               WalletStripeService walletStripeService,
+                               PixTransferFunctionRepository pixTransferFunctionRepository) {
         this.walletRepository = walletRepository;
-        this.pixKeyRepository = pixKeyRepository;
+        this.pixKeyCache = pixKeyCache;
         this.pixTransactionRepository = pixTransactionRepository;
         this.ledgerEntryRepository = ledgerEntryRepository;
         this.idempotencyService = idempotencyService;
         this.validator = validator;
         this.pixEventRepository = pixEventRepository;
+        this.walletStripeService = walletStripeService;
+        this.pixTransferFunctionRepository = pixTransferFunctionRepository;
 
         // Inicializar métricas
         this.pixTransferInitiatedCounter = Counter.builder("pix.transfer.initiated")
@@ -75,9 +104,26 @@ public class PixTransferService {
                 .description("Tempo de processamento de transferências Pix")
                 .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
                 .register(meterRegistry);
+
+        this.jpaWriteTimer = writeTimer(meterRegistry, ENGINE_JPA);
+        this.dbFunctionWriteTimer = writeTimer(meterRegistry, ENGINE_DB_FUNCTION);
+
+        this.dbFunctionFallbackCounter = Counter.builder("pix.transfer.engine.fallback")
+                .description("Transferências do motor db-function desviadas para o caminho JPA (carteiras particionadas)")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    private static Timer writeTimer(MeterRegistry meterRegistry, String engine) {
+        return Timer.builder("pix.transfer.write")
+                .description("Tempo do plano de escrita da transferência por motor (comparação A/B)")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .tag("engine", engine)
+                .register(meterRegistry);
     }
 
     @Transactional
+    @WalletCommand(walletId = "#request?.fromWalletId")
     public PixTransferResponse transfer(String idempotencyKeyHeader, PixTransferRequest request) {
         // Adicionar idempotencyKey ao MDC para rastreamento automático em todos os logs
         MdcUtils.setIdempotencyKey(idempotencyKeyHeader);
@@ -88,15 +134,25 @@ public class PixTransferService {
                     request.getFromWalletId(), request.getToPixKey(), request.getAmount());
             pixTransferInitiatedCounter.increment();
 
+            if (ENGINE_DB_FUNCTION.equals(transferEngine) && pixTransferFunctionRepository != null) {
+                Optional<PixTransferResponse> response = dbFunctionWriteTimer.record(() -> processTransferInDatabase(idempotencyKeyHeader, request));
+                if (response.isPresent()) {
+                    return response.get();
+                }
+                dbFunctionFallbackCounter.increment();
+                log.info("Carteira particionada - transferência segue pelo caminho JPA");
+            }
+
             Optional<PixTransferResponse> cached = checkIdempotency(idempotencyKeyHeader);
-            if (cached.isPresent()) {
+            if (cached.isPresent() && !isOrphanedResponse(cached.get())) {
                 pixTransferIdempotentCounter.increment();
                 String endToEndId = cached.get().getEndToEndId();
                 MdcUtils.setEndToEndId(endToEndId);
                 log.info("Requisição idempotente detectada - endToEndId={}", endToEndId);
                 return cached.get();
             }
-            return processTransfer(idempotencyKeyHeader, request);
+            boolean keyStored = cached.isPresent();
+            return jpaWriteTimer.record(() -> processTransfer(idempotencyKeyHeader, request, keyStored));
         } finally {
             // Limpar MDC após processamento
             MdcUtils.clearEndToEndId();
@@ -104,45 +160,127 @@ public class PixTransferService {
         }
     }
 
-    private PixTransferResponse processTransfer(String idempotencyKeyHeader, PixTransferRequest request) {
+    /**
+     * A resposta provisória é gravada em REQUIRES_NEW antes do débito. Se a transação da transferência
+     * sofreu rollback depois disso (ex.: lote do mailbox desfeito por falha de outro comando), a chave
+     * existe sem a transação Pix correspondente e a transferência precisa ser processada de novo.
+     */
+    private boolean isOrphanedResponse(PixTransferResponse cached) {
+        if (cached.getStatus() != PixTransactionStatus.PENDING || pixTransactionRepository.existsById(cached.getEndToEndId())) {
+            return false;
+        }
+        log.warn("Resposta idempotente sem transação Pix correspondente, reprocessando - endToEndId={}", cached.getEndToEndId());
+        return true;
+    }
+
+    private PixTransferResponse processTransfer(String idempotencyKeyHeader, PixTransferRequest request, boolean keyStored) {
         Wallet fromWalletRead = walletRepository.findById(request.getFromWalletId())
                 .orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada."));
-        PixKey toPixKeyRead = findToPixKey(request.getToPixKey());
-        Wallet toWalletRead = toPixKeyRead.getWallet();
-        validator.validateTransfer(request.getAmount(), fromWalletRead, toWalletRead, toPixKeyRead.getKeyValue());
+        CachedPixKey toPixKeyRead = findToPixKey(request.getToPixKey());
+        Wallet toWalletRead = walletRepository.getReferenceById(toPixKeyRead.walletId());
+        Money amount = PixTransferValidator.toMoney(request.getAmount());
+        validator.validateTransfer(amount, fromWalletRead, toWalletRead, toPixKeyRead.keyValue());
 
-        String endToEndId = UUID.nameUUIDFromBytes(idempotencyKeyHeader.getBytes(StandardCharsets.UTF_8)).toString();
+        String endToEndId = endToEndIdFor(idempotencyKeyHeader);
         MdcUtils.setEndToEndId(endToEndId); // Adicionar ao MDC para rastreamento
         PixTransferResponse provisionalResponse = new PixTransferResponse(endToEndId, PixTransactionStatus.PENDING);
 
-        try {
-            idempotencyService.saveIdempotentResponse(idempotencyKeyHeader, provisionalResponse, HttpStatus.ACCEPTED);
-            log.info("Idempotent response registrada - endToEndId={}", endToEndId);
-        } catch (DataIntegrityViolationException e) {
-            pixTransferIdempotentCounter.increment();
-            log.warn("Concorrência idempotente detectada - idempotencyKey={}", idempotencyKeyHeader);
-            return idempotencyService.getIdempotentResponse(idempotencyKeyHeader, PixTransferResponse.class)
-                    .map(IdempotentResponse::response)
-                    .orElse(provisionalResponse);
+        // Chave já gravada por uma tentativa desfeita: segue direto para o lock, que serializa com uma
+        // execução concorrente ainda em andamento (ela será vista pelo existsById abaixo)
+        if (!keyStored) {
+            try {
+                idempotencyService.saveIdempotentResponse(idempotencyKeyHeader, provisionalResponse, HttpStatus.ACCEPTED);
+                log.info("Idempotent response registrada - endToEndId={}", endToEndId);
+            } catch (DataIntegrityViolationException e) {
+                pixTransferIdempotentCounter.increment();
+                log.warn("Concorrência idempotente detectada - idempotencyKey={}", idempotencyKeyHeader);
+                return idempotencyService.getIdempotentResponse(idempotencyKeyHeader, PixTransferResponse.class)
+                        .map(IdempotentResponse::response)
+                        .orElse(provisionalResponse);
+            }
         }
 
-        Wallet fromWalletLocked = walletRepository.findByIdForUpdate(fromWalletRead.getId())
-                .orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada (lock)."));
+        Wallet fromWalletLocked = lockSourceWallet(fromWalletRead);
         if (pixTransactionRepository.existsById(endToEndId)) {
             log.info("Transação já existente após lock - endToEndId={}", endToEndId);
             return provisionalResponse;
         }
 
         log.info("Debitando carteira de origem - fromWallet={}, amount={}, endToEndId={}",
-                fromWalletLocked.getId(), request.getAmount(), endToEndId);
-        debitFromWallet(fromWalletLocked, request.getAmount(), endToEndId, toPixKeyRead.getKeyValue());
+                fromWalletLocked.getId(), amount, endToEndId);
+        debitFromWallet(fromWalletLocked, amount, endToEndId, toPixKeyRead.keyValue());
 
-        PixTransaction pixTransaction = createPendingTransaction(endToEndId, fromWalletLocked, toWalletRead, toPixKeyRead, request, idempotencyKeyHeader);
-        registerPendingCreditLedger(toWalletRead, fromWalletLocked, request.getAmount(), endToEndId);
+        PixTransaction pixTransaction = createPendingTransaction(endToEndId, fromWalletLocked, toWalletRead, toPixKeyRead, amount, idempotencyKeyHeader);
+        registerPendingCreditLedger(toWalletRead, fromWalletLocked, amount, endToEndId);
         log.info("Transferência Pix criada - endToEndId={}, status={}, idempotencyKey={}", endToEndId, pixTransaction.getStatus(), idempotencyKeyHeader);
         return provisionalResponse;
     }
 
+    /**
+     * Motor {@code db-function}: idempotência, validações, débito, ledger, transação e evento INITIATED
+     * em uma única chamada à função {@code pix_transfer}. Retorna vazio quando origem ou destino são
+     * carteiras particionadas, que seguem pelo caminho JPA.
+     */
+    private Optional<PixTransferResponse> processTransferInDatabase(String idempotencyKeyHeader, PixTransferRequest request) {
+        Money amount = PixTransferValidator.toMoney(request.getAmount());
+        validator.validateAmount(amount);
+        String endToEndId = endToEndIdFor(idempotencyKeyHeader);
+        PixTransferResponse provisionalResponse = new PixTransferResponse(endToEndId, PixTransactionStatus.PENDING);
+        String responseBody = idempotencyService
+                .newIdempotencyKey(idempotencyKeyHeader, provisionalResponse, HttpStatus.ACCEPTED)
+                .getResponseBody();
+
+        // Dentro do mailbox a carteira já está gerenciada pelo lote: alterações pendentes precisam chegar ao banco
+        // antes da função, e o estado devolvido por ela precisa voltar à entidade para os próximos comandos
+        Optional<Wallet> heldWallet = WalletMailbox.heldWallet(request.getFromWalletId());
+        if (heldWallet.isPresent() && entityManager != null) {
+            entityManager.flush();
+        }
+
+        PixTransferOutcome outcome = pixTransferFunctionRepository.transfer(idempotencyKeyHeader, endToEndId,
+                request.getFromWalletId(), request.getToPixKey(), amount.toBigDecimal(), responseBody,
+                UUID.randomUUID().toString(), validator.effectiveDuplicateWindowMinutes());
+
+        switch (outcome.status()) {
+            case CREATED -> {
+                idempotencyService.recordStoredResponse(idempotencyKeyHeader, responseBody);
+                if (heldWallet.isPresent() && entityManager != null) {
+                    entityManager.refresh(heldWallet.get());
+                }
+                MdcUtils.setEndToEndId(endToEndId);
+                log.info("Transferência Pix criada (db-function) - endToEndId={}, status={}, idempotencyKey={}",
+                        endToEndId, provisionalResponse.getStatus(), idempotencyKeyHeader);
+                return Optional.of(provisionalResponse);
+            }
+            case REPLAY -> {
+                pixTransferIdempotentCounter.increment();
+                PixTransferResponse cached = idempotencyService
+                        .readResponse(idempotencyKeyHeader, outcome.responseBody(), PixTransferResponse.class)
+                        .orElse(provisionalResponse);
+                MdcUtils.setEndToEndId(cached.getEndToEndId());
+                log.info("Requisição idempotente detectada - endToEndId={}", cached.getEndToEndId());
+                return Optional.of(cached);
+            }
+            case SOURCE_NOT_FOUND -> throw new IllegalArgumentException("Carteira de origem não encontrada.");
+            case KEY_NOT_FOUND -> throw new IllegalArgumentException("Chave Pix de destino não encontrada.");
+            case SAME_WALLET -> throw new IllegalArgumentException("Não é possível transferir para a mesma carteira.");
+            case DUPLICATE -> throw new IllegalStateException(
+                    validator.buildDuplicateTransferMessage(outcome.detail(), amount, request.getToPixKey()));
+            case INSUFFICIENT_FUNDS -> throw new IllegalStateException("Saldo insuficiente.");
+            case STRIPED -> {
+                return Optional.empty();
+            }
+            default -> throw new IllegalStateException("Resultado inesperado da função pix_transfer: " + outcome.status());
+        }
+    }
+
+    /**
+     * endToEndId determinístico a partir da Idempotency-Key: a mesma chave sempre gera a mesma transação.
+     */
+    public static String endToEndIdFor(String idempotencyKey) {
+        return UUID.nameUUIDFromBytes(idempotencyKey.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
     private Optional<PixTransferResponse> checkIdempotency(String idempotencyKey) {
         return idempotencyService.getIdempotentResponse(idempotencyKey, PixTransferResponse.class)
                 .map(IdempotentResponse::response);
@@ -150,17 +288,39 @@ public class PixTransferService {
 
 
 
-    private PixKey findToPixKey(String keyValue) {
-        return pixKeyRepository.findByKeyValue(keyValue)
+    /**
+     * Resolução pelo {@link PixKeyCache}: em hit não há consulta a pix_key; a carteira de destino entra
+     * como referência e só é carregada quando o saldo é lido para o lançamento PENDING.
+     */
+    private CachedPixKey findToPixKey(String keyValue) {
+        return pixKeyCache.resolve(keyValue)
                 .orElseThrow(() -> new IllegalArgumentException("Chave Pix de destino não encontrada."));
     }
 
 
-    private void debitFromWallet(Wallet fromWallet, BigDecimal amount, String endToEndId, String toPixKey) {
-        BigDecimal before = fromWallet.getBalance();
+    /**
+     * Carteiras particionadas não bloqueiam a linha de wallet: o débito bloqueia apenas um sub-saldo.
+     * Dentro do mailbox a carteira já está bloqueada pelo lote.
+     */
+    private Wallet lockSourceWallet(Wallet fromWalletRead) {
+        if (walletStripeService.isStriped(fromWalletRead.getId())) {
+            return fromWalletRead;
+        }
+        return WalletMailbox.heldWallet(fromWalletRead.getId())
+                .or(() -> walletRepository.findByIdForUpdate(fromWalletRead.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada (lock)."));
+    }
+
+    private void debitFromWallet(Wallet fromWallet, Money amount, String endToEndId, String toPixKey) {
+        if (walletStripeService.isStriped(fromWallet.getId())) {
+            walletStripeService.debit(fromWallet, amount, LedgerEntryType.WITHDRAWAL,
+                    "Débito Pix - Transferência para " + toPixKey, endToEndId);
+            return;
+        }
+        Money before = fromWallet.getBalance();
         fromWallet.withdraw(amount);
         walletRepository.save(fromWallet);
-        BigDecimal after = fromWallet.getBalance();
+        Money after = fromWallet.getBalance();
 
         LedgerEntry outEntry = LedgerEntry.withdraw(fromWallet, amount, before, after,
                 "Débito Pix - Transferência para " + toPixKey);
@@ -169,9 +329,9 @@ public class PixTransferService {
     }
 
     private PixTransaction createPendingTransaction(String endToEndId, Wallet fromWallet, Wallet toWallet,
-                                                     PixKey toPixKey, PixTransferRequest request, String idempotencyKey) {
+                                                     CachedPixKey toPixKey, Money amount, String idempotencyKey) {
         PixTransaction pixTransaction = new PixTransaction(
-                endToEndId, fromWallet, toPixKey.getKeyValue(), toPixKey.getType(), request.getAmount(), idempotencyKey);
+                endToEndId, fromWallet, toPixKey.keyValue(), toPixKey.type(), amount, idempotencyKey);
         pixTransaction.setToWallet(toWallet);
         PixTransaction saved = pixTransactionRepository.save(pixTransaction);
         // Registrar evento INITIATED para rastreabilidade (usar UUID próprio para evitar colisão com header)
@@ -179,7 +339,7 @@ public class PixTransferService {
             try {
                 String initiatedEventId = UUID.randomUUID().toString();
                 log.debug("Gerando evento INITIATED - endToEndId={}, eventId={}, fromWallet={}, toPixKey={}",
-                    endToEndId, initiatedEventId, fromWallet.getId(), toPixKey.getKeyValue());
+                    endToEndId, initiatedEventId, fromWallet.getId(), toPixKey.keyValue());
                 PixEvent initiatedEvent = new PixEvent(initiatedEventId, endToEndId, PixEventType.INITIATED, saved.getInitiatedAt());
                 pixEventRepository.save(initiatedEvent);
                 log.info("Evento INITIATED registrado com sucesso - endToEndId={}, eventId={}", endToEndId, initiatedEventId);
@@ -194,9 +354,11 @@ public class PixTransferService {
         return saved;
     }
 
-    private void registerPendingCreditLedger(Wallet toWallet, Wallet fromWallet, BigDecimal amount, String endToEndId) {
-        BigDecimal toBefore = toWallet.getBalance();
-        BigDecimal toAfter = toWallet.getBalance().add(amount);
+    private void registerPendingCreditLedger(Wallet toWallet, Wallet fromWallet, Money amount, String endToEndId) {
+        Money toBefore = walletStripeService.isStriped(toWallet.getId())
+                ? walletStripeService.stripedBalance(toWallet)
+                : toWallet.getBalance();
+        Money toAfter = toBefore.plus(amount);
         LedgerEntry inPendingEntry = LedgerEntry.deposit(toWallet, amount, toBefore, toAfter,
                 "Crédito Pix - Transferência de " + fromWallet.getUserId() + " (PENDING)");
         inPendingEntry.setTransactionId(endToEndId);
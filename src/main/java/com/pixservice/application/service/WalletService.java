@@ -2,18 +2,23 @@ package com.pixservice.application.service;
 
 import com.pixservice.application.dto.CreateWalletRequest;
 import com.pixservice.application.dto.WalletResponse;
+import com.pixservice.application.mailbox.WalletCommand;
+import com.pixservice.application.mailbox.WalletMailbox;
 import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.Wallet;
 import com.pixservice.domain.repository.LedgerEntryRepository;
 import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.datasource.RecentWriteTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 import static java.util.Objects.isNull;
@@ -26,6 +31,9 @@ public class WalletService {
     public static final String CARTEIRA_NAO_ENCONTRADA = "Carteira não encontrada.";
     private final WalletRepository walletRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
+    private final WalletStripeService walletStripeService;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final RecentWriteTracker recentWriteTracker;
 
     @Transactional
     public WalletResponse createWallet(CreateWalletRequest request) {
@@ -43,12 +51,14 @@ public class WalletService {
         }
 
         try {
-            Wallet wallet = new Wallet(request.getUserId(), request.getInitialBalance());
+            Money initialBalance = Money.of(request.getInitialBalance());
+            Wallet wallet = new Wallet(request.getUserId(), initialBalance);
             wallet = walletRepository.save(wallet);
+            walletRepository.flush(); // ids por sequência adiam o INSERT: antecipar a violação de unicidade para este catch
 
             // Registrar abertura de saldo no ledger quando houver saldo inicial
-            if (request.getInitialBalance().compareTo(BigDecimal.ZERO) > 0) {
-                LedgerEntry opening = LedgerEntry.openingBalance(wallet, request.getInitialBalance());
+            if (initialBalance.isPositive()) {
+                LedgerEntry opening = LedgerEntry.openingBalance(wallet, initialBalance);
                 ledgerEntryRepository.save(opening);
             }
 
@@ -64,6 +74,7 @@ public class WalletService {
 
     @Transactional(readOnly = true)
     public WalletResponse getWalletById(Long id) {
+        recentWriteTracker.requirePrimaryIfRecent(RecentWriteTracker.walletKey(id));
         return walletRepository.findById(id)
                 .map(this::toWalletResponse)
                 .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
@@ -71,26 +82,36 @@ public class WalletService {
 
     @Transactional(readOnly = true)
     public WalletResponse getWalletByUserId(String userId) {
+        recentWriteTracker.requirePrimaryIfRecent(RecentWriteTracker.userKey(userId));
         return walletRepository.findByUserId(userId)
                 .map(this::toWalletResponse)
                 .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA + " para o usuário: " + userId));
     }
 
     @Transactional
-    public WalletResponse deposit(Long walletId, BigDecimal amount) {
-        log.info("Realizando depósito - walletId={}, amount={}", walletId, amount);
+    @WalletCommand(walletId = "#walletId")
+    public WalletResponse deposit(Long walletId, BigDecimal value) {
+        log.info("Realizando depósito - walletId={}, amount={}", walletId, value);
 
-        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            log.error("Valor de depósito inválido - walletId={}, amount={}", walletId, amount);
+        if (isNull(value) || value.compareTo(BigDecimal.ZERO) <= 0) {
+            log.error("Valor de depósito inválido - walletId={}, amount={}", walletId, value);
             throw new IllegalArgumentException("O valor do depósito deve ser positivo.");
         }
-        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
-                .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+        Money amount = Money.of(value);
+        if (walletStripeService.isStriped(walletId)) {
+            Wallet wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+            LedgerEntry entry = walletStripeService.credit(wallet, amount, LedgerEntryType.DEPOSIT, "Depósito", null);
+            log.info("Depósito realizado em sub-saldo - walletId={}, stripe={}, amount={}",
+                    walletId, entry.getStripeIndex(), amount);
+            return toWalletResponse(wallet);
+        }
+        Wallet wallet = lockWallet(walletId);
 
-        BigDecimal before = wallet.getBalance();
+        Money before = wallet.getBalance();
         wallet.deposit(amount);
         wallet = walletRepository.save(wallet); // Pessimistic lock já adquirido
-        BigDecimal after = wallet.getBalance();
+        Money after = wallet.getBalance();
 
         log.info("Depósito realizado com sucesso - walletId={}, amount={}, balanceBefore={}, balanceAfter={}",
                 walletId, amount, before, after);
@@ -103,20 +124,29 @@ public class WalletService {
     }
 
     @Transactional
-    public WalletResponse withdraw(Long walletId, BigDecimal amount) {
-        log.info("Realizando saque - walletId={}, amount={}", walletId, amount);
+    @WalletCommand(walletId = "#walletId")
+    public WalletResponse withdraw(Long walletId, BigDecimal value) {
+        log.info("Realizando saque - walletId={}, amount={}", walletId, value);
 
-        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            log.error("Valor de saque inválido - walletId={}, amount={}", walletId, amount);
+        if (isNull(value) || value.compareTo(BigDecimal.ZERO) <= 0) {
+            log.error("Valor de saque inválido - walletId={}, amount={}", walletId, value);
             throw new IllegalArgumentException("O valor do saque deve ser positivo.");
         }
-        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
-                .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+        Money amount = Money.of(value);
+        if (walletStripeService.isStriped(walletId)) {
+            Wallet wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+            LedgerEntry entry = walletStripeService.debit(wallet, amount, LedgerEntryType.WITHDRAWAL, "Saque", null);
+            log.info("Saque realizado em sub-saldo - walletId={}, stripe={}, amount={}",
+                    walletId, entry.getStripeIndex(), amount);
+            return toWalletResponse(wallet);
+        }
+        Wallet wallet = lockWallet(walletId);
         
-        BigDecimal before = wallet.getBalance();
+        Money before = wallet.getBalance();
         wallet.withdraw(amount);
         wallet = walletRepository.save(wallet);
-        BigDecimal after = wallet.getBalance();
+        Money after = wallet.getBalance();
 
         log.info("Saque realizado com sucesso - walletId={}, amount={}, balanceBefore={}, balanceAfter={}",
                 walletId, amount, before, after);
@@ -127,33 +157,54 @@ public class WalletService {
         return toWalletResponse(wallet);
     }
 
+    /**
+     * Particiona o saldo da carteira em sub-saldos para remover o gargalo do lock único
+     * em carteiras quentes (lojistas, folha de pagamento).
+     */
+    @Transactional
+    public WalletResponse enableStriping(Long walletId, int stripeCount) {
+        log.info("Habilitando sub-saldos - walletId={}, stripes={}", walletId, stripeCount);
+        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+        walletStripeService.enable(wallet, stripeCount);
+        // O registro em memória só é atualizado após o commit; somar os sub-saldos explicitamente
+        return new WalletResponse(wallet.getId(), wallet.getUserId(), walletStripeService.stripedBalance(wallet).toBigDecimal(),
+                wallet.getCreatedAt(), wallet.getUpdatedAt());
+    }
+
+    /**
+     * Dentro do mailbox a carteira já está bloqueada pelo lote; fora dele, lock pessimista.
+     */
+    private Wallet lockWallet(Long walletId) {
+        return WalletMailbox.heldWallet(walletId)
+                .or(() -> walletRepository.findByIdForUpdate(walletId))
+                .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
+    }
+
     private WalletResponse toWalletResponse(Wallet wallet) {
-        return new WalletResponse(wallet.getId(), wallet.getUserId(), wallet.getBalance(), wallet.getCreatedAt(), wallet.getUpdatedAt());
+        Money balance = walletStripeService.isStriped(wallet.getId())
+                ? walletStripeService.stripedBalance(wallet)
+                : wallet.getBalance();
+        return new WalletResponse(wallet.getId(), wallet.getUserId(), balance.toBigDecimal(), wallet.getCreatedAt(), wallet.getUpdatedAt());
     }
 
     /**
      * Calcula o saldo histórico da carteira em um determinado momento no tempo.
-     * Soma todas as entradas do ledger até o timestamp especificado.
+     * Parte do checkpoint diário mais próximo e soma no banco apenas as entradas do ledger posteriores a ele.
      *
      * @param walletId ID da carteira
      * @param at Timestamp para consulta do saldo
      * @return WalletResponse com o saldo no momento especificado
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public WalletResponse getHistoricalBalance(Long walletId, LocalDateTime at) {
+        recentWriteTracker.requirePrimaryIfRecent(RecentWriteTracker.walletKey(walletId));
         Wallet wallet = walletRepository.findById(walletId)
                 .orElseThrow(() -> new IllegalArgumentException(CARTEIRA_NAO_ENCONTRADA));
 
-        // Busca todas as entradas do ledger até o timestamp especificado
-        List<LedgerEntry> entries = ledgerEntryRepository
-                .findByWalletAndCreatedAtBeforeOrderByCreatedAtDesc(wallet, at);
-
-        // Calcula o saldo somando todas as movimentações (positivas e negativas)
-        BigDecimal historicalBalance = entries.stream()
-                .map(LedgerEntry::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money historicalBalance = balanceCheckpointService.balanceAt(wallet.getId(), at);
 
         // Retorna resposta com saldo histórico (timestamps não são relevantes para consulta histórica)
-        return new WalletResponse(wallet.getId(), wallet.getUserId(), historicalBalance, null, at);
+        return new WalletResponse(wallet.getId(), wallet.getUserId(), historicalBalance.toBigDecimal(), null, at);
     }
 }
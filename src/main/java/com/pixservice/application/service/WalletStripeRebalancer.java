@@ -0,0 +1,34 @@
+package com.pixservice.application.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job periódico que atualiza o registro de carteiras particionadas e devolve a elas uma
+ * distribuição uniforme entre sub-saldos (e varre créditos que caíram no saldo principal).
+ */
+@Component
+@ConditionalOnProperty(name = "pix.wallet.striping.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class WalletStripeRebalancer {
+
+    private final WalletStripeService walletStripeService;
+
+    @Scheduled(fixedDelayString = "${pix.wallet.striping.rebalance-interval-ms:30000}")
+    public void rebalanceStripedWallets() {
+        walletStripeService.refreshRegistry();
+        for (Long walletId : walletStripeService.stripedWalletIds()) {
+            try {
+                if (walletStripeService.needsRebalance(walletId)) {
+                    walletStripeService.rebalance(walletId);
+                }
+            } catch (Exception e) {
+                log.warn("Falha ao rebalancear sub-saldos - walletId={}, motivo={}", walletId, e.getMessage());
+            }
+        }
+    }
+}
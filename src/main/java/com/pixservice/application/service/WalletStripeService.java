@@ -0,0 +1,366 @@
+package com.pixservice.application.service;
+
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.model.WalletStripe;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.domain.repository.WalletStripeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sub-saldos (stripes) para carteiras quentes.
+ *
+ * O saldo efetivo de uma carteira particionada é {@code wallet.balance + Σ wallet_stripe.balance}.
+ * Créditos vão para qualquer stripe livre e débitos para um stripe com saldo suficiente, ambos via
+ * {@code FOR UPDATE SKIP LOCKED}, sem tocar na linha de wallet. Só a consolidação (saldo fragmentado)
+ * e o rebalanceamento bloqueiam a carteira inteira, sempre na ordem wallet → stripes por índice.
+ *
+ * Lotes (transferências, webhooks) podem operar várias vezes na mesma carteira em uma transação: os stripes já
+ * bloqueados por ela são reaproveitados em vez de disputar outro, e uma transação que já segura um stripe nunca
+ * espera pelo lock da carteira (que inverteria a ordem wallet → stripes frente ao rebalanceador). Nesse caso a
+ * consolidação tenta o lock com NOWAIT e, se a carteira estiver ocupada, falha com
+ * {@code PessimisticLockingFailureException}: o group commit desfaz o lote e reaplica item a item, e nas
+ * requisições diretas o {@code GlobalExceptionHandler} responde 503 com {@code Retry-After} (nada foi gravado).
+ *
+ * O registro em memória de carteiras particionadas evita uma leitura extra no caminho comum. Se
+ * estiver defasado (outra instância acabou de particionar a carteira), a operação segue pelo caminho
+ * tradicional sobre {@code wallet.balance}, que continua compondo o saldo efetivo; o rebalanceador
+ * depois move esse valor para os stripes.
+ */
+@Service
+@Slf4j
+public class WalletStripeService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "wallet-stripe";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pix.wallet.striping.enabled:false}")
+    private boolean stripingEnabled;
+
+    @Value("${pix.wallet.striping.max-stripes:32}")
+    private int maxStripes;
+
+    private final WalletRepository walletRepository;
+    private final WalletStripeRepository walletStripeRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final Set<Long> stripedWalletIds = ConcurrentHashMap.newKeySet();
+
+    private final Counter consolidationCounter;
+    private final Counter rebalanceCounter;
+
+    public WalletStripeService(WalletRepository walletRepository,
+                               WalletStripeRepository walletStripeRepository,
+                               LedgerEntryRepository ledgerEntryRepository,
+                               MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.walletStripeRepository = walletStripeRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+
+        this.consolidationCounter = Counter.builder("pix.wallet.stripe.consolidation")
+                .description("Débitos que precisaram consolidar sub-saldos fragmentados")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.rebalanceCounter = Counter.builder("pix.wallet.stripe.rebalance")
+                .description("Rebalanceamentos de sub-saldos executados")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Recarrega o registro de carteiras particionadas. O particionamento nunca é desfeito,
+     * então o registro só cresce.
+     */
+    @PostConstruct
+    public void refreshRegistry() {
+        stripedWalletIds.addAll(walletRepository.findStripedWalletIds());
+    }
+
+    public boolean isStriped(Long walletId) {
+        return walletId != null && stripedWalletIds.contains(walletId);
+    }
+
+    public Set<Long> stripedWalletIds() {
+        return Set.copyOf(stripedWalletIds);
+    }
+
+    /**
+     * Saldo efetivo de uma carteira particionada (saldo principal + sub-saldos).
+     */
+    public Money stripedBalance(Wallet wallet) {
+        return wallet.getBalance().plus(Money.of(walletStripeRepository.sumBalanceByWalletId(wallet.getId())));
+    }
+
+    /**
+     * Particiona o saldo da carteira em {@code stripeCount} sub-saldos.
+     * A carteira deve estar bloqueada pelo chamador.
+     */
+    @Transactional
+    public void enable(Wallet wallet, int stripeCount) {
+        if (!stripingEnabled) {
+            throw new IllegalStateException("Modo de sub-saldos desabilitado.");
+        }
+        if (stripeCount < 2 || stripeCount > maxStripes) {
+            throw new IllegalArgumentException("Quantidade de sub-saldos deve estar entre 2 e " + maxStripes + ".");
+        }
+        if (wallet.getStripeCount() > 0) {
+            throw new IllegalStateException("Carteira já possui sub-saldos.");
+        }
+
+        List<WalletStripe> stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new WalletStripe(wallet.getId(), i, Money.ZERO));
+        }
+        wallet.setStripeCount(stripeCount);
+        redistribute(wallet, stripes);
+        walletRepository.save(wallet);
+        registerAfterCommit(wallet.getId());
+
+        log.info("Sub-saldos habilitados - walletId={}, stripes={}", wallet.getId(), stripeCount);
+    }
+
+    /**
+     * Credita um sub-saldo livre qualquer; só espera por lock se todos estiverem ocupados.
+     */
+    @Transactional
+    public LedgerEntry credit(Wallet wallet, Money amount, LedgerEntryType type, String description, String transactionId) {
+        List<WalletStripe> held = heldStripes(wallet.getId());
+        WalletStripe stripe = held.isEmpty()
+                ? hold(held, walletStripeRepository.lockAnyFree(wallet.getId())
+                        .or(() -> walletStripeRepository.lockAny(wallet.getId()))
+                        .orElseThrow(() -> new IllegalStateException("Carteira sem sub-saldos.")))
+                : held.get(0);
+
+        Money before = stripe.getBalance();
+        stripe.deposit(amount);
+        walletStripeRepository.save(stripe);
+
+        LedgerEntry entry = LedgerEntry.deposit(wallet, amount, before, stripe.getBalance(), description);
+        entry.setType(type);
+        entry.setTransactionId(transactionId);
+        entry.setStripeIndex(stripe.getStripeIndex());
+        return ledgerEntryRepository.save(entry);
+    }
+
+    /**
+     * Debita um sub-saldo com saldo suficiente. Se nenhum estiver disponível (saldo fragmentado ou
+     * todos ocupados), consolida os sub-saldos sob lock da carteira antes de debitar.
+     */
+    @Transactional
+    public LedgerEntry debit(Wallet wallet, Money amount, LedgerEntryType type, String description, String transactionId) {
+        List<WalletStripe> held = heldStripes(wallet.getId());
+        WalletStripe stripe = held.stream()
+                .filter(s -> !s.getBalance().isLessThan(amount))
+                .findFirst()
+                .or(() -> walletStripeRepository.lockAnyWithFunds(wallet.getId(), amount.toBigDecimal())
+                        .map(s -> hold(held, s)))
+                .orElseGet(() -> consolidate(wallet, amount, held));
+
+        Money before = stripe.getBalance();
+        stripe.withdraw(amount);
+        walletStripeRepository.save(stripe);
+
+        LedgerEntry entry = LedgerEntry.withdraw(wallet, amount, before, stripe.getBalance(), description);
+        entry.setType(type);
+        entry.setTransactionId(transactionId);
+        entry.setStripeIndex(stripe.getStripeIndex());
+        return ledgerEntryRepository.save(entry);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean needsRebalance(Long walletId) {
+        Wallet wallet = walletRepository.findById(walletId).orElse(null);
+        return wallet != null && needsRebalance(wallet, walletStripeRepository.findByWalletIdOrderByStripeIndex(walletId));
+    }
+
+    /**
+     * Redistribui o saldo efetivo igualmente entre os sub-saldos, zerando o saldo principal.
+     */
+    @Transactional
+    public boolean rebalance(Long walletId) {
+        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new IllegalArgumentException(WalletService.CARTEIRA_NAO_ENCONTRADA));
+        List<WalletStripe> stripes = walletStripeRepository.findAllByWalletIdForUpdate(walletId);
+        if (!needsRebalance(wallet, stripes)) {
+            return false;
+        }
+        redistribute(wallet, stripes);
+        walletRepository.save(wallet);
+        rebalanceCounter.increment();
+        log.info("Sub-saldos rebalanceados - walletId={}, stripes={}", walletId, stripes.size());
+        return true;
+    }
+
+    private boolean needsRebalance(Wallet wallet, List<WalletStripe> stripes) {
+        if (stripes.isEmpty()) {
+            return false;
+        }
+        if (wallet.getBalance().signum() != 0) {
+            return true;
+        }
+        Money total = stripes.stream().map(WalletStripe::getBalance).reduce(Money.ZERO, Money::plus);
+        // Algum sub-saldo abaixo de metade da cota igual: 2 * saldo < cota
+        Money share = total.dividedBy(stripes.size());
+        return stripes.stream().anyMatch(s -> s.getBalance().times(2).isLessThan(share));
+    }
+
+    private WalletStripe consolidate(Wallet wallet, Money amount, List<WalletStripe> held) {
+        consolidationCounter.increment();
+        if (held.isEmpty()) {
+            if (entityManager != null) {
+                entityManager.refresh(wallet, LockModeType.PESSIMISTIC_WRITE); // estado atual do saldo principal, sob lock
+            }
+        } else {
+            // Esperar aqui com um stripe na mão inverteria a ordem wallet → stripes: falha se a carteira estiver ocupada
+            walletRepository.findByIdForUpdateNoWait(wallet.getId());
+            if (entityManager != null) {
+                entityManager.refresh(wallet);
+            }
+        }
+        List<WalletStripe> stripes = walletStripeRepository.findAllByWalletIdForUpdate(wallet.getId());
+        held.clear();
+        held.addAll(stripes);
+
+        Money total = stripes.stream().map(WalletStripe::getBalance).reduce(wallet.getBalance(), Money::plus);
+        if (stripes.isEmpty() || total.isLessThan(amount)) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+
+        WalletStripe target = stripes.stream().max(Comparator.comparing(WalletStripe::getBalance)).orElseThrow();
+        List<LedgerEntry> entries = new ArrayList<>();
+        Money missing = amount.minus(target.getBalance());
+        if (missing.signum() > 0 && wallet.getBalance().signum() > 0) {
+            Money moved = missing.min(wallet.getBalance());
+            moveFromMain(wallet, target, moved, entries);
+            missing = missing.minus(moved);
+        }
+        for (WalletStripe donor : stripes) {
+            if (missing.signum() <= 0) {
+                break;
+            }
+            if (donor == target || donor.getBalance().signum() <= 0) {
+                continue;
+            }
+            Money moved = missing.min(donor.getBalance());
+            moveBetweenStripes(wallet, donor, target, moved, entries);
+            missing = missing.minus(moved);
+        }
+        walletRepository.save(wallet);
+        walletStripeRepository.saveAll(stripes);
+        ledgerEntryRepository.saveAll(entries);
+
+        log.info("Sub-saldos consolidados para débito - walletId={}, stripe={}, amount={}",
+                wallet.getId(), target.getStripeIndex(), amount);
+        return target;
+    }
+
+    /**
+     * Stripes da carteira já bloqueados pela transação corrente (lista vazia e descartável fora de transação).
+     * Fica em uma {@link TransactionSynchronization}, que é suspensa junto com a transação em REQUIRES_NEW.
+     */
+    private static List<WalletStripe> heldStripes(Long walletId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new ArrayList<>();
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof HeldStripes heldStripes) {
+                return heldStripes.byWallet.computeIfAbsent(walletId, id -> new ArrayList<>());
+            }
+        }
+        HeldStripes heldStripes = new HeldStripes();
+        TransactionSynchronizationManager.registerSynchronization(heldStripes);
+        return heldStripes.byWallet.computeIfAbsent(walletId, id -> new ArrayList<>());
+    }
+
+    private static WalletStripe hold(List<WalletStripe> held, WalletStripe stripe) {
+        if (held.stream().noneMatch(s -> s == stripe)) {
+            held.add(stripe);
+        }
+        return stripe;
+    }
+
+    private static final class HeldStripes implements TransactionSynchronization {
+        private final Map<Long, List<WalletStripe>> byWallet = new HashMap<>();
+    }
+
+    private void redistribute(Wallet wallet, List<WalletStripe> stripes) {
+        Money total = stripes.stream().map(WalletStripe::getBalance).reduce(wallet.getBalance(), Money::plus);
+        Money share = total.dividedBy(stripes.size());
+        Money remainder = total.minus(share.times(stripes.size()));
+
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (wallet.getBalance().signum() != 0) {
+            Money before = wallet.getBalance();
+            wallet.withdraw(before);
+            entries.add(LedgerEntry.stripeRebalance(wallet, null, before.negate(), before, wallet.getBalance()));
+        }
+        for (WalletStripe stripe : stripes) {
+            Money target = stripe.getStripeIndex() == 0 ? share.plus(remainder) : share;
+            Money delta = target.minus(stripe.getBalance());
+            if (delta.signum() != 0) {
+                Money before = stripe.getBalance();
+                stripe.adjust(delta);
+                entries.add(LedgerEntry.stripeRebalance(wallet, stripe.getStripeIndex(), delta, before, stripe.getBalance()));
+            }
+        }
+        walletStripeRepository.saveAll(stripes);
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    private void moveFromMain(Wallet wallet, WalletStripe target, Money amount, List<LedgerEntry> entries) {
+        Money mainBefore = wallet.getBalance();
+        wallet.withdraw(amount);
+        entries.add(LedgerEntry.stripeRebalance(wallet, null, amount.negate(), mainBefore, wallet.getBalance()));
+        Money targetBefore = target.getBalance();
+        target.adjust(amount);
+        entries.add(LedgerEntry.stripeRebalance(wallet, target.getStripeIndex(), amount, targetBefore, target.getBalance()));
+    }
+
+    private void moveBetweenStripes(Wallet wallet, WalletStripe donor, WalletStripe target, Money amount, List<LedgerEntry> entries) {
+        Money donorBefore = donor.getBalance();
+        donor.adjust(amount.negate());
+        entries.add(LedgerEntry.stripeRebalance(wallet, donor.getStripeIndex(), amount.negate(), donorBefore, donor.getBalance()));
+        Money targetBefore = target.getBalance();
+        target.adjust(amount);
+        entries.add(LedgerEntry.stripeRebalance(wallet, target.getStripeIndex(), amount, targetBefore, target.getBalance()));
+    }
+
+    private void registerAfterCommit(Long walletId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stripedWalletIds.add(walletId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stripedWalletIds.add(walletId);
+            }
+        });
+    }
+}
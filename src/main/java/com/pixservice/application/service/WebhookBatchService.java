@@ -0,0 +1,315 @@
+package com.pixservice.application.service;
+
+import com.pixservice.application.cache.WebhookDedupeCache;
+import com.pixservice.application.dto.PixWebhookBatchItemResult;
+import com.pixservice.application.dto.PixWebhookBatchRequest;
+import com.pixservice.application.dto.PixWebhookBatchResponse;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.domain.model.*;
+import com.pixservice.domain.repository.PixTransactionRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.PixTransferBatchWriter;
+import com.pixservice.infrastructure.persistence.PixTransferBatchWriter.EventKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Processa lotes de eventos de webhook (janelas de liquidação do PSP) em uma única transação, com número de
+ * round trips independente do tamanho do lote:
+ * <ol>
+ *   <li>transações Pix: um {@code SELECT ... FOR UPDATE} em ordem de endToEndId (sem deadlock entre lotes);</li>
+ *   <li>deduplicação e registro dos eventos: um {@code INSERT ... ON CONFLICT DO NOTHING RETURNING} em pix_event;</li>
+ *   <li>carteiras afetadas: um {@code SELECT ... FOR UPDATE} em ordem crescente de id, com um único UPDATE de saldo
+ *   por carteira no commit;</li>
+ *   <li>ledger_entry: JDBC batching.</li>
+ * </ol>
+ * Os eventos são aplicados na ordem recebida, então dois eventos da mesma transação no lote têm o mesmo resultado que
+ * teriam em chamadas sequenciais a {@link WebhookService#processWebhookEvent}. Eventos inválidos ou de transação
+ * inexistente viram resultados de erro individuais e não são registrados, para que possam ser reenviados.
+ */
+@Service
+@Slf4j
+public class WebhookBatchService {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "webhook";
+    private static final String RESPONSE_SUCCESS = "SUCCESS";
+    private static final String RESPONSE_ERROR = "ERROR";
+    private static final String MESSAGE_DUPLICATE = "Evento já processado.";
+    private static final String MESSAGE_FINALIZED = "Transação já em estado final ou processada. Evento registrado.";
+
+    @Value("${pix.webhook.batch.max-items:1000}")
+    private int maxItems;
+
+    private final PixTransactionRepository pixTransactionRepository;
+    private final WalletRepository walletRepository;
+    private final WalletStripeService walletStripeService;
+    private final PixTransferBatchWriter batchWriter;
+    private final WebhookDedupeCache webhookDedupeCache;
+
+    private final Counter webhookReceivedCounter;
+    private final Counter webhookDuplicateCounter;
+    private final Counter webhookConfirmedCounter;
+    private final Counter webhookRejectedCounter;
+    private final Counter batchFailedItemsCounter;
+    private final Timer batchTimer;
+
+    public WebhookBatchService(PixTransactionRepository pixTransactionRepository,
+                               WalletRepository walletRepository,
+                               WalletStripeService walletStripeService,
+                               PixTransferBatchWriter batchWriter,
+                               WebhookDedupeCache webhookDedupeCache,
+                               MeterRegistry meterRegistry) {
+        this.pixTransactionRepository = pixTransactionRepository;
+        this.walletRepository = walletRepository;
+        this.walletStripeService = walletStripeService;
+        this.batchWriter = batchWriter;
+        this.webhookDedupeCache = webhookDedupeCache;
+
+        // Mesmos contadores do endpoint unitário: eventos em lote também são webhooks recebidos
+        this.webhookReceivedCounter = Counter.builder("pix.webhook.received")
+                .description("Total de webhooks Pix recebidos")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.webhookDuplicateCounter = Counter.builder("pix.webhook.duplicate")
+                .description("Total de webhooks duplicados detectados")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.webhookConfirmedCounter = Counter.builder("pix.webhook.confirmed")
+                .description("Total de transações Pix confirmadas via webhook")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.webhookRejectedCounter = Counter.builder("pix.webhook.rejected")
+                .description("Total de transações Pix rejeitadas via webhook")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.batchFailedItemsCounter = Counter.builder("pix.webhook.batch.failed")
+                .description("Eventos de lotes de webhook com erro")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+
+        this.batchTimer = Timer.builder("pix.webhook.batch.duration")
+                .description("Tempo de processamento de lotes de webhook")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public PixWebhookBatchResponse processWebhookBatch(PixWebhookBatchRequest request) {
+        List<PixWebhookRequest> items = isNull(request) ? null : request.getItems();
+        if (isNull(items) || items.isEmpty()) {
+            throw new IllegalArgumentException("O lote de eventos está vazio.");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("O lote excede o limite de " + maxItems + " eventos.");
+        }
+        return batchTimer.record(() -> processBatch(items));
+    }
+
+    private PixWebhookBatchResponse processBatch(List<PixWebhookRequest> items) {
+        log.info("Iniciando lote de webhooks Pix - eventos={}", items.size());
+        webhookReceivedCounter.increment(items.size());
+
+        PixWebhookBatchItemResult[] results = new PixWebhookBatchItemResult[items.size()];
+        Map<EventKey, Integer> firstIndexByKey = new HashMap<>();
+        List<Integer> repeated = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            PixWebhookRequest item = items.get(i);
+            String invalid = validate(item);
+            if (invalid != null) {
+                results[i] = error(item, invalid);
+            } else if (firstIndexByKey.putIfAbsent(keyOf(item), i) != null) {
+                repeated.add(i); // mesmo evento repetido no lote: mesmo resultado do primeiro
+            } else {
+                pending.add(i);
+            }
+        }
+
+        Map<String, PixTransaction> transactions = lockTransactions(items, pending);
+        List<Integer> known = new ArrayList<>();
+        List<PixEvent> events = new ArrayList<>();
+        for (int i : pending) {
+            PixWebhookRequest item = items.get(i);
+            PixTransaction transaction = transactions.get(item.getEndToEndId());
+            if (isNull(transaction)) {
+                results[i] = error(item, "Transação Pix não encontrada para o endToEndId: " + item.getEndToEndId());
+            } else if (transaction.getStatus() == PixTransactionStatus.PENDING && isNull(targetWallet(transaction, item))) {
+                results[i] = error(item, item.getEventType() == PixEventType.CONFIRMED
+                        ? "Carteira de destino não encontrada na transação Pix."
+                        : "Carteira de origem não encontrada na transação Pix.");
+            } else {
+                events.add(new PixEvent(item.getEventId(), item.getEndToEndId(), item.getEventType(), item.getOccurredAt()));
+                known.add(i);
+            }
+        }
+        Set<EventKey> registered = batchWriter.insertPixEventsIfAbsent(events);
+
+        int duplicates = 0;
+        List<Integer> effective = new ArrayList<>();
+        for (int i : known) {
+            PixWebhookRequest item = items.get(i);
+            PixTransaction transaction = transactions.get(item.getEndToEndId());
+            if (!registered.contains(keyOf(item))) {
+                duplicates++;
+                webhookDuplicateCounter.increment();
+                results[i] = new PixWebhookBatchItemResult(item.getEventId(), item.getEndToEndId(), RESPONSE_SUCCESS, MESSAGE_DUPLICATE);
+            } else if (transaction.getStatus() != PixTransactionStatus.PENDING) {
+                results[i] = new PixWebhookBatchItemResult(item.getEventId(), item.getEndToEndId(), RESPONSE_SUCCESS, MESSAGE_FINALIZED);
+            } else {
+                // Em ordem de chegada: um segundo evento da mesma transação já a encontra finalizada
+                if (item.getEventType() == PixEventType.CONFIRMED) {
+                    transaction.confirm();
+                } else {
+                    transaction.reject();
+                }
+                effective.add(i);
+            }
+        }
+
+        applyWalletEffects(items, effective, transactions, results);
+        for (int i : known) {
+            PixWebhookRequest item = items.get(i);
+            webhookDedupeCache.recordAfterCommit(item.getEventId(), item.getEndToEndId(),
+                    transactions.get(item.getEndToEndId()).getStatus());
+        }
+
+        for (int i : repeated) {
+            PixWebhookBatchItemResult first = results[firstIndexByKey.get(keyOf(items.get(i)))];
+            results[i] = new PixWebhookBatchItemResult(first.getEventId(), first.getEndToEndId(), first.getStatus(), first.getMessage());
+        }
+        int failed = (int) Arrays.stream(results).filter(result -> RESPONSE_ERROR.equals(result.getStatus())).count();
+        batchFailedItemsCounter.increment(failed);
+        log.info("Lote de webhooks Pix processado - eventos={}, efetivados={}, duplicados={}, falhas={}",
+                items.size(), effective.size(), duplicates, failed);
+        return new PixWebhookBatchResponse(items.size() - failed - duplicates, duplicates, failed, List.of(results));
+    }
+
+    private String validate(PixWebhookRequest item) {
+        if (isNull(item) || isNull(item.getEventId()) || isNull(item.getEndToEndId()) || isNull(item.getEventType())) {
+            return "Webhook Pix inválido: eventId, endToEndId e eventType são obrigatórios.";
+        }
+        if (item.getEventType() != PixEventType.CONFIRMED && item.getEventType() != PixEventType.REJECTED) {
+            return "Tipo de evento Pix desconhecido.";
+        }
+        return null;
+    }
+
+    private Map<String, PixTransaction> lockTransactions(List<PixWebhookRequest> items, List<Integer> pending) {
+        Set<String> endToEndIds = pending.stream()
+                .map(i -> items.get(i).getEndToEndId())
+                .collect(Collectors.toSet());
+        if (endToEndIds.isEmpty()) {
+            return Map.of();
+        }
+        return pixTransactionRepository.findAllByEndToEndIdInForUpdate(endToEndIds).stream()
+                .collect(Collectors.toMap(PixTransaction::getEndToEndId, Function.identity()));
+    }
+
+    /**
+     * Aplica os créditos e estornos agrupados por carteira: cada carteira é bloqueada uma vez (todas em um único
+     * SELECT em ordem de id) e recebe os lançamentos do lote em sequência, com o saldo gravado uma vez no flush.
+     * Carteiras particionadas creditam um sub-saldo por evento, como no endpoint unitário.
+     */
+    private void applyWalletEffects(List<PixWebhookRequest> items, List<Integer> effective,
+                                    Map<String, PixTransaction> transactions, PixWebhookBatchItemResult[] results) {
+        Map<Long, List<Integer>> byWallet = new TreeMap<>();
+        for (int i : effective) {
+            PixWebhookRequest item = items.get(i);
+            Long walletId = targetWallet(transactions.get(item.getEndToEndId()), item).getId();
+            byWallet.computeIfAbsent(walletId, id -> new ArrayList<>()).add(i);
+        }
+        List<Long> lockIds = byWallet.keySet().stream()
+                .filter(walletId -> !walletStripeService.isStriped(walletId))
+                .toList();
+        Map<Long, Wallet> wallets = lockIds.isEmpty() ? Map.of() : walletRepository.findAllByIdInForUpdate(lockIds).stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+        preloadSourceWallets(items, effective, transactions, wallets.keySet());
+
+        List<LedgerEntry> ledgerEntries = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> group : byWallet.entrySet()) {
+            Wallet wallet = wallets.get(group.getKey());
+            for (int i : group.getValue()) {
+                PixWebhookRequest item = items.get(i);
+                PixTransaction transaction = transactions.get(item.getEndToEndId());
+                boolean confirmed = item.getEventType() == PixEventType.CONFIRMED;
+                LedgerEntryType type = confirmed ? LedgerEntryType.PIX_TRANSFER_IN : LedgerEntryType.PIX_TRANSFER_REVERSAL;
+                String description = confirmed
+                        ? "Crédito Pix - Transferência de " + transaction.getFromWallet().getUserId()
+                        : "Estorno Pix - Transação rejeitada de " + transaction.getToPixKey();
+                if (isNull(wallet)) {
+                    Wallet striped = targetWallet(transaction, item);
+                    walletStripeService.credit(striped, transaction.getAmount(), type, description, transaction.getEndToEndId());
+                } else {
+                    Money before = wallet.getBalance();
+                    wallet.deposit(transaction.getAmount());
+                    LedgerEntry entry = LedgerEntry.deposit(wallet, transaction.getAmount(), before, wallet.getBalance(), description);
+                    entry.setTransactionId(transaction.getEndToEndId());
+                    entry.setType(type);
+                    ledgerEntries.add(entry);
+                }
+                if (confirmed) {
+                    webhookConfirmedCounter.increment();
+                    results[i] = new PixWebhookBatchItemResult(item.getEventId(), item.getEndToEndId(), RESPONSE_SUCCESS,
+                            "Transação Pix confirmada e saldo creditado.");
+                } else {
+                    webhookRejectedCounter.increment();
+                    results[i] = new PixWebhookBatchItemResult(item.getEventId(), item.getEndToEndId(), RESPONSE_SUCCESS,
+                            "Transação Pix rejeitada e débito estornado.");
+                }
+            }
+            if (wallet != null) {
+                log.debug("Efeitos do lote aplicados - walletId={}, eventos={}, saldo={}", wallet.getId(), group.getValue().size(), wallet.getBalance());
+            }
+        }
+        batchWriter.insertLedgerEntries(ledgerEntries);
+    }
+
+    /**
+     * Carrega em uma consulta as carteiras de origem usadas na descrição dos créditos, em vez de uma por transação.
+     * Roda depois do lock das carteiras afetadas para não deixá-las no contexto com estado lido sem lock.
+     */
+    private void preloadSourceWallets(List<PixWebhookRequest> items, List<Integer> effective,
+                                      Map<String, PixTransaction> transactions, Set<Long> locked) {
+        Set<Long> sourceIds = effective.stream()
+                .filter(i -> items.get(i).getEventType() == PixEventType.CONFIRMED)
+                .map(i -> transactions.get(items.get(i).getEndToEndId()).getFromWallet())
+                .filter(Objects::nonNull)
+                .map(Wallet::getId)
+                .filter(walletId -> !locked.contains(walletId))
+                .collect(Collectors.toSet());
+        if (!sourceIds.isEmpty()) {
+            walletRepository.findAllById(sourceIds);
+        }
+    }
+
+    private static Wallet targetWallet(PixTransaction transaction, PixWebhookRequest item) {
+        return item.getEventType() == PixEventType.CONFIRMED ? transaction.getToWallet() : transaction.getFromWallet();
+    }
+
+    private static EventKey keyOf(PixWebhookRequest item) {
+        return new EventKey(item.getEventId(), item.getEndToEndId());
+    }
+
+    private PixWebhookBatchItemResult error(PixWebhookRequest item, String message) {
+        log.warn("Evento do lote recusado - eventId={}, endToEndId={}, motivo={}",
+                isNull(item) ? null : item.getEventId(), isNull(item) ? null : item.getEndToEndId(), message);
+        return new PixWebhookBatchItemResult(isNull(item) ? null : item.getEventId(),
+                isNull(item) ? null : item.getEndToEndId(), RESPONSE_ERROR, message);
+    }
+}
@@ -1,13 +1,19 @@
 package com.pixservice.application.service;
 
+import com.pixservice.application.cache.WebhookDedupeCache;
 import com.pixservice.application.dto.PixWebhookRequest;
 import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.mailbox.WalletCommand;
+import com.pixservice.application.mailbox.WalletMailbox;
 import com.pixservice.domain.model.*;
 import com.pixservice.domain.repository.*;
 import com.pixservice.infrastructure.logging.MdcUtils;
+import com.pixservice.infrastructure.persistence.PixTransactionTransition;
+import com.pixservice.infrastructure.persistence.PixTransactionTransitionRepository;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,7 +22,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.OptimisticLockException;
-import java.math.BigDecimal;
+import java.util.Optional;
 
 import static java.util.Objects.isNull;
 
@@ -28,6 +34,15 @@ public class WebhookService {
     private static final String METRIC_TAG_SERVICE_VALUE = "webhook";
     private static final String RESPONSE_SUCCESS = "SUCCESS";
     private static final String RESPONSE_ERROR = "ERROR";
+    private static final String TRANSITION_LOCK = "lock";
+    private static final String TRANSITION_CAS = "cas";
+
+    /**
+     * lock (padrão): carrega a transação, aplica lock pessimista e repete em conflito otimista.
+     * cas: um único UPDATE condicional decide o vencedor; os demais respondem na hora, sem lock nem retry.
+     */
+    @Value("${pix.webhook.transition:lock}")
+    private String transitionMode = TRANSITION_LOCK;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -36,6 +51,9 @@ public class WebhookService {
     private final PixTransactionRepository pixTransactionRepository;
     private final WalletRepository walletRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
+    private final WalletStripeService walletStripeService;
+    private final WebhookDedupeCache webhookDedupeCache;
+    private final PixTransactionTransitionRepository transitionRepository;
 
     // Métricas customizadas
     private final Counter webhookReceivedCounter;
@@ -47,11 +65,17 @@ public class WebhookService {
                           PixTransactionRepository pixTransactionRepository,
                           WalletRepository walletRepository,
                           LedgerEntryRepository ledgerEntryRepository,
+                          WalletStripeService walletStripeService,
+                          WebhookDedupeCache webhookDedupeCache,
+                          PixTransactionTransitionRepository transitionRepository,
                           MeterRegistry meterRegistry) {
         this.pixEventRepository = pixEventRepository;
         this.pixTransactionRepository = pixTransactionRepository;
         this.walletRepository = walletRepository;
         this.ledgerEntryRepository = ledgerEntryRepository;
+        this.walletStripeService = walletStripeService;
+        this.webhookDedupeCache = webhookDedupeCache;
+        this.transitionRepository = transitionRepository;
 
         // Inicializar métricas
         this.webhookReceivedCounter = Counter.builder("pix.webhook.received")
@@ -78,6 +102,7 @@ public class WebhookService {
     }
 
     @Transactional
+    @WalletCommand(walletId = "@webhookService.resolveTargetWalletId(#request)")
     public PixWebhookResponse processWebhookEvent(PixWebhookRequest request) {
         // Adicionar eventId e endToEndId ao MDC para rastreamento automático
         MdcUtils.setEventId(request.getEventId());
@@ -87,6 +112,12 @@ public class WebhookService {
             webhookReceivedCounter.increment();
             logRequest(request);
 
+            // Duplicado já aplicado por esta instância: responde pelo cache, sem consultar o banco
+            PixWebhookResponse cachedDuplicateResponse = handleCachedDuplicate(request);
+            if (cachedDuplicateResponse != null) {
+                return cachedDuplicateResponse;
+            }
+
             // Idempotência do evento (duplicado completo já finalizado)
             PixWebhookResponse earlyDuplicateResponse = handleEarlyDuplicate(request);
             if (earlyDuplicateResponse != null) {
@@ -99,10 +130,15 @@ public class WebhookService {
                 return persistedDuplicateResponse; // Evento já registrado em corrida -> não reprocesar efeitos
             }
 
+            if (TRANSITION_CAS.equals(transitionMode) && transitionRepository != null) {
+                return processWithTransition(request);
+            }
+
             // Carregar e bloquear transação para processamento seguro
             PixTransaction pixTransaction = loadAndLockTransaction(request.getEndToEndId());
 
             if (isAlreadyFinalized(pixTransaction)) {
+                webhookDedupeCache.recordAfterCommit(request.getEventId(), request.getEndToEndId(), pixTransaction.getStatus());
                 return new PixWebhookResponse(RESPONSE_SUCCESS, "Transação já em estado final ou processada. Evento registrado.");
             }
 
@@ -115,6 +151,28 @@ public class WebhookService {
         }
     }
 
+    /**
+     * Carteira cujo saldo o evento altera: destino no CONFIRMED, origem no REJECTED.
+     * Usado pelo mailbox para rotear o evento; nulo quando o evento não altera saldo.
+     */
+    public Long resolveTargetWalletId(PixWebhookRequest request) {
+        if (isNull(request) || isNull(request.getEndToEndId())) {
+            return null;
+        }
+        if (webhookDedupeCache.finalStatus(request.getEventId(), request.getEndToEndId()).isPresent()) {
+            return null; // duplicado respondido pelo cache, não altera saldo
+        }
+        return pixTransactionRepository.findById(request.getEndToEndId())
+                .filter(tx -> tx.getStatus() == PixTransactionStatus.PENDING)
+                .map(tx -> switch (request.getEventType()) {
+                    case CONFIRMED -> tx.getToWallet();
+                    case REJECTED -> tx.getFromWallet();
+                    default -> null;
+                })
+                .map(Wallet::getId)
+                .orElse(null);
+    }
+
     // ---------------- Métodos privados (SRP) ----------------
 
     private void logRequest(PixWebhookRequest request) {
@@ -123,6 +181,16 @@ public class WebhookService {
                 request.getEventType(), request.getOccurredAt());
     }
 
+    private PixWebhookResponse handleCachedDuplicate(PixWebhookRequest request) {
+        Optional<PixTransactionStatus> cached = webhookDedupeCache.finalStatus(request.getEventId(), request.getEndToEndId());
+        if (cached.isEmpty()) {
+            return null;
+        }
+        webhookDuplicateCounter.increment();
+        log.info("Evento duplicado já aplicado (cache) - ignorando. eventId={}, endToEndId={}, status={}", request.getEventId(), request.getEndToEndId(), cached.get());
+        return new PixWebhookResponse(RESPONSE_SUCCESS, "Evento já processado.");
+    }
+
     /**
      * Verifica duplicidade pelo par (eventId, endToEndId) e se a transação já está finalizada.
      * Se sim, retorna resposta imediata; se não, retorna null para continuar.
@@ -135,6 +203,7 @@ public class WebhookService {
         PixTransaction existingTx = pixTransactionRepository.findById(request.getEndToEndId()).orElse(null);
         if (existingTx != null && existingTx.getStatus() != PixTransactionStatus.PENDING) {
             webhookDuplicateCounter.increment();
+            webhookDedupeCache.recordAfterCommit(request.getEventId(), request.getEndToEndId(), existingTx.getStatus());
             log.info("Evento duplicado já aplicado - ignorando. eventId={}, endToEndId={}", request.getEventId(), request.getEndToEndId());
             return new PixWebhookResponse(RESPONSE_SUCCESS, "Evento já processado.");
         }
@@ -150,6 +219,7 @@ public class WebhookService {
         try {
             PixEvent event = new PixEvent(request.getEventId(), request.getEndToEndId(), request.getEventType(), request.getOccurredAt());
             pixEventRepository.save(event);
+            pixEventRepository.flush(); // ids por sequência adiam o INSERT: antecipar a violação de unicidade para este catch
             log.debug("Evento Pix registrado - eventId={}", request.getEventId());
             return null; // Persistido com sucesso
         } catch (DataIntegrityViolationException e) {
@@ -159,6 +229,67 @@ public class WebhookService {
         }
     }
 
+    /**
+     * Modo cas: a transição de status é um único UPDATE condicional. Só o vencedor aplica o efeito em carteira;
+     * um webhook concorrente (ou tardio) da mesma transação recebe a resposta de transação já finalizada.
+     */
+    private PixWebhookResponse processWithTransition(PixWebhookRequest request) {
+        PixTransactionStatus target = switch (request.getEventType()) {
+            case CONFIRMED -> PixTransactionStatus.CONFIRMED;
+            case REJECTED -> PixTransactionStatus.REJECTED;
+            default -> null;
+        };
+        if (isNull(target)) {
+            log.error("Evento desconhecido - eventType={}, endToEndId={}", request.getEventType(), request.getEndToEndId());
+            return new PixWebhookResponse(RESPONSE_ERROR, "Tipo de evento Pix desconhecido.");
+        }
+        PixTransactionTransition transition = transitionRepository.transition(request.getEndToEndId(), target)
+                .orElseThrow(() -> new IllegalArgumentException("Transação Pix não encontrada para o endToEndId: " + request.getEndToEndId()));
+        if (!transition.applied()) {
+            if (transition.previousStatus() != PixTransactionStatus.PENDING) {
+                webhookDedupeCache.recordAfterCommit(request.getEventId(), request.getEndToEndId(), transition.previousStatus());
+            }
+            log.info("Transição não aplicada, transação já finalizada - endToEndId={}, statusAnterior={}", request.getEndToEndId(), transition.previousStatus());
+            return new PixWebhookResponse(RESPONSE_SUCCESS, "Transação já em estado final ou processada. Evento registrado.");
+        }
+
+        Money amount = Money.of(transition.amount());
+        PixWebhookResponse response;
+        if (target == PixTransactionStatus.CONFIRMED) {
+            webhookConfirmedCounter.increment();
+            if (isNull(transition.toWalletId())) throw new IllegalStateException("Carteira de destino não encontrada na transação Pix.");
+            creditWallet(transition.toWalletId(), amount, LedgerEntryType.PIX_TRANSFER_IN,
+                    "Crédito Pix - Transferência de " + transition.fromUserId(), request.getEndToEndId());
+            response = new PixWebhookResponse(RESPONSE_SUCCESS, "Transação Pix confirmada e saldo creditado.");
+        } else {
+            webhookRejectedCounter.increment();
+            if (isNull(transition.fromWalletId())) throw new IllegalStateException("Carteira de origem não encontrada na transação Pix.");
+            creditWallet(transition.fromWalletId(), amount, LedgerEntryType.PIX_TRANSFER_REVERSAL,
+                    "Estorno Pix - Transação rejeitada de " + transition.toPixKey(), request.getEndToEndId());
+            response = new PixWebhookResponse(RESPONSE_SUCCESS, "Transação Pix rejeitada e débito estornado.");
+        }
+        webhookDedupeCache.recordAfterCommit(request.getEventId(), request.getEndToEndId(), target);
+        log.info("Webhook processado - eventId={}, endToEndId={}, finalStatus={}", request.getEventId(), request.getEndToEndId(), target);
+        return response;
+    }
+
+    private void creditWallet(Long walletId, Money amount, LedgerEntryType type, String description, String endToEndId) {
+        if (walletStripeService.isStriped(walletId)) {
+            LedgerEntry entry = walletStripeService.credit(walletRepository.getReferenceById(walletId), amount, type, description, endToEndId);
+            log.info("Crédito efetivado em sub-saldo - endToEndId={}, walletId={}, stripe={}, amount={}", endToEndId, walletId, entry.getStripeIndex(), amount);
+            return;
+        }
+        Wallet wallet = lockWallet(walletId).orElseThrow(() -> new IllegalArgumentException(WalletService.CARTEIRA_NAO_ENCONTRADA));
+        Money before = wallet.getBalance();
+        wallet.deposit(amount);
+        walletRepository.save(wallet);
+        log.info("Crédito efetivado - endToEndId={}, walletId={}, type={}, amount={}, before={}, after={}", endToEndId, walletId, type, amount, before, wallet.getBalance());
+        LedgerEntry entry = LedgerEntry.deposit(wallet, amount, before, wallet.getBalance(), description);
+        entry.setTransactionId(endToEndId);
+        entry.setType(type);
+        ledgerEntryRepository.save(entry);
+    }
+
     private PixTransaction loadAndLockTransaction(String endToEndId) {
         PixTransaction tx = pixTransactionRepository.findById(endToEndId)
                 .orElseThrow(() -> new IllegalArgumentException("Transação Pix não encontrada para o endToEndId: " + endToEndId));
@@ -182,6 +313,7 @@ public class WebhookService {
                 PixWebhookResponse response = applyEventEffects(pixTransaction, request);
                 PixTransaction saved = pixTransactionRepository.save(pixTransaction);
                 flushEntityManager(request.getEndToEndId());
+                webhookDedupeCache.recordAfterCommit(request.getEventId(), request.getEndToEndId(), saved.getStatus());
                 log.info("Webhook processado - eventId={}, endToEndId={}, finalStatus={}, version={}", request.getEventId(), request.getEndToEndId(), saved.getStatus(), saved.getVersion());
                 return response;
             } catch (OptimisticLockException ole) {
@@ -238,34 +370,53 @@ public class WebhookService {
         pixTransaction.confirm();
         Wallet toWallet = pixTransaction.getToWallet();
         if (isNull(toWallet)) throw new IllegalStateException("Carteira de destino não encontrada na transação Pix.");
-        toWallet = walletRepository.findByIdForUpdate(toWallet.getId()).orElseThrow(() -> new IllegalArgumentException("Carteira de destino não encontrada."));
-        BigDecimal before = toWallet.getBalance();
+        String description = "Crédito Pix - Transferência de " + pixTransaction.getFromWallet().getUserId();
+        if (walletStripeService.isStriped(toWallet.getId())) {
+            LedgerEntry entry = walletStripeService.credit(toWallet, pixTransaction.getAmount(), LedgerEntryType.PIX_TRANSFER_IN,
+                    description, pixTransaction.getEndToEndId());
+            log.info("Crédito efetivado em sub-saldo - endToEndId={}, toWallet={}, stripe={}, amount={}", request.getEndToEndId(), toWallet.getId(), entry.getStripeIndex(), pixTransaction.getAmount());
+            return new PixWebhookResponse(RESPONSE_SUCCESS, "Transação Pix confirmada e saldo creditado.");
+        }
+        toWallet = lockWallet(toWallet.getId()).orElseThrow(() -> new IllegalArgumentException("Carteira de destino não encontrada."));
+        Money before = toWallet.getBalance();
         toWallet.deposit(pixTransaction.getAmount());
         walletRepository.save(toWallet);
-        BigDecimal after = toWallet.getBalance();
+        Money after = toWallet.getBalance();
         log.info("Crédito efetivado - endToEndId={}, toWallet={}, amount={}, before={}, after={}", request.getEndToEndId(), toWallet.getId(), pixTransaction.getAmount(), before, after);
-        LedgerEntry inEffective = LedgerEntry.deposit(toWallet, pixTransaction.getAmount(), before, after,
-                "Crédito Pix - Transferência de " + pixTransaction.getFromWallet().getUserId());
+        LedgerEntry inEffective = LedgerEntry.deposit(toWallet, pixTransaction.getAmount(), before, after, description);
         inEffective.setTransactionId(pixTransaction.getEndToEndId());
         inEffective.setType(LedgerEntryType.PIX_TRANSFER_IN);
         ledgerEntryRepository.save(inEffective);
         return new PixWebhookResponse(RESPONSE_SUCCESS, "Transação Pix confirmada e saldo creditado.");
     }
 
+    /**
+     * Dentro do mailbox a carteira já está bloqueada pelo lote; fora dele, lock pessimista.
+     */
+    private Optional<Wallet> lockWallet(Long walletId) {
+        return WalletMailbox.heldWallet(walletId).or(() -> walletRepository.findByIdForUpdate(walletId));
+    }
+
     private PixWebhookResponse processRejected(PixTransaction pixTransaction, PixWebhookRequest request) {
         webhookRejectedCounter.increment();
         log.info("Processando REJECTED - endToEndId={}, amount={}", request.getEndToEndId(), pixTransaction.getAmount());
         pixTransaction.reject();
         Wallet fromWallet = pixTransaction.getFromWallet();
         if (fromWallet == null) throw new IllegalStateException("Carteira de origem não encontrada na transação Pix.");
-        fromWallet = walletRepository.findByIdForUpdate(fromWallet.getId()).orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada."));
-        BigDecimal before = fromWallet.getBalance();
+        String description = "Estorno Pix - Transação rejeitada de " + pixTransaction.getToPixKey();
+        if (walletStripeService.isStriped(fromWallet.getId())) {
+            LedgerEntry entry = walletStripeService.credit(fromWallet, pixTransaction.getAmount(), LedgerEntryType.PIX_TRANSFER_REVERSAL,
+                    description, pixTransaction.getEndToEndId());
+            log.info("Estorno efetivado em sub-saldo - endToEndId={}, fromWallet={}, stripe={}, amount={}", request.getEndToEndId(), fromWallet.getId(), entry.getStripeIndex(), pixTransaction.getAmount());
+            return new PixWebhookResponse(RESPONSE_SUCCESS, "Transação Pix rejeitada e débito estornado.");
+        }
+        fromWallet = lockWallet(fromWallet.getId()).orElseThrow(() -> new IllegalArgumentException("Carteira de origem não encontrada."));
+        Money before = fromWallet.getBalance();
         fromWallet.deposit(pixTransaction.getAmount());
         walletRepository.save(fromWallet);
-        BigDecimal after = fromWallet.getBalance();
+        Money after = fromWallet.getBalance();
         log.info("Estorno efetivado - endToEndId={}, fromWallet={}, amount={}, before={}, after={}", request.getEndToEndId(), fromWallet.getId(), pixTransaction.getAmount(), before, after);
-        LedgerEntry reversal = LedgerEntry.deposit(fromWallet, pixTransaction.getAmount(), before, after,
-                "Estorno Pix - Transação rejeitada de " + pixTransaction.getToPixKey());
+        LedgerEntry reversal = LedgerEntry.deposit(fromWallet, pixTransaction.getAmount(), before, after, description);
         reversal.setTransactionId(pixTransaction.getEndToEndId());
         reversal.setType(LedgerEntryType.PIX_TRANSFER_REVERSAL);
         ledgerEntryRepository.save(reversal);
@@ -1,5 +1,6 @@
 package com.pixservice.application.validation;
 
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.PixTransaction;
 import com.pixservice.domain.model.PixTransactionStatus;
 import com.pixservice.domain.model.Wallet;
@@ -30,11 +31,18 @@ public class PixTransferValidator {
 
     private final PixTransactionRepository pixTransactionRepository;
 
+    /**
+     * Converte o valor recebido na requisição; {@code null} fica para {@link #validateAmount(Money)} recusar.
+     */
+    public static Money toMoney(BigDecimal amount) {
+        return isNull(amount) ? null : Money.of(amount);
+    }
+
     /**
      * Valida que o valor da transferência é positivo.
      */
-    public void validateAmount(BigDecimal amount) {
-        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void validateAmount(Money amount) {
+        if (isNull(amount) || !amount.isPositive()) {
             throw new IllegalArgumentException("O valor da transferência deve ser positivo.");
         }
     }
@@ -52,8 +60,8 @@ public class PixTransferValidator {
      * Verifica se existe uma transferência idêntica recente CONFIRMADA dentro da janela configurada.
      * Se a janela estiver desabilitada (duplicateEnabled=false ou duplicateWindowMinutes <= 0) não bloqueia nada.
      */
-    public void validateNoDuplicateTransfer(Wallet fromWallet, String toPixKey, BigDecimal amount) {
-        if (!duplicateEnabled || duplicateWindowMinutes <= 0) {
+    public void validateNoDuplicateTransfer(Wallet fromWallet, String toPixKey, Money amount) {
+        if (effectiveDuplicateWindowMinutes() == 0) {
             return; // feature desligada
         }
         LocalDateTime since = LocalDateTime.now().minusMinutes(duplicateWindowMinutes); // corrigido: usar minutos
@@ -62,18 +70,26 @@ public class PixTransferValidator {
         if (recentDuplicate.isPresent()) {
             PixTransaction previous = recentDuplicate.get();
             if (previous.getStatus() == PixTransactionStatus.CONFIRMED) {
-                throw new IllegalStateException(buildDuplicateTransferMessage(previous, amount, toPixKey));
+                throw new IllegalStateException(buildDuplicateTransferMessage(previous.getEndToEndId(), amount, toPixKey));
             }
         }
     }
 
-    private String buildDuplicateTransferMessage(PixTransaction previous, BigDecimal amount, String toPixKey) {
+    /**
+     * Janela de duplicidade em minutos, ou 0 quando a verificação está desligada.
+     * Usada também pelo motor {@code db-function}, que faz a verificação dentro do banco.
+     */
+    public long effectiveDuplicateWindowMinutes() {
+        return duplicateEnabled && duplicateWindowMinutes > 0 ? duplicateWindowMinutes : 0;
+    }
+
+    public String buildDuplicateTransferMessage(String previousEndToEndId, Money amount, String toPixKey) {
         return String.format(
                 "Transferência idêntica confirmada detectada há menos de %d minuto(s). Valor: %s Destino: %s EndToEndId anterior: %s.",
                 duplicateWindowMinutes,
                 amount,
                 toPixKey,
-                previous.getEndToEndId()
+                previousEndToEndId
         );
     }
 
@@ -81,7 +97,7 @@ public class PixTransferValidator {
      * Valida todas as regras de negócio em uma única chamada.
      * Útil quando você quer validar tudo de uma vez.
      */
-    public void validateTransfer(BigDecimal amount, Wallet fromWallet, Wallet toWallet, String toPixKey) {
+    public void validateTransfer(Money amount, Wallet fromWallet, Wallet toWallet, String toPixKey) {
         validateAmount(amount);
         validateNotSameWallet(fromWallet, toWallet);
         validateNoDuplicateTransfer(fromWallet, toPixKey, amount);
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class IdempotencyKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_key_seq")
+    @SequenceGenerator(name = "idempotency_key_seq", sequenceName = "idempotency_key_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "key_value", nullable = false)
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -15,7 +14,8 @@ import java.time.LocalDateTime;
 public class LedgerEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -27,31 +27,32 @@ public class LedgerEntry {
     private LedgerEntryType type;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @Column(nullable = false)
-    private BigDecimal balanceBefore;
+    private Money balanceBefore;
 
     @Column(nullable = false)
-    private BigDecimal balanceAfter;
+    private Money balanceAfter;
 
     private String transactionId; // Pode ser o endToEndId de uma transação Pix
     private String description;
     private LocalDateTime createdAt;
+    private Integer stripeIndex; // Sub-saldo afetado em carteiras particionadas (null = saldo principal)
 
-    public static LedgerEntry openingBalance(Wallet wallet, BigDecimal amount) {
+    public static LedgerEntry openingBalance(Wallet wallet, Money amount) {
         LedgerEntry e = new LedgerEntry();
         e.setWallet(wallet);
         e.setType(LedgerEntryType.DEPOSIT);
         e.setAmount(amount);
-        e.setBalanceBefore(BigDecimal.ZERO);
+        e.setBalanceBefore(Money.ZERO);
         e.setBalanceAfter(amount);
         e.setDescription("Opening balance");
         e.setCreatedAt(LocalDateTime.now());
         return e;
     }
 
-    public static LedgerEntry deposit(Wallet wallet, BigDecimal amount, BigDecimal balanceBefore, BigDecimal balanceAfter, String description) {
+    public static LedgerEntry deposit(Wallet wallet, Money amount, Money balanceBefore, Money balanceAfter, String description) {
         LedgerEntry e = new LedgerEntry();
         e.setWallet(wallet);
         e.setType(LedgerEntryType.DEPOSIT);
@@ -63,7 +64,7 @@ public class LedgerEntry {
         return e;
     }
 
-    public static LedgerEntry withdraw(Wallet wallet, BigDecimal amount, BigDecimal balanceBefore, BigDecimal balanceAfter, String description) {
+    public static LedgerEntry withdraw(Wallet wallet, Money amount, Money balanceBefore, Money balanceAfter, String description) {
         LedgerEntry e = new LedgerEntry();
         e.setWallet(wallet);
         e.setType(LedgerEntryType.WITHDRAWAL);
@@ -74,4 +75,17 @@ public class LedgerEntry {
         e.setCreatedAt(LocalDateTime.now());
         return e;
     }
+
+    public static LedgerEntry stripeRebalance(Wallet wallet, Integer stripeIndex, Money delta, Money balanceBefore, Money balanceAfter) {
+        LedgerEntry e = new LedgerEntry();
+        e.setWallet(wallet);
+        e.setType(LedgerEntryType.STRIPE_REBALANCE);
+        e.setAmount(delta); // soma zero entre as entradas do mesmo rebalanceamento
+        e.setBalanceBefore(balanceBefore);
+        e.setBalanceAfter(balanceAfter);
+        e.setStripeIndex(stripeIndex);
+        e.setDescription("Rebalanceamento de sub-saldos");
+        e.setCreatedAt(LocalDateTime.now());
+        return e;
+    }
 }
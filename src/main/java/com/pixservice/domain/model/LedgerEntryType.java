@@ -5,5 +5,6 @@ public enum LedgerEntryType {
     WITHDRAWAL,
     PIX_TRANSFER_IN,
     PIX_TRANSFER_OUT,
-    PIX_TRANSFER_REVERSAL
+    PIX_TRANSFER_REVERSAL,
+    STRIPE_REBALANCE
 }
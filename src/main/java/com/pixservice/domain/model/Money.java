@@ -0,0 +1,110 @@
+package com.pixservice.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valor monetário imutável em centavos, na mesma escala das colunas NUMERIC(19,2).
+ *
+ * A aritmética e as comparações do caminho quente (débito, crédito, lançamentos de ledger, validações)
+ * são feitas em {@code long}, sem alocar BigDecimal intermediários. A conversão de/para BigDecimal fica
+ * nas bordas: DTOs (JSON), JDBC e o {@code MoneyConverter} do JPA.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Converte um valor decimal; valores com mais de duas casas decimais são recusados em vez de arredondados.
+     */
+    public static Money of(BigDecimal value) {
+        try {
+            return ofCents(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Valor monetário inválido: " + value.toPlainString() + ".");
+        }
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public Money times(long factor) {
+        return ofCents(Math.multiplyExact(cents, factor));
+    }
+
+    /**
+     * Divisão com truncamento em direção a zero (equivalente a {@code RoundingMode.DOWN} na escala 2).
+     */
+    public Money dividedBy(long divisor) {
+        return ofCents(cents / divisor);
+    }
+
+    public Money min(Money other) {
+        return cents <= other.cents ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && cents == other.cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class PixEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pix_event_seq")
+    @SequenceGenerator(name = "pix_event_seq", sequenceName = "pix_event_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "event_id", nullable = false)
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class PixKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pix_key_seq")
+    @SequenceGenerator(name = "pix_key_seq", sequenceName = "pix_key_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -32,7 +31,7 @@ public class PixTransaction {
     private PixKeyType toPixKeyType;
 
     @Column(nullable = false)
-    private BigDecimal amount;
+    private Money amount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -48,7 +47,7 @@ public class PixTransaction {
     @Version
     private Long version; // Para controle de concorrência otimista
 
-    public PixTransaction(String endToEndId, Wallet fromWallet, String toPixKey, PixKeyType toPixKeyType, BigDecimal amount, String idempotencyKey) {
+    public PixTransaction(String endToEndId, Wallet fromWallet, String toPixKey, PixKeyType toPixKeyType, Money amount, String idempotencyKey) {
         this.endToEndId = endToEndId;
         this.fromWallet = fromWallet;
         this.toPixKey = toPixKey;
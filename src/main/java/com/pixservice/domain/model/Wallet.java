@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static java.util.Objects.isNull;
@@ -17,18 +16,22 @@ import static java.util.Objects.isNull;
 public class Wallet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_seq")
+    @SequenceGenerator(name = "wallet_seq", sequenceName = "wallet_id_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true, nullable = false) // garantir unicidade também em H2
     private String userId;
-    private BigDecimal balance;
+    private Money balance;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    @Column(nullable = false)
+    private int stripeCount; // > 0 quando o saldo está particionado em wallet_stripe
+
     @Version
     private Long version; // Para controle de concorrência otimista
 
-    public Wallet(String userId, BigDecimal initialBalance) {
+    public Wallet(String userId, Money initialBalance) {
         this.userId = userId;
         this.balance = initialBalance;
         this.createdAt = LocalDateTime.now();
@@ -36,22 +39,22 @@ public class Wallet {
         this.version = 0L;
     }
 
-    public void deposit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void deposit(Money amount) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("O valor do depósito deve ser positivo.");
         }
-        this.balance = this.balance.add(amount);
+        this.balance = this.balance.plus(amount);
         this.updatedAt = LocalDateTime.now();
     }
 
-    public void withdraw(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void withdraw(Money amount) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("O valor do saque deve ser positivo.");
         }
-        if (this.balance.compareTo(amount) < 0) {
+        if (this.balance.isLessThan(amount)) {
             throw new IllegalStateException("Saldo insuficiente.");
         }
-        this.balance = this.balance.subtract(amount);
+        this.balance = this.balance.minus(amount);
         this.updatedAt = LocalDateTime.now();
     }
 
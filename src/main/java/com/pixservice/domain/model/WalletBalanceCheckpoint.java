@@ -0,0 +1,38 @@
+package com.pixservice.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma carteira fechado em {@code checkpointAt}: soma das entradas de ledger criadas antes desse instante.
+ * Gravado pelo fechamento diário; nunca é alterado depois.
+ */
+@Entity
+@Table(name = "wallet_balance_checkpoint", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"wallet_id", "checkpoint_at"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_balance_checkpoint_seq")
+    @SequenceGenerator(name = "wallet_balance_checkpoint_seq", sequenceName = "wallet_balance_checkpoint_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false)
+    private LocalDateTime checkpointAt;
+
+    @Column(nullable = false)
+    private Money balance;
+
+    private LocalDateTime createdAt;
+}
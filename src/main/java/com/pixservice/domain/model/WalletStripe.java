@@ -0,0 +1,76 @@
+package com.pixservice.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Sub-saldo de uma carteira particionada. Cada stripe tem seu próprio lock de linha,
+ * de modo que operações concorrentes na mesma carteira disputam N linhas em vez de uma.
+ */
+@Entity
+@Table(name = "wallet_stripe", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"wallet_id", "stripe_index"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_stripe_seq")
+    @SequenceGenerator(name = "wallet_stripe_seq", sequenceName = "wallet_stripe_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false)
+    private int stripeIndex;
+
+    @Column(nullable = false)
+    private Money balance;
+
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    public WalletStripe(Long walletId, int stripeIndex, Money balance) {
+        this.walletId = walletId;
+        this.stripeIndex = stripeIndex;
+        this.balance = balance;
+        this.updatedAt = LocalDateTime.now();
+        this.version = 0L;
+    }
+
+    public void deposit(Money amount) {
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("O valor do depósito deve ser positivo.");
+        }
+        this.balance = this.balance.plus(amount);
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void withdraw(Money amount) {
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("O valor do saque deve ser positivo.");
+        }
+        if (this.balance.isLessThan(amount)) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+        this.balance = this.balance.minus(amount);
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Ajuste interno de rebalanceamento (pode ser positivo ou negativo).
+     */
+    public void adjust(Money delta) {
+        this.balance = this.balance.plus(delta);
+        this.updatedAt = LocalDateTime.now();
+    }
+}
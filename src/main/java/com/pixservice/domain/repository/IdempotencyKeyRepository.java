@@ -2,11 +2,39 @@ package com.pixservice.domain.repository;
 
 import com.pixservice.domain.model.IdempotencyKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
     Optional<IdempotencyKey> findByKeyValue(String keyValue);
+    List<IdempotencyKey> findByKeyValueIn(Collection<String> keyValues);
+
+    /**
+     * Remove até {@code limit} chaves criadas antes de {@code cutoff} em uma transação curta, pulando
+     * linhas bloqueadas por requisições em andamento.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_key WHERE id IN (SELECT id FROM idempotency_key " +
+            "WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Query("SELECT MIN(k.createdAt) FROM IdempotencyKey k")
+    LocalDateTime findOldestCreatedAt();
+
+    /**
+     * Estimativa do número de linhas pelas estatísticas do PostgreSQL ({@code count(*)} percorreria a tabela).
+     */
+    @Query(value = "SELECT CAST(GREATEST(reltuples, 0) AS BIGINT) FROM pg_class WHERE relname = 'idempotency_key'",
+            nativeQuery = true)
+    Long estimateRowCount();
 }
@@ -3,8 +3,11 @@ package com.pixservice.domain.repository;
 import com.pixservice.domain.model.LedgerEntry;
 import com.pixservice.domain.model.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -12,4 +15,17 @@ import java.util.List;
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
     List<LedgerEntry> findByWalletAndCreatedAtBeforeOrderByCreatedAtDesc(Wallet wallet, LocalDateTime createdAt);
     List<LedgerEntry> findByWalletOrderByCreatedAtDesc(Wallet wallet);
+
+    /**
+     * Soma das entradas em [from, until) calculada no banco, sem carregar entidades.
+     * Consulta nativa: a soma volta como NUMERIC, sem passar pelo conversor de {@code Money}.
+     */
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM ledger_entry " +
+            "WHERE wallet_id = :walletId AND created_at >= :from AND created_at < :until", nativeQuery = true)
+    BigDecimal sumAmountBetween(@Param("walletId") Long walletId, @Param("from") LocalDateTime from,
+                                @Param("until") LocalDateTime until);
+
+    @Query(value = "SELECT COALESCE(SUM(amount), 0) FROM ledger_entry WHERE wallet_id = :walletId AND created_at < :until",
+            nativeQuery = true)
+    BigDecimal sumAmountBefore(@Param("walletId") Long walletId, @Param("until") LocalDateTime until);
 }
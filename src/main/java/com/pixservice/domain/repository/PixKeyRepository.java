@@ -1,13 +1,22 @@
 package com.pixservice.domain.repository;
 
 import com.pixservice.domain.model.PixKey;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PixKeyRepository extends JpaRepository<PixKey, Long> {
+    @EntityGraph(attributePaths = "wallet")
     Optional<PixKey> findByKeyValue(String keyValue);
     boolean existsByKeyValue(String keyValue);
+
+    @Query("SELECT k FROM PixKey k JOIN FETCH k.wallet WHERE k.keyValue IN :keyValues")
+    List<PixKey> findAllWithWalletByKeyValueIn(@Param("keyValues") Collection<String> keyValues);
 }
@@ -1,14 +1,17 @@
 package com.pixservice.domain.repository;
 
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.PixTransaction;
 import com.pixservice.domain.model.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +19,14 @@ import java.util.Optional;
 public interface PixTransactionRepository extends JpaRepository<PixTransaction, String> {
     Optional<PixTransaction> findByIdempotencyKey(String idempotencyKey);
 
+    /**
+     * Bloqueia várias transações de uma vez, sempre em ordem de endToEndId, para que lotes de webhook
+     * concorrentes com transações em comum não entrem em deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pt FROM PixTransaction pt WHERE pt.endToEndId IN :ids ORDER BY pt.endToEndId")
+    List<PixTransaction> findAllByEndToEndIdInForUpdate(@Param("ids") Collection<String> ids);
+
     /**
      * Busca transferência recente idêntica para detectar duplicatas.
      * Retorna a mais recente se houver alguma no período especificado.
@@ -29,14 +40,14 @@ public interface PixTransactionRepository extends JpaRepository<PixTransaction,
     List<PixTransaction> findRecentDuplicateTransferList(
         @Param("fromWallet") Wallet fromWallet,
         @Param("toPixKey") String toPixKey,
-        @Param("amount") BigDecimal amount,
+        @Param("amount") Money amount,
         @Param("after") LocalDateTime after
     );
 
     default Optional<PixTransaction> findRecentDuplicateTransfer(
         Wallet fromWallet,
         String toPixKey,
-        BigDecimal amount,
+        Money amount,
         LocalDateTime after
     ) {
         List<PixTransaction> results = findRecentDuplicateTransferList(fromWallet, toPixKey, amount, after);
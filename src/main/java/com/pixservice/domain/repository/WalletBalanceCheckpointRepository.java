@@ -0,0 +1,37 @@
+package com.pixservice.domain.repository;
+
+import com.pixservice.domain.model.WalletBalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface WalletBalanceCheckpointRepository extends JpaRepository<WalletBalanceCheckpoint, Long> {
+
+    /**
+     * Checkpoint mais recente até {@code at}: uma descida no índice único (wallet_id, checkpoint_at).
+     */
+    Optional<WalletBalanceCheckpoint> findFirstByWalletIdAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(
+            Long walletId, LocalDateTime at);
+
+    Optional<WalletBalanceCheckpoint> findFirstByWalletIdOrderByCheckpointAtDesc(Long walletId);
+
+    /**
+     * Grava um checkpoint ao fim de cada dia com movimento em [from, until), acumulando a partir de {@code base}
+     * (saldo do checkpoint em {@code from}). Dias sem movimento não precisam de checkpoint: o anterior vale para eles.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wallet_balance_checkpoint (wallet_id, checkpoint_at, balance, created_at) " +
+            "SELECT :walletId, d.day + INTERVAL '1 day', :base + SUM(d.total) OVER (ORDER BY d.day), localtimestamp " +
+            "FROM (SELECT date_trunc('day', e.created_at) AS day, SUM(e.amount) AS total FROM ledger_entry e " +
+            "WHERE e.wallet_id = :walletId AND e.created_at >= :from AND e.created_at < :until GROUP BY 1) d " +
+            "ON CONFLICT (wallet_id, checkpoint_at) DO NOTHING", nativeQuery = true)
+    int insertDailyCheckpoints(@Param("walletId") Long walletId, @Param("base") BigDecimal base,
+                               @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+}
@@ -2,12 +2,15 @@ package com.pixservice.domain.repository;
 
 import com.pixservice.domain.model.Wallet;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,4 +24,28 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT w FROM Wallet w WHERE w.id = :id")
     Optional<Wallet> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Bloqueia várias carteiras de uma vez, sempre em ordem crescente de id, para que lotes
+     * concorrentes com carteiras em comum não entrem em deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.id IN :ids ORDER BY w.id")
+    List<Wallet> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Como {@link #findByIdForUpdate}, mas sem esperar: se a linha já estiver bloqueada por outra transação,
+     * falha na hora com {@code PessimisticLockingFailureException}.
+     */
+    @Query(value = "SELECT * FROM wallet WHERE id = :id FOR UPDATE NOWAIT", nativeQuery = true)
+    Optional<Wallet> findByIdForUpdateNoWait(@Param("id") Long id);
+
+    @Query("SELECT w.id FROM Wallet w WHERE w.stripeCount > 0")
+    List<Long> findStripedWalletIds();
+
+    /**
+     * Ids de carteira em ordem crescente a partir de {@code afterId}, para varreduras paginadas por chave.
+     */
+    @Query("SELECT w.id FROM Wallet w WHERE w.id > :afterId ORDER BY w.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
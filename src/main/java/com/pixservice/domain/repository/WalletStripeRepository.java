@@ -0,0 +1,52 @@
+package com.pixservice.domain.repository;
+
+import com.pixservice.domain.model.WalletStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletStripeRepository extends JpaRepository<WalletStripe, Long> {
+
+    List<WalletStripe> findByWalletIdOrderByStripeIndex(Long walletId);
+
+    @Query(value = "SELECT COALESCE(SUM(balance), 0) FROM wallet_stripe WHERE wallet_id = :walletId", nativeQuery = true)
+    BigDecimal sumBalanceByWalletId(@Param("walletId") Long walletId);
+
+    /**
+     * Bloqueia um stripe qualquer com saldo suficiente, pulando os que já estão bloqueados
+     * por outras transações. Vazio indica saldo fragmentado ou todos os stripes ocupados.
+     */
+    @Query(value = "SELECT * FROM wallet_stripe WHERE wallet_id = :walletId AND balance >= :amount " +
+            "ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<WalletStripe> lockAnyWithFunds(@Param("walletId") Long walletId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Bloqueia um stripe qualquer livre, pulando os que já estão bloqueados.
+     */
+    @Query(value = "SELECT * FROM wallet_stripe WHERE wallet_id = :walletId " +
+            "ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<WalletStripe> lockAnyFree(@Param("walletId") Long walletId);
+
+    /**
+     * Bloqueia um stripe aleatório, esperando pelo lock se necessário.
+     */
+    @Query(value = "SELECT * FROM wallet_stripe WHERE wallet_id = :walletId " +
+            "ORDER BY random() LIMIT 1 FOR UPDATE", nativeQuery = true)
+    Optional<WalletStripe> lockAny(@Param("walletId") Long walletId);
+
+    /**
+     * Bloqueia todos os stripes da carteira sempre na mesma ordem (stripe_index) para evitar deadlock
+     * entre rebalanceamentos e consolidações concorrentes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletStripe s WHERE s.walletId = :walletId ORDER BY s.stripeIndex")
+    List<WalletStripe> findAllByWalletIdForUpdate(@Param("walletId") Long walletId);
+}
@@ -0,0 +1,115 @@
+package com.pixservice.infrastructure.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concorrência adaptativo por gradiente de latência (no estilo do Gradient2 do Netflix concurrency-limits).
+ *
+ * Mantém duas médias móveis do tempo de resposta: a curta (últimas amostras) e a longa ({@code longWindow} amostras),
+ * que representa a latência sem fila. Quando a curta sobe acima da longa × {@code tolerance} — o banco ficou lento e
+ * as requisições começaram a esperar por conexão —, o gradiente {@code longa × tolerance / curta} fica abaixo de 1 e
+ * o limite cai proporcionalmente; com latência estável ele cresce {@code sqrt(limite)} por amostra. O limite só
+ * cresce se a carga realmente o usa (em voo acima da metade), para não inflar em períodos ociosos.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long samples;
+
+    private final Counter rejectedCounter;
+
+    public AdaptiveConcurrencyLimiter(String name, MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing, int longWindow) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("pix.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Limite de concorrência adaptativo atual")
+                .tag(METRIC_TAG_SERVICE_KEY, name)
+                .register(meterRegistry);
+        Gauge.builder("pix.admission.inflight", inFlight, AtomicInteger::get)
+                .description("Requisições em processamento sob o limite de concorrência")
+                .tag(METRIC_TAG_SERVICE_KEY, name)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("pix.admission.rejected")
+                .description("Requisições recusadas com 429 pelo limite de concorrência")
+                .tag(METRIC_TAG_SERVICE_KEY, name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserva uma vaga; false se o limite atual já está ocupado.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejectedCounter.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga e alimenta o limite com o tempo de resposta observado.
+     */
+    public void release(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        update(rttNanos, inFlightAtCompletion);
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtCompletion) {
+        samples++;
+        if (samples == 1) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) / Math.min(samples, SHORT_WINDOW);
+        longRttNanos += (rttNanos - longRttNanos) / Math.min(samples, longWindow);
+        // Depois de uma degradação longa, a média longa decai para não prender o limite em um patamar antigo
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double current = limit;
+        if (inFlightAtCompletion < current / 2 && shortRttNanos <= longRttNanos * tolerance) {
+            return; // carga abaixo do limite: nada a ajustar
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
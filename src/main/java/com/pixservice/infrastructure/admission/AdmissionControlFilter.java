@@ -0,0 +1,103 @@
+package com.pixservice.infrastructure.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Controle de admissão ({@code pix.admission.enabled=true}) para {@code /pix/transfers} e {@code /pix/webhook}.
+ *
+ * Cada endpoint tem seu {@link AdaptiveConcurrencyLimiter}, já que transferências e webhooks têm latências próprias;
+ * os endpoints de lote ({@code /batch}, até milhares de itens por requisição) têm limitadores separados para que sua
+ * latência não derrube o limite das requisições unitárias. Acima do limite a requisição é recusada na hora com 429 e
+ * {@code Retry-After}, antes de ocupar thread de controller ou esperar conexão do pool: com o banco lento o serviço
+ * degrada recusando o excedente em vez de acumular timeouts que viram 500. A resposta sai pelo
+ * {@code GlobalExceptionHandler}, no mesmo formato das demais respostas de erro.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.admission.enabled", havingValue = "true")
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String TRANSFER_PATH = "/pix/transfers";
+    private static final String TRANSFER_BATCH_PATH = "/pix/transfers/batch";
+    private static final String WEBHOOK_PATH = "/pix/webhook";
+    private static final String WEBHOOK_BATCH_PATH = "/pix/webhook/batch";
+    private static final String REJECTED_MESSAGE = "Serviço sobrecarregado, tente novamente em instantes.";
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final AdaptiveConcurrencyLimiter transferLimiter;
+    private final AdaptiveConcurrencyLimiter transferBatchLimiter;
+    private final AdaptiveConcurrencyLimiter webhookLimiter;
+    private final AdaptiveConcurrencyLimiter webhookBatchLimiter;
+    private final long retryAfterSeconds;
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+                                  @Value("${pix.admission.initial-limit:50}") int initialLimit,
+                                  @Value("${pix.admission.min-limit:8}") int minLimit,
+                                  @Value("${pix.admission.max-limit:500}") int maxLimit,
+                                  @Value("${pix.admission.tolerance:1.5}") double tolerance,
+                                  @Value("${pix.admission.smoothing:0.2}") double smoothing,
+                                  @Value("${pix.admission.long-window:600}") int longWindow,
+                                  @Value("${pix.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.transferLimiter = new AdaptiveConcurrencyLimiter("pix-transfer", meterRegistry,
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+        this.transferBatchLimiter = new AdaptiveConcurrencyLimiter("pix-transfer-batch", meterRegistry,
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+        this.webhookLimiter = new AdaptiveConcurrencyLimiter("webhook", meterRegistry,
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+        this.webhookBatchLimiter = new AdaptiveConcurrencyLimiter("webhook-batch", meterRegistry,
+                initialLimit, minLimit, maxLimit, tolerance, smoothing, longWindow);
+        this.retryAfterSeconds = retryAfterSeconds;
+        log.info("Controle de admissão inicializado - initialLimit={}, minLimit={}, maxLimit={}, tolerance={}",
+                initialLimit, minLimit, maxLimit, tolerance);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return limiterFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = limiterFor(request);
+        if (!limiter.tryAcquire()) {
+            log.warn("Requisição recusada pelo controle de admissão - uri={}, limite={}, emVoo={}",
+                    request.getRequestURI(), (int) limiter.getLimit(), limiter.getInFlight());
+            handlerExceptionResolver.resolveException(request, response, null,
+                    new AdmissionRejectedException(REJECTED_MESSAGE, retryAfterSeconds));
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return switch (path) {
+            case TRANSFER_PATH -> transferLimiter;
+            case TRANSFER_BATCH_PATH -> transferBatchLimiter;
+            case WEBHOOK_PATH -> webhookLimiter;
+            case WEBHOOK_BATCH_PATH -> webhookBatchLimiter;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.pixservice.infrastructure.admission;
+
+/**
+ * Requisição recusada pelo controle de admissão por excesso de concorrência.
+ *
+ * Lançada pelo {@link AdmissionControlFilter} e convertida em 429 com {@code Retry-After} pelo
+ * {@code GlobalExceptionHandler}, com o mesmo formato de corpo das demais respostas de erro.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
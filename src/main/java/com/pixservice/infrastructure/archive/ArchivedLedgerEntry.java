@@ -0,0 +1,37 @@
+package com.pixservice.infrastructure.archive;
+
+import com.pixservice.domain.model.Money;
+import com.pixservice.infrastructure.persistence.LedgerStatementRow;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada de ledger guardada em um bloco de segmento: todas as colunas de {@code ledger_entry} exceto a carteira,
+ * que fica no índice do bloco.
+ *
+ * @param stripeIndex sub-saldo afetado (null = saldo principal)
+ */
+public record ArchivedLedgerEntry(long id, String type, Money amount, Money balanceBefore, Money balanceAfter,
+                                  String transactionId, String description, LocalDateTime createdAt,
+                                  Integer stripeIndex) {
+
+    /**
+     * Posição estritamente anterior ao cursor (createdAt, id) da ordenação do extrato.
+     */
+    public boolean isBefore(LocalDateTime cursorCreatedAt, long cursorId) {
+        int byTime = createdAt.compareTo(cursorCreatedAt);
+        return byTime < 0 || (byTime == 0 && id < cursorId);
+    }
+
+    /**
+     * Lançamento PENDING de crédito: gravado no destino antes da confirmação, sem alterar o saldo.
+     */
+    public boolean isPendingCredit() {
+        return "DEPOSIT".equals(type) && transactionId != null;
+    }
+
+    public LedgerStatementRow toStatementRow() {
+        return new LedgerStatementRow(id, type, amount.toBigDecimal(), balanceBefore.toBigDecimal(),
+                balanceAfter.toBigDecimal(), transactionId, description, createdAt);
+    }
+}
@@ -0,0 +1,16 @@
+package com.pixservice.infrastructure.archive;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha de {@code ledger_archive_block}: onde está o bloco comprimido de uma carteira e o que ele cobre.
+ *
+ * @param checksum         CRC32 dos bytes comprimidos, conferido a cada leitura
+ * @param pendingAmountSum parte de {@code amountSum} vinda de lançamentos PENDING de crédito
+ * @param archivedUntil    toda entrada da carteira com created_at anterior a este instante está arquivada
+ */
+public record LedgerArchiveBlock(Long id, Long walletId, String segment, long offset, int length, long checksum,
+                                 int entryCount, BigDecimal amountSum, BigDecimal pendingAmountSum,
+                                 LocalDateTime firstCreatedAt, LocalDateTime lastCreatedAt, LocalDateTime archivedUntil) {
+}
@@ -0,0 +1,121 @@
+package com.pixservice.infrastructure.archive;
+
+import com.pixservice.domain.model.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Acesso via JDBC ao índice {@code ledger_archive_block} (V11) e às entradas de {@code ledger_entry}
+ * que o arquivamento move para os segmentos.
+ */
+@Repository
+public class LedgerArchiveRepository {
+
+    private static final RowMapper<LedgerArchiveBlock> BLOCK_MAPPER = (rs, rowNum) -> new LedgerArchiveBlock(
+            rs.getLong("id"),
+            rs.getLong("wallet_id"),
+            rs.getString("segment"),
+            rs.getLong("block_offset"),
+            rs.getInt("block_length"),
+            rs.getLong("checksum"),
+            rs.getInt("entry_count"),
+            rs.getBigDecimal("amount_sum"),
+            rs.getBigDecimal("pending_amount_sum"),
+            rs.getTimestamp("first_created_at").toLocalDateTime(),
+            rs.getTimestamp("last_created_at").toLocalDateTime(),
+            rs.getTimestamp("archived_until").toLocalDateTime());
+
+    private static final RowMapper<ArchivedLedgerEntry> ENTRY_MAPPER = (rs, rowNum) -> {
+        int stripeIndex = rs.getInt("stripe_index");
+        Integer stripe = rs.wasNull() ? null : stripeIndex;
+        return new ArchivedLedgerEntry(
+                rs.getLong("id"),
+                rs.getString("type"),
+                Money.of(rs.getBigDecimal("amount")),
+                Money.of(rs.getBigDecimal("balance_before")),
+                Money.of(rs.getBigDecimal("balance_after")),
+                rs.getString("transaction_id"),
+                rs.getString("description"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                stripe);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Carteiras com entradas anteriores ao corte, em ordem crescente de id a partir de {@code afterId}.
+     * A faixa de created_at restringe a varredura às partições antigas.
+     */
+    public List<Long> findWalletIdsWithEntriesBefore(LocalDateTime cutoff, long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT wallet_id FROM ledger_entry " +
+                        "WHERE created_at < ? AND wallet_id > ? ORDER BY wallet_id LIMIT ?",
+                Long.class, Timestamp.valueOf(cutoff), afterId, limit);
+    }
+
+    /**
+     * Até {@code limit} entradas mais antigas da carteira anteriores ao corte, em ordem (created_at, id).
+     */
+    public List<ArchivedLedgerEntry> findEntriesBefore(long walletId, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query("SELECT id, type, amount, balance_before, balance_after, transaction_id, description, " +
+                        "created_at, stripe_index FROM ledger_entry WHERE wallet_id = ? AND created_at < ? " +
+                        "ORDER BY created_at, id LIMIT ?",
+                ENTRY_MAPPER, walletId, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Remove as entradas lidas por {@link #findEntriesBefore}: anteriores ao corte e até (lastCreatedAt, lastId).
+     */
+    public int deleteEntriesUpTo(long walletId, LocalDateTime cutoff, LocalDateTime lastCreatedAt, long lastId) {
+        return jdbcTemplate.update("DELETE FROM ledger_entry WHERE wallet_id = ? AND created_at < ? " +
+                        "AND (created_at, id) <= (?, ?)",
+                walletId, Timestamp.valueOf(cutoff), Timestamp.valueOf(lastCreatedAt), lastId);
+    }
+
+    public void insertBlock(LedgerArchiveBlock block) {
+        jdbcTemplate.update("INSERT INTO ledger_archive_block (wallet_id, segment, block_offset, block_length, checksum, " +
+                        "entry_count, amount_sum, pending_amount_sum, first_created_at, last_created_at, archived_until) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                block.walletId(), block.segment(), block.offset(), block.length(), block.checksum(),
+                block.entryCount(), block.amountSum(), block.pendingAmountSum(), Timestamp.valueOf(block.firstCreatedAt()),
+                Timestamp.valueOf(block.lastCreatedAt()), Timestamp.valueOf(block.archivedUntil()));
+    }
+
+    /**
+     * Blocos da carteira, do mais recente ao mais antigo.
+     */
+    public List<LedgerArchiveBlock> findBlocks(long walletId) {
+        return jdbcTemplate.query("SELECT * FROM ledger_archive_block WHERE wallet_id = ? " +
+                "ORDER BY last_created_at DESC, id DESC", BLOCK_MAPPER, walletId);
+    }
+
+    /**
+     * Limite e soma do arquivo da carteira, ou vazio se ela não tiver entradas arquivadas.
+     */
+    public Optional<Summary> summary(long walletId) {
+        return Optional.ofNullable(jdbcTemplate.query("SELECT MAX(archived_until), SUM(amount_sum) " +
+                "FROM ledger_archive_block WHERE wallet_id = ?", (ResultSetExtractor<Summary>) rs -> {
+            rs.next();
+            Timestamp archivedUntil = rs.getTimestamp(1);
+            return archivedUntil == null ? null : new Summary(archivedUntil.toLocalDateTime(), rs.getBigDecimal(2));
+        }, walletId));
+    }
+
+    /**
+     * @param archivedUntil toda entrada com created_at anterior a este instante está no arquivo
+     * @param amountSum     soma das entradas arquivadas
+     */
+    public record Summary(LocalDateTime archivedUntil, BigDecimal amountSum) {
+    }
+}
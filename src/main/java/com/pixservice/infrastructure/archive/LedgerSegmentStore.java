@@ -0,0 +1,209 @@
+package com.pixservice.infrastructure.archive;
+
+import com.pixservice.domain.model.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Arquivos de segmento do arquivo do ledger em {@code pix.ledger.archive.dir}.
+ *
+ * Cada execução do arquivamento escreve em segmentos novos ({@code ledger-<timestamp>-<n>.seg}), só por append,
+ * com um bloco comprimido (deflate) por lote de entradas de uma carteira. O bloco é forçado para o disco antes do
+ * índice ser gravado no banco; se a transação falhar, os bytes ficam órfãos no segmento e nunca são lidos.
+ * A leitura mapeia em memória só a região do bloco e confere o CRC32 antes de descomprimir.
+ */
+@Component
+public class LedgerSegmentStore {
+
+    private static final DateTimeFormatter SEGMENT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+    private static final int NO_STRIPE = -1;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+
+    public LedgerSegmentStore(@Value("${pix.ledger.archive.dir:./ledger-archive}") String directory,
+                              @Value("${pix.ledger.archive.max-segment-mb:512}") long maxSegmentMb) {
+        this.directory = Path.of(directory);
+        this.maxSegmentBytes = maxSegmentMb * 1024 * 1024;
+    }
+
+    public SegmentWriter openWriter() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SegmentWriter("ledger-" + LocalDateTime.now().format(SEGMENT_TIMESTAMP));
+    }
+
+    /**
+     * Entradas do bloco, na ordem em que foram arquivadas (created_at, id).
+     */
+    public List<ArchivedLedgerEntry> read(LedgerArchiveBlock block) {
+        try (FileChannel channel = FileChannel.open(directory.resolve(block.segment()), StandardOpenOption.READ)) {
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, block.offset(), block.length());
+            CRC32 crc = new CRC32();
+            crc.update(region.duplicate());
+            if (crc.getValue() != block.checksum()) {
+                throw new IllegalStateException("Bloco do arquivo do ledger corrompido - segmento=" + block.segment()
+                        + ", offset=" + block.offset());
+            }
+            return decode(inflate(region), block.entryCount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escritor de uma execução do arquivamento; troca de segmento ao passar de {@code pix.ledger.archive.max-segment-mb}.
+     */
+    public final class SegmentWriter implements Closeable {
+
+        private final String prefix;
+        private int sequence;
+        private String segment;
+        private FileChannel channel;
+
+        private SegmentWriter(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Acrescenta um bloco com as entradas e o força para o disco.
+         */
+        public BlockRef append(List<ArchivedLedgerEntry> entries) {
+            try {
+                byte[] compressed = encode(entries);
+                if (channel == null || channel.size() + compressed.length > maxSegmentBytes) {
+                    roll();
+                }
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, offset + buffer.position());
+                }
+                channel.force(false);
+                CRC32 crc = new CRC32();
+                crc.update(compressed);
+                return new BlockRef(segment, offset, compressed.length, crc.getValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void roll() throws IOException {
+            close();
+            segment = "%s-%04d.seg".formatted(prefix, ++sequence);
+            channel = FileChannel.open(directory.resolve(segment),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    public record BlockRef(String segment, long offset, int length, long checksum) {
+    }
+
+    private static byte[] encode(List<ArchivedLedgerEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            for (ArchivedLedgerEntry entry : entries) {
+                out.writeLong(entry.id());
+                out.writeUTF(entry.type());
+                out.writeLong(entry.amount().cents());
+                out.writeLong(entry.balanceBefore().cents());
+                out.writeLong(entry.balanceAfter().cents());
+                writeNullable(out, entry.transactionId());
+                writeNullable(out, entry.description());
+                out.writeLong(entry.createdAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(entry.createdAt().getNano());
+                out.writeInt(entry.stripeIndex() == null ? NO_STRIPE : entry.stripeIndex());
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(ByteBuffer compressed) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.remaining() * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Bloco do arquivo do ledger truncado");
+                }
+                out.write(chunk, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco do arquivo do ledger inválido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static List<ArchivedLedgerEntry> decode(byte[] payload, int entryCount) throws IOException {
+        List<ArchivedLedgerEntry> entries = new ArrayList<>(entryCount);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        for (int i = 0; i < entryCount; i++) {
+            long id = in.readLong();
+            String type = in.readUTF();
+            Money amount = Money.ofCents(in.readLong());
+            Money balanceBefore = Money.ofCents(in.readLong());
+            Money balanceAfter = Money.ofCents(in.readLong());
+            String transactionId = readNullable(in);
+            String description = readNullable(in);
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            int stripeIndex = in.readInt();
+            entries.add(new ArchivedLedgerEntry(id, type, amount, balanceBefore, balanceAfter, transactionId,
+                    description, createdAt, stripeIndex == NO_STRIPE ? null : stripeIndex));
+        }
+        return entries;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pixservice.infrastructure.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de leitura ({@code pix.datasource.replica.enabled=true}): dois pools Hikari e um {@code DataSource}
+ * roteador no lugar do auto-configurado.
+ *
+ * O pool {@code primary} usa {@code spring.datasource.*}/{@code spring.datasource.hikari.*} como antes; o pool
+ * {@code replica} usa {@code pix.datasource.replica.url/username/password} e {@code pix.datasource.replica.hikari.*}.
+ * Cada pool tem nome próprio, então as métricas {@code hikaricp.connections.*} saem separadas pela tag {@code pool}.
+ * JPA, Flyway e JdbcTemplate recebem o {@link LazyConnectionDataSourceProxy} sobre o
+ * {@link ReadWriteRoutingDataSource}: a conexão física só é escolhida no primeiro comando da transação.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "pix.datasource.replica.enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("pix.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${pix.datasource.replica.url}") String url,
+                                              @Value("${pix.datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${pix.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                                 MeterRegistry meterRegistry,
+                                                                 @Value("${pix.datasource.replica.max-lag-ms:1000}") long maxLagMs) {
+        log.info("Roteamento de leituras para réplica inicializado - maxLagMs={}", maxLagMs);
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, meterRegistry, maxLagMs);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
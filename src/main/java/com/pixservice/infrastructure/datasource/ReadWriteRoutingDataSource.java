@@ -0,0 +1,134 @@
+package com.pixservice.infrastructure.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Roteia transações {@code readOnly} para o pool da réplica e todo o resto para o primário.
+ *
+ * A decisão é tomada quando a conexão é de fato obtida (o {@code DataSource} exposto é um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}), ou seja, já com a transação aberta e o
+ * flag {@code readOnly} definido. A leitura volta ao primário quando a réplica não responde à verificação de atraso,
+ * quando o atraso medido passa de {@code maxLagMs} ou quando a transação marcou {@link ReplicaRoutingContext}
+ * (leitura das próprias escritas). Métrica {@code pix.datasource.route} com {@code target} e {@code reason}.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    // Atraso de replay; 0 quando a réplica já aplicou tudo que recebeu (primário ocioso não conta como atraso)
+    private static final String LAG_SQL = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint
+                   END
+            """;
+
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "datasource";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+
+    // Atraso da última verificação; null = réplica indisponível ou ainda não verificada
+    private volatile Long replicaLagMs;
+
+    private final Counter replicaCounter;
+    private final Counter primaryReadWriteCounter;
+    private final Counter primaryReadYourWritesCounter;
+    private final Counter primaryLagCounter;
+    private final Counter primaryUnavailableCounter;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry, long maxLagMs) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+
+        this.replicaCounter = routeCounter(meterRegistry, REPLICA, "read-only");
+        this.primaryReadWriteCounter = routeCounter(meterRegistry, PRIMARY, "read-write");
+        this.primaryReadYourWritesCounter = routeCounter(meterRegistry, PRIMARY, "read-your-writes");
+        this.primaryLagCounter = routeCounter(meterRegistry, PRIMARY, "replica-lag");
+        this.primaryUnavailableCounter = routeCounter(meterRegistry, PRIMARY, "replica-unavailable");
+
+        Gauge.builder("pix.datasource.replica.lag", this, ds -> ds.replicaLagMs == null ? Double.NaN : ds.replicaLagMs)
+                .description("Atraso de replay da réplica na última verificação (ms)")
+                .baseUnit("milliseconds")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .register(meterRegistry);
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("pix.datasource.route")
+                .description("Conexões obtidas por pool e motivo do roteamento")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY; // fora de transação (Flyway, jobs com JdbcTemplate): sempre o primário
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryReadWriteCounter.increment();
+            return PRIMARY;
+        }
+        if (ReplicaRoutingContext.isPrimaryRequired()) {
+            primaryReadYourWritesCounter.increment();
+            return PRIMARY;
+        }
+        Long lag = replicaLagMs;
+        if (lag == null) {
+            primaryUnavailableCounter.increment();
+            return PRIMARY;
+        }
+        if (lag > maxLagMs) {
+            primaryLagCounter.increment();
+            return PRIMARY;
+        }
+        replicaCounter.increment();
+        return REPLICA;
+    }
+
+    @Scheduled(fixedDelayString = "${pix.datasource.replica.lag-check-interval-ms:1000}")
+    public void refreshReplicaLag() {
+        Long lag;
+        try {
+            lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Long.class);
+        } catch (RuntimeException e) {
+            log.warn("Verificação de atraso da réplica falhou, leituras seguem pelo primário - motivo={}", e.getMessage());
+            lag = null;
+        }
+        updateReplicaLag(lag);
+    }
+
+    public void updateReplicaLag(Long lagMs) {
+        Long previous = replicaLagMs;
+        replicaLagMs = lagMs;
+        boolean wasFresh = previous != null && previous <= maxLagMs;
+        boolean isFresh = lagMs != null && lagMs <= maxLagMs;
+        if (wasFresh != isFresh) {
+            log.info("Réplica {} para leituras - atrasoMs={}, maxLagMs={}",
+                    isFresh ? "liberada" : "suspensa", lagMs, maxLagMs);
+        }
+    }
+
+    public Long getReplicaLagMs() {
+        return replicaLagMs;
+    }
+}
@@ -0,0 +1,82 @@
+package com.pixservice.infrastructure.datasource;
+
+import com.pixservice.domain.model.PixKey;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.model.WalletStripe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alimenta o {@link RecentWriteTracker} com as escritas JPA de carteira, sub-saldo e chave Pix.
+ *
+ * Registrado como listener pós-commit do Hibernate: cobre todo caminho que altera a entidade (serviços, mailbox,
+ * lote de webhooks) sem acoplar o domínio ao roteamento, e só marca o que de fato foi confirmado no primário.
+ */
+@Component
+@ConditionalOnProperty(name = "pix.datasource.replica.enabled", havingValue = "true")
+public class RecentWriteListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final RecentWriteTracker recentWriteTracker;
+
+    public RecentWriteListener(EntityManagerFactory entityManagerFactory, RecentWriteTracker recentWriteTracker) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.recentWriteTracker = recentWriteTracker;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // rollback: nada foi escrito
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // rollback: nada foi escrito
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return entityClass == Wallet.class || entityClass == WalletStripe.class || entityClass == PixKey.class;
+    }
+
+    private void record(Object entity) {
+        if (entity instanceof Wallet wallet) {
+            recentWriteTracker.record(RecentWriteTracker.walletKey(wallet.getId()));
+            recentWriteTracker.record(RecentWriteTracker.userKey(wallet.getUserId()));
+        } else if (entity instanceof WalletStripe stripe) {
+            recentWriteTracker.record(RecentWriteTracker.walletKey(stripe.getWalletId()));
+        } else if (entity instanceof PixKey pixKey) {
+            recentWriteTracker.record(RecentWriteTracker.pixKeyKey(pixKey.getKeyValue()));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.pixservice.infrastructure.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Escritas recentes desta instância (carteira, usuário, chave Pix), para leitura das próprias escritas com réplica.
+ *
+ * Cada chave fica marcada por {@code pix.datasource.replica.read-your-writes-ms} após o commit; uma leitura
+ * somente leitura sobre uma chave marcada vai ao primário, já que a réplica pode ainda não ter aplicado a escrita.
+ * Sem réplica ({@code pix.datasource.replica.enabled=false}) não registra nada.
+ */
+@Component
+@Slf4j
+public class RecentWriteTracker {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWrites;
+
+    public RecentWriteTracker(@Value("${pix.datasource.replica.enabled:false}") boolean enabled,
+                              @Value("${pix.datasource.replica.read-your-writes-ms:2000}") long readYourWritesMs,
+                              @Value("${pix.datasource.replica.read-your-writes-max-size:100000}") long maxSize) {
+        this.enabled = enabled && readYourWritesMs > 0;
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, readYourWritesMs)))
+                .build();
+        if (this.enabled) {
+            log.info("Leitura das próprias escritas inicializada - janela={}ms, maxSize={}", readYourWritesMs, maxSize);
+        }
+    }
+
+    public static String walletKey(Long walletId) {
+        return "wallet:" + walletId;
+    }
+
+    public static String userKey(String userId) {
+        return "user:" + userId;
+    }
+
+    public static String pixKeyKey(String keyValue) {
+        return "pix-key:" + keyValue;
+    }
+
+    /**
+     * Marca a chave após o commit da transação corrente (na hora, se não houver transação).
+     */
+    public void recordAfterCommit(String key) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(key);
+            }
+        });
+    }
+
+    public void record(String key) {
+        if (enabled) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Envia a transação somente leitura corrente ao primário se a chave foi escrita dentro da janela.
+     */
+    public void requirePrimaryIfRecent(String key) {
+        if (enabled && recentWrites.getIfPresent(key) != null) {
+            ReplicaRoutingContext.requirePrimary();
+        }
+    }
+}
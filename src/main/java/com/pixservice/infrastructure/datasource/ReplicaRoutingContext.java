@@ -0,0 +1,35 @@
+package com.pixservice.infrastructure.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Marca, para a transação corrente da thread, que a leitura precisa ir ao primário mesmo sendo somente leitura.
+ *
+ * A conexão só é obtida no primeiro comando da transação ({@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}),
+ * então a marcação feita no início do método transacional ainda decide o pool. É limpa ao fim da transação.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static void requirePrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || isPrimaryRequired()) {
+            return; // sem transação não há roteamento para réplica
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_REQUIRED.remove();
+            }
+        });
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.pixservice.infrastructure.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Detecta virtual threads presas à carrier thread (pinning) via evento JFR {@code jdk.VirtualThreadPinned}.
+ *
+ * Pinning ocorre quando uma virtual thread bloqueia dentro de {@code synchronized} ou de código nativo:
+ * a carrier fica ocupada e, sob tempestade de webhooks esperando lock de linha, o ganho das virtual threads
+ * desaparece. Cada ocorrência acima do limiar é classificada pela camada (jdbc, hibernate, other) e pela
+ * primeira frame da aplicação na pilha (ex.: {@code PixTransferService.transfer}).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "pix.diagnostics.pinning.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String METRIC_TAG_SERVICE_KEY = "service";
+    private static final String METRIC_TAG_SERVICE_VALUE = "diagnostics";
+    private static final String APPLICATION_PACKAGE = "com.pixservice.";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${pix.diagnostics.pinning.threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Monitor de pinning de virtual threads iniciado - threshold={}ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        List<String> frameNames = frames.stream()
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .toList();
+        String layer = layerOf(frameNames);
+        String origin = originOf(frameNames);
+
+        Counter.builder("pix.virtual-thread.pinned")
+                .description("Ocorrências de virtual thread presa à carrier acima do limiar")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .tag("layer", layer)
+                .tag("origin", origin)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("pix.virtual-thread.pinned.duration")
+                .description("Tempo em que a carrier ficou presa")
+                .tag(METRIC_TAG_SERVICE_KEY, METRIC_TAG_SERVICE_VALUE)
+                .tag("layer", layer)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        log.warn("Virtual thread presa à carrier - duração={}ms, camada={}, origem={}, pilha=[{}]",
+                event.getDuration().toMillis(), layer, origin,
+                frameNames.stream().limit(LOGGED_FRAMES).collect(Collectors.joining(" <- ")));
+    }
+
+    /**
+     * Camada responsável pelo bloqueio: a frame de driver/pool mais próxima do topo vence a do Hibernate.
+     */
+    static String layerOf(List<String> frameNames) {
+        for (String frame : frameNames) {
+            if (frame.startsWith("org.postgresql.") || frame.startsWith("com.zaxxer.hikari.")) {
+                return "jdbc";
+            }
+            if (frame.startsWith("org.hibernate.")) {
+                return "hibernate";
+            }
+        }
+        return "other";
+    }
+
+    /**
+     * Primeira frame da aplicação a partir do topo (ex.: {@code WebhookService.processWebhookEvent}),
+     * ignorando proxies gerados; {@code none} quando a pilha não passa pela aplicação.
+     */
+    static String originOf(List<String> frameNames) {
+        return frameNames.stream()
+                .filter(frame -> frame.startsWith(APPLICATION_PACKAGE) && !frame.contains("$$"))
+                .findFirst()
+                .map(frame -> {
+                    String withoutMethod = frame.substring(0, frame.lastIndexOf('.'));
+                    return frame.substring(withoutMethod.lastIndexOf('.') + 1);
+                })
+                .orElse("none");
+    }
+}
@@ -0,0 +1,85 @@
+package com.pixservice.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Leituras da reconciliação do ledger por faixa de ids de carteira, direto via JDBC e com valores convertidos
+ * para centavos ({@code bigint}) no banco, sem BigDecimal nem entidades por linha.
+ *
+ * Os lançamentos PENDING de crédito (DEPOSIT com {@code transaction_id}, gravados no destino antes da
+ * confirmação sem alterar o saldo) são informativos e ficam fora da leitura.
+ */
+@Repository
+public class LedgerReconciliationRepository {
+
+    private static final int STREAM_FETCH_SIZE = 10_000;
+    private static final String NOT_PENDING_CREDIT = " AND NOT (type = 'DEPOSIT' AND transaction_id IS NOT NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public LedgerReconciliationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // O driver do PostgreSQL só usa cursor (fetchSize) dentro de transação e com ResultSet forward-only
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Menor e maior id de carteira, ou vazio se não houver carteiras.
+     */
+    public Optional<long[]> walletIdBounds() {
+        return Optional.ofNullable(jdbcTemplate.query("SELECT MIN(id), MAX(id) FROM wallet", (ResultSetExtractor<long[]>) rs -> {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        }));
+    }
+
+    /**
+     * Saldo efetivo (principal mais sub-saldos) em centavos de cada carteira em [fromId, toId].
+     */
+    public Map<Long, Long> storedBalances(long fromId, long toId) {
+        Map<Long, Long> balances = new HashMap<>();
+        jdbcTemplate.query("SELECT w.id, (w.balance * 100)::bigint + " +
+                        "COALESCE((SELECT SUM(s.balance * 100) FROM wallet_stripe s WHERE s.wallet_id = w.id), 0)::bigint " +
+                        "FROM wallet w WHERE w.id BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> balances.put(rs.getLong(1), rs.getLong(2)), fromId, toId);
+        return balances;
+    }
+
+    /**
+     * Soma em centavos das entradas arquivadas (V11) de cada carteira em [fromId, toId] que tem arquivo,
+     * sem os lançamentos PENDING de crédito.
+     */
+    public Map<Long, Long> archivedSums(long fromId, long toId) {
+        Map<Long, Long> sums = new HashMap<>();
+        jdbcTemplate.query("SELECT wallet_id, (SUM(amount_sum - pending_amount_sum) * 100)::bigint " +
+                        "FROM ledger_archive_block WHERE wallet_id BETWEEN ? AND ? GROUP BY wallet_id",
+                (RowCallbackHandler) rs -> sums.put(rs.getLong(1), rs.getLong(2)), fromId, toId);
+        return sums;
+    }
+
+    /**
+     * Percorre com cursor do banco as entradas das carteiras em [fromId, toId], agrupadas por carteira e em
+     * ordem de gravação (created_at, id). Precisa ser chamado dentro de uma transação.
+     */
+    public void streamEntries(long fromId, long toId, Consumer<LedgerReconciliationRow> consumer) {
+        streamingJdbcTemplate.query("SELECT id, wallet_id, stripe_index, (amount * 100)::bigint, " +
+                        "(balance_before * 100)::bigint, (balance_after * 100)::bigint FROM ledger_entry " +
+                        "WHERE wallet_id BETWEEN ? AND ?" + NOT_PENDING_CREDIT + " ORDER BY wallet_id, created_at, id",
+                (RowCallbackHandler) rs -> {
+                    int stripeIndex = rs.getInt(3);
+                    consumer.accept(new LedgerReconciliationRow(rs.getLong(1), rs.getLong(2),
+                            rs.wasNull() ? null : stripeIndex, rs.getLong(4), rs.getLong(5), rs.getLong(6)));
+                }, fromId, toId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pixservice.infrastructure.persistence;
+
+/**
+ * Entrada de {@code ledger_entry} lida pela reconciliação, com valores já em centavos.
+ *
+ * @param stripeIndex sub-saldo da entrada (null = saldo principal)
+ */
+public record LedgerReconciliationRow(long id, long walletId, Integer stripeIndex,
+                                      long amount, long balanceBefore, long balanceAfter) {
+}
@@ -0,0 +1,100 @@
+package com.pixservice.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Acesso via JDBC a {@code ledger_daily_rollup} (V12): leitura dos totais diários e backfill das entradas
+ * anteriores a {@code live_from}, que o trigger não conta.
+ */
+@Repository
+public class LedgerRollupRepository {
+
+    private static final String NOT_PENDING_CREDIT = " AND NOT (type = 'DEPOSIT' AND transaction_id IS NOT NULL)";
+    private static final RowMapper<LedgerRollupRow> ROW_MAPPER = (rs, rowNum) -> new LedgerRollupRow(
+            rs.getDate("day").toLocalDate(),
+            rs.getString("type"),
+            rs.getLong("entry_count"),
+            rs.getBigDecimal("credit_sum"),
+            rs.getBigDecimal("debit_sum"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Instante a partir do qual o trigger conta as entradas, e quando o backfill terminou (nulo se nunca).
+     */
+    public State state() {
+        return jdbcTemplate.queryForObject("SELECT live_from, backfilled_at FROM ledger_daily_rollup_state",
+                (rs, rowNum) -> {
+                    Timestamp backfilledAt = rs.getTimestamp("backfilled_at");
+                    return new State(rs.getTimestamp("live_from").toLocalDateTime(),
+                            backfilledAt == null ? null : backfilledAt.toLocalDateTime());
+                });
+    }
+
+    public void markBackfilled(LocalDateTime at) {
+        jdbcTemplate.update("UPDATE ledger_daily_rollup_state SET backfilled_at = ?", Timestamp.valueOf(at));
+    }
+
+    /**
+     * Menor e maior id de carteira com entradas no ledger, ou vazio se não houver entradas.
+     */
+    public Optional<long[]> walletIdBounds() {
+        return Optional.ofNullable(jdbcTemplate.query("SELECT MIN(wallet_id), MAX(wallet_id) FROM ledger_entry",
+                (ResultSetExtractor<long[]>) rs -> {
+                    rs.next();
+                    long min = rs.getLong(1);
+                    return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+                }));
+    }
+
+    /**
+     * Recalcula as colunas de backfill das carteiras em [fromId, toId] a partir das entradas anteriores a
+     * {@code liveFrom}. Sobrescreve em vez de somar, então pode ser repetido.
+     *
+     * @return linhas de rollup gravadas
+     */
+    public int backfill(long fromId, long toId, LocalDateTime liveFrom) {
+        return jdbcTemplate.update("INSERT INTO ledger_daily_rollup AS r (wallet_id, day, type, stripe_slot, " +
+                        "backfill_entry_count, backfill_credit_sum, backfill_debit_sum) " +
+                        "SELECT wallet_id, created_at::date, type, COALESCE(stripe_index, -1), COUNT(*), " +
+                        "SUM(GREATEST(amount, 0)), SUM(LEAST(amount, 0)) FROM ledger_entry " +
+                        "WHERE wallet_id BETWEEN ? AND ? AND created_at < ?" + NOT_PENDING_CREDIT + " GROUP BY 1, 2, 3, 4 " +
+                        "ON CONFLICT (wallet_id, day, type, stripe_slot) DO UPDATE " +
+                        "SET backfill_entry_count = EXCLUDED.backfill_entry_count, " +
+                        "backfill_credit_sum = EXCLUDED.backfill_credit_sum, " +
+                        "backfill_debit_sum = EXCLUDED.backfill_debit_sum",
+                fromId, toId, Timestamp.valueOf(liveFrom));
+    }
+
+    /**
+     * Totais da carteira por dia e tipo em [from, to], em ordem de dia.
+     */
+    public List<LedgerRollupRow> findDaily(long walletId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT day, type, SUM(entry_count + backfill_entry_count) AS entry_count, " +
+                        "SUM(credit_sum + backfill_credit_sum) AS credit_sum, SUM(debit_sum + backfill_debit_sum) AS debit_sum " +
+                        "FROM ledger_daily_rollup WHERE wallet_id = ? AND day BETWEEN ? AND ? " +
+                        "GROUP BY day, type ORDER BY day, type",
+                ROW_MAPPER, walletId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * @param liveFrom     entradas com created_at a partir deste instante são contadas pelo trigger
+     * @param backfilledAt fim do último backfill completo, ou nulo
+     */
+    public record State(LocalDateTime liveFrom, LocalDateTime backfilledAt) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.pixservice.infrastructure.persistence;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Total de um dia e tipo de lançamento de {@code ledger_daily_rollup}, somados os sub-saldos e as colunas do
+ * trigger e do backfill.
+ *
+ * @param creditSum soma dos valores positivos
+ * @param debitSum  soma dos valores negativos (não positivo)
+ */
+public record LedgerRollupRow(LocalDate day, String type, long entryCount, BigDecimal creditSum, BigDecimal debitSum) {
+}
@@ -0,0 +1,69 @@
+package com.pixservice.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Leitura do extrato de {@code ledger_entry} por keyset em (created_at, id), mais recentes primeiro,
+ * apoiada em {@code idx_ledger_wallet_created}. Lê direto para o DTO, sem gerenciar entidades.
+ */
+@Repository
+public class LedgerStatementRepository {
+
+    private static final int STREAM_FETCH_SIZE = 1_000;
+    private static final String COLUMNS =
+            "SELECT id, type, amount, balance_before, balance_after, transaction_id, description, created_at FROM ledger_entry ";
+    private static final String ORDER = " ORDER BY created_at DESC, id DESC";
+    private static final RowMapper<LedgerStatementRow> ROW_MAPPER = (rs, rowNum) -> toResponse(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public LedgerStatementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // O driver do PostgreSQL só usa cursor (fetchSize) dentro de transação e com ResultSet forward-only
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    }
+
+    /**
+     * Até {@code limit} entradas anteriores ao cursor (createdAt, id); cursor nulo começa pela mais recente.
+     */
+    public List<LedgerStatementRow> findPage(Long walletId, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        if (afterCreatedAt == null) {
+            return jdbcTemplate.query(COLUMNS + "WHERE wallet_id = ?" + ORDER + " LIMIT ?", ROW_MAPPER, walletId, limit);
+        }
+        return jdbcTemplate.query(COLUMNS + "WHERE wallet_id = ? AND (created_at, id) < (?, ?)" + ORDER + " LIMIT ?",
+                ROW_MAPPER, walletId, Timestamp.valueOf(afterCreatedAt), afterId, limit);
+    }
+
+    /**
+     * Percorre todas as entradas da carteira com cursor do banco, entregando uma linha por vez.
+     * Precisa ser chamado dentro de uma transação.
+     */
+    public void stream(Long walletId, Consumer<LedgerStatementRow> consumer) {
+        streamingJdbcTemplate.query(COLUMNS + "WHERE wallet_id = ?" + ORDER,
+                (RowCallbackHandler) rs -> consumer.accept(toResponse(rs)), walletId);
+    }
+
+    private static LedgerStatementRow toResponse(ResultSet rs) throws SQLException {
+        return new LedgerStatementRow(
+                rs.getLong("id"),
+                rs.getString("type"),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("balance_before"),
+                rs.getBigDecimal("balance_after"),
+                rs.getString("transaction_id"),
+                rs.getString("description"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+}
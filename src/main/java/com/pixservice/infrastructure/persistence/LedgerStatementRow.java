@@ -0,0 +1,12 @@
+package com.pixservice.infrastructure.persistence;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do extrato lida de {@code ledger_entry} sem passar pela entidade.
+ */
+public record LedgerStatementRow(Long id, String type, BigDecimal amount, BigDecimal balanceBefore,
+                                 BigDecimal balanceAfter, String transactionId, String description,
+                                 LocalDateTime createdAt) {
+}
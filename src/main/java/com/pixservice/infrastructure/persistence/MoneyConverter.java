@@ -0,0 +1,28 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Mapeia {@link Money} para as colunas NUMERIC(19,2) existentes, sem mudança de schema.
+ * Aplicado automaticamente a todo atributo do tipo Money; como Money é imutável, o dirty checking
+ * compara os valores sem cópias defensivas.
+ */
+@Converter(autoApply = true)
+@Immutable
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal value) {
+        return value == null ? null : Money.of(value);
+    }
+}
@@ -0,0 +1,186 @@
+package com.pixservice.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manutenção das partições mensais (migração V10): pré-cria os meses até {@code pix.partition.months-ahead}
+ * à frente e, com {@code pix.partition.retention-months > 0}, desanexa (sem apagar) partições mais antigas
+ * que a retenção. A partição legada nunca é tocada.
+ *
+ * Os meses novos são sempre criados depois da partição mensal mais recente, então nunca sobrepõem a legada.
+ * Se a manutenção atrasou e o mês já tem linhas na DEFAULT, a partição é criada como tabela avulsa, recebe essas
+ * linhas e só então é anexada, tudo na mesma transação e com a DEFAULT bloqueada.
+ *
+ * Só partições vazias são desanexadas: reconciliação, saldo histórico e extrato leem {@code ledger_entry} e o
+ * arquivo frio, então uma partição com linhas ainda não arquivadas sumiria dessas consultas. Com retenção, as
+ * linhas precisam sair antes pelo arquivo ({@code pix.ledger.archive.*}, {@code min-age-days} menor que a retenção).
+ */
+@Component
+@ConditionalOnProperty(name = "pix.partition.maintenance.enabled", havingValue = "true")
+@Slf4j
+public class PartitionMaintenanceJob {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("ledger_entry");
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("_p(\\d{6})$");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Map<String, AtomicLong> defaultRows = new ConcurrentHashMap<>();
+
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${pix.partition.months-ahead:3}") int monthsAhead,
+                                   @Value("${pix.partition.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${pix.partition.maintenance.cron:0 30 1 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                createFuturePartitions(table, current.plusMonths(monthsAhead));
+                if (retentionMonths > 0) {
+                    detachExpiredPartitions(table, current.minusMonths(retentionMonths));
+                }
+                checkDefaultPartition(table);
+            } catch (Exception e) {
+                counter("pix.partition.maintenance.failures", "Execuções da manutenção de partições que falharam", table)
+                        .increment();
+                log.error("Falha na manutenção de partições - tabela={}, motivo={}", table, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void createFuturePartitions(String table, YearMonth until) {
+        Optional<YearMonth> latest = monthlyPartitions(table).keySet().stream().max(YearMonth::compareTo);
+        if (latest.isEmpty()) {
+            log.warn("Tabela sem partições mensais; nada a pré-criar - tabela={}", table);
+            return;
+        }
+        for (YearMonth month = latest.get().plusMonths(1); !month.isAfter(until); month = month.plusMonths(1)) {
+            String partition = table + "_p" + month.format(PARTITION_SUFFIX);
+            YearMonth target = month;
+            Long moved = transactionTemplate.execute(status -> createPartition(table, partition, target));
+            counter("pix.partition.created", "Partições mensais criadas", table).increment();
+            log.info("Partição criada - tabela={}, partição={}, linhasMovidasDaDefault={}", table, partition, moved);
+        }
+    }
+
+    private long createPartition(String table, String partition, YearMonth month) {
+        String defaultPartition = table + "_default";
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        // Bloqueia a DEFAULT antes de olhar: nenhuma linha do mês entra nela entre a cópia e o ATTACH
+        jdbcTemplate.execute("LOCK TABLE " + defaultPartition + " IN SHARE ROW EXCLUSIVE MODE");
+        Boolean pending = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + defaultPartition +
+                " WHERE created_at >= ?::timestamp AND created_at < ?::timestamp)", Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(pending)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            return 0;
+        }
+        // CREATE ... PARTITION OF falharia: a DEFAULT já tem linhas do intervalo. A tabela avulsa não dispara
+        // os triggers de ledger_entry (totais diários), então as linhas não são contadas de novo
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition +
+                " WHERE created_at >= ?::timestamp AND created_at < ?::timestamp RETURNING *) " +
+                "INSERT INTO " + partition + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        counter("pix.partition.default.moved", "Linhas movidas da partição DEFAULT para a partição do mês", table)
+                .increment(moved);
+        log.warn("Linhas da partição DEFAULT movidas para a partição do mês - tabela={}, partição={}, linhas={}",
+                table, partition, moved);
+        return moved;
+    }
+
+    private void detachExpiredPartitions(String table, YearMonth oldestKept) {
+        monthlyPartitions(table).forEach((month, partition) -> {
+            if (!month.isBefore(oldestKept)) {
+                return;
+            }
+            Boolean hasRows = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (Boolean.TRUE.equals(hasRows)) {
+                counter("pix.partition.detach.skipped", "Partições expiradas mantidas por ainda terem linhas", table)
+                        .increment();
+                log.error("Partição expirada ainda tem linhas não arquivadas; desanexar a tiraria da reconciliação, " +
+                        "do saldo histórico e do extrato - tabela={}, partição={}", table, partition);
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            counter("pix.partition.detached", "Partições mensais desanexadas por retenção", table).increment();
+            log.info("Partição desanexada - tabela={}, partição={}", table, partition);
+        });
+    }
+
+    private void checkDefaultPartition(String table) {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + "_default", Long.class);
+        defaultRows.computeIfAbsent(table, t -> meterRegistry.gauge("pix.partition.default.rows",
+                Tags.of("table", t), new AtomicLong())).set(rows == null ? 0 : rows);
+        if (rows != null && rows > 0) {
+            // Só sobram linhas fora do alcance de months-ahead (datas muito à frente): exigem intervenção
+            log.error("Partição DEFAULT com linhas fora das partições mensais - tabela={}, linhas={}", table, rows);
+        }
+    }
+
+    private Map<YearMonth, String> monthlyPartitions(String table) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = ?", String.class, table);
+        Map<YearMonth, String> monthly = new TreeMap<>();
+        for (String partition : partitions) {
+            Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+            if (matcher.find()) {
+                monthly.put(YearMonth.parse(matcher.group(1), PARTITION_SUFFIX), partition);
+            }
+        }
+        return monthly;
+    }
+
+    private Counter counter(String name, String description, String table) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+}
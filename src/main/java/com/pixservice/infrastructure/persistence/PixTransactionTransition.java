@@ -0,0 +1,20 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.PixTransactionStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado da transição condicional de status de uma transação Pix.
+ *
+ * @param previousStatus status lido no início do comando
+ * @param applied        true só para o comando que efetivamente tirou a transação de PENDING
+ * @param fromWalletId   carteira de origem (preenchida quando {@code applied})
+ * @param toWalletId     carteira de destino (preenchida quando {@code applied})
+ * @param amount         valor da transação (preenchido quando {@code applied})
+ * @param toPixKey       chave Pix de destino (preenchida quando {@code applied})
+ * @param fromUserId     usuário da carteira de origem, usado na descrição do crédito
+ */
+public record PixTransactionTransition(PixTransactionStatus previousStatus, boolean applied, Long fromWalletId,
+                                       Long toWalletId, BigDecimal amount, String toPixKey, String fromUserId) {
+}
@@ -0,0 +1,54 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.PixTransactionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Transição PENDING → CONFIRMED/REJECTED em um único comando condicional, sem SELECT com lock prévio.
+ *
+ * O UPDATE só casa com a linha ainda PENDING; webhooks concorrentes da mesma transação esperam o lock de linha
+ * do vencedor, reavaliam o filtro e não atualizam nada. O CTE {@code tx} lê o status anterior no mesmo comando,
+ * para distinguir transação inexistente (nenhuma linha) de transação já finalizada ({@code applied = false}).
+ * Participa da transação corrente pela mesma conexão do JpaTransactionManager.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PixTransactionTransitionRepository {
+
+    private static final String SQL =
+            "WITH tx AS (SELECT status FROM pix_transaction WHERE end_to_end_id = ?), " +
+            "upd AS (UPDATE pix_transaction t SET status = ?, " +
+            "        confirmed_at = CASE WHEN ? = 'CONFIRMED' THEN LOCALTIMESTAMP ELSE t.confirmed_at END, " +
+            "        rejected_at = CASE WHEN ? = 'REJECTED' THEN LOCALTIMESTAMP ELSE t.rejected_at END, " +
+            "        last_update_at = LOCALTIMESTAMP, version = t.version + 1 " +
+            "    WHERE t.end_to_end_id = ? AND t.status = 'PENDING' " +
+            "    RETURNING t.end_to_end_id AS updated_id, t.from_wallet_id, t.to_wallet_id, t.amount, t.to_pix_key, " +
+            "        (SELECT w.user_id FROM wallet w WHERE w.id = t.from_wallet_id) AS from_user_id) " +
+            "SELECT tx.status AS previous_status, upd.* FROM tx LEFT JOIN upd ON true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tenta levar a transação de PENDING para {@code target}.
+     *
+     * @return vazio se a transação não existe
+     */
+    public Optional<PixTransactionTransition> transition(String endToEndId, PixTransactionStatus target) {
+        List<PixTransactionTransition> rows = jdbcTemplate.query(SQL,
+                (rs, rowNum) -> new PixTransactionTransition(
+                        PixTransactionStatus.valueOf(rs.getString("previous_status")),
+                        rs.getString("updated_id") != null,
+                        rs.getObject("from_wallet_id", Long.class),
+                        rs.getObject("to_wallet_id", Long.class),
+                        rs.getBigDecimal("amount"),
+                        rs.getString("to_pix_key"),
+                        rs.getString("from_user_id")),
+                endToEndId, target.name(), target.name(), target.name(), endToEndId);
+        return rows.stream().findFirst();
+    }
+}
@@ -0,0 +1,166 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.IdempotencyKey;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.PixEvent;
+import com.pixservice.domain.model.PixTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gravação em lote (JDBC batching) das linhas geradas por transferências Pix e por lotes de webhook.
+ *
+ * O batching do Hibernate cobre as poucas linhas de uma transferência; para lotes de centenas de itens
+ * o caminho em lote grava direto via {@link JdbcTemplate}, sem gerenciar as entidades no contexto de
+ * persistência. O JpaTransactionManager expõe a mesma conexão ao JdbcTemplate, então tudo participa
+ * da transação corrente.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PixTransferBatchWriter {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserva as chaves de idempotência em um único comando. Retorna as chaves efetivamente inseridas;
+     * as ausentes já existiam (requisição concorrente com a mesma chave).
+     */
+    public Set<String> reserveIdempotencyKeys(List<IdempotencyKey> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "INSERT INTO idempotency_key (key_value, response_body, http_status, created_at) " +
+                "SELECT * FROM unnest(?::varchar[], ?::text[], ?::int[], ?::timestamp[]) " +
+                "ON CONFLICT (key_value) DO NOTHING RETURNING key_value";
+        List<String> inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("varchar", keys.stream().map(IdempotencyKey::getKeyValue).toArray()));
+            ps.setArray(2, con.createArrayOf("text", keys.stream().map(IdempotencyKey::getResponseBody).toArray()));
+            ps.setArray(3, con.createArrayOf("int4", keys.stream().map(IdempotencyKey::getHttpStatus).toArray()));
+            ps.setArray(4, con.createArrayOf("timestamp", keys.stream().map(k -> Timestamp.valueOf(k.getCreatedAt())).toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(inserted);
+    }
+
+    /**
+     * Libera chaves reservadas de itens que falharam depois da reserva, para que possam ser reenviados.
+     */
+    public void releaseIdempotencyKeys(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("DELETE FROM idempotency_key WHERE key_value = ANY(?)");
+            ps.setArray(1, con.createArrayOf("varchar", keys.toArray()));
+            return ps;
+        });
+    }
+
+    /**
+     * endToEndIds que já possuem transação. Uma chave reaproveitada após o purge gera o mesmo endToEndId
+     * da transferência original, que não pode ser gravada de novo.
+     */
+    public Set<String> findExistingEndToEndIds(Collection<String> endToEndIds) {
+        if (endToEndIds.isEmpty()) {
+            return Set.of();
+        }
+        List<String> existing = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT end_to_end_id FROM pix_transaction WHERE end_to_end_id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("varchar", endToEndIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(existing);
+    }
+
+    public void insertPixTransactions(List<PixTransaction> transactions) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO pix_transaction (end_to_end_id, from_wallet_id, to_wallet_id, to_pix_key, to_pix_key_type, " +
+                        "amount, status, idempotency_key, initiated_at, last_update_at, version) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                transactions, JDBC_BATCH_SIZE, (ps, tx) -> {
+                    ps.setString(1, tx.getEndToEndId());
+                    ps.setLong(2, tx.getFromWallet().getId());
+                    ps.setLong(3, tx.getToWallet().getId());
+                    ps.setString(4, tx.getToPixKey());
+                    ps.setString(5, tx.getToPixKeyType().name());
+                    ps.setBigDecimal(6, tx.getAmount().toBigDecimal());
+                    ps.setString(7, tx.getStatus().name());
+                    ps.setString(8, tx.getIdempotencyKey());
+                    ps.setTimestamp(9, Timestamp.valueOf(tx.getInitiatedAt()));
+                    ps.setTimestamp(10, Timestamp.valueOf(tx.getLastUpdateAt()));
+                    ps.setLong(11, tx.getVersion());
+                });
+    }
+
+    public void insertPixEvents(List<PixEvent> events) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO pix_event (event_id, end_to_end_id, event_type, occurred_at, received_at) VALUES (?, ?, ?, ?, ?)",
+                events, JDBC_BATCH_SIZE, (ps, event) -> {
+                    ps.setString(1, event.getEventId());
+                    ps.setString(2, event.getEndToEndId());
+                    ps.setString(3, event.getEventType().name());
+                    ps.setTimestamp(4, Timestamp.valueOf(event.getOccurredAt()));
+                    ps.setTimestamp(5, Timestamp.valueOf(event.getReceivedAt()));
+                });
+    }
+
+    /**
+     * Grava os eventos em um único comando, ignorando pares (eventId, endToEndId) já existentes.
+     * Retorna os pares efetivamente inseridos; os ausentes são duplicados, inclusive de webhooks concorrentes.
+     */
+    public Set<EventKey> insertPixEventsIfAbsent(List<PixEvent> events) {
+        if (events.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "INSERT INTO pix_event (event_id, end_to_end_id, event_type, occurred_at, received_at) " +
+                "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::timestamp[], ?::timestamp[]) " +
+                "ON CONFLICT (event_id, end_to_end_id) DO NOTHING RETURNING event_id, end_to_end_id";
+        List<EventKey> inserted = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("varchar", events.stream().map(PixEvent::getEventId).toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", events.stream().map(PixEvent::getEndToEndId).toArray()));
+            ps.setArray(3, con.createArrayOf("varchar", events.stream().map(e -> e.getEventType().name()).toArray()));
+            ps.setArray(4, con.createArrayOf("timestamp", events.stream().map(e -> toTimestamp(e.getOccurredAt())).toArray()));
+            ps.setArray(5, con.createArrayOf("timestamp", events.stream().map(e -> toTimestamp(e.getReceivedAt())).toArray()));
+            return ps;
+        }, (rs, rowNum) -> new EventKey(rs.getString(1), rs.getString(2)));
+        return new HashSet<>(inserted);
+    }
+
+    public void insertLedgerEntries(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO ledger_entry (wallet_id, type, amount, balance_before, balance_after, transaction_id, " +
+                        "description, created_at, stripe_index) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                entries, JDBC_BATCH_SIZE, (ps, entry) -> {
+                    ps.setLong(1, entry.getWallet().getId());
+                    ps.setString(2, entry.getType().name());
+                    ps.setBigDecimal(3, entry.getAmount().toBigDecimal());
+                    ps.setBigDecimal(4, entry.getBalanceBefore().toBigDecimal());
+                    ps.setBigDecimal(5, entry.getBalanceAfter().toBigDecimal());
+                    ps.setString(6, entry.getTransactionId());
+                    ps.setString(7, entry.getDescription());
+                    ps.setTimestamp(8, Timestamp.valueOf(entry.getCreatedAt()));
+                    ps.setObject(9, entry.getStripeIndex(), Types.INTEGER);
+                });
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    public record EventKey(String eventId, String endToEndId) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.infrastructure.datasource.RecentWriteTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Chamada à função {@code pix_transfer} (migração V6, redefinida em V8 e V14): todo o plano de escrita da transferência em uma
+ * única ida ao banco. Participa da transação corrente pela mesma conexão do JpaTransactionManager.
+ * Como a escrita não passa pelo Hibernate, a carteira de origem é marcada aqui para a leitura das próprias escritas.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PixTransferFunctionRepository {
+
+    private static final String SQL =
+            "SELECT outcome, response_body, detail FROM pix_transfer(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecentWriteTracker recentWriteTracker;
+
+    public PixTransferOutcome transfer(String idempotencyKey, String endToEndId, Long fromWalletId, String toPixKey,
+                                       BigDecimal amount, String responseBody, String eventId, long duplicateWindowMinutes) {
+        recentWriteTracker.recordAfterCommit(RecentWriteTracker.walletKey(fromWalletId));
+        return jdbcTemplate.queryForObject(SQL,
+                (rs, rowNum) -> new PixTransferOutcome(
+                        PixTransferOutcome.Status.valueOf(rs.getString("outcome")),
+                        rs.getString("response_body"),
+                        rs.getString("detail")),
+                idempotencyKey, endToEndId, fromWalletId, toPixKey, amount, responseBody, eventId,
+                (int) duplicateWindowMinutes);
+    }
+}
@@ -0,0 +1,22 @@
+package com.pixservice.infrastructure.persistence;
+
+/**
+ * Resultado da função {@code pix_transfer}.
+ *
+ * @param status       desfecho da chamada
+ * @param responseBody resposta serializada (CREATED: a provisória informada; REPLAY: a armazenada)
+ * @param detail       endToEndId da transferência anterior quando {@link Status#DUPLICATE}
+ */
+public record PixTransferOutcome(Status status, String responseBody, String detail) {
+
+    public enum Status {
+        CREATED,
+        REPLAY,
+        SOURCE_NOT_FOUND,
+        KEY_NOT_FOUND,
+        SAME_WALLET,
+        DUPLICATE,
+        INSUFFICIENT_FUNDS,
+        STRIPED
+    }
+}
@@ -0,0 +1,121 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.PixEventType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acesso via JDBC ao inbox de webhooks ({@code webhook_inbox}, V13) e aos leases de partição.
+ */
+@Repository
+public class WebhookInboxRepository {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final RowMapper<WebhookInboxRow> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp occurredAt = rs.getTimestamp("occurred_at");
+        return new WebhookInboxRow(
+                rs.getLong("id"),
+                rs.getString("event_id"),
+                rs.getString("end_to_end_id"),
+                PixEventType.valueOf(rs.getString("event_type")),
+                occurredAt == null ? null : occurredAt.toLocalDateTime(),
+                rs.getTimestamp("received_at").toLocalDateTime(),
+                rs.getInt("attempts"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WebhookInboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Grava o evento como PENDING; o mesmo (eventId, endToEndId) já no inbox é ignorado.
+     *
+     * @return false se o evento já estava no inbox
+     */
+    public boolean enqueue(String eventId, String endToEndId, PixEventType eventType, LocalDateTime occurredAt, int slot) {
+        return jdbcTemplate.update("INSERT INTO webhook_inbox (event_id, end_to_end_id, event_type, occurred_at, slot, " +
+                        "status, received_at, available_at) VALUES (?, ?, ?, ?, ?, 'PENDING', localtimestamp, localtimestamp) " +
+                        "ON CONFLICT (event_id, end_to_end_id) DO NOTHING",
+                eventId, endToEndId, eventType.name(), occurredAt == null ? null : Timestamp.valueOf(occurredAt), slot) == 1;
+    }
+
+    /**
+     * Adquire ou renova o lease da partição para {@code owner}; falha se outro dono tiver lease válido.
+     */
+    public boolean acquireLease(int partition, String owner, long leaseMs) {
+        return jdbcTemplate.update("INSERT INTO webhook_inbox_lease AS l (partition_no, owner, lease_until) " +
+                        "VALUES (?, ?, localtimestamp + make_interval(secs => ? / 1000.0)) " +
+                        "ON CONFLICT (partition_no) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until " +
+                        "WHERE l.owner = EXCLUDED.owner OR l.lease_until < localtimestamp",
+                partition, owner, leaseMs) == 1;
+    }
+
+    public void releaseLease(int partition, String owner) {
+        jdbcTemplate.update("DELETE FROM webhook_inbox_lease WHERE partition_no = ? AND owner = ?", partition, owner);
+    }
+
+    /**
+     * Até {@code limit} eventos da partição prontos para processar, em ordem de chegada, pulando os que têm um
+     * evento anterior da mesma transação ainda pendente.
+     */
+    public List<WebhookInboxRow> findReady(int partition, int partitions, int limit) {
+        return jdbcTemplate.query("SELECT i.id, i.event_id, i.end_to_end_id, i.event_type, i.occurred_at, i.received_at, " +
+                        "i.attempts FROM webhook_inbox i WHERE i.status = 'PENDING' AND i.slot % ? = ? " +
+                        "AND i.available_at <= localtimestamp AND NOT EXISTS (SELECT 1 FROM webhook_inbox p " +
+                        "WHERE p.end_to_end_id = i.end_to_end_id AND p.status = 'PENDING' AND p.id < i.id) " +
+                        "ORDER BY i.id LIMIT ?",
+                ROW_MAPPER, partitions, partition, limit);
+    }
+
+    public void markDone(long id) {
+        jdbcTemplate.update("UPDATE webhook_inbox SET status = 'DONE', attempts = attempts + 1, processed_at = localtimestamp " +
+                "WHERE id = ?", id);
+    }
+
+    public void markFailed(long id, String error) {
+        jdbcTemplate.update("UPDATE webhook_inbox SET status = 'FAILED', attempts = attempts + 1, last_error = ?, " +
+                "processed_at = localtimestamp WHERE id = ?", truncate(error), id);
+    }
+
+    /**
+     * Devolve o evento para a fila, elegível de novo após {@code delayMs}.
+     */
+    public void markRetry(long id, String error, long delayMs) {
+        jdbcTemplate.update("UPDATE webhook_inbox SET attempts = attempts + 1, last_error = ?, " +
+                "available_at = localtimestamp + make_interval(secs => ? / 1000.0) WHERE id = ?", truncate(error), delayMs, id);
+    }
+
+    /**
+     * Quantidade de eventos PENDING e idade em segundos do mais antigo (0 se não houver).
+     */
+    public long[] pendingStats() {
+        return jdbcTemplate.query("SELECT COUNT(*), COALESCE(EXTRACT(EPOCH FROM localtimestamp - MIN(received_at)), 0)::bigint " +
+                "FROM webhook_inbox WHERE status = 'PENDING'", (ResultSetExtractor<long[]>) rs -> {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        });
+    }
+
+    /**
+     * Remove até {@code limit} eventos DONE processados antes de {@code before}.
+     */
+    public int purgeDone(LocalDateTime before, int limit) {
+        return jdbcTemplate.update("DELETE FROM webhook_inbox WHERE id IN (SELECT id FROM webhook_inbox " +
+                "WHERE status = 'DONE' AND processed_at < ? LIMIT ?)", Timestamp.valueOf(before), limit);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
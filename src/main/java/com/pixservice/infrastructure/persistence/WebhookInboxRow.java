@@ -0,0 +1,12 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.PixEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento PENDING de {@code webhook_inbox} pronto para processamento.
+ */
+public record WebhookInboxRow(long id, String eventId, String endToEndId, PixEventType eventType,
+                              LocalDateTime occurredAt, LocalDateTime receivedAt, int attempts) {
+}
@@ -0,0 +1,33 @@
+package com.pixservice.presentation;
+
+import com.pixservice.application.reconciliation.LedgerReconciliationReport;
+import com.pixservice.application.reconciliation.LedgerReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/reconciliation}: relatório da reconciliação do ledger em andamento ou da última concluída.
+ * {@code POST /actuator/reconciliation}: dispara uma execução em background.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+@RequiredArgsConstructor
+public class LedgerReconciliationEndpoint {
+
+    private final LedgerReconciliationService reconciliationService;
+
+    @ReadOperation
+    public LedgerReconciliationReport report() {
+        return reconciliationService.report();
+    }
+
+    @WriteOperation
+    public Map<String, Object> start() {
+        return Map.of("started", reconciliationService.reconcileAsync());
+    }
+}
@@ -1,7 +1,10 @@
 package com.pixservice.presentation;
 
+import com.pixservice.application.dto.PixTransferBatchRequest;
+import com.pixservice.application.dto.PixTransferBatchResponse;
 import com.pixservice.application.dto.PixTransferRequest;
 import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.service.PixTransferBatchService;
 import com.pixservice.application.service.PixTransferService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 public class PixTransferController {
 
     private final PixTransferService pixTransferService;
+    private final PixTransferBatchService pixTransferBatchService;
 
     @PostMapping
     public ResponseEntity<PixTransferResponse> initiatePixTransfer(
@@ -22,4 +26,13 @@ public class PixTransferController {
         PixTransferResponse response = pixTransferService.transfer(idempotencyKey, request);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
+
+    /**
+     * Lote de transferências, cada item com sua própria Idempotency-Key no corpo.
+     * Retorna 200 com o resultado de cada item (status HTTP equivalente por item).
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<PixTransferBatchResponse> initiatePixTransferBatch(@RequestBody PixTransferBatchRequest request) {
+        return ResponseEntity.ok(pixTransferBatchService.transferBatch(request));
+    }
 }
@@ -1,14 +1,23 @@
 package com.pixservice.presentation;
 
 import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.LedgerPageResponse;
 import com.pixservice.application.dto.WalletResponse;
+import com.pixservice.application.dto.WalletSummaryResponse;
+import com.pixservice.application.service.LedgerRollupService;
+import com.pixservice.application.service.LedgerStatementService;
+import com.pixservice.application.service.LedgerStatementService.ExportFormat;
 import com.pixservice.application.service.WalletService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @RestController
@@ -17,6 +26,8 @@ import java.time.LocalDateTime;
 public class WalletController {
 
     private final WalletService walletService;
+    private final LedgerStatementService ledgerStatementService;
+    private final LedgerRollupService ledgerRollupService;
 
     @PostMapping
     public ResponseEntity<WalletResponse> createWallet(@RequestBody CreateWalletRequest request) {
@@ -41,6 +52,44 @@ public class WalletController {
         }
     }
 
+    @GetMapping("/{id}/ledger")
+    public ResponseEntity<LedgerPageResponse> getLedger(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ledgerStatementService.getPage(id, cursor, limit));
+    }
+
+    /**
+     * Exportação completa do extrato ({@code format=ndjson|csv}), escrita em streaming.
+     */
+    @GetMapping(value = "/{id}/ledger", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportLedger(@PathVariable Long id, @RequestParam String format) {
+        ExportFormat exportFormat = LedgerStatementService.parseFormat(format);
+        ledgerStatementService.requireWallet(id);
+        StreamingResponseBody body = out -> ledgerStatementService.export(id, exportFormat, out);
+        if (exportFormat == ExportFormat.CSV) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"wallet-" + id + "-ledger.csv\"")
+                    .body(body);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Entradas e saídas por dia em [from, to] (padrão: últimos 30 dias), lidas dos totais materializados.
+     */
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<WalletSummaryResponse> getSummary(
+            @PathVariable Long id,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        LocalDate until = to != null ? to : LocalDate.now();
+        LocalDate since = from != null ? from : until.minusDays(29);
+        return ResponseEntity.ok(ledgerRollupService.summary(id, since, until));
+    }
+
     @PostMapping("/{id}/deposit")
     public ResponseEntity<WalletResponse> deposit(@PathVariable Long id, @RequestParam BigDecimal amount) {
         WalletResponse wallet = walletService.deposit(id, amount);
@@ -52,4 +101,10 @@ public class WalletController {
         WalletResponse wallet = walletService.withdraw(id, amount);
         return ResponseEntity.ok(wallet);
     }
+
+    @PostMapping("/{id}/stripes")
+    public ResponseEntity<WalletResponse> enableStriping(@PathVariable Long id, @RequestParam int count) {
+        WalletResponse wallet = walletService.enableStriping(id, count);
+        return ResponseEntity.ok(wallet);
+    }
 }
@@ -1,9 +1,14 @@
 package com.pixservice.presentation;
 
+import com.pixservice.application.dto.PixWebhookBatchRequest;
+import com.pixservice.application.dto.PixWebhookBatchResponse;
 import com.pixservice.application.dto.PixWebhookRequest;
 import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.inbox.WebhookInbox;
+import com.pixservice.application.service.WebhookBatchService;
 import com.pixservice.application.service.WebhookService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,10 +18,23 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class WebhookController {
 
+    private static final String INGESTION_INBOX = "inbox";
+
     private final WebhookService webhookService;
+    private final WebhookInbox webhookInbox;
+    private final WebhookBatchService webhookBatchService;
+
+    @Value("${pix.webhook.ingestion:sync}")
+    private String ingestion;
 
     @PostMapping
     public ResponseEntity<PixWebhookResponse> processPixWebhook(@RequestBody PixWebhookRequest request) {
+        if (INGESTION_INBOX.equals(ingestion)) {
+            // Só grava no inbox; o processamento segue nos workers (WebhookInboxWorkers)
+            webhookInbox.enqueue(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new PixWebhookResponse("ACCEPTED", "Evento recebido para processamento."));
+        }
         PixWebhookResponse response = webhookService.processWebhookEvent(request);
         if ("ERROR".equals(response.getStatus())) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
@@ -24,4 +42,13 @@ public class WebhookController {
             return ResponseEntity.ok(response);
         }
     }
+
+    /**
+     * Lote de eventos (janelas de liquidação): sempre processado na requisição, em uma transação, mesmo com
+     * {@code pix.webhook.ingestion=inbox}.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<PixWebhookBatchResponse> processPixWebhookBatch(@RequestBody PixWebhookBatchRequest request) {
+        return ResponseEntity.ok(webhookBatchService.processWebhookBatch(request));
+    }
 }
@@ -0,0 +1,63 @@
+-- ledger_entry passa a ser particionada por mês em created_at (RANGE). Novas linhas caem em partições
+-- mensais pequenas (ledger_entry_pYYYYMM) com índices rasos; consultas com faixa de created_at
+-- (saldo histórico, extrato por keyset, checkpoints) fazem partition pruning.
+--
+-- A tabela existente é anexada como partição ledger_entry_legacy cobrindo tudo até o fim do mês corrente,
+-- sem cópia de dados. Os meses seguintes são pré-criados aqui e depois pelo PartitionMaintenanceJob.
+-- A partição DEFAULT só existe para não rejeitar INSERTs caso a manutenção atrase; deve permanecer vazia.
+--
+-- pix_transaction, pix_event e idempotency_key não são particionadas: suas constraints UNIQUE
+-- (end_to_end_id, (event_id, end_to_end_id), key_value) garantem a idempotência e o PostgreSQL só as
+-- aplica entre partições se incluírem a coluna de particionamento.
+
+ALTER TABLE ledger_entry RENAME TO ledger_entry_legacy;
+-- A PK particionada é (id, created_at): a PK (id) da tabela antiga impediria o ATTACH ("multiple primary keys").
+-- Ela é trocada por uma PK (id, created_at) sobre índice único, que a PK do pai adota no ATTACH sem reconstruir
+CREATE UNIQUE INDEX ledger_entry_legacy_id_created ON ledger_entry_legacy (id, created_at);
+ALTER TABLE ledger_entry_legacy DROP CONSTRAINT ledger_entry_pkey;
+ALTER TABLE ledger_entry_legacy ADD CONSTRAINT ledger_entry_legacy_pkey PRIMARY KEY USING INDEX ledger_entry_legacy_id_created;
+ALTER INDEX IF EXISTS idx_ledger_wallet_created RENAME TO idx_ledger_legacy_wallet_created;
+ALTER INDEX IF EXISTS idx_ledger_transaction RENAME TO idx_ledger_legacy_transaction;
+
+CREATE TABLE ledger_entry (
+    id BIGINT NOT NULL DEFAULT nextval('ledger_entry_id_seq'),
+    wallet_id BIGINT NOT NULL REFERENCES wallet(id),
+    type VARCHAR(50) NOT NULL,
+    amount NUMERIC(19,2) NOT NULL,
+    balance_before NUMERIC(19,2) NOT NULL,
+    balance_after NUMERIC(19,2) NOT NULL,
+    transaction_id VARCHAR(255),
+    description VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    stripe_index INT,
+    CONSTRAINT ledger_entry_pkey PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE ledger_entry_id_seq OWNED BY ledger_entry.id;
+ALTER TABLE ledger_entry_legacy ALTER COLUMN id DROP DEFAULT;
+
+DO $$
+DECLARE
+    v_next_month DATE := (date_trunc('month', localtimestamp) + INTERVAL '1 month')::date;
+    v_month DATE;
+BEGIN
+    -- CHECK equivalente ao limite da partição, validado antes: o ATTACH o reaproveita e não varre a tabela
+    -- sob ACCESS EXCLUSIVE (o VALIDATE segura apenas SHARE UPDATE EXCLUSIVE)
+    EXECUTE format('ALTER TABLE ledger_entry_legacy ADD CONSTRAINT ledger_entry_legacy_range '
+                   'CHECK (created_at IS NOT NULL AND created_at < %L) NOT VALID', v_next_month);
+    ALTER TABLE ledger_entry_legacy VALIDATE CONSTRAINT ledger_entry_legacy_range;
+    EXECUTE format('ALTER TABLE ledger_entry ATTACH PARTITION ledger_entry_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   v_next_month);
+    ALTER TABLE ledger_entry_legacy DROP CONSTRAINT ledger_entry_legacy_range; -- redundante com o limite da partição
+    FOR i IN 0..2 LOOP
+        v_month := (v_next_month + make_interval(months => i))::date;
+        EXECUTE format('CREATE TABLE ledger_entry_p%s PARTITION OF ledger_entry FOR VALUES FROM (%L) TO (%L)',
+                       to_char(v_month, 'YYYYMM'), v_month, (v_month + INTERVAL '1 month')::date);
+    END LOOP;
+END$$;
+
+CREATE TABLE ledger_entry_default PARTITION OF ledger_entry DEFAULT;
+
+-- Índices particionados: os índices equivalentes da partição legada são anexados em vez de recriados
+CREATE INDEX idx_ledger_wallet_created ON ledger_entry (wallet_id, created_at);
+CREATE INDEX idx_ledger_transaction ON ledger_entry (transaction_id);
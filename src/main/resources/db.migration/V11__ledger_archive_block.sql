@@ -0,0 +1,29 @@
+-- Arquivamento de entradas antigas do ledger: as linhas de ledger_entry anteriores ao corte saem do banco e
+-- vão, por carteira, para blocos comprimidos em arquivos de segmento locais e append-only. Esta tabela é o
+-- índice desses blocos (arquivo, offset e tamanho) e guarda a soma de cada bloco, para que o saldo histórico
+-- e a reconciliação não precisem ler o arquivo quando o bloco inteiro fica antes do instante consultado.
+--
+-- archived_until: toda entrada da carteira com created_at < archived_until está arquivada; o limite da
+-- carteira é o maior archived_until entre seus blocos. As entradas de um bloco estão em ordem (created_at, id)
+-- e todas vêm antes das entradas de blocos posteriores e das que continuam em ledger_entry.
+--
+-- pending_amount_sum: parte de amount_sum que vem de lançamentos PENDING de crédito (DEPOSIT com
+-- transaction_id), que não alteram o saldo e ficam fora da reconciliação.
+
+CREATE TABLE IF NOT EXISTS ledger_archive_block (
+    id BIGSERIAL PRIMARY KEY,
+    wallet_id BIGINT NOT NULL REFERENCES wallet(id),
+    segment VARCHAR(255) NOT NULL,
+    block_offset BIGINT NOT NULL,
+    block_length INT NOT NULL,
+    checksum BIGINT NOT NULL,
+    entry_count INT NOT NULL,
+    amount_sum NUMERIC(19,2) NOT NULL,
+    pending_amount_sum NUMERIC(19,2) NOT NULL,
+    first_created_at TIMESTAMP NOT NULL,
+    last_created_at TIMESTAMP NOT NULL,
+    archived_until TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT localtimestamp
+);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_archive_block_wallet ON ledger_archive_block (wallet_id, last_created_at);
@@ -0,0 +1,63 @@
+-- Totais diários por carteira e tipo de lançamento (GET /wallets/{id}/summary), para não varrer ledger_entry.
+--
+-- Cada entrada conta em uma de duas colunas, conforme created_at e o instante live_from desta migração:
+--   created_at >= live_from  -> entry_count/credit_sum/debit_sum, incrementados pelo trigger no mesmo INSERT
+--   created_at <  live_from  -> backfill_*, sobrescritos pelo backfill (LedgerRollupService), que pode ser
+--                               repetido; como as colunas são separadas, o backfill nunca apaga incrementos
+--                               do trigger na mesma linha.
+--
+-- stripe_slot = COALESCE(stripe_index, -1): carteiras particionadas (V5) atualizam uma linha por sub-saldo,
+-- sem voltar a serializar os créditos concorrentes em uma única linha quente.
+-- Lançamentos PENDING de crédito (DEPOSIT com transaction_id) não movem saldo e ficam fora.
+-- Sem FK para wallet: é um dado derivado, e entradas arquivadas (V11) ou partições desanexadas (V10) continuam
+-- contadas aqui.
+
+CREATE TABLE IF NOT EXISTS ledger_daily_rollup (
+    wallet_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    stripe_slot INT NOT NULL,
+    entry_count BIGINT NOT NULL DEFAULT 0,
+    credit_sum NUMERIC(19,2) NOT NULL DEFAULT 0,
+    debit_sum NUMERIC(19,2) NOT NULL DEFAULT 0,
+    backfill_entry_count BIGINT NOT NULL DEFAULT 0,
+    backfill_credit_sum NUMERIC(19,2) NOT NULL DEFAULT 0,
+    backfill_debit_sum NUMERIC(19,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (wallet_id, day, type, stripe_slot)
+);
+
+CREATE TABLE IF NOT EXISTS ledger_daily_rollup_state (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    live_from TIMESTAMP NOT NULL,
+    backfilled_at TIMESTAMP
+);
+
+INSERT INTO ledger_daily_rollup_state (live_from) VALUES (localtimestamp) ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION ledger_daily_rollup_increment()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF NEW.type = 'DEPOSIT' AND NEW.transaction_id IS NOT NULL THEN
+        RETURN NULL;
+    END IF;
+    IF NEW.created_at < (SELECT s.live_from FROM ledger_daily_rollup_state s) THEN
+        RETURN NULL;
+    END IF;
+
+    INSERT INTO ledger_daily_rollup AS r (wallet_id, day, type, stripe_slot, entry_count, credit_sum, debit_sum)
+    VALUES (NEW.wallet_id, NEW.created_at::date, NEW.type, COALESCE(NEW.stripe_index, -1), 1,
+            GREATEST(NEW.amount, 0), LEAST(NEW.amount, 0))
+    ON CONFLICT (wallet_id, day, type, stripe_slot) DO UPDATE
+       SET entry_count = r.entry_count + 1,
+           credit_sum = r.credit_sum + EXCLUDED.credit_sum,
+           debit_sum = r.debit_sum + EXCLUDED.debit_sum;
+    RETURN NULL;
+END;
+$$;
+
+-- Trigger no pai particionado: vale para todas as partições, atuais e futuras
+CREATE TRIGGER trg_ledger_daily_rollup
+    AFTER INSERT ON ledger_entry
+    FOR EACH ROW EXECUTE FUNCTION ledger_daily_rollup_increment();
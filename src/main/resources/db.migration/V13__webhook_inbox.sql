@@ -0,0 +1,35 @@
+-- Ingestão assíncrona de webhooks (pix.webhook.ingestion=inbox): o POST /pix/webhook só grava o evento aqui e
+-- responde 202; os workers processam as linhas PENDING pelo WebhookService.
+--
+-- slot = floorMod(hash(end_to_end_id), 1024). Cada partição (slot % pix.webhook.inbox.partitions) é processada por
+-- um único worker por vez, dono do lease em webhook_inbox_lease; assim os eventos de uma transação seguem em ordem
+-- de id e transações diferentes rodam em paralelo. Uma linha só é elegível se não houver linha PENDING anterior da
+-- mesma transação, o que mantém a ordem também quando um evento volta para retry.
+--
+-- status: PENDING -> DONE, ou FAILED após pix.webhook.inbox.max-attempts (fica para análise, não é reprocessada).
+
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    end_to_end_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    occurred_at TIMESTAMP,
+    slot INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000),
+    received_at TIMESTAMP NOT NULL,
+    available_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP,
+    CONSTRAINT uk_webhook_inbox_event UNIQUE (event_id, end_to_end_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pending ON webhook_inbox (id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pending_e2e ON webhook_inbox (end_to_end_id, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_processed ON webhook_inbox (processed_at) WHERE status = 'DONE';
+
+CREATE TABLE IF NOT EXISTS webhook_inbox_lease (
+    partition_no INT PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    lease_until TIMESTAMP NOT NULL
+);
@@ -0,0 +1,19 @@
+-- Sub-saldos (stripes) para carteiras quentes: o saldo efetivo de uma carteira particionada
+-- é wallet.balance + soma de wallet_stripe.balance, permitindo débitos/créditos concorrentes
+-- sem serializar tudo no lock da linha de wallet.
+
+ALTER TABLE wallet ADD COLUMN IF NOT EXISTS stripe_count INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS wallet_stripe (
+    id BIGSERIAL PRIMARY KEY,
+    wallet_id BIGINT NOT NULL REFERENCES wallet(id),
+    stripe_index INT NOT NULL,
+    balance NUMERIC(19,2) NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_wallet_stripe_wallet_index UNIQUE (wallet_id, stripe_index)
+);
+
+-- Entradas de ledger de carteiras particionadas registram o sub-saldo afetado;
+-- NULL indica o saldo principal (wallet.balance)
+ALTER TABLE ledger_entry ADD COLUMN IF NOT EXISTS stripe_index INT;
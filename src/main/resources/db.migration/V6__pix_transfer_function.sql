@@ -0,0 +1,134 @@
+-- Plano de escrita da transferência Pix em uma única ida ao banco (pix.transfer.engine=db-function).
+-- Executa idempotência, validação, débito, ledger, transação e evento INITIATED dentro do servidor,
+-- de modo que o lock da carteira de origem fica retido apenas pelos INSERTs locais e pelo COMMIT.
+--
+-- Resultados (coluna outcome):
+--   CREATED            transferência criada; response_body = resposta provisória informada
+--   REPLAY             chave de idempotência já existente; response_body = resposta armazenada
+--   SOURCE_NOT_FOUND   carteira de origem inexistente
+--   KEY_NOT_FOUND      chave Pix de destino inexistente
+--   SAME_WALLET        origem e destino são a mesma carteira
+--   DUPLICATE          transferência idêntica CONFIRMED dentro da janela; detail = endToEndId anterior
+--   INSUFFICIENT_FUNDS saldo insuficiente (a chave de idempotência reservada é removida)
+--   STRIPED            origem ou destino particionados; a aplicação segue pelo caminho JPA
+
+CREATE OR REPLACE FUNCTION pix_transfer(
+    p_idempotency_key VARCHAR,
+    p_end_to_end_id VARCHAR,
+    p_from_wallet_id BIGINT,
+    p_to_pix_key VARCHAR,
+    p_amount NUMERIC,
+    p_response_body TEXT,
+    p_event_id VARCHAR,
+    p_duplicate_window_minutes INT
+)
+RETURNS TABLE (outcome VARCHAR, response_body TEXT, detail VARCHAR)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_from_user_id VARCHAR;
+    v_from_stripe_count INT;
+    v_to_wallet_id BIGINT;
+    v_to_key_type VARCHAR;
+    v_to_balance NUMERIC;
+    v_to_stripe_count INT;
+    v_balance_after NUMERIC;
+BEGIN
+    SELECT ik.response_body INTO response_body
+      FROM idempotency_key ik WHERE ik.key_value = p_idempotency_key;
+    IF FOUND THEN
+        outcome := 'REPLAY';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    SELECT w.user_id, w.stripe_count INTO v_from_user_id, v_from_stripe_count
+      FROM wallet w WHERE w.id = p_from_wallet_id;
+    IF NOT FOUND THEN
+        outcome := 'SOURCE_NOT_FOUND';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    SELECT k.wallet_id, k.type, w.balance, w.stripe_count
+      INTO v_to_wallet_id, v_to_key_type, v_to_balance, v_to_stripe_count
+      FROM pix_key k JOIN wallet w ON w.id = k.wallet_id
+     WHERE k.key_value = p_to_pix_key;
+    IF NOT FOUND THEN
+        outcome := 'KEY_NOT_FOUND';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    IF v_to_wallet_id = p_from_wallet_id THEN
+        outcome := 'SAME_WALLET';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    IF v_from_stripe_count > 0 OR v_to_stripe_count > 0 THEN
+        outcome := 'STRIPED';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    IF p_duplicate_window_minutes > 0 THEN
+        SELECT pt.end_to_end_id INTO detail
+          FROM pix_transaction pt
+         WHERE pt.from_wallet_id = p_from_wallet_id
+           AND pt.to_pix_key = p_to_pix_key
+           AND pt.amount = p_amount
+           AND pt.status = 'CONFIRMED'
+           AND pt.initiated_at > localtimestamp - make_interval(mins => p_duplicate_window_minutes)
+         ORDER BY pt.initiated_at DESC
+         LIMIT 1;
+        IF FOUND THEN
+            outcome := 'DUPLICATE';
+            RETURN NEXT;
+            RETURN;
+        END IF;
+    END IF;
+
+    -- Reserva da chave: uma requisição concorrente com a mesma chave espera o COMMIT da outra e vira REPLAY
+    INSERT INTO idempotency_key (key_value, response_body, http_status, created_at)
+    VALUES (p_idempotency_key, p_response_body, 202, localtimestamp)
+    ON CONFLICT (key_value) DO NOTHING;
+    IF NOT FOUND THEN
+        SELECT ik.response_body INTO response_body
+          FROM idempotency_key ik WHERE ik.key_value = p_idempotency_key;
+        outcome := 'REPLAY';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    -- Débito condicional: o lock da linha de wallet começa aqui
+    UPDATE wallet
+       SET balance = balance - p_amount, updated_at = localtimestamp, version = version + 1
+     WHERE id = p_from_wallet_id AND balance >= p_amount AND stripe_count = 0
+    RETURNING balance INTO v_balance_after;
+    IF NOT FOUND THEN
+        DELETE FROM idempotency_key WHERE key_value = p_idempotency_key;
+        outcome := 'INSUFFICIENT_FUNDS';
+        RETURN NEXT;
+        RETURN;
+    END IF;
+
+    INSERT INTO ledger_entry (wallet_id, type, amount, balance_before, balance_after, transaction_id, description, created_at)
+    VALUES (p_from_wallet_id, 'WITHDRAWAL', -p_amount, v_balance_after + p_amount, v_balance_after, p_end_to_end_id,
+            'Débito Pix - Transferência para ' || p_to_pix_key, localtimestamp),
+           (v_to_wallet_id, 'DEPOSIT', p_amount, v_to_balance, v_to_balance + p_amount, p_end_to_end_id,
+            'Crédito Pix - Transferência de ' || v_from_user_id || ' (PENDING)', localtimestamp);
+
+    INSERT INTO pix_transaction (end_to_end_id, from_wallet_id, to_wallet_id, to_pix_key, to_pix_key_type,
+                                 amount, status, idempotency_key, initiated_at, last_update_at, version)
+    VALUES (p_end_to_end_id, p_from_wallet_id, v_to_wallet_id, p_to_pix_key, v_to_key_type,
+            p_amount, 'PENDING', p_idempotency_key, localtimestamp, localtimestamp, 0);
+
+    INSERT INTO pix_event (event_id, end_to_end_id, event_type, occurred_at, received_at)
+    VALUES (p_event_id, p_end_to_end_id, 'INITIATED', localtimestamp, localtimestamp);
+
+    outcome := 'CREATED';
+    response_body := p_response_body;
+    RETURN NEXT;
+END;
+$$;
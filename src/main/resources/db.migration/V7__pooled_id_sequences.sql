@@ -0,0 +1,22 @@
+-- IDs por sequência com otimizador pooled do Hibernate (allocationSize = 50): cada nextval reserva
+-- um bloco de 50 ids em memória, o que libera o batching de INSERTs (IDENTITY exige uma ida ao banco por linha).
+-- As sequências dos BIGSERIAL são reaproveitadas; o INCREMENT precisa ser igual ao allocationSize das entidades.
+-- INSERTs sem id (JdbcTemplate, função pix_transfer) continuam usando o DEFAULT nextval da coluna.
+
+ALTER SEQUENCE wallet_id_seq INCREMENT BY 50;
+SELECT setval('wallet_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM wallet), (SELECT last_value FROM wallet_id_seq)));
+
+ALTER SEQUENCE pix_key_id_seq INCREMENT BY 50;
+SELECT setval('pix_key_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM pix_key), (SELECT last_value FROM pix_key_id_seq)));
+
+ALTER SEQUENCE ledger_entry_id_seq INCREMENT BY 50;
+SELECT setval('ledger_entry_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM ledger_entry), (SELECT last_value FROM ledger_entry_id_seq)));
+
+ALTER SEQUENCE pix_event_id_seq INCREMENT BY 50;
+SELECT setval('pix_event_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM pix_event), (SELECT last_value FROM pix_event_id_seq)));
+
+ALTER SEQUENCE idempotency_key_id_seq INCREMENT BY 50;
+SELECT setval('idempotency_key_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM idempotency_key), (SELECT last_value FROM idempotency_key_id_seq)));
+
+ALTER SEQUENCE wallet_stripe_id_seq INCREMENT BY 50;
+SELECT setval('wallet_stripe_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM wallet_stripe), (SELECT last_value FROM wallet_stripe_id_seq)));
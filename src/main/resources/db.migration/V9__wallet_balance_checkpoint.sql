@@ -0,0 +1,14 @@
+-- Fechamento diário de saldo por carteira: o saldo histórico em um instante passa a ser o checkpoint
+-- mais próximo anterior a ele somado apenas às entradas de ledger posteriores ao checkpoint.
+-- balance = soma de ledger_entry.amount com created_at < checkpoint_at.
+
+CREATE TABLE IF NOT EXISTS wallet_balance_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    wallet_id BIGINT NOT NULL REFERENCES wallet(id),
+    checkpoint_at TIMESTAMP NOT NULL,
+    balance NUMERIC(19,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_wallet_balance_checkpoint_wallet_at UNIQUE (wallet_id, checkpoint_at)
+);
+
+ALTER SEQUENCE wallet_balance_checkpoint_id_seq INCREMENT BY 50;
@@ -0,0 +1,61 @@
+package com.pixservice.infrastructure.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    @Test
+    void shouldClassifyPinnedStackByLayerAndOrigin() {
+        List<String> jdbcStack = List.of(
+                "java.lang.Object.wait",
+                "org.postgresql.core.v3.QueryExecutorImpl.execute",
+                "org.hibernate.engine.jdbc.internal.ResultSetReturnImpl.executeQuery",
+                "com.pixservice.application.service.PixTransferService$$SpringCGLIB$$0.transfer",
+                "com.pixservice.application.service.PixTransferService.processTransfer");
+
+        assertEquals("jdbc", VirtualThreadPinningMonitor.layerOf(jdbcStack));
+        assertEquals("PixTransferService.processTransfer", VirtualThreadPinningMonitor.originOf(jdbcStack));
+        assertEquals("hibernate", VirtualThreadPinningMonitor.layerOf(List.of("org.hibernate.internal.SessionImpl.flush")));
+        assertEquals("other", VirtualThreadPinningMonitor.layerOf(List.of("java.lang.Thread.sleep")));
+        assertEquals("none", VirtualThreadPinningMonitor.originOf(List.of("java.lang.Thread.sleep")));
+    }
+
+    @Test
+    void shouldReportVirtualThreadBlockedInsideSynchronized() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(registry, 10);
+        monitor.start();
+        try {
+            Object lock = new Object();
+            Thread pinned = Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(100); // bloqueio dentro de synchronized prende a carrier
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            pinned.join();
+
+            // O JFR entrega os eventos em lotes (~1s)
+            long deadline = System.currentTimeMillis() + 15_000;
+            while (pinnedCount(registry) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(pinnedCount(registry) >= 1, "pinning deve ser reportado");
+        } finally {
+            monitor.stop();
+        }
+    }
+
+    private double pinnedCount(SimpleMeterRegistry registry) {
+        return registry.find("pix.virtual-thread.pinned").counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
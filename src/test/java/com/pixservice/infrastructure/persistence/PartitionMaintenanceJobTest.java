@@ -0,0 +1,110 @@
+package com.pixservice.infrastructure.persistence;
+
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partições mensais de ledger_entry: meses futuros pré-criados, linhas roteadas para a partição do mês e linhas
+ * que caíram na DEFAULT movidas para a partição criada com atraso.
+ */
+@SpringBootTest(properties = "pix.partition.months-ahead=4")
+@org.springframework.test.context.ActiveProfiles("test")
+class PartitionMaintenanceJobTest {
+
+    @Autowired
+    private PartitionMaintenanceJob partitionMaintenanceJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @AfterEach
+    void tearDown() {
+        ledgerEntryRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPreCreateFutureMonthlyPartitions() {
+        partitionMaintenanceJob.maintain();
+        partitionMaintenanceJob.maintain(); // idempotente
+
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'ledger_entry'", String.class);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(partitions.contains(partitionOf(YearMonth.now().plusMonths(i))), "partição ausente para +" + i);
+        }
+        assertTrue(partitions.contains("ledger_entry_legacy"));
+        assertTrue(partitions.contains("ledger_entry_default"));
+    }
+
+    @Test
+    void shouldRouteRowsToMonthlyPartitionAndPrune() {
+        partitionMaintenanceJob.maintain();
+        Wallet wallet = walletRepository.save(new Wallet("partition-user", Money.ZERO));
+        LocalDateTime future = YearMonth.now().plusMonths(2).atDay(10).atTime(12, 0);
+        LedgerEntry entry = LedgerEntry.deposit(wallet, Money.of("10.00"), Money.ZERO, Money.of("10.00"), "Teste partição");
+        entry.setCreatedAt(future);
+        ledgerEntryRepository.save(entry);
+
+        String partition = jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM ledger_entry WHERE wallet_id = ?", String.class, wallet.getId());
+        assertEquals(partitionOf(YearMonth.from(future)), partition);
+
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM ledger_entry WHERE wallet_id = " + wallet.getId() +
+                        " AND created_at >= '" + future.minusDays(1) + "' AND created_at < '" + future.plusDays(1) + "'",
+                String.class));
+        assertTrue(plan.contains(partition));
+        assertFalse(plan.contains("ledger_entry_legacy"), plan);
+    }
+
+    @Test
+    void shouldMoveDefaultRowsIntoLateCreatedPartition() {
+        partitionMaintenanceJob.maintain();
+        Wallet wallet = walletRepository.save(new Wallet("partition-late-user", Money.ZERO));
+        YearMonth late = YearMonth.now().plusMonths(6); // além de months-ahead: cai na DEFAULT
+        LedgerEntry entry = LedgerEntry.deposit(wallet, Money.of("10.00"), Money.ZERO, Money.of("10.00"), "Teste DEFAULT");
+        entry.setCreatedAt(late.atDay(5).atTime(9, 0));
+        ledgerEntryRepository.save(entry);
+        assertEquals("ledger_entry_default", jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM ledger_entry WHERE wallet_id = ?", String.class, wallet.getId()));
+
+        ReflectionTestUtils.setField(partitionMaintenanceJob, "monthsAhead", 6);
+        try {
+            partitionMaintenanceJob.maintain();
+        } finally {
+            ReflectionTestUtils.setField(partitionMaintenanceJob, "monthsAhead", 4);
+        }
+
+        assertEquals(partitionOf(late), jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM ledger_entry WHERE wallet_id = ?", String.class, wallet.getId()));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT count(*) FROM ledger_entry_default", Long.class));
+    }
+
+    private static String partitionOf(YearMonth month) {
+        return "ledger_entry_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.pixservice.model;
+
+import com.pixservice.domain.model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void shouldConvertFromAndToBigDecimalKeepingScale() {
+        Money money = Money.of(new BigDecimal("10.5"));
+        assertEquals(1050L, money.cents());
+        assertEquals(new BigDecimal("10.50"), money.toBigDecimal());
+        assertEquals("10.50", money.toString());
+    }
+
+    @Test
+    void shouldRejectMoreThanTwoDecimals() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> Money.of("1.001"));
+        assertEquals("Valor monetário inválido: 1.001.", exception.getMessage());
+    }
+
+    @Test
+    void shouldAddSubtractAndCompare() {
+        Money balance = Money.of("100.00");
+        Money amount = Money.of("30.01");
+
+        assertEquals(Money.of("130.01"), balance.plus(amount));
+        assertEquals(Money.of("69.99"), balance.minus(amount));
+        assertEquals(Money.of("-30.01"), amount.negate());
+        assertTrue(amount.isLessThan(balance));
+        assertTrue(amount.isPositive());
+        assertEquals(0, Money.ZERO.signum());
+        assertEquals(amount, balance.min(amount));
+    }
+
+    @Test
+    void shouldTruncateDivisionTowardsZero() {
+        assertEquals(Money.of("33.33"), Money.of("100.00").dividedBy(3));
+        assertEquals(Money.of("-33.33"), Money.of("-100.00").dividedBy(3));
+        assertEquals(Money.of("200.00"), Money.of("100.00").times(2));
+    }
+
+    @Test
+    void shouldFailOnOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.ofCents(Long.MAX_VALUE).plus(Money.ofCents(1)));
+    }
+}
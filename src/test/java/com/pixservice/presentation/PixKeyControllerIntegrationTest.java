@@ -1,7 +1,9 @@
 package com.pixservice.presentation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixservice.application.cache.PixKeyCache;
 import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.PixKey;
 import com.pixservice.domain.model.PixKeyType;
 import com.pixservice.domain.model.Wallet;
@@ -15,7 +17,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.math.BigDecimal;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +29,9 @@ class PixKeyControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private PixKeyCache pixKeyCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -56,7 +60,7 @@ class PixKeyControllerIntegrationTest {
     void setUp() {
         cleanupDatabase();
 
-        existingWallet = new Wallet("testUser", new BigDecimal("100.00"));
+        existingWallet = new Wallet("testUser", Money.of("100.00"));
         existingWallet = walletRepository.save(existingWallet);
 
         existingPixKey = new PixKey("test@email.com", PixKeyType.EMAIL, existingWallet);
@@ -76,6 +80,7 @@ class PixKeyControllerIntegrationTest {
         ledgerEntryRepository.deleteAll();
         pixKeyRepository.deleteAll();
         walletRepository.deleteAll();
+        pixKeyCache.invalidateAll(); // chaves gravadas direto no repositório não passam pelo write-through
     }
 
     @Test
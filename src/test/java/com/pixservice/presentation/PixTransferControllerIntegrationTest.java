@@ -1,8 +1,14 @@
 package com.pixservice.presentation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixservice.application.cache.PixKeyCache;
+import com.pixservice.application.dto.PixTransferBatchItem;
+import com.pixservice.application.dto.PixTransferBatchRequest;
 import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.service.PixTransferBatchService;
+import com.pixservice.application.service.PixTransferService;
 import com.pixservice.domain.model.IdempotencyKey;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.PixKey;
 import com.pixservice.domain.model.PixKeyType;
 import com.pixservice.domain.model.Wallet;
@@ -14,15 +20,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,6 +47,9 @@ class PixTransferControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private PixKeyCache pixKeyCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -63,10 +79,10 @@ class PixTransferControllerIntegrationTest {
     void setUp() {
         cleanupDatabase();
 
-        fromWallet = new Wallet("user1", new BigDecimal("1000.00"));
+        fromWallet = new Wallet("user1", Money.of("1000.00"));
         fromWallet = walletRepository.save(fromWallet);
 
-        toWallet = new Wallet("user2", new BigDecimal("500.00"));
+        toWallet = new Wallet("user2", Money.of("500.00"));
         toWallet = walletRepository.save(toWallet);
 
         toPixKey = new PixKey("recipient@email.com", PixKeyType.EMAIL, toWallet);
@@ -86,6 +102,7 @@ class PixTransferControllerIntegrationTest {
         ledgerEntryRepository.deleteAll();
         pixKeyRepository.deleteAll();
         walletRepository.deleteAll();
+        pixKeyCache.invalidateAll(); // chaves gravadas direto no repositório não passam pelo write-through
     }
 
     @Test
@@ -108,7 +125,7 @@ class PixTransferControllerIntegrationTest {
 
         // Verify that the fromWallet balance is updated
         Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
-        assertEquals(new BigDecimal("900.00"), updatedFromWallet.getBalance());
+        assertEquals(Money.of("900.00"), updatedFromWallet.getBalance());
     }
 
     @Test
@@ -134,7 +151,7 @@ class PixTransferControllerIntegrationTest {
 
         // Verify that the fromWallet balance is updated only once
         Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
-        assertEquals(new BigDecimal("900.00"), updatedFromWallet.getBalance());
+        assertEquals(Money.of("900.00"), updatedFromWallet.getBalance());
     }
 
     @Test
@@ -175,4 +192,91 @@ class PixTransferControllerIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Chave Pix de destino não encontrada."));
     }
+
+    @Test
+    void shouldProcessTransferBatchWithPerItemResults() throws Exception {
+        String firstKey = UUID.randomUUID().toString();
+        String secondKey = UUID.randomUUID().toString();
+        PixTransferBatchRequest request = new PixTransferBatchRequest(List.of(
+                new PixTransferBatchItem(firstKey, fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("100.00")),
+                new PixTransferBatchItem(secondKey, fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("250.00")),
+                new PixTransferBatchItem(UUID.randomUUID().toString(), fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("5000.00")),
+                new PixTransferBatchItem(UUID.randomUUID().toString(), fromWallet.getId(), "nonexistent@email.com", new BigDecimal("10.00")),
+                new PixTransferBatchItem(firstKey, fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("100.00"))));
+
+        mockMvc.perform(post("/pix/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].httpStatus").value(202))
+                .andExpect(jsonPath("$.results[0].status").value("PENDING"))
+                .andExpect(jsonPath("$.results[1].httpStatus").value(202))
+                .andExpect(jsonPath("$.results[2].httpStatus").value(409))
+                .andExpect(jsonPath("$.results[2].error").value("Saldo insuficiente."))
+                .andExpect(jsonPath("$.results[3].httpStatus").value(400))
+                .andExpect(jsonPath("$.results[3].error").value("Chave Pix de destino não encontrada."))
+                .andExpect(jsonPath("$.results[4].endToEndId").value(
+                        PixTransferService.endToEndIdFor(firstKey)));
+
+        Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
+        assertEquals(Money.of("650.00"), updatedFromWallet.getBalance());
+        assertEquals(2, pixTransactionRepository.count());
+        assertEquals(2, pixEventRepository.count());
+        assertEquals(2, idempotencyKeyRepository.count(), "Itens recusados não devem reservar a Idempotency-Key");
+        assertEquals(4, ledgerEntryRepository.count()); // débito + crédito pendente por transferência
+    }
+
+    @Test
+    void shouldReplayBatchItemsAlreadyProcessed() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        mockMvc.perform(post("/pix/transfers")
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new PixTransferRequest(fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("100.00")))))
+                .andExpect(status().isAccepted());
+
+        PixTransferBatchRequest request = new PixTransferBatchRequest(List.of(
+                new PixTransferBatchItem(idempotencyKey, fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("100.00"))));
+        mockMvc.perform(post("/pix/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("PENDING"));
+
+        assertEquals(Money.of("900.00"), walletRepository.findById(fromWallet.getId()).orElseThrow().getBalance());
+        assertEquals(1, pixTransactionRepository.count());
+    }
+
+    @Test
+    void shouldRejectEmptyTransferBatch() throws Exception {
+        mockMvc.perform(post("/pix/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PixTransferBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("O lote de transferências está vazio."));
+    }
+
+    @Test
+    void shouldReturnRetryableStatusWhenBatchCannotLockWallet() throws Exception {
+        // NOWAIT da consolidação de sub-saldos: o lote inteiro foi desfeito e pode ser reenviado
+        PixTransferBatchService batchService = mock(PixTransferBatchService.class);
+        when(batchService.transferBatch(any())).thenThrow(new CannotAcquireLockException("could not obtain lock on row in relation \"wallet\""));
+        MockMvc standaloneMockMvc = MockMvcBuilders
+                .standaloneSetup(new PixTransferController(mock(PixTransferService.class), batchService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        PixTransferBatchRequest request = new PixTransferBatchRequest(List.of(
+                new PixTransferBatchItem(UUID.randomUUID().toString(), fromWallet.getId(), toPixKey.getKeyValue(), new BigDecimal("10.00"))));
+        standaloneMockMvc.perform(post("/pix/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().string("Carteira ocupada por outra operação, tente novamente em instantes."));
+    }
 }
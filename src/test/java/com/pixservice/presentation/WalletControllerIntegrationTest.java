@@ -2,6 +2,7 @@ package com.pixservice.presentation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.Wallet;
 import com.pixservice.domain.repository.WalletRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +12,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -54,7 +58,7 @@ class WalletControllerIntegrationTest {
     @BeforeEach
     void setUp() {
         cleanupDatabase();
-        existingWallet = new Wallet("testUser", new BigDecimal("500.00"));
+        existingWallet = new Wallet("testUser", Money.of("500.00"));
         existingWallet = walletRepository.save(existingWallet);
     }
 
@@ -112,7 +116,7 @@ class WalletControllerIntegrationTest {
                 .andExpect(jsonPath("$.balance").value(600.00));
 
         Wallet updatedWallet = walletRepository.findById(existingWallet.getId()).orElseThrow();
-        assertEquals(new BigDecimal("600.00"), updatedWallet.getBalance());
+        assertEquals(Money.of("600.00"), updatedWallet.getBalance());
     }
 
     @Test
@@ -123,7 +127,7 @@ class WalletControllerIntegrationTest {
                 .andExpect(jsonPath("$.balance").value(300.00));
 
         Wallet updatedWallet = walletRepository.findById(existingWallet.getId()).orElseThrow();
-        assertEquals(new BigDecimal("300.00"), updatedWallet.getBalance());
+        assertEquals(Money.of("300.00"), updatedWallet.getBalance());
     }
 
     @Test
@@ -133,4 +137,61 @@ class WalletControllerIntegrationTest {
                 .andExpect(status().isConflict())
                 .andExpect(content().string("Saldo insuficiente."));
     }
+
+    @Test
+    void shouldPageLedgerWithCursor() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            mockMvc.perform(post("/wallets/{id}/deposit", existingWallet.getId()).param("amount", i + ".00"))
+                    .andExpect(status().isOk());
+        }
+
+        MvcResult first = mockMvc.perform(get("/wallets/{id}/ledger", existingWallet.getId()).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0].amount").value(5.00))
+                .andReturn();
+        String cursor = objectMapper.readTree(first.getResponse().getContentAsString()).get("nextCursor").asText();
+        assertNotNull(cursor);
+
+        mockMvc.perform(get("/wallets/{id}/ledger", existingWallet.getId()).param("limit", "3").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].amount").value(1.00))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectInvalidLedgerCursor() throws Exception {
+        mockMvc.perform(get("/wallets/{id}/ledger", existingWallet.getId()).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cursor de paginação inválido."));
+    }
+
+    @Test
+    void shouldExportLedgerAsNdjsonAndCsv() throws Exception {
+        mockMvc.perform(post("/wallets/{id}/deposit", existingWallet.getId()).param("amount", "10.00"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/wallets/{id}/withdraw", existingWallet.getId()).param("amount", "4.00"))
+                .andExpect(status().isOk());
+
+        MvcResult ndjson = mockMvc.perform(get("/wallets/{id}/ledger", existingWallet.getId()).param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("WITHDRAWAL", objectMapper.readTree(lines[0]).get("type").asText());
+
+        MvcResult csv = mockMvc.perform(get("/wallets/{id}/ledger", existingWallet.getId()).param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csvBody = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(3, csvBody.trim().split("\n").length);
+        assertEquals("id,type,amount,balanceBefore,balanceAfter,transactionId,description,createdAt", csvBody.split("\n")[0]);
+    }
 }
@@ -1,6 +1,7 @@
 package com.pixservice.presentation;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pixservice.application.cache.PixKeyCache;
 import com.pixservice.application.dto.PixTransferRequest;
 import com.pixservice.application.dto.PixWebhookRequest;
 import com.pixservice.domain.model.*;
@@ -33,6 +34,9 @@ class WebhookControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private PixKeyCache pixKeyCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -62,12 +66,13 @@ class WebhookControllerIntegrationTest {
         pixTransactionRepository.deleteAll();
         pixKeyRepository.deleteAll();
         walletRepository.deleteAll();
+        pixKeyCache.invalidateAll(); // chaves gravadas direto no repositório não passam pelo write-through
         idempotencyKeyRepository.deleteAll();
 
-        fromWallet = new Wallet("user1", new BigDecimal("1000.00"));
+        fromWallet = new Wallet("user1", Money.of("1000.00"));
         fromWallet = walletRepository.save(fromWallet);
 
-        toWallet = new Wallet("user2", new BigDecimal("500.00"));
+        toWallet = new Wallet("user2", Money.of("500.00"));
         toWallet = walletRepository.save(toWallet);
 
         toPixKey = new PixKey("recipient@email.com", PixKeyType.EMAIL, toWallet);
@@ -105,14 +110,14 @@ class WebhookControllerIntegrationTest {
         Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
         Wallet updatedToWallet = walletRepository.findById(toWallet.getId()).orElseThrow();
 
-        assertEquals(new BigDecimal("900.00"), updatedFromWallet.getBalance()); // Debited in initial transfer
-        assertEquals(new BigDecimal("600.00"), updatedToWallet.getBalance()); // Credited in webhook
+        assertEquals(Money.of("900.00"), updatedFromWallet.getBalance()); // Debited in initial transfer
+        assertEquals(Money.of("600.00"), updatedToWallet.getBalance()); // Credited in webhook
 
         List<LedgerEntry> ledgerEntries = ledgerEntryRepository.findByWalletOrderByCreatedAtDesc(updatedToWallet);
         assertFalse(ledgerEntries.isEmpty(), "Deve haver pelo menos 1 ledger entry");
         assertTrue(ledgerEntries.stream().anyMatch(entry ->
                         entry.getType() == LedgerEntryType.PIX_TRANSFER_IN &&
-                                entry.getAmount().compareTo(new BigDecimal("100.00")) == 0),
+                                entry.getAmount().compareTo(Money.of("100.00")) == 0),
                 "Deve haver um ledger entry PIX_TRANSFER_IN de 100.00. Entries encontrados: " + ledgerEntries.size());
     }
 
@@ -134,11 +139,11 @@ class WebhookControllerIntegrationTest {
         Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
         Wallet updatedToWallet = walletRepository.findById(toWallet.getId()).orElseThrow();
 
-        assertEquals(new BigDecimal("1000.00"), updatedFromWallet.getBalance()); // Debited in initial transfer, then refunded
-        assertEquals(new BigDecimal("500.00"), updatedToWallet.getBalance()); // Not credited
+        assertEquals(Money.of("1000.00"), updatedFromWallet.getBalance()); // Debited in initial transfer, then refunded
+        assertEquals(Money.of("500.00"), updatedToWallet.getBalance()); // Not credited
 
         List<LedgerEntry> ledgerEntries = ledgerEntryRepository.findByWalletOrderByCreatedAtDesc(updatedFromWallet);
-        assertTrue(ledgerEntries.stream().anyMatch(entry -> entry.getType() == LedgerEntryType.PIX_TRANSFER_REVERSAL && entry.getAmount().compareTo(new BigDecimal("100.00")) == 0));
+        assertTrue(ledgerEntries.stream().anyMatch(entry -> entry.getType() == LedgerEntryType.PIX_TRANSFER_REVERSAL && entry.getAmount().compareTo(Money.of("100.00")) == 0));
     }
 
     @Test
@@ -161,7 +166,7 @@ class WebhookControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Evento já processado."));
 
         Wallet updatedToWallet = walletRepository.findById(toWallet.getId()).orElseThrow();
-        assertEquals(new BigDecimal("600.00"), updatedToWallet.getBalance()); // Balance should only be credited once
+        assertEquals(Money.of("600.00"), updatedToWallet.getBalance()); // Balance should only be credited once
     }
 
     @Test
@@ -192,7 +197,7 @@ class WebhookControllerIntegrationTest {
         Wallet updatedFromWallet = walletRepository.findById(fromWallet.getId()).orElseThrow();
         Wallet updatedToWallet = walletRepository.findById(toWallet.getId()).orElseThrow();
 
-        assertEquals(new BigDecimal("1000.00"), updatedFromWallet.getBalance()); // Refunded
-        assertEquals(new BigDecimal("500.00"), updatedToWallet.getBalance()); // Not credited
+        assertEquals(Money.of("1000.00"), updatedFromWallet.getBalance()); // Refunded
+        assertEquals(Money.of("500.00"), updatedToWallet.getBalance()); // Not credited
     }
 }
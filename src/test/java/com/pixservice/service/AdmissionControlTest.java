@@ -0,0 +1,118 @@
+package com.pixservice.service;
+
+import com.pixservice.infrastructure.admission.AdaptiveConcurrencyLimiter;
+import com.pixservice.infrastructure.admission.AdmissionControlFilter;
+import com.pixservice.presentation.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Controle de admissão: limite que cai com a latência e se recupera com ela estável, 429 com Retry-After
+ * acima do limite e limitadores separados para os endpoints de lote.
+ */
+class AdmissionControlTest {
+
+    @Test
+    void shouldShrinkLimitWhenLatencyGrowsAndRecoverWhenStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", new SimpleMeterRegistry(),
+                50, 4, 200, 1.5, 0.2, 600);
+        runSaturated(limiter, 200, TimeUnit.MILLISECONDS.toNanos(10));
+        double stable = limiter.getLimit();
+        assertTrue(stable >= 50);
+
+        runSaturated(limiter, 30, TimeUnit.MILLISECONDS.toNanos(200));
+        double degraded = limiter.getLimit();
+        assertTrue(degraded < stable / 2, "limite deveria cair com a latência: " + degraded);
+
+        runSaturated(limiter, 500, TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(limiter.getLimit() > degraded);
+    }
+
+    @Test
+    void shouldRejectAboveLimitWithRetryAfter() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, exceptionResolver(), 1, 1, 1, 1.5, 0.2, 600, 2);
+        AtomicReference<MockHttpServletResponse> nested = new AtomicReference<>();
+
+        FilterChain inFlight = (req, res) -> {
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/pix/webhook"), second, (r, s) -> fail("não deveria ser admitida"));
+            nested.set(second);
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/pix/webhook"), first, inFlight);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, nested.get().getStatus());
+        assertEquals("2", nested.get().getHeader("Retry-After"));
+        assertEquals("Serviço sobrecarregado, tente novamente em instantes.", nested.get().getContentAsString());
+        assertEquals(1.0, meterRegistry.get("pix.admission.rejected").tag("service", "webhook").counter().count());
+
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/wallets/1"), other, (r, s) -> { });
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void shouldKeepBatchEndpointsOnTheirOwnLimiters() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissionControlFilter filter = new AdmissionControlFilter(meterRegistry, exceptionResolver(), 1, 1, 1, 1.5, 0.2, 600, 1);
+        AtomicReference<MockHttpServletResponse> single = new AtomicReference<>();
+        AtomicReference<MockHttpServletResponse> secondBatch = new AtomicReference<>();
+
+        // Com um lote em voo, uma transferência unitária continua admitida e um segundo lote é recusado
+        FilterChain batchInFlight = (req, res) -> {
+            MockHttpServletResponse transfer = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/pix/transfers"), transfer, (r, s) -> { });
+            single.set(transfer);
+            MockHttpServletResponse batch = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("POST", "/pix/transfers/batch"), batch, (r, s) -> fail("não deveria ser admitida"));
+            secondBatch.set(batch);
+        };
+        filter.doFilter(new MockHttpServletRequest("POST", "/pix/transfers/batch"), new MockHttpServletResponse(), batchInFlight);
+
+        assertEquals(200, single.get().getStatus());
+        assertEquals(429, secondBatch.get().getStatus());
+        assertEquals(1.0, meterRegistry.get("pix.admission.rejected").tag("service", "pix-transfer-batch").counter().count());
+        assertEquals(0.0, meterRegistry.get("pix.admission.rejected").tag("service", "pix-transfer").counter().count());
+    }
+
+    /**
+     * Resolver com o {@link GlobalExceptionHandler}, como o {@code handlerExceptionResolver} da aplicação.
+     */
+    private static ExceptionHandlerExceptionResolver exceptionResolver() {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.registerSingleton("globalExceptionHandler", GlobalExceptionHandler.class);
+        context.refresh();
+        ExceptionHandlerExceptionResolver resolver = new ExceptionHandlerExceptionResolver();
+        resolver.setApplicationContext(context);
+        resolver.afterPropertiesSet();
+        return resolver;
+    }
+
+    /**
+     * Mantém o limitador ocupado no limite, completando cada requisição com a latência dada.
+     */
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            int target = (int) limiter.getLimit();
+            while (limiter.getInFlight() < target && limiter.tryAcquire()) {
+                // ocupa as vagas disponíveis
+            }
+            limiter.release(rttNanos);
+        }
+        while (limiter.getInFlight() > 0) {
+            limiter.release(rttNanos);
+        }
+    }
+}
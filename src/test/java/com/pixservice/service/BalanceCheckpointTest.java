@@ -0,0 +1,120 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.service.BalanceCheckpointService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.model.WalletBalanceCheckpoint;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletBalanceCheckpointRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checkpoints diários de saldo: backfill do histórico, fechamento incremental e saldo histórico
+ * igual à soma completa do ledger.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+class BalanceCheckpointTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private WalletBalanceCheckpointRepository checkpointRepository;
+
+    private final LocalDateTime today = LocalDate.now().atStartOfDay();
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        Long walletId = walletService.createWallet(new CreateWalletRequest("checkpoint-user", BigDecimal.ZERO)).getId();
+        wallet = walletRepository.findById(walletId).orElseThrow();
+        entry("50.00", today.minusDays(3).withHour(10));
+        entry("-20.00", today.minusDays(2).withHour(12));
+        entry("5.00", today.minusDays(2).withHour(15));
+        entry("100.00", today.minusDays(1).withHour(9));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        checkpointRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldBackfillOneCheckpointPerActiveDay() {
+        assertEquals(3, balanceCheckpointService.closeWallet(wallet.getId(), today));
+
+        List<WalletBalanceCheckpoint> checkpoints = checkpointRepository.findAll();
+        assertEquals(3, checkpoints.size());
+        assertEquals(0, Money.of("135.00").compareTo(checkpointRepository
+                .findFirstByWalletIdOrderByCheckpointAtDesc(wallet.getId()).orElseThrow().getBalance()));
+
+        // Fechamento idempotente: nada novo até o próximo dia
+        assertEquals(0, balanceCheckpointService.closeWallet(wallet.getId(), today));
+    }
+
+    @Test
+    void shouldCloseOnlyDaysAfterLastCheckpoint() {
+        balanceCheckpointService.closeWallet(wallet.getId(), today.minusDays(1));
+        assertEquals(2, checkpointRepository.count());
+
+        assertEquals(1, balanceCheckpointService.closeAllWallets(today));
+        assertEquals(0, Money.of("135.00").compareTo(checkpointRepository
+                .findFirstByWalletIdOrderByCheckpointAtDesc(wallet.getId()).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldMatchFullLedgerSumWithCheckpoints() {
+        balanceCheckpointService.closeWallet(wallet.getId(), today);
+        entry("7.00", today.withHour(0).plusMinutes(30));
+
+        for (LocalDateTime at : List.of(today.minusDays(4), today.minusDays(2).withHour(13), today.minusDays(1),
+                today.minusDays(1).withHour(9), today, today.withHour(1))) {
+            BigDecimal expected = ledgerEntryRepository.sumAmountBefore(wallet.getId(), at);
+            assertEquals(0, expected.compareTo(walletService.getHistoricalBalance(wallet.getId(), at).getBalance()),
+                    "saldo divergente em " + at);
+        }
+        assertEquals(0, new BigDecimal("30.00").compareTo(
+                walletService.getHistoricalBalance(wallet.getId(), today.minusDays(2).withHour(13)).getBalance()));
+    }
+
+    private void entry(String amount, LocalDateTime createdAt) {
+        Money value = Money.of(amount);
+        LedgerEntry entry = value.signum() >= 0
+                ? LedgerEntry.deposit(wallet, value, Money.ZERO, value, "Teste checkpoint")
+                : LedgerEntry.withdraw(wallet, value.negate(), Money.ZERO, Money.ZERO, "Teste checkpoint");
+        entry.setCreatedAt(createdAt);
+        ledgerEntryRepository.save(entry);
+    }
+}
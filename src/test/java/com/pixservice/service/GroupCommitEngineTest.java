@@ -0,0 +1,130 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Motor group-commit: transferências concorrentes gravadas em grupo, com falhas de negócio isoladas por item.
+ */
+@SpringBootTest(properties = {"pix.transfer.engine=group-commit", "pix.transfer.group-commit.max-wait-ms=20"})
+@org.springframework.test.context.ActiveProfiles("test")
+class GroupCommitEngineTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long fromWalletId;
+    private Long toWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("group-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("group-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("group@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldIsolateInsufficientBalanceInsideGroup() throws Exception {
+        int transferCount = 15;
+        ExecutorService executor = Executors.newFixedThreadPool(transferCount);
+        List<Future<PixTransferResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < transferCount; i++) {
+            futures.add(executor.submit(() -> pixTransferService.transfer(UUID.randomUUID().toString(),
+                    new PixTransferRequest(fromWalletId, "group@test.com", new BigDecimal("10.00")))));
+        }
+
+        int failures = 0;
+        for (Future<PixTransferResponse> future : futures) {
+            try {
+                assertNotNull(future.get(30, TimeUnit.SECONDS).getEndToEndId());
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                assertEquals("Saldo insuficiente.", e.getCause().getMessage());
+                failures++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(5, failures);
+        assertEquals(0, Money.ZERO.compareTo(walletRepository.findById(fromWalletId).orElseThrow().getBalance()));
+        assertEquals(10, pixTransactionRepository.count());
+    }
+
+    @Test
+    void shouldReplayAndMapValidationErrors() {
+        String key = UUID.randomUUID().toString();
+        PixTransferRequest request = new PixTransferRequest(fromWalletId, "group@test.com", new BigDecimal("40.00"));
+
+        PixTransferResponse first = pixTransferService.transfer(key, request);
+        PixTransferResponse replay = pixTransferService.transfer(key, request);
+
+        assertEquals(PixTransferService.endToEndIdFor(key), first.getEndToEndId());
+        assertEquals(first.getEndToEndId(), replay.getEndToEndId());
+        assertEquals(0, Money.of("60.00").compareTo(walletRepository.findById(fromWalletId).orElseThrow().getBalance()));
+
+        IllegalArgumentException unknownKey = assertThrows(IllegalArgumentException.class, () ->
+                pixTransferService.transfer(UUID.randomUUID().toString(),
+                        new PixTransferRequest(fromWalletId, "missing@test.com", new BigDecimal("10.00"))));
+        assertEquals("Chave Pix de destino não encontrada.", unknownKey.getMessage());
+    }
+}
@@ -0,0 +1,153 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.idempotency.IdempotencyKeyPurger;
+import com.pixservice.application.idempotency.IdempotencyService;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.IdempotencyKey;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Retenção de idempotency_key: chaves expiradas são ignoradas nas consultas e removidas em lotes pelo purge.
+ */
+@SpringBootTest(properties = {
+        "pix.idempotency.retention-hours=24",
+        "pix.idempotency.purge.enabled=true",
+        "pix.idempotency.purge.batch-size=2",
+        "pix.idempotency.purge.interval-ms=3600000"
+})
+@org.springframework.test.context.ActiveProfiles("test")
+class IdempotencyRetentionTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyPurger idempotencyKeyPurger;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long fromWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("retention-from", new BigDecimal("100.00"))).getId();
+        Long toWalletId = walletService.createWallet(new CreateWalletRequest("retention-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("retention@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldIgnoreExpiredKeysOnLookup() {
+        String key = UUID.randomUUID().toString();
+        saveKey(key, LocalDateTime.now().minusHours(25));
+
+        assertTrue(idempotencyService.getIdempotentResponse(key, PixTransferResponse.class).isEmpty());
+        assertTrue(idempotencyService.getIdempotentResponses(List.of(key), PixTransferResponse.class).isEmpty());
+    }
+
+    @Test
+    void shouldPurgeOnlyExpiredKeysInBatches() {
+        for (int i = 0; i < 5; i++) {
+            saveKey(UUID.randomUUID().toString(), LocalDateTime.now().minusHours(48));
+        }
+        String live = UUID.randomUUID().toString();
+        saveKey(live, LocalDateTime.now().minusHours(1));
+        double purged = meterRegistry.get("pix.idempotency.purge.deleted").counter().count();
+
+        idempotencyKeyPurger.purgeExpiredKeys();
+
+        assertEquals(1, idempotencyKeyRepository.count());
+        assertTrue(idempotencyKeyRepository.findByKeyValue(live).isPresent());
+        assertEquals(purged + 5, meterRegistry.get("pix.idempotency.purge.deleted").counter().count());
+        assertEquals(0, meterRegistry.get("pix.idempotency.purge.lag.seconds").gauge().value());
+    }
+
+    @Test
+    void shouldNotDebitAgainWhenKeyIsReusedAfterPurge() {
+        String key = UUID.randomUUID().toString();
+        PixTransferRequest request = new PixTransferRequest(fromWalletId, "retention@test.com", new BigDecimal("10.00"));
+        PixTransferResponse first = pixTransferService.transfer(key, request);
+
+        IdempotencyKey stored = idempotencyKeyRepository.findByKeyValue(key).orElseThrow();
+        stored.setCreatedAt(LocalDateTime.now().minusHours(25));
+        idempotencyKeyRepository.save(stored);
+        idempotencyKeyPurger.purgeExpiredKeys();
+        assertTrue(idempotencyKeyRepository.findByKeyValue(key).isEmpty());
+
+        PixTransferResponse reused = pixTransferService.transfer(key, request);
+
+        // endToEndId determinístico: a transferência original é devolvida sem novo débito
+        assertEquals(first.getEndToEndId(), reused.getEndToEndId());
+        assertEquals(Money.of("90.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+    }
+
+    private void saveKey(String key, LocalDateTime createdAt) {
+        IdempotencyKey idempotencyKey = new IdempotencyKey(key,
+                "{\"endToEndId\":\"" + PixTransferService.endToEndIdFor(key) + "\",\"status\":\"PENDING\"}", 202);
+        idempotencyKey.setCreatedAt(createdAt);
+        idempotencyKeyRepository.save(idempotencyKey);
+    }
+}
@@ -0,0 +1,152 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.idempotency.IdempotencyKeyIndex;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Consulta de idempotência em camadas: chave nova respondida pelo filtro de Bloom e replay pelo LRU,
+ * ambos sem consulta a idempotency_key; a reconstrução do filtro descarta chaves fora da retenção.
+ */
+@SpringBootTest(properties = "pix.idempotency.tiered-lookup.enabled=true")
+@org.springframework.test.context.ActiveProfiles("test")
+class IdempotencyTieredLookupTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private IdempotencyKeyIndex idempotencyKeyIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long fromWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("tiered-from", new BigDecimal("100.00"))).getId();
+        Long toWalletId = walletService.createWallet(new CreateWalletRequest("tiered-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("tiered@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldAnswerNewKeysFromFilterAndReplaysFromRecentResponses() {
+        assertTrue(idempotencyKeyIndex.isEnabled());
+        double dbLookups = lookups("db");
+        double filterHits = lookups("filter");
+        double lruHits = lookups("lru");
+
+        String key = UUID.randomUUID().toString();
+        PixTransferRequest request = new PixTransferRequest(fromWalletId, "tiered@test.com", new BigDecimal("10.00"));
+        PixTransferResponse first = pixTransferService.transfer(key, request);
+        PixTransferResponse replay = pixTransferService.transfer(key, request);
+
+        assertEquals(first.getEndToEndId(), replay.getEndToEndId());
+        assertEquals(Money.of("90.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(filterHits + 1, lookups("filter"));
+        assertEquals(lruHits + 1, lookups("lru"));
+        assertEquals(dbLookups, lookups("db"));
+    }
+
+    @Test
+    void shouldFallBackToDatabaseForKeysWrittenOutsideTheIndex() {
+        String key = UUID.randomUUID().toString();
+        PixTransferResponse stored = new PixTransferResponse(PixTransferService.endToEndIdFor(key),
+                com.pixservice.domain.model.PixTransactionStatus.PENDING);
+        // Gravação direta (ex.: outra instância): o filtro não conhece a chave
+        idempotencyKeyRepository.save(new com.pixservice.domain.model.IdempotencyKey(key,
+                "{\"endToEndId\":\"" + stored.getEndToEndId() + "\",\"status\":\"PENDING\"}", 202));
+
+        PixTransferResponse response = pixTransferService.transfer(key,
+                new PixTransferRequest(fromWalletId, "tiered@test.com", new BigDecimal("10.00")));
+
+        // O filtro responde "nova", mas a unicidade da tabela devolve a resposta já gravada sem debitar
+        assertEquals(stored.getEndToEndId(), response.getEndToEndId());
+        assertEquals(Money.of("100.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldDropExpiredKeysWhenFilterIsRebuilt() {
+        String expired = UUID.randomUUID().toString();
+        String retained = UUID.randomUUID().toString();
+        pixTransferService.transfer(expired, new PixTransferRequest(fromWalletId, "tiered@test.com", new BigDecimal("10.00")));
+        pixTransferService.transfer(retained, new PixTransferRequest(fromWalletId, "tiered@test.com", new BigDecimal("10.00")));
+        jdbcTemplate.update("UPDATE idempotency_key SET created_at = ? WHERE key_value = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(48)), expired);
+        assertFalse(idempotencyKeyIndex.isDefinitelyNew(expired));
+
+        idempotencyKeyIndex.rebuildFilter();
+
+        assertTrue(idempotencyKeyIndex.isDefinitelyNew(expired));
+        assertFalse(idempotencyKeyIndex.isDefinitelyNew(retained));
+    }
+
+    private double lookups(String tier) {
+        return meterRegistry.get("pix.idempotency.lookup").tag("tier", tier).counter().count();
+    }
+}
@@ -0,0 +1,165 @@
+package com.pixservice.service;
+
+import com.pixservice.application.archive.LedgerArchiveService;
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.LedgerEntryResponse;
+import com.pixservice.application.dto.LedgerPageResponse;
+import com.pixservice.application.reconciliation.LedgerReconciliationReport;
+import com.pixservice.application.reconciliation.LedgerReconciliationService;
+import com.pixservice.application.service.LedgerStatementService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletBalanceCheckpointRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Arquivo frio do ledger: entradas antigas saem do banco para os segmentos e extrato, exportação, saldo
+ * histórico e reconciliação continuam iguais atravessando o limite do arquivo.
+ */
+@SpringBootTest(properties = {"pix.ledger.archive.batch-size=2", "pix.ledger.archive.dir=target/test-ledger-archive",
+        "pix.ledger.reconciliation.max-rows-per-second=0"})
+@org.springframework.test.context.ActiveProfiles("test")
+class LedgerArchiveTest {
+
+    @Autowired
+    private LedgerArchiveService ledgerArchiveService;
+
+    @Autowired
+    private LedgerStatementService ledgerStatementService;
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private WalletBalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime today = LocalDate.now().atStartOfDay();
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        Long walletId = walletService.createWallet(new CreateWalletRequest("archive-user", BigDecimal.ZERO)).getId();
+        wallet = walletRepository.findById(walletId).orElseThrow();
+        entry("50.00", "0.00", today.minusDays(40).withHour(10));
+        entry("-20.00", "50.00", today.minusDays(35).withHour(12));
+        entry("5.00", "30.00", today.minusDays(30).withHour(15));
+        entry("100.00", "35.00", today.minusDays(2).withHour(9));
+        jdbcTemplate.update("UPDATE wallet SET balance = 135.00 WHERE id = ?", walletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        jdbcTemplate.update("DELETE FROM ledger_archive_block");
+        checkpointRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldArchiveOldEntriesIntoBlocks() {
+        assertEquals(3, ledgerArchiveService.archive(today.minusDays(10)));
+
+        assertEquals(1, ledgerEntryRepository.count());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_archive_block WHERE wallet_id = ?",
+                Integer.class, wallet.getId()));
+        assertEquals(0, new BigDecimal("35.00").compareTo(
+                ledgerArchiveService.summary(wallet.getId()).orElseThrow().amountSum()));
+
+        // Nada novo antes do corte: segunda execução não arquiva nada
+        assertEquals(0, ledgerArchiveService.archive(today.minusDays(10)));
+    }
+
+    @Test
+    void shouldKeepHistoricalBalanceAcrossArchiveBoundary() {
+        Map<LocalDateTime, BigDecimal> expected = new LinkedHashMap<>();
+        for (LocalDateTime at : List.of(today.minusDays(41), today.minusDays(40).withHour(11), today.minusDays(33),
+                today.minusDays(30).withHour(15), today.minusDays(10), today.minusDays(1), today)) {
+            expected.put(at, ledgerEntryRepository.sumAmountBefore(wallet.getId(), at));
+        }
+
+        ledgerArchiveService.archive(today.minusDays(10));
+
+        expected.forEach((at, balance) -> assertEquals(0,
+                balance.compareTo(walletService.getHistoricalBalance(wallet.getId(), at).getBalance()),
+                "saldo divergente em " + at));
+    }
+
+    @Test
+    void shouldPageAndExportThroughArchive() {
+        ledgerArchiveService.archive(today.minusDays(10));
+
+        List<LedgerEntryResponse> items = new ArrayList<>();
+        String cursor = null;
+        do {
+            LedgerPageResponse page = ledgerStatementService.getPage(wallet.getId(), cursor, 2);
+            items.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("100.00", "5.00", "-20.00", "50.00"),
+                items.stream().map(item -> item.getAmount().setScale(2).toPlainString()).toList());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ledgerStatementService.export(wallet.getId(), LedgerStatementService.ExportFormat.NDJSON, out);
+        assertEquals(4, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void shouldReconcileArchivedWalletWithoutDiscrepancies() {
+        ledgerArchiveService.archive(today.minusDays(10));
+
+        LedgerReconciliationReport report = reconciliationService.reconcile().orElseThrow();
+
+        assertEquals(LedgerReconciliationReport.Status.COMPLETED, report.status());
+        assertTrue(report.discrepancies().stream().noneMatch(d -> wallet.getId().equals(d.walletId())),
+                () -> "divergências inesperadas: " + report.discrepancies());
+    }
+
+    private void entry(String amount, String before, LocalDateTime createdAt) {
+        Money value = Money.of(amount);
+        Money balanceBefore = Money.of(before);
+        LedgerEntry entry = value.signum() >= 0
+                ? LedgerEntry.deposit(wallet, value, balanceBefore, balanceBefore.plus(value), "Teste arquivo")
+                : LedgerEntry.withdraw(wallet, value.negate(), balanceBefore, balanceBefore.plus(value), "Teste arquivo");
+        entry.setCreatedAt(createdAt);
+        ledgerEntryRepository.save(entry);
+    }
+}
@@ -0,0 +1,138 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.reconciliation.LedgerDiscrepancy;
+import com.pixservice.application.reconciliation.LedgerReconciliationReport;
+import com.pixservice.application.reconciliation.LedgerReconciliationService;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reconciliação do ledger: histórico consistente sem divergências (lançamento PENDING ignorado) e
+ * adulterações de saldo e de encadeamento detectadas.
+ */
+@SpringBootTest(properties = {"pix.ledger.reconciliation.chunk-size=1", "pix.ledger.reconciliation.parallelism=2",
+        "pix.ledger.reconciliation.max-rows-per-second=0"})
+@org.springframework.test.context.ActiveProfiles("test")
+class LedgerReconciliationTest {
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long fromWalletId;
+    private Long toWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("reconciliation-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("reconciliation-to", BigDecimal.ZERO)).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("reconciliation@test.com", PixKeyType.EMAIL), toWalletId);
+
+        walletService.deposit(fromWalletId, new BigDecimal("50.00"));
+        walletService.withdraw(fromWalletId, new BigDecimal("30.00"));
+        pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "reconciliation@test.com", new BigDecimal("20.00")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldFindNoDiscrepancyInConsistentLedger() {
+        LedgerReconciliationReport report = reconciliationService.reconcile().orElseThrow();
+
+        assertEquals(LedgerReconciliationReport.Status.COMPLETED, report.status());
+        assertEquals(0, report.failedChunks());
+        assertTrue(report.walletsChecked() >= 2);
+        assertTrue(discrepanciesOf(report).isEmpty(), () -> "divergências inesperadas: " + report.discrepancies());
+        assertEquals(report, reconciliationService.report());
+    }
+
+    @Test
+    void shouldDetectTamperedBalanceAndBrokenChain() {
+        jdbcTemplate.update("UPDATE wallet SET balance = balance + 1 WHERE id = ?", toWalletId);
+        jdbcTemplate.update("UPDATE ledger_entry SET balance_before = balance_before + 5 " +
+                "WHERE wallet_id = ? AND type = 'WITHDRAWAL' AND transaction_id IS NULL", fromWalletId);
+
+        List<LedgerDiscrepancy> discrepancies = discrepanciesOf(reconciliationService.reconcile().orElseThrow());
+
+        assertEquals(3, discrepancies.size());
+        LedgerDiscrepancy mismatch = discrepancies.stream()
+                .filter(d -> d.kind() == LedgerDiscrepancy.Kind.BALANCE_MISMATCH).findFirst().orElseThrow();
+        assertEquals(toWalletId, mismatch.walletId());
+        assertEquals(new BigDecimal("0.00"), mismatch.expected());
+        assertEquals(new BigDecimal("1.00"), mismatch.actual());
+        Set<LedgerDiscrepancy.Kind> fromWalletKinds = discrepancies.stream()
+                .filter(d -> fromWalletId.equals(d.walletId()))
+                .map(LedgerDiscrepancy::kind)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(LedgerDiscrepancy.Kind.CHAIN_BREAK, LedgerDiscrepancy.Kind.ARITHMETIC), fromWalletKinds);
+    }
+
+    private List<LedgerDiscrepancy> discrepanciesOf(LedgerReconciliationReport report) {
+        return report.discrepancies().stream()
+                .filter(d -> fromWalletId.equals(d.walletId()) || toWalletId.equals(d.walletId()))
+                .toList();
+    }
+}
@@ -0,0 +1,126 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.WalletDailySummaryResponse;
+import com.pixservice.application.dto.WalletSummaryResponse;
+import com.pixservice.application.service.LedgerRollupService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.LedgerRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Totais diários: entradas novas contadas pelo trigger, anteriores pelo backfill repetível, PENDING de
+ * crédito fora.
+ */
+@SpringBootTest(properties = "pix.ledger.rollup.settle-minutes=0")
+@org.springframework.test.context.ActiveProfiles("test")
+class LedgerRollupTest {
+
+    @Autowired
+    private LedgerRollupService ledgerRollupService;
+
+    @Autowired
+    private LedgerRollupRepository ledgerRollupRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        Long walletId = walletService.createWallet(new CreateWalletRequest("rollup-user", BigDecimal.ZERO)).getId();
+        wallet = walletRepository.findById(walletId).orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        jdbcTemplate.update("DELETE FROM ledger_daily_rollup");
+        ledgerEntryRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCountNewEntriesThroughTrigger() {
+        walletService.deposit(wallet.getId(), new BigDecimal("50.00"));
+        walletService.deposit(wallet.getId(), new BigDecimal("25.00"));
+        walletService.withdraw(wallet.getId(), new BigDecimal("20.00"));
+        LedgerEntry pending = LedgerEntry.deposit(wallet, Money.of("99.00"), Money.ZERO, Money.of("99.00"), "Crédito (PENDING)");
+        pending.setTransactionId("E2E-ROLLUP-PENDING");
+        ledgerEntryRepository.save(pending);
+
+        LocalDate today = LocalDate.now();
+        WalletSummaryResponse summary = ledgerRollupService.summary(wallet.getId(), today, today);
+
+        assertEquals(3, summary.getEntryCount());
+        assertEquals(0, new BigDecimal("75.00").compareTo(summary.getMoneyIn()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(summary.getMoneyOut()));
+        WalletDailySummaryResponse day = summary.getDays().get(0);
+        assertEquals(today, day.getDay());
+        assertEquals(0, new BigDecimal("-20.00").compareTo(day.getByType().get("WITHDRAWAL")));
+    }
+
+    @Test
+    void shouldBackfillEntriesBeforeTriggerOnlyOnce() {
+        LocalDateTime beforeLive = ledgerRollupRepository.state().liveFrom().minusDays(2);
+        entry("40.00", beforeLive);
+        entry("-15.00", beforeLive.plusMinutes(5));
+        LocalDate day = beforeLive.toLocalDate();
+        assertEquals(0, ledgerRollupService.summary(wallet.getId(), day, day).getEntryCount());
+
+        assertTrue(ledgerRollupService.backfill() > 0);
+        ledgerRollupService.backfill();
+
+        WalletSummaryResponse summary = ledgerRollupService.summary(wallet.getId(), day, day);
+        assertEquals(2, summary.getEntryCount());
+        assertEquals(0, new BigDecimal("40.00").compareTo(summary.getMoneyIn()));
+        assertEquals(0, new BigDecimal("15.00").compareTo(summary.getMoneyOut()));
+    }
+
+    @Test
+    void shouldRejectInvalidRange() {
+        LocalDate today = LocalDate.now();
+        assertThrows(IllegalArgumentException.class, () -> ledgerRollupService.summary(wallet.getId(), today, today.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> ledgerRollupService.summary(wallet.getId(), today.minusYears(2), today));
+        assertThrows(IllegalArgumentException.class, () -> ledgerRollupService.summary(-1L, today, today));
+    }
+
+    private void entry(String amount, LocalDateTime createdAt) {
+        Money value = Money.of(amount);
+        LedgerEntry entry = value.signum() >= 0
+                ? LedgerEntry.deposit(wallet, value, Money.ZERO, value, "Teste rollup")
+                : LedgerEntry.withdraw(wallet, value.negate(), Money.ZERO, Money.ZERO, "Teste rollup");
+        entry.setCreatedAt(createdAt);
+        ledgerEntryRepository.save(entry);
+    }
+}
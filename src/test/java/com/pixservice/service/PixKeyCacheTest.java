@@ -0,0 +1,71 @@
+package com.pixservice.service;
+
+import com.pixservice.application.cache.PixKeyCache;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixKey;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.PixKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PixKeyCacheTest {
+
+    @Mock
+    private PixKeyRepository pixKeyRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PixKeyCache pixKeyCache;
+    private PixKey pixKey;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pixKeyCache = new PixKeyCache(pixKeyRepository, meterRegistry, 1000, 300, 5);
+
+        Wallet wallet = new Wallet("user1", Money.of("100.00"));
+        wallet.setId(7L);
+        pixKey = new PixKey("cache@test.com", PixKeyType.EMAIL, wallet);
+    }
+
+    @Test
+    void shouldHitCacheAfterFirstLookup() {
+        when(pixKeyRepository.findByKeyValue("cache@test.com")).thenReturn(Optional.of(pixKey));
+
+        PixKeyCache.CachedPixKey first = pixKeyCache.resolve("cache@test.com").orElseThrow();
+        PixKeyCache.CachedPixKey second = pixKeyCache.resolve("cache@test.com").orElseThrow();
+
+        assertEquals(first, second);
+        assertEquals(7L, second.walletId());
+        assertEquals("user1", second.userId());
+        assertEquals(PixKeyType.EMAIL, second.type());
+        verify(pixKeyRepository, times(1)).findByKeyValue("cache@test.com");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldCacheNotFoundAndReplaceItOnRegistration() {
+        when(pixKeyRepository.findByKeyValue("cache@test.com")).thenReturn(Optional.empty());
+
+        assertTrue(pixKeyCache.resolve("cache@test.com").isEmpty());
+        assertTrue(pixKeyCache.resolve("cache@test.com").isEmpty());
+        verify(pixKeyRepository, times(1)).findByKeyValue("cache@test.com");
+        assertEquals(1.0, meterRegistry.get("pix.key.cache.negative.hits").counter().count());
+
+        pixKeyCache.put(pixKey); // fora de transação: publica imediatamente
+
+        assertEquals(7L, pixKeyCache.resolve("cache@test.com").orElseThrow().walletId());
+        verify(pixKeyRepository, times(1)).findByKeyValue("cache@test.com");
+    }
+}
@@ -1,13 +1,16 @@
 package com.pixservice.service;
 
+import com.pixservice.application.cache.PixKeyCache;
 import com.pixservice.application.dto.PixKeyResponse;
 import com.pixservice.application.dto.RegisterPixKeyRequest;
 import com.pixservice.application.service.PixKeyService;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.PixKey;
 import com.pixservice.domain.model.PixKeyType;
 import com.pixservice.domain.model.Wallet;
 import com.pixservice.domain.repository.PixKeyRepository;
 import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.datasource.RecentWriteTracker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,7 +18,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -32,6 +34,12 @@ class PixKeyServiceTest {
     @Mock
     private WalletRepository walletRepository;
 
+    @Mock
+    private PixKeyCache pixKeyCache;
+
+    @Mock
+    private RecentWriteTracker recentWriteTracker;
+
     @InjectMocks
     private PixKeyService pixKeyService;
 
@@ -40,7 +48,7 @@ class PixKeyServiceTest {
 
     @BeforeEach
     void setUp() {
-        testWallet = new Wallet("user1", new BigDecimal("500.00"));
+        testWallet = new Wallet("user1", Money.of("500.00"));
         testWallet.setId(1L);
 
         testPixKey = new PixKey("email@example.com", PixKeyType.EMAIL, testWallet);
@@ -68,6 +76,7 @@ class PixKeyServiceTest {
         verify(pixKeyRepository, times(1)).existsByKeyValue(request.getKeyValue());
         verify(walletRepository, times(1)).findById(walletId);
         verify(pixKeyRepository, times(1)).save(any(PixKey.class));
+        verify(pixKeyCache, times(1)).put(any(PixKey.class));
     }
 
     @Test
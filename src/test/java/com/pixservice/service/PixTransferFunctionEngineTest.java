@@ -0,0 +1,224 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixTransferResponse;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.domain.model.*;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do motor de transferência em uma única ida ao banco (função {@code pix_transfer}).
+ */
+@SpringBootTest(properties = "pix.transfer.engine=db-function")
+@org.springframework.test.context.ActiveProfiles("test")
+class PixTransferFunctionEngineTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long fromWalletId;
+    private Long toWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("fn-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("fn-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("fn@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldWriteWholeTransferPlanAndReplayIdempotently() {
+        String key = UUID.randomUUID().toString();
+        PixTransferRequest request = new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("40.00"));
+
+        PixTransferResponse first = pixTransferService.transfer(key, request);
+        PixTransferResponse replay = pixTransferService.transfer(key, request);
+
+        assertEquals(PixTransferService.endToEndIdFor(key), first.getEndToEndId());
+        assertEquals(PixTransactionStatus.PENDING, first.getStatus());
+        assertEquals(first.getEndToEndId(), replay.getEndToEndId());
+
+        assertEquals(Money.of("60.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        PixTransaction tx = pixTransactionRepository.findById(first.getEndToEndId()).orElseThrow();
+        assertEquals(PixTransactionStatus.PENDING, tx.getStatus());
+        assertEquals(toWalletId, tx.getToWallet().getId());
+        assertEquals(PixKeyType.EMAIL, tx.getToPixKeyType());
+        assertEquals(1, pixEventRepository.findAll().stream()
+                .filter(e -> e.getEndToEndId().equals(first.getEndToEndId()) && e.getEventType() == PixEventType.INITIATED)
+                .count());
+
+        List<LedgerEntry> entries = ledgerEntryRepository.findAll().stream()
+                .filter(e -> first.getEndToEndId().equals(e.getTransactionId()))
+                .toList();
+        assertEquals(2, entries.size());
+        LedgerEntry debit = entries.stream().filter(e -> e.getType() == LedgerEntryType.WITHDRAWAL).findFirst().orElseThrow();
+        assertEquals(0, debit.getAmount().compareTo(Money.of("-40.00")));
+        assertEquals(0, debit.getBalanceBefore().compareTo(Money.of("100.00")));
+        assertEquals(0, debit.getBalanceAfter().compareTo(Money.of("60.00")));
+    }
+
+    @Test
+    void shouldMapValidationOutcomesToExceptions() {
+        IllegalArgumentException unknownKey = assertThrows(IllegalArgumentException.class, () ->
+                pixTransferService.transfer(UUID.randomUUID().toString(),
+                        new PixTransferRequest(fromWalletId, "missing@test.com", new BigDecimal("10.00"))));
+        assertEquals("Chave Pix de destino não encontrada.", unknownKey.getMessage());
+
+        String key = UUID.randomUUID().toString();
+        IllegalStateException insufficient = assertThrows(IllegalStateException.class, () ->
+                pixTransferService.transfer(key, new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("150.00"))));
+        assertEquals("Saldo insuficiente.", insufficient.getMessage());
+
+        // A chave reservada é liberada: o mesmo Idempotency-Key pode ser reenviado após um depósito
+        assertTrue(idempotencyKeyRepository.findByKeyValue(key).isEmpty());
+        walletService.deposit(fromWalletId, new BigDecimal("100.00"));
+        pixTransferService.transfer(key, new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("150.00")));
+        assertEquals(Money.of("50.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldNeverOverdraftUnderConcurrentTransfers() throws Exception {
+        int transferCount = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(transferCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < transferCount; i++) {
+            futures.add(executor.submit(() -> pixTransferService.transfer(UUID.randomUUID().toString(),
+                    new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("30.00")))));
+        }
+
+        int failures = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                failures++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(transferCount - 3, failures);
+        assertEquals(Money.of("10.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(3, pixTransactionRepository.count());
+    }
+
+    @Test
+    void shouldOrderLedgerByLockAcquisitionForInterleavedTransfers() throws Exception {
+        // A abre a transação primeiro, mas só chega ao lock da carteira depois que B terminou
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            ledgerEntryRepository.count();
+            started.countDown();
+            try {
+                proceed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pixTransferService.transfer(UUID.randomUUID().toString(),
+                    new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("10.00"))).getEndToEndId();
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        String second = pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("20.00"))).getEndToEndId();
+        proceed.countDown();
+        String firstEndToEndId = first.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        List<LedgerEntry> entries = ledgerEntryRepository.findAll().stream()
+                .filter(e -> e.getWallet().getId().equals(fromWalletId))
+                .sorted(Comparator.comparing(LedgerEntry::getCreatedAt).thenComparing(LedgerEntry::getId))
+                .toList();
+        assertEquals(3, entries.size());
+        assertEquals(second, entries.get(1).getTransactionId());
+        assertEquals(firstEndToEndId, entries.get(2).getTransactionId());
+        for (int i = 1; i < entries.size(); i++) {
+            assertEquals(0, entries.get(i - 1).getBalanceAfter().compareTo(entries.get(i).getBalanceBefore()),
+                    "ordem (created_at, id) deve seguir a cadeia balanceBefore/balanceAfter");
+        }
+        assertTrue(pixTransactionRepository.findById(second).orElseThrow().getInitiatedAt()
+                .isBefore(pixTransactionRepository.findById(firstEndToEndId).orElseThrow().getInitiatedAt()));
+    }
+
+    @Test
+    void shouldConfirmFunctionCreatedTransferThroughWebhook() {
+        String endToEndId = pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "fn@test.com", new BigDecimal("25.00"))).getEndToEndId();
+
+        webhookService.processWebhookEvent(new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(),
+                PixEventType.CONFIRMED, LocalDateTime.now()));
+
+        assertEquals(PixTransactionStatus.CONFIRMED, pixTransactionRepository.findById(endToEndId).orElseThrow().getStatus());
+        assertEquals(Money.of("25.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+    }
+}
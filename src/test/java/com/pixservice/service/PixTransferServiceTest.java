@@ -1,5 +1,6 @@
 package com.pixservice.service;
 
+import com.pixservice.application.cache.PixKeyCache;
 import com.pixservice.application.dto.PixTransferRequest;
 import com.pixservice.application.dto.PixTransferResponse;
 import com.pixservice.application.service.PixTransferService;
@@ -39,6 +40,10 @@ class PixTransferServiceTest {
     private io.micrometer.core.instrument.MeterRegistry meterRegistry;
     @Mock
     private PixEventRepository pixEventRepository;
+    @Mock
+    private com.pixservice.application.service.WalletStripeService walletStripeService;
+    @Mock
+    private com.pixservice.infrastructure.persistence.PixTransferFunctionRepository pixTransferFunctionRepository;
 
     private PixTransferService pixTransferService;
 
@@ -51,23 +56,30 @@ class PixTransferServiceTest {
         // Inicializar PixTransferService manualmente com os mocks
         pixTransferService = new PixTransferService(
                 walletRepository,
-                pixKeyRepository,
+                new PixKeyCache(pixKeyRepository,
+                        new io.micrometer.core.instrument.simple.SimpleMeterRegistry(), 1000, 300, 5),
                 pixTransactionRepository,
                 ledgerEntryRepository,
                 idempotencyService,
                 validator,
                 new io.micrometer.core.instrument.simple.SimpleMeterRegistry(),
-                pixEventRepository
+                pixEventRepository,
+                walletStripeService,
+                pixTransferFunctionRepository
         );
 
-        fromWallet = new Wallet("user1", new BigDecimal("1000.00"));
+        fromWallet = new Wallet("user1", Money.of("1000.00"));
         fromWallet.setId(1L);
 
-        toWallet = new Wallet("user2", new BigDecimal("500.00"));
+        toWallet = new Wallet("user2", Money.of("500.00"));
         toWallet.setId(2L);
 
         toPixKey = new PixKey("recipient@email.com", PixKeyType.EMAIL, toWallet);
         toPixKey.setId(10L);
+
+        // Carteira de destino entra por referência a partir do id resolvido pelo PixKeyCache
+        lenient().when(walletRepository.getReferenceById(1L)).thenReturn(fromWallet);
+        lenient().when(walletRepository.getReferenceById(2L)).thenReturn(toWallet);
     }
 
     @Test
@@ -91,7 +103,7 @@ class PixTransferServiceTest {
         assertNotNull(response);
         assertNotNull(response.getEndToEndId());
         assertEquals(PixTransactionStatus.PENDING, response.getStatus());
-        assertEquals(new BigDecimal("900.00"), fromWallet.getBalance());
+        assertEquals(Money.of("900.00"), fromWallet.getBalance());
 
         verify(idempotencyService, times(1)).getIdempotentResponse(idempotencyKey, PixTransferResponse.class);
         verify(walletRepository, times(1)).findById(1L);
@@ -115,6 +127,7 @@ class PixTransferServiceTest {
 
         when(idempotencyService.getIdempotentResponse(idempotencyKey, PixTransferResponse.class))
             .thenReturn(Optional.of(idempotentResponse));
+        when(pixTransactionRepository.existsById("cached-end-to-end-id")).thenReturn(true);
 
         PixTransferResponse response = pixTransferService.transfer(idempotencyKey, request);
 
@@ -140,7 +153,7 @@ class PixTransferServiceTest {
 
         // Validator agora lança a exceção
         doThrow(new IllegalArgumentException("O valor da transferência deve ser positivo."))
-            .when(validator).validateTransfer(eq(BigDecimal.ZERO), any(), any(), anyString());
+            .when(validator).validateTransfer(eq(Money.ZERO), any(), any(), anyString());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             pixTransferService.transfer(idempotencyKey, request);
@@ -198,7 +211,7 @@ class PixTransferServiceTest {
 
         // Validator agora lança a exceção
         doThrow(new IllegalArgumentException("Não é possível transferir para a mesma carteira."))
-            .when(validator).validateTransfer(any(BigDecimal.class), eq(fromWallet), eq(fromWallet), anyString());
+            .when(validator).validateTransfer(any(Money.class), eq(fromWallet), eq(fromWallet), anyString());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             pixTransferService.transfer(idempotencyKey, request);
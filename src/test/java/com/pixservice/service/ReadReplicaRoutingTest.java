@@ -0,0 +1,97 @@
+package com.pixservice.service;
+
+import com.pixservice.infrastructure.datasource.ReadWriteRoutingDataSource;
+import com.pixservice.infrastructure.datasource.RecentWriteTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Réplica de leitura: transação somente leitura vai à réplica; escrita, atraso acima do limite, réplica sem
+ * verificação e leitura de chave escrita há pouco voltam ao primário.
+ */
+class ReadReplicaRoutingTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadWriteRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReadWriteRoutingDataSource(primary, replica, meterRegistry, 500);
+        routing.afterPropertiesSet();
+        routing.updateReplicaLag(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(0));
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplicaUntilLagExceedsLimit() throws Exception {
+        assertSame(primaryConnection, routing.getConnection());
+
+        beginTransaction(false);
+        assertSame(primaryConnection, routing.getConnection());
+        tearDown();
+
+        beginTransaction(true);
+        assertSame(replicaConnection, routing.getConnection());
+
+        routing.updateReplicaLag(800L);
+        assertSame(primaryConnection, routing.getConnection());
+
+        routing.updateReplicaLag(null);
+        assertSame(primaryConnection, routing.getConnection());
+
+        assertEquals(1.0, routeCount("replica", "read-only"));
+        assertEquals(1.0, routeCount("primary", "read-write"));
+        assertEquals(1.0, routeCount("primary", "replica-lag"));
+        assertEquals(1.0, routeCount("primary", "replica-unavailable"));
+    }
+
+    @Test
+    void shouldReadRecentWritesFromPrimary() throws Exception {
+        RecentWriteTracker tracker = new RecentWriteTracker(true, 60_000, 1000);
+        tracker.record(RecentWriteTracker.walletKey(1L));
+
+        beginTransaction(true);
+        tracker.requirePrimaryIfRecent(RecentWriteTracker.walletKey(2L));
+        assertSame(replicaConnection, routing.getConnection());
+        tracker.requirePrimaryIfRecent(RecentWriteTracker.walletKey(1L));
+        assertSame(primaryConnection, routing.getConnection());
+        tearDown();
+
+        // A marcação vale só para a transação em que foi feita
+        beginTransaction(true);
+        assertSame(replicaConnection, routing.getConnection());
+        assertEquals(1.0, routeCount("primary", "read-your-writes"));
+    }
+
+    private void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private double routeCount(String target, String reason) {
+        return meterRegistry.get("pix.datasource.route").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,223 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixEventType;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de concorrência com o mailbox por carteira habilitado: operações simultâneas na mesma
+ * carteira devem ser aplicadas em ordem, sem perda, com a cadeia do ledger encadeada.
+ */
+@SpringBootTest(properties = {"pix.wallet.mailbox.enabled=true", "pix.wallet.mailbox.max-batch=8"})
+@org.springframework.test.context.ActiveProfiles("test")
+class WalletMailboxConcurrencyTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldApplyAllConcurrentOperationsWithChainedLedger() throws Exception {
+        Long walletId = walletService.createWallet(new CreateWalletRequest("mailbox-hot", new BigDecimal("1000.00"))).getId();
+        int operationCount = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(operationCount * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < operationCount; i++) {
+            futures.add(executor.submit(() -> walletService.deposit(walletId, new BigDecimal("10.00"))));
+            futures.add(executor.submit(() -> walletService.withdraw(walletId, new BigDecimal("5.00"))));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS); // nenhuma operação deve falhar
+        }
+        executor.shutdown();
+
+        Wallet finalWallet = walletRepository.findById(walletId).orElseThrow();
+        assertEquals(Money.of("1100.00"), finalWallet.getBalance());
+
+        List<LedgerEntry> entries = ledgerEntriesOf(walletId);
+        assertEquals(operationCount * 2 + 1, entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            assertEquals(0, entries.get(i - 1).getBalanceAfter().compareTo(entries.get(i).getBalanceBefore()),
+                    "balanceBefore deve ser o balanceAfter do lançamento anterior");
+        }
+        assertEquals(0, entries.get(entries.size() - 1).getBalanceAfter().compareTo(finalWallet.getBalance()));
+    }
+
+    @Test
+    void shouldIsolateFailingCommandFromRestOfBatch() throws Exception {
+        Long walletId = walletService.createWallet(new CreateWalletRequest("mailbox-funds", new BigDecimal("100.00"))).getId();
+        int withdrawCount = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(withdrawCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < withdrawCount; i++) {
+            futures.add(executor.submit(() -> walletService.withdraw(walletId, new BigDecimal("30.00"))));
+        }
+
+        int failures = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                assertEquals("Saldo insuficiente.", e.getCause().getMessage());
+                failures++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(2, failures);
+        assertEquals(Money.of("10.00"), walletRepository.findById(walletId).orElseThrow().getBalance());
+        assertEquals(4, ledgerEntriesOf(walletId).size()); // abertura + 3 saques
+    }
+
+    @Test
+    void shouldRouteTransferAndWebhookThroughMailbox() {
+        Long fromWalletId = walletService.createWallet(new CreateWalletRequest("mailbox-from", new BigDecimal("500.00"))).getId();
+        Long toWalletId = walletService.createWallet(new CreateWalletRequest("mailbox-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("mailbox@test.com", PixKeyType.EMAIL), toWalletId);
+
+        String endToEndId = pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "mailbox@test.com", new BigDecimal("120.00"))).getEndToEndId();
+        webhookService.processWebhookEvent(new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(),
+                PixEventType.CONFIRMED, LocalDateTime.now()));
+
+        assertEquals(Money.of("380.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(Money.of("120.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldReapplyTransferWhenBatchIsRolledBackByAnotherCommand() throws Exception {
+        Long fromWalletId = walletService.createWallet(new CreateWalletRequest("mailbox-replay", new BigDecimal("200.00"))).getId();
+        Long toWalletId = walletService.createWallet(new CreateWalletRequest("mailbox-replay-to", new BigDecimal("0.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("replay@test.com", PixKeyType.EMAIL), toWalletId);
+        double fallbacksBefore = meterRegistry.counter("pix.wallet.mailbox.batch.fallback",
+                "service", "wallet-mailbox").count();
+
+        // Segura o lock da carteira para que o worker fique preso no primeiro comando e os seguintes
+        // (transferência e depois um saque sem saldo) sejam drenados juntos no mesmo lote
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            walletRepository.findByIdForUpdate(fromWalletId).orElseThrow();
+            locked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        Future<?> blocked = executor.submit(() -> walletService.deposit(fromWalletId, new BigDecimal("1.00")));
+        Thread.sleep(100);
+        Future<String> transfer = executor.submit(() -> pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "replay@test.com", new BigDecimal("50.00"))).getEndToEndId());
+        Thread.sleep(100);
+        Future<?> failing = executor.submit(() -> walletService.withdraw(fromWalletId, new BigDecimal("10000.00")));
+        Thread.sleep(100);
+        release.countDown();
+
+        holder.get(10, TimeUnit.SECONDS);
+        blocked.get(10, TimeUnit.SECONDS);
+        String endToEndId = transfer.get(10, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertEquals("Saldo insuficiente.", failure.getCause().getMessage());
+        executor.shutdown();
+
+        assertEquals(fallbacksBefore + 1, meterRegistry.counter("pix.wallet.mailbox.batch.fallback",
+                "service", "wallet-mailbox").count());
+        assertTrue(pixTransactionRepository.existsById(endToEndId), "transferência não pode se perder no replay do lote");
+        assertEquals(Money.of("151.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(1, ledgerEntriesOf(fromWalletId).stream()
+                .filter(entry -> endToEndId.equals(entry.getTransactionId()))
+                .count());
+    }
+
+    private List<LedgerEntry> ledgerEntriesOf(Long walletId) {
+        return ledgerEntryRepository.findAll(Sort.by("id")).stream()
+                .filter(entry -> entry.getWallet().getId().equals(walletId))
+                .toList();
+    }
+}
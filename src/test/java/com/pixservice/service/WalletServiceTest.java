@@ -3,6 +3,7 @@ package com.pixservice.service;
 import com.pixservice.application.dto.CreateWalletRequest;
 import com.pixservice.application.dto.WalletResponse;
 import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.Money;
 import com.pixservice.domain.model.Wallet;
 import com.pixservice.domain.repository.WalletRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +19,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +31,10 @@ class WalletServiceTest {
     private WalletRepository walletRepository;
     @Mock
     private com.pixservice.domain.repository.LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private com.pixservice.application.service.WalletStripeService walletStripeService;
+    @Mock
+    private com.pixservice.infrastructure.datasource.RecentWriteTracker recentWriteTracker;
 
     @InjectMocks
     private WalletService walletService;
@@ -35,7 +43,7 @@ class WalletServiceTest {
 
     @BeforeEach
     void setUp() {
-        testWallet = new Wallet("testUser", new BigDecimal("100.00"));
+        testWallet = new Wallet("testUser", Money.of("100.00"));
         testWallet.setId(1L);
         testWallet.setCreatedAt(LocalDateTime.now());
         testWallet.setUpdatedAt(LocalDateTime.now());
@@ -52,7 +60,7 @@ class WalletServiceTest {
         assertNotNull(response);
         assertEquals(testWallet.getId(), response.getId());
         assertEquals(testWallet.getUserId(), response.getUserId());
-        assertEquals(testWallet.getBalance(), response.getBalance());
+        assertEquals(testWallet.getBalance().toBigDecimal(), response.getBalance());
         verify(walletRepository, times(1)).findByUserId(request.getUserId());
         verify(walletRepository, times(1)).save(any(Wallet.class));
     }
@@ -108,6 +116,24 @@ class WalletServiceTest {
         verify(walletRepository, times(1)).save(any(Wallet.class));
     }
 
+    @Test
+    void shouldDepositIntoStripeWithoutLockingWalletWhenStriped() {
+        BigDecimal depositAmount = new BigDecimal("50.00");
+        com.pixservice.domain.model.LedgerEntry stripeEntry = new com.pixservice.domain.model.LedgerEntry();
+        stripeEntry.setStripeIndex(1);
+        when(walletStripeService.isStriped(1L)).thenReturn(true);
+        when(walletRepository.findById(1L)).thenReturn(Optional.of(testWallet));
+        when(walletStripeService.credit(eq(testWallet), eq(Money.of(depositAmount)), eq(com.pixservice.domain.model.LedgerEntryType.DEPOSIT), anyString(), isNull()))
+                .thenReturn(stripeEntry);
+        when(walletStripeService.stripedBalance(testWallet)).thenReturn(Money.of("150.00"));
+
+        WalletResponse response = walletService.deposit(1L, depositAmount);
+
+        assertEquals(new BigDecimal("150.00"), response.getBalance());
+        verify(walletRepository, never()).findByIdForUpdate(any());
+        verify(walletRepository, never()).save(any(Wallet.class));
+    }
+
     @Test
     void shouldThrowExceptionWhenDepositInvalidAmount() {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,177 @@
+package com.pixservice.service;
+
+import com.pixservice.application.service.WalletStripeService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.Wallet;
+import com.pixservice.domain.model.WalletStripe;
+import com.pixservice.domain.repository.LedgerEntryRepository;
+import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.domain.repository.WalletStripeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletStripeServiceTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+    @Mock
+    private WalletStripeRepository walletStripeRepository;
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private WalletStripeService walletStripeService;
+
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletStripeService = new WalletStripeService(walletRepository, walletStripeRepository,
+                ledgerEntryRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(walletStripeService, "stripingEnabled", true);
+        ReflectionTestUtils.setField(walletStripeService, "maxStripes", 32);
+
+        wallet = new Wallet("merchant", Money.of("100.01"));
+        wallet.setId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSplitBalanceEvenlyWhenEnablingStripes() {
+        walletStripeService.enable(wallet, 4);
+
+        ArgumentCaptor<List<WalletStripe>> stripesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(walletStripeRepository).saveAll(stripesCaptor.capture());
+        List<WalletStripe> stripes = stripesCaptor.getValue();
+        assertEquals(4, stripes.size());
+        assertEquals(Money.of("25.01"), stripes.get(0).getBalance());
+        assertEquals(Money.of("25.00"), stripes.get(3).getBalance());
+        assertEquals(0, wallet.getBalance().signum());
+        assertEquals(4, wallet.getStripeCount());
+
+        ArgumentCaptor<List<LedgerEntry>> entriesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(entriesCaptor.capture());
+        Money ledgerSum = entriesCaptor.getValue().stream().map(LedgerEntry::getAmount).reduce(Money.ZERO, Money::plus);
+        assertEquals(0, ledgerSum.signum(), "Rebalanceamento não altera o saldo efetivo");
+        assertTrue(walletStripeService.isStriped(1L));
+    }
+
+    @Test
+    void shouldRejectEnableWhenStripingDisabled() {
+        ReflectionTestUtils.setField(walletStripeService, "stripingEnabled", false);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> walletStripeService.enable(wallet, 4));
+
+        assertEquals("Modo de sub-saldos desabilitado.", exception.getMessage());
+        verify(walletStripeRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldDebitStripeWithEnoughFunds() {
+        WalletStripe stripe = new WalletStripe(1L, 2, Money.of("50.00"));
+        when(walletStripeRepository.lockAnyWithFunds(1L, new BigDecimal("40.00"))).thenReturn(Optional.of(stripe));
+        when(ledgerEntryRepository.save(any(LedgerEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LedgerEntry entry = walletStripeService.debit(wallet, Money.of("40.00"), LedgerEntryType.WITHDRAWAL, "Saque", null);
+
+        assertEquals(Money.of("10.00"), stripe.getBalance());
+        assertEquals(Money.of("-40.00"), entry.getAmount());
+        assertEquals(2, entry.getStripeIndex());
+        assertEquals(Money.of("50.00"), entry.getBalanceBefore());
+        assertEquals(Money.of("10.00"), entry.getBalanceAfter());
+        verify(walletStripeRepository, never()).findAllByWalletIdForUpdate(any());
+    }
+
+    @Test
+    void shouldConsolidateFragmentedStripesBeforeDebit() {
+        wallet.setBalance(Money.ZERO);
+        WalletStripe richest = new WalletStripe(1L, 0, Money.of("30.00"));
+        WalletStripe donor = new WalletStripe(1L, 1, Money.of("20.00"));
+        WalletStripe other = new WalletStripe(1L, 2, Money.of("10.00"));
+        when(walletStripeRepository.lockAnyWithFunds(1L, new BigDecimal("45.00"))).thenReturn(Optional.empty());
+        when(walletStripeRepository.findAllByWalletIdForUpdate(1L)).thenReturn(List.of(richest, donor, other));
+        when(ledgerEntryRepository.save(any(LedgerEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LedgerEntry entry = walletStripeService.debit(wallet, Money.of("45.00"), LedgerEntryType.WITHDRAWAL, "Saque", null);
+
+        assertEquals(0, entry.getStripeIndex());
+        assertEquals(0, richest.getBalance().signum());
+        assertEquals(Money.of("5.00"), donor.getBalance());
+        assertEquals(Money.of("10.00"), other.getBalance());
+    }
+
+    @Test
+    void shouldThrowWhenStripesTotalIsInsufficient() {
+        wallet.setBalance(Money.ZERO);
+        when(walletStripeRepository.lockAnyWithFunds(1L, new BigDecimal("100.00"))).thenReturn(Optional.empty());
+        when(walletStripeRepository.findAllByWalletIdForUpdate(1L)).thenReturn(List.of(
+                new WalletStripe(1L, 0, Money.of("30.00")),
+                new WalletStripe(1L, 1, Money.of("20.00"))));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> walletStripeService.debit(wallet, Money.of("100.00"), LedgerEntryType.WITHDRAWAL, "Saque", null));
+
+        assertEquals("Saldo insuficiente.", exception.getMessage());
+        verify(ledgerEntryRepository, never()).save(any(LedgerEntry.class));
+    }
+
+    @Test
+    void shouldCreditAnyFreeStripe() {
+        WalletStripe stripe = new WalletStripe(1L, 3, Money.of("5.00"));
+        when(walletStripeRepository.lockAnyFree(1L)).thenReturn(Optional.of(stripe));
+        when(ledgerEntryRepository.save(any(LedgerEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LedgerEntry entry = walletStripeService.credit(wallet, Money.of("7.50"), LedgerEntryType.PIX_TRANSFER_IN, "Crédito", "e2e-1");
+
+        assertEquals(Money.of("12.50"), stripe.getBalance());
+        assertEquals(LedgerEntryType.PIX_TRANSFER_IN, entry.getType());
+        assertEquals("e2e-1", entry.getTransactionId());
+        assertEquals(3, entry.getStripeIndex());
+        verify(walletStripeRepository, never()).lockAny(any());
+        verify(walletRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void shouldReuseHeldStripeAndNeverWaitForWalletLockWhileHoldingOne() {
+        WalletStripe stripe = new WalletStripe(1L, 1, Money.of("5.00"));
+        when(walletStripeRepository.lockAnyFree(1L)).thenReturn(Optional.of(stripe));
+        when(walletStripeRepository.lockAnyWithFunds(1L, new BigDecimal("50.00"))).thenReturn(Optional.empty());
+        when(walletRepository.findByIdForUpdateNoWait(1L)).thenThrow(new CannotAcquireLockException("carteira ocupada"));
+        when(ledgerEntryRepository.save(any(LedgerEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Dois créditos na mesma transação (lote): o segundo reaproveita o stripe já bloqueado
+            walletStripeService.credit(wallet, Money.of("1.00"), LedgerEntryType.PIX_TRANSFER_IN, "Crédito", "e2e-1");
+            walletStripeService.credit(wallet, Money.of("2.00"), LedgerEntryType.PIX_TRANSFER_IN, "Crédito", "e2e-2");
+            assertEquals(Money.of("8.00"), stripe.getBalance());
+            verify(walletStripeRepository, times(1)).lockAnyFree(1L);
+
+            // Consolidar com um stripe na mão: lock da carteira sem espera, e a falha sobe para o lote
+            assertThrows(CannotAcquireLockException.class, () ->
+                    walletStripeService.debit(wallet, Money.of("50.00"), LedgerEntryType.WITHDRAWAL, "Saque", null));
+            verify(walletStripeRepository, never()).findAllByWalletIdForUpdate(any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
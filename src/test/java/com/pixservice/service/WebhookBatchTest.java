@@ -0,0 +1,153 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.*;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.application.service.WebhookBatchService;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixEventType;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.model.PixTransactionStatus;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lote de webhooks: créditos agrupados na carteira de destino, duplicados (no lote e já registrados) sem segundo
+ * efeito, transação inexistente como erro individual e eventos da mesma transação aplicados em ordem.
+ */
+@SpringBootTest
+@org.springframework.test.context.ActiveProfiles("test")
+class WebhookBatchTest {
+
+    @Autowired
+    private WebhookBatchService webhookBatchService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long fromWalletId;
+    private Long toWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("batch-webhook-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("batch-webhook-to", BigDecimal.ZERO)).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("batch-webhook@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldApplyBatchGroupedByWalletWithPerEventResults() {
+        String first = transfer("10.00");
+        String second = transfer("15.00");
+        String third = transfer("20.00");
+        PixWebhookRequest confirmFirst = event(first, PixEventType.CONFIRMED);
+
+        PixWebhookBatchResponse response = webhookBatchService.processWebhookBatch(new PixWebhookBatchRequest(List.of(
+                confirmFirst,
+                event(second, PixEventType.CONFIRMED),
+                confirmFirst,
+                event("E2E-BATCH-UNKNOWN", PixEventType.CONFIRMED),
+                event(third, PixEventType.REJECTED))));
+
+        assertEquals(4, response.getProcessed());
+        assertEquals(1, response.getFailed());
+        List<PixWebhookBatchItemResult> results = response.getResults();
+        assertEquals("Transação Pix confirmada e saldo creditado.", results.get(0).getMessage());
+        assertEquals(results.get(0), results.get(2));
+        assertEquals("ERROR", results.get(3).getStatus());
+        assertEquals("Transação Pix rejeitada e débito estornado.", results.get(4).getMessage());
+
+        assertEquals(Money.of("25.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+        assertEquals(Money.of("75.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(PixTransactionStatus.REJECTED, pixTransactionRepository.findById(third).orElseThrow().getStatus());
+        assertEquals(2, ledgerEntryRepository.findAll().stream()
+                .filter(entry -> entry.getType() == LedgerEntryType.PIX_TRANSFER_IN).count());
+
+        PixWebhookBatchResponse replay = webhookBatchService.processWebhookBatch(new PixWebhookBatchRequest(List.of(confirmFirst)));
+        assertEquals(1, replay.getDuplicates());
+        assertEquals("Evento já processado.", replay.getResults().get(0).getMessage());
+        assertEquals(Money.of("25.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldApplyOnlyFirstFinalEventOfSameTransaction() {
+        String endToEndId = transfer("30.00");
+
+        PixWebhookBatchResponse response = webhookBatchService.processWebhookBatch(new PixWebhookBatchRequest(List.of(
+                event(endToEndId, PixEventType.CONFIRMED),
+                event(endToEndId, PixEventType.REJECTED))));
+
+        assertEquals("Transação já em estado final ou processada. Evento registrado.", response.getResults().get(1).getMessage());
+        assertEquals(PixTransactionStatus.CONFIRMED, pixTransactionRepository.findById(endToEndId).orElseThrow().getStatus());
+        assertEquals(Money.of("30.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+        assertEquals(Money.of("70.00"), walletRepository.findById(fromWalletId).orElseThrow().getBalance());
+        assertEquals(3, pixEventRepository.count()); // INITIATED da transferência + 2 do lote
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> webhookBatchService.processWebhookBatch(new PixWebhookBatchRequest(List.of())));
+    }
+
+    private String transfer(String amount) {
+        return pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "batch-webhook@test.com", new BigDecimal(amount))).getEndToEndId();
+    }
+
+    private static PixWebhookRequest event(String endToEndId, PixEventType type) {
+        return new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(), type, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,138 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.PixWebhookResponse;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.application.service.WebhookService;
+import com.pixservice.domain.model.LedgerEntry;
+import com.pixservice.domain.model.LedgerEntryType;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixEventType;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agregação de créditos: CONFIRMED concorrentes para a mesma carteira gravados em grupo, com um lançamento por
+ * evento e saldos antes/depois encadeados; evento de transação inexistente mantém a exceção do caminho direto.
+ */
+@SpringBootTest(properties = {"pix.webhook.credit-coalescing.enabled=true", "pix.webhook.credit-coalescing.max-wait-ms=20"})
+@org.springframework.test.context.ActiveProfiles("test")
+class WebhookCreditCoalescingTest {
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long fromWalletId;
+    private Long toWalletId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        fromWalletId = walletService.createWallet(new CreateWalletRequest("coalesce-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("coalesce-to", new BigDecimal("5.00"))).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("coalesce@test.com", PixKeyType.EMAIL), toWalletId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentCreditsWithChainedBalances() throws Exception {
+        List<String> endToEndIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            endToEndIds.add(pixTransferService.transfer(UUID.randomUUID().toString(),
+                    new PixTransferRequest(fromWalletId, "coalesce@test.com", new BigDecimal("3.00"))).getEndToEndId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<PixWebhookResponse>> futures = new ArrayList<>();
+            for (String endToEndId : endToEndIds) {
+                futures.add(executor.submit(() -> webhookService.processWebhookEvent(
+                        new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(), PixEventType.CONFIRMED, LocalDateTime.now()))));
+            }
+            for (Future<PixWebhookResponse> future : futures) {
+                assertEquals("Transação Pix confirmada e saldo creditado.", future.get(10, TimeUnit.SECONDS).getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(Money.of("35.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+        List<LedgerEntry> credits = ledgerEntryRepository.findAll().stream()
+                .filter(entry -> entry.getType() == LedgerEntryType.PIX_TRANSFER_IN)
+                .sorted(Comparator.comparing(LedgerEntry::getId))
+                .toList();
+        assertEquals(10, credits.size());
+        Money expectedBefore = Money.of("5.00");
+        for (LedgerEntry credit : credits) {
+            assertEquals(expectedBefore, credit.getBalanceBefore());
+            assertEquals(expectedBefore.plus(credit.getAmount()), credit.getBalanceAfter());
+            expectedBefore = credit.getBalanceAfter();
+        }
+    }
+
+    @Test
+    void shouldKeepDirectPathExceptionForUnknownTransaction() {
+        assertThrows(IllegalArgumentException.class, () -> webhookService.processWebhookEvent(
+                new PixWebhookRequest("E2E-COALESCE-UNKNOWN", UUID.randomUUID().toString(), PixEventType.CONFIRMED, LocalDateTime.now())));
+    }
+}
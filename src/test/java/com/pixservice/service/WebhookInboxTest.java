@@ -0,0 +1,143 @@
+package com.pixservice.service;
+
+import com.pixservice.application.dto.CreateWalletRequest;
+import com.pixservice.application.dto.PixTransferRequest;
+import com.pixservice.application.dto.PixWebhookRequest;
+import com.pixservice.application.dto.RegisterPixKeyRequest;
+import com.pixservice.application.inbox.WebhookInbox;
+import com.pixservice.application.service.PixKeyService;
+import com.pixservice.application.service.PixTransferService;
+import com.pixservice.application.service.WalletService;
+import com.pixservice.domain.model.Money;
+import com.pixservice.domain.model.PixEventType;
+import com.pixservice.domain.model.PixKeyType;
+import com.pixservice.domain.model.PixTransactionStatus;
+import com.pixservice.domain.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ingestão de webhooks pelo inbox: evento gravado e processado pelos workers, duplicado sem nova linha nem
+ * segundo crédito, e erro de negócio marcado FAILED sem novas tentativas.
+ */
+@SpringBootTest(properties = {"pix.webhook.ingestion=inbox", "pix.webhook.inbox.partitions=2",
+        "pix.webhook.inbox.poll-interval-ms=20", "pix.webhook.inbox.max-attempts=2", "pix.webhook.inbox.retry-base-ms=10"})
+@org.springframework.test.context.ActiveProfiles("test")
+class WebhookInboxTest {
+
+    @Autowired
+    private WebhookInbox webhookInbox;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private PixKeyService pixKeyService;
+
+    @Autowired
+    private PixTransferService pixTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PixKeyRepository pixKeyRepository;
+
+    @Autowired
+    private PixTransactionRepository pixTransactionRepository;
+
+    @Autowired
+    private PixEventRepository pixEventRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private Long toWalletId;
+    private String endToEndId;
+
+    @BeforeEach
+    void setUp() {
+        cleanupDatabase();
+        Long fromWalletId = walletService.createWallet(new CreateWalletRequest("inbox-from", new BigDecimal("100.00"))).getId();
+        toWalletId = walletService.createWallet(new CreateWalletRequest("inbox-to", BigDecimal.ZERO)).getId();
+        pixKeyService.registerPixKey(new RegisterPixKeyRequest("inbox@test.com", PixKeyType.EMAIL), toWalletId);
+        endToEndId = pixTransferService.transfer(UUID.randomUUID().toString(),
+                new PixTransferRequest(fromWalletId, "inbox@test.com", new BigDecimal("40.00"))).getEndToEndId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupDatabase();
+    }
+
+    private void cleanupDatabase() {
+        jdbcTemplate.update("DELETE FROM webhook_inbox");
+        idempotencyKeyRepository.deleteAll();
+        pixEventRepository.deleteAll();
+        pixTransactionRepository.deleteAll();
+        ledgerEntryRepository.deleteAll();
+        pixKeyRepository.deleteAll();
+        walletRepository.deleteAll();
+    }
+
+    @Test
+    void shouldProcessEnqueuedEventOnce() throws InterruptedException {
+        PixWebhookRequest request = new PixWebhookRequest(endToEndId, UUID.randomUUID().toString(),
+                PixEventType.CONFIRMED, LocalDateTime.now());
+        webhookInbox.enqueue(request);
+        webhookInbox.enqueue(request);
+
+        assertEquals(1, inboxCount("1 = 1"));
+        awaitTrue(() -> inboxCount("status = 'DONE'") == 1);
+
+        assertEquals(PixTransactionStatus.CONFIRMED, pixTransactionRepository.findById(endToEndId).orElseThrow().getStatus());
+        assertEquals(Money.of("40.00"), walletRepository.findById(toWalletId).orElseThrow().getBalance());
+    }
+
+    @Test
+    void shouldMarkBusinessErrorFailedWithoutRetry() throws InterruptedException {
+        webhookInbox.enqueue(new PixWebhookRequest("E2E-INBOX-UNKNOWN", UUID.randomUUID().toString(),
+                PixEventType.CONFIRMED, LocalDateTime.now()));
+        webhookInbox.enqueue(new PixWebhookRequest("E2E-INBOX-UNKNOWN", UUID.randomUUID().toString(),
+                PixEventType.REJECTED, LocalDateTime.now()));
+
+        // Transação inexistente não é transitória: uma única tentativa, e o evento seguinte não fica bloqueado
+        awaitTrue(() -> inboxCount("status = 'FAILED' AND attempts = 1") == 2);
+        assertEquals(0, inboxCount("attempts > 1"));
+    }
+
+    @Test
+    void shouldRejectEventWithoutIdentifiers() {
+        assertThrows(IllegalArgumentException.class, () -> webhookInbox.enqueue(
+                new PixWebhookRequest(null, UUID.randomUUID().toString(), PixEventType.CONFIRMED, LocalDateTime.now())));
+    }
+
+    private int inboxCount(String condition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM webhook_inbox WHERE " + condition, Integer.class);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), "condição não atingida no prazo");
+    }
+}
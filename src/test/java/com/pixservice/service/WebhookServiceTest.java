@@ -1,5 +1,6 @@
 package com.pixservice.service;
 
+import com.pixservice.application.cache.WebhookDedupeCache;
 import com.pixservice.application.dto.PixWebhookRequest;
 import com.pixservice.application.dto.PixWebhookResponse;
 import com.pixservice.application.service.WebhookService;
@@ -8,11 +9,14 @@ import com.pixservice.domain.repository.LedgerEntryRepository;
 import com.pixservice.domain.repository.PixEventRepository;
 import com.pixservice.domain.repository.PixTransactionRepository;
 import com.pixservice.domain.repository.WalletRepository;
+import com.pixservice.infrastructure.persistence.PixTransactionTransition;
+import com.pixservice.infrastructure.persistence.PixTransactionTransitionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -33,6 +37,10 @@ class WebhookServiceTest {
     private WalletRepository walletRepository;
     @Mock
     private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private com.pixservice.application.service.WalletStripeService walletStripeService;
+    @Mock
+    private PixTransactionTransitionRepository transitionRepository;
 
     private WebhookService webhookService;
 
@@ -48,16 +56,19 @@ class WebhookServiceTest {
                 pixTransactionRepository,
                 walletRepository,
                 ledgerEntryRepository,
+                walletStripeService,
+                new WebhookDedupeCache(new io.micrometer.core.instrument.simple.SimpleMeterRegistry(), 1000, 600),
+                transitionRepository,
                 new io.micrometer.core.instrument.simple.SimpleMeterRegistry()
         );
 
-        fromWallet = new Wallet("user1", new BigDecimal("1000.00"));
+        fromWallet = new Wallet("user1", Money.of("1000.00"));
         fromWallet.setId(1L);
 
-        toWallet = new Wallet("user2", new BigDecimal("500.00"));
+        toWallet = new Wallet("user2", Money.of("500.00"));
         toWallet.setId(2L);
 
-        pendingPixTransaction = new PixTransaction("e2e123", fromWallet, "recipient@email.com", PixKeyType.EMAIL, new BigDecimal("100.00"), "idem123");
+        pendingPixTransaction = new PixTransaction("e2e123", fromWallet, "recipient@email.com", PixKeyType.EMAIL, Money.of("100.00"), "idem123");
         pendingPixTransaction.setToWallet(toWallet);
         pendingPixTransaction.setStatus(PixTransactionStatus.PENDING);
         pendingPixTransaction.setInitiatedAt(LocalDateTime.now());
@@ -80,7 +91,7 @@ class WebhookServiceTest {
         assertEquals("SUCCESS", response.getStatus());
         assertEquals("Transação Pix confirmada e saldo creditado.", response.getMessage());
         assertEquals(PixTransactionStatus.CONFIRMED, pendingPixTransaction.getStatus());
-        assertEquals(new BigDecimal("600.00"), toWallet.getBalance());
+        assertEquals(Money.of("600.00"), toWallet.getBalance());
 
         verify(pixEventRepository, times(1)).save(any(PixEvent.class));
         verify(pixTransactionRepository, times(1)).findById("e2e123");
@@ -106,7 +117,7 @@ class WebhookServiceTest {
         assertEquals("SUCCESS", response.getStatus());
         assertEquals("Transação Pix rejeitada e débito estornado.", response.getMessage());
         assertEquals(PixTransactionStatus.REJECTED, pendingPixTransaction.getStatus());
-        assertEquals(new BigDecimal("1100.00"), fromWallet.getBalance());
+        assertEquals(Money.of("1100.00"), fromWallet.getBalance());
 
         verify(pixEventRepository, times(1)).save(any(PixEvent.class));
         verify(pixTransactionRepository, times(1)).findById("e2e123");
@@ -183,4 +194,64 @@ class WebhookServiceTest {
         verify(ledgerEntryRepository, times(1)).save(any(LedgerEntry.class));
         verify(pixTransactionRepository, times(1)).save(pendingPixTransaction);
     }
+
+    @Test
+    void shouldAnswerDuplicateOfFinalizedEventFromCache() {
+        PixWebhookRequest request = new PixWebhookRequest("e2e123", "event1", PixEventType.CONFIRMED, LocalDateTime.now());
+
+        doAnswer(invocation -> invocation.getArgument(0)).when(pixEventRepository).save(any(PixEvent.class));
+        doReturn(Optional.of(pendingPixTransaction)).when(pixTransactionRepository).findById("e2e123");
+        doReturn(Optional.of(toWallet)).when(walletRepository).findByIdForUpdate(2L);
+        doReturn(toWallet).when(walletRepository).save(any(Wallet.class));
+        doReturn(pendingPixTransaction).when(pixTransactionRepository).save(any(PixTransaction.class));
+
+        webhookService.processWebhookEvent(request);
+        PixWebhookResponse response = webhookService.processWebhookEvent(request);
+
+        assertEquals("SUCCESS", response.getStatus());
+        assertEquals("Evento já processado.", response.getMessage());
+        assertNull(webhookService.resolveTargetWalletId(request));
+        assertEquals(Money.of("600.00"), toWallet.getBalance());
+
+        verify(pixEventRepository, times(1)).existsByEventIdAndEndToEndId("event1", "e2e123");
+        verify(pixEventRepository, times(1)).save(any(PixEvent.class));
+        verify(pixTransactionRepository, times(1)).findById("e2e123");
+    }
+
+    @Test
+    void shouldApplyEffectsOnlyForWinnerOfConditionalTransition() {
+        ReflectionTestUtils.setField(webhookService, "transitionMode", "cas");
+        PixWebhookRequest winner = new PixWebhookRequest("e2e123", "event1", PixEventType.CONFIRMED, LocalDateTime.now());
+        PixWebhookRequest loser = new PixWebhookRequest("e2e123", "event2", PixEventType.CONFIRMED, LocalDateTime.now());
+
+        doAnswer(invocation -> invocation.getArgument(0)).when(pixEventRepository).save(any(PixEvent.class));
+        when(transitionRepository.transition("e2e123", PixTransactionStatus.CONFIRMED))
+                .thenReturn(Optional.of(new PixTransactionTransition(PixTransactionStatus.PENDING, true, 1L, 2L,
+                        new BigDecimal("100.00"), "recipient@email.com", "user1")))
+                .thenReturn(Optional.of(new PixTransactionTransition(PixTransactionStatus.PENDING, false, null, null,
+                        null, null, null)));
+        doReturn(Optional.of(toWallet)).when(walletRepository).findByIdForUpdate(2L);
+        doReturn(toWallet).when(walletRepository).save(any(Wallet.class));
+
+        assertEquals("Transação Pix confirmada e saldo creditado.", webhookService.processWebhookEvent(winner).getMessage());
+        assertEquals("Transação já em estado final ou processada. Evento registrado.",
+                webhookService.processWebhookEvent(loser).getMessage());
+
+        assertEquals(Money.of("600.00"), toWallet.getBalance());
+        verify(ledgerEntryRepository, times(1)).save(any(LedgerEntry.class));
+        verify(pixTransactionRepository, never()).findById(anyString());
+        verify(pixTransactionRepository, never()).save(any(PixTransaction.class));
+    }
+
+    @Test
+    void shouldFailConditionalTransitionForUnknownTransaction() {
+        ReflectionTestUtils.setField(webhookService, "transitionMode", "cas");
+        PixWebhookRequest request = new PixWebhookRequest("nonexistent-e2e", "event1", PixEventType.REJECTED, LocalDateTime.now());
+
+        doAnswer(invocation -> invocation.getArgument(0)).when(pixEventRepository).save(any(PixEvent.class));
+        when(transitionRepository.transition("nonexistent-e2e", PixTransactionStatus.REJECTED)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> webhookService.processWebhookEvent(request));
+        verify(walletRepository, never()).findByIdForUpdate(anyLong());
+    }
 }